@@ -1,4 +1,6 @@
-CREATE sequence hibernate_sequence START 1;
+-- Ids are allocated by blocks of 50 (see 'AbstractEntity' pooled sequence generator).
+-- Existing databases: ALTER SEQUENCE hibernate_sequence INCREMENT BY 50;
+CREATE sequence hibernate_sequence START 1 INCREMENT 50;
 
 CREATE TABLE t_post_po (
     po_id bigint not null,
@@ -11,6 +13,9 @@ CREATE TABLE t_post_po (
     CONSTRAINT pk_t_post_po PRIMARY KEY(po_id)
 );
 
+-- Keyset pagination index (posts are paged by descending creation date then id).
+CREATE INDEX ix_po_creation_date_id ON t_post_po (creation_date DESC, po_id DESC);
+
 CREATE TABLE t_user_us (
     us_id bigint not null,
     us_name text not null,
@@ -42,15 +42,7 @@ public abstract class AbstractDispatchAsync implements DispatchAsync {
                                                                       final AsyncCallback<R> callback,
                                                                       final Collection<Loadable> loadables) {
 
-        final ExceptionHandler.Status status;
-
-        if (exceptionHandler != null) {
-            status = exceptionHandler.onFailure(caught);
-        } else {
-            status = ExceptionHandler.Status.CONTINUE;
-        }
-
-        switch (status) {
+        switch (onException(caught)) {
 
             case STOP:
                 return;
@@ -61,6 +53,24 @@ public abstract class AbstractDispatchAsync implements DispatchAsync {
         }
     }
 
+    /**
+     * Submits the given {@code caught} exception to the dispatch exception handler (if any).<br/>
+     * Allows an exception concerning several commands to be handled only once.
+     *
+     * @param caught
+     *         The exception.
+     * @return The exception handler status, {@link ExceptionHandler.Status#CONTINUE} if there is no exception
+     * handler.
+     */
+    protected ExceptionHandler.Status onException(final Throwable caught) {
+
+        if (exceptionHandler != null) {
+            return exceptionHandler.onFailure(caught);
+        }
+
+        return ExceptionHandler.Status.CONTINUE;
+    }
+
     /**
      * Handles a success command execution.
      *
@@ -1,17 +1,21 @@
 package dco.app.blog.client.security;
 
 import com.allen_sauer.gwt.log.client.Log;
+import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.shared.GWT;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.inject.Inject;
 import dco.app.blog.client.dispatch.AbstractDispatchAsync;
+import dco.app.blog.client.dispatch.ExceptionHandler;
 import dco.app.blog.client.event.bus.EventBus;
 import dco.app.blog.client.navigation.PageManager;
 import dco.app.blog.client.navigation.RequestParameter;
 import dco.app.blog.client.navigation.Zone;
 import dco.app.blog.client.ui.widget.Loadable;
 import dco.app.blog.client.util.ToStringBuilder;
+import dco.app.blog.shared.command.BatchCommand;
 import dco.app.blog.shared.command.base.Command;
+import dco.app.blog.shared.command.result.BatchResult;
 import dco.app.blog.shared.command.result.base.Result;
 import dco.app.blog.shared.util.ClientUtils;
 
@@ -162,36 +166,216 @@ public class SecureDispatchAsync extends AbstractDispatchAsync {
         final long startTime = new Date().getTime();
         setLoadableElementsEnabled(startTime, loadables, true);
 
+        // Command execution is deferred at the end of the current event loop in order to be batched with other commands.
+        pendingCommands.add(new PendingCommand<C, R>(command, callback, loadables, startTime));
+
+        if (pendingCommands.size() == 1) {
+            Scheduler.get().scheduleFinally(flushCommand);
+        }
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // BATCH METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * A command waiting to be sent to the server with its callback.
+     *
+     * @param <C>
+     *         The command type.
+     * @param <R>
+     *         The command result type.
+     * @author Denis
+     */
+    private final class PendingCommand<C extends Command<R>, R extends Result> {
+
+        private final C command;
+
+        private final AsyncCallback<R> callback;
+
+        private final Collection<Loadable> loadables;
+
+        private final long startTime;
+
+        private PendingCommand(final C command, final AsyncCallback<R> callback, final Collection<Loadable> loadables, final long startTime) {
+            this.command = command;
+            this.callback = callback;
+            this.loadables = loadables;
+            this.startTime = startTime;
+        }
+
+        /**
+         * Handles the command successful execution.
+         *
+         * @param result
+         *         The command result.
+         */
+        @SuppressWarnings("unchecked")
+        private void onSuccess(final Result result) {
+            try {
+
+                // Note: This cast is a dodgy hack to get around a GWT 1.6 async compiler issue
+                SecureDispatchAsync.this.onSuccess(command, (R) result, callback);
+
+            } finally {
+                // Sets loadable elements in "normal" state.
+                setLoadableElementsEnabled(startTime, loadables, false);
+            }
+        }
+
+        /**
+         * Handles the command failed execution.
+         *
+         * @param caught
+         *         The exception.
+         */
+        private void onFailure(final Throwable caught) {
+            try {
+
+                SecureDispatchAsync.this.onFailure(command, caught, callback, loadables);
+
+            } finally {
+                // Sets loadable elements in "normal" state.
+                setLoadableElementsEnabled(startTime, loadables, false);
+            }
+        }
+
+        /**
+         * Handles the failed execution of the batch containing the command.
+         *
+         * @param caught
+         *         The exception.
+         * @param status
+         *         The exception handler status (the exception has already been handled for the whole batch).
+         */
+        private void onBatchFailure(final Throwable caught, final ExceptionHandler.Status status) {
+            try {
+
+                if (status == ExceptionHandler.Status.CONTINUE) {
+                    callback.onFailure(caught);
+                }
+
+            } finally {
+                // Sets loadable elements in "normal" state.
+                setLoadableElementsEnabled(startTime, loadables, false);
+            }
+        }
+
+    }
+
+    /**
+     * Commands executed during the current event loop and waiting to be sent.
+     */
+    private final List<PendingCommand<?, ?>> pendingCommands = new ArrayList<PendingCommand<?, ?>>();
+
+    /**
+     * Sends the pending commands at the end of the current event loop.
+     */
+    private final Scheduler.ScheduledCommand flushCommand = new Scheduler.ScheduledCommand() {
+
+        @Override
+        public void execute() {
+            flush();
+        }
+    };
+
+    /**
+     * Sends the pending commands to the server: a single command is sent as is, several commands are wrapped into a
+     * {@link BatchCommand} in order to share the same RPC round-trip.
+     */
+    private void flush() {
+
+        if (pendingCommands.isEmpty()) {
+            return;
+        }
+
+        final List<PendingCommand<?, ?>> commands = new ArrayList<PendingCommand<?, ?>>(pendingCommands);
+        pendingCommands.clear();
+
         // Retrieving auth token.
         final String authToken = authenticationProvider.get().getAuthenticationToken();
 
+        if (commands.size() == 1) {
+            send(authToken, commands.get(0));
+
+        } else {
+            sendBatch(authToken, commands);
+        }
+    }
+
+    /**
+     * Sends the given {@code pendingCommand}.
+     *
+     * @param authToken
+     *         The authentication token.
+     * @param pendingCommand
+     *         The command to send.
+     */
+    private <C extends Command<R>, R extends Result> void send(final String authToken, final PendingCommand<C, R> pendingCommand) {
+
         // Command execution.
-        realService.execute(new CommandExecution<C, R>(authToken, command, pageManager.getCurrentPageToken()),
+        realService.execute(new CommandExecution<C, R>(authToken, pendingCommand.command, pageManager.getCurrentPageToken()),
+                new AsyncCallback<Result>() {
+
+                    @Override
+                    public void onSuccess(final Result result) {
+                        pendingCommand.onSuccess(result);
+                    }
+
+                    @Override
+                    public void onFailure(final Throwable caught) {
+                        pendingCommand.onFailure(caught);
+                    }
+                });
+    }
+
+    /**
+     * Sends the given {@code pendingCommands} within a single {@link BatchCommand}.
+     *
+     * @param authToken
+     *         The authentication token.
+     * @param pendingCommands
+     *         The commands to send.
+     */
+    private void sendBatch(final String authToken, final List<PendingCommand<?, ?>> pendingCommands) {
+
+        if (Log.isDebugEnabled()) {
+            Log.debug("Sending " + pendingCommands.size() + " commands within a single batch.");
+        }
+
+        final List<Command<?>> commands = new ArrayList<Command<?>>(pendingCommands.size());
+        for (final PendingCommand<?, ?> pendingCommand : pendingCommands) {
+            commands.add(pendingCommand.command);
+        }
+
+        // Batch execution.
+        realService.execute(new CommandExecution<BatchCommand, BatchResult>(authToken, new BatchCommand(commands), pageManager.getCurrentPageToken()),
                 new AsyncCallback<Result>() {
 
                     @Override
-                    @SuppressWarnings("unchecked")
-                    public void onSuccess(Result result) {
-                        try {
+                    public void onSuccess(final Result result) {
 
-                            // Note: This cast is a dodgy hack to get around a GWT 1.6 async compiler issue
-                            SecureDispatchAsync.this.onSuccess(command, (R) result, callback);
+                        final BatchResult batchResult = (BatchResult) result;
 
-                        } finally {
-                            // Sets loadable elements in "normal" state.
-                            setLoadableElementsEnabled(startTime, loadables, false);
+                        for (int i = 0; i < pendingCommands.size(); i++) {
+                            if (batchResult.getError(i) != null) {
+                                pendingCommands.get(i).onFailure(batchResult.getError(i));
+                            } else {
+                                pendingCommands.get(i).onSuccess(batchResult.getResult(i));
+                            }
                         }
                     }
 
                     @Override
                     public void onFailure(final Throwable caught) {
-                        try {
 
-                            SecureDispatchAsync.this.onFailure(command, caught, callback, loadables);
+                        // The batch failure is handled once for all its commands.
+                        final ExceptionHandler.Status status = onException(caught);
 
-                        } finally {
-                            // Sets loadable elements in "normal" state.
-                            setLoadableElementsEnabled(startTime, loadables, false);
+                        for (final PendingCommand<?, ?> pendingCommand : pendingCommands) {
+                            pendingCommand.onBatchFailure(caught, status);
                         }
                     }
                 });
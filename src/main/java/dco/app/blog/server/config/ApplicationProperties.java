@@ -0,0 +1,149 @@
+package dco.app.blog.server.config;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * <p>
+ * Application (non persistence) configuration properties.
+ * </p>
+ * <p>
+ * A property value is resolved in the following order:
+ * <ol>
+ * <li>System property (e.g. {@code -Ddispatch.handlers.eager=false}).</li>
+ * <li>System environment variable, upper-cased, prefixed with {@code BLOG_} and with dots replaced by underscores (e.g.
+ * {@code BLOG_DISPATCH_HANDLERS_EAGER=false}).</li>
+ * <li>{@code application.properties} classpath file.</li>
+ * <li>The default value provided by the caller.</li>
+ * </ol>
+ * </p>
+ *
+ * @author Denis
+ */
+public final class ApplicationProperties {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationProperties.class);
+
+    /**
+     * Application properties file.
+     */
+    private static final String FILE = "application.properties";
+
+    /**
+     * System environment properties prefix.
+     */
+    private static final String ENV_PREFIX = "BLOG_";
+
+    /**
+     * File corresponding {@link Properties}.
+     */
+    private static final Properties PROPERTIES = new Properties();
+
+    static {
+        try (final InputStream is = ApplicationProperties.class.getClassLoader().getResourceAsStream(FILE)) {
+
+            if (is != null) {
+                LOGGER.info("Loading application properties from file '{}'.", FILE);
+                PROPERTIES.load(is);
+                LOGGER.trace("Loaded properties: {}", PROPERTIES);
+
+            } else {
+                LOGGER.info("No application properties file '{}' ; using default values.", FILE);
+            }
+
+        } catch (final Exception e) {
+            LOGGER.error("Properties loading failure with file '" + FILE + "'.", e);
+            throw new UnsupportedOperationException("Application configuration file '" + FILE + "' cannot be read.");
+        }
+    }
+
+    /**
+     * Returns the {@code key} property value.
+     *
+     * @param key
+     *         The property key.
+     * @param defaultValue
+     *         The default value returned if the property is not defined.
+     * @return The {@code key} property value, or {@code defaultValue} if the property is not defined.
+     */
+    public static String get(final String key, final String defaultValue) {
+
+        String value = System.getProperty(key);
+
+        if (StringUtils.isBlank(value)) {
+            value = System.getenv(ENV_PREFIX + StringUtils.replaceChars(key, '.', '_').toUpperCase());
+        }
+
+        if (StringUtils.isBlank(value)) {
+            value = PROPERTIES.getProperty(key);
+        }
+
+        return StringUtils.isBlank(value) ? defaultValue : value.trim();
+    }
+
+    /**
+     * Returns the {@code key} property value as a boolean.
+     *
+     * @param key
+     *         The property key.
+     * @param defaultValue
+     *         The default value returned if the property is not defined.
+     * @return The {@code key} property value, or {@code defaultValue} if the property is not defined.
+     */
+    public static boolean getBoolean(final String key, final boolean defaultValue) {
+        return Boolean.parseBoolean(get(key, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Returns the {@code key} property value as an integer.
+     *
+     * @param key
+     *         The property key.
+     * @param defaultValue
+     *         The default value returned if the property is not defined.
+     * @return The {@code key} property value, or {@code defaultValue} if the property is not defined.
+     * @throws IllegalArgumentException
+     *         If the property value is not a valid integer.
+     */
+    public static int getInt(final String key, final int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    /**
+     * Returns the {@code key} property value as a long.
+     *
+     * @param key
+     *         The property key.
+     * @param defaultValue
+     *         The default value returned if the property is not defined.
+     * @return The {@code key} property value, or {@code defaultValue} if the property is not defined.
+     * @throws IllegalArgumentException
+     *         If the property value is not a valid long.
+     */
+    public static long getLong(final String key, final long defaultValue) {
+        final String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid numeric value '" + value + "' for application property '" + key + "'.", e);
+        }
+    }
+
+    /**
+     * Utility class constructor.
+     */
+    private ApplicationProperties() {
+        // Only provides static methods.
+    }
+
+}
@@ -0,0 +1,141 @@
+package dco.app.blog.server.config;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.ehcache.EhCacheRegionFactory;
+import org.hibernate.cfg.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * In-process (EhCache) second-level cache region factory, configured from the persistence properties instead of an
+ * {@code ehcache.xml} file.
+ * </p>
+ * <p>
+ * Each region is sized and expired with the {@value #PREFIX}{@code <region>.size} (maximum number of entries) and
+ * {@value #PREFIX}{@code <region>.ttl} (time-to-live in seconds) properties. Regions without configuration use the
+ * {@value #PREFIX}{@value #DEFAULT_REGION}{@code .*} properties. The update timestamps region never expires, as
+ * required by the query cache.
+ * </p>
+ *
+ * @author Denis
+ */
+public class CacheRegionFactory extends EhCacheRegionFactory {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheRegionFactory.class);
+
+    /**
+     * Regions configuration properties prefix.
+     */
+    static final String PREFIX = "blog.cache.";
+
+    /**
+     * Default region name.
+     */
+    static final String DEFAULT_REGION = "default";
+
+    /**
+     * Region size property suffix.
+     */
+    private static final String SIZE_SUFFIX = ".size";
+
+    /**
+     * Region time-to-live property suffix.
+     */
+    private static final String TTL_SUFFIX = ".ttl";
+
+    /**
+     * Default region size (if not configured).
+     */
+    private static final int DEFAULT_SIZE = 1000;
+
+    /**
+     * Hibernate update timestamps region name.
+     */
+    private static final String TIMESTAMPS_REGION = "org.hibernate.cache.spi.UpdateTimestampsCache";
+
+    /**
+     * Hibernate default query region name.
+     */
+    private static final String QUERY_REGION = "org.hibernate.cache.internal.StandardQueryCache";
+
+    /**
+     * Cache managers counter (each persistence unit owns its cache manager).
+     */
+    private static final AtomicInteger MANAGERS = new AtomicInteger();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start(final Settings settings, final Properties properties) throws CacheException {
+
+        if (manager != null) {
+            LOGGER.warn("Cache region factory already started.");
+            return;
+        }
+
+        this.settings = settings;
+
+        final Configuration configuration = new Configuration().name("blog-" + MANAGERS.incrementAndGet()).updateCheck(false);
+
+        final Map<String, CacheConfiguration> regions = new HashMap<>();
+
+        for (final String key : properties.stringPropertyNames()) {
+
+            if (!key.startsWith(PREFIX) || !(key.endsWith(SIZE_SUFFIX) || key.endsWith(TTL_SUFFIX))) {
+                continue;
+            }
+
+            final String region = key.substring(PREFIX.length(), key.lastIndexOf('.'));
+            final CacheConfiguration cache = regions.computeIfAbsent(region, name -> new CacheConfiguration(name, DEFAULT_SIZE).eternal(false));
+            final String value = StringUtils.trimToEmpty(properties.getProperty(key));
+
+            if (key.endsWith(SIZE_SUFFIX)) {
+                cache.maxElementsInMemory(Integer.parseInt(value));
+            } else {
+                cache.timeToLiveSeconds(Long.parseLong(value));
+            }
+        }
+
+        CacheConfiguration defaultCache = regions.remove(DEFAULT_REGION);
+
+        if (defaultCache == null) {
+            defaultCache = new CacheConfiguration(DEFAULT_REGION, DEFAULT_SIZE).eternal(false);
+        }
+
+        configuration.defaultCache(defaultCache);
+
+        if (!regions.containsKey(QUERY_REGION)) {
+            regions.put(QUERY_REGION, defaultCache.clone().name(QUERY_REGION));
+        }
+
+        if (!regions.containsKey(TIMESTAMPS_REGION)) {
+            // One entry per table, never expired.
+            regions.put(TIMESTAMPS_REGION, new CacheConfiguration(TIMESTAMPS_REGION, DEFAULT_SIZE).eternal(true));
+        }
+
+        for (final CacheConfiguration region : regions.values()) {
+            configuration.addCache(region);
+        }
+
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Starting second-level cache '{}' with regions: {}.", configuration.getName(), regions.keySet());
+        }
+
+        manager = new CacheManager(configuration);
+    }
+
+}
@@ -1,7 +1,9 @@
 package dco.app.blog.server.config;
 
 import dco.app.blog.server.config.dispatch.AbstractCommandHandlerModule;
+import dco.app.blog.server.handler.BatchCommandHandler;
 import dco.app.blog.server.handler.SecureNavigationHandler;
+import dco.app.blog.shared.command.BatchCommand;
 import dco.app.blog.shared.command.SecureNavigationCommand;
 
 /**
@@ -22,6 +24,7 @@ public class CommandHandlerModule extends AbstractCommandHandlerModule {
     @Override
     protected void configureHandlers() {
         // Thank you for maintaining alphabetical order.
+        bindHandler(BatchCommand.class, BatchCommandHandler.class);
         bindHandler(SecureNavigationCommand.class, SecureNavigationHandler.class);
     }
 
@@ -0,0 +1,154 @@
+package dco.app.blog.server.config;
+
+import com.mchange.v2.c3p0.PooledDataSource;
+import com.zaxxer.hikari.pool.HikariPoolMBean;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+
+import javax.management.JMX;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * <p>
+ * Supported JDBC connection pools (see {@code persistence.pool} property).
+ * </p>
+ * <p>
+ * Each pool translates the pool-neutral sizing properties ({@code persistence.pool.*}) into its own Hibernate
+ * properties, and reads its idle and total connections counts (the other statistics are measured by the {@link
+ * InstrumentedConnectionProvider}).
+ * </p>
+ *
+ * @author Denis
+ */
+enum ConnectionPool {
+
+    /**
+     * c3p0 (http://www.mchange.com/projects/c3p0/).
+     */
+    C3P0("org.hibernate.c3p0.internal.C3P0ConnectionProvider", "hibernate.c3p0.") {
+
+        @Override
+        void configure(final Properties properties, final String poolName, final int minSize, final int maxSize, final int idleTimeout,
+                       final int acquireTimeout) {
+            properties.setProperty(prefix + "min_size", String.valueOf(minSize));
+            properties.setProperty(prefix + "max_size", String.valueOf(maxSize));
+            properties.setProperty(prefix + "timeout", String.valueOf(idleTimeout));
+            properties.setProperty(prefix + "checkoutTimeout", String.valueOf(acquireTimeout));
+            properties.setProperty(prefix + "dataSourceName", poolName);
+            properties.setProperty(prefix + "max_statements", "100");
+            properties.setProperty(prefix + "acquire_increment", "1");
+            properties.setProperty(prefix + "numHelperThreads", "6");
+        }
+
+        @Override
+        int[] getConnectionsCounts(final ConnectionProvider provider, final String poolName) throws SQLException {
+            final PooledDataSource dataSource = (PooledDataSource) provider.unwrap(DataSource.class);
+            return new int[]{
+                    dataSource.getNumIdleConnectionsDefaultUser(),
+                    dataSource.getNumConnectionsDefaultUser()
+            };
+        }
+
+    },
+
+    /**
+     * HikariCP (https://github.com/brettwooldridge/HikariCP).
+     */
+    HIKARI("org.hibernate.hikaricp.internal.HikariCPConnectionProvider", "hibernate.hikari.") {
+
+        @Override
+        void configure(final Properties properties, final String poolName, final int minSize, final int maxSize, final int idleTimeout,
+                       final int acquireTimeout) {
+            properties.setProperty(prefix + "minimumIdle", String.valueOf(minSize));
+            properties.setProperty(prefix + "maximumPoolSize", String.valueOf(maxSize));
+            properties.setProperty(prefix + "idleTimeout", String.valueOf(idleTimeout * 1000L));
+            properties.setProperty(prefix + "connectionTimeout", String.valueOf(acquireTimeout));
+            properties.setProperty(prefix + "poolName", poolName);
+            // Connections counts are read from the pool MBean.
+            properties.setProperty(prefix + "registerMbeans", "true");
+        }
+
+        @Override
+        int[] getConnectionsCounts(final ConnectionProvider provider, final String poolName) throws SQLException {
+            try {
+
+                final HikariPoolMBean pool = JMX.newMBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                        new ObjectName("com.zaxxer.hikari:type=Pool (" + poolName + ")"), HikariPoolMBean.class);
+
+                return new int[]{
+                        pool.getIdleConnections(),
+                        pool.getTotalConnections()
+                };
+
+            } catch (final MalformedObjectNameException | RuntimeException e) {
+                throw new SQLException("Pool '" + poolName + "' MBean cannot be read.", e);
+            }
+        }
+
+    };
+
+    /**
+     * The pool Hibernate connection provider class name.
+     */
+    final String providerClass;
+
+    /**
+     * The pool Hibernate properties prefix.
+     */
+    final String prefix;
+
+    ConnectionPool(final String providerClass, final String prefix) {
+        this.providerClass = providerClass;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Sets the pool Hibernate properties.
+     *
+     * @param properties
+     *         The persistence properties.
+     * @param poolName
+     *         The pool name.
+     * @param minSize
+     *         Minimum number of pooled connections.
+     * @param maxSize
+     *         Maximum number of pooled connections.
+     * @param idleTimeout
+     *         Idle connections timeout (in seconds), {@code 0} to keep idle connections.
+     * @param acquireTimeout
+     *         Maximum wait for a connection (in milliseconds).
+     */
+    abstract void configure(Properties properties, String poolName, int minSize, int maxSize, int idleTimeout, int acquireTimeout);
+
+    /**
+     * Returns the idle and total connections counts of the given pool {@code provider}.
+     *
+     * @param provider
+     *         The pool connection provider.
+     * @param poolName
+     *         The pool name.
+     * @return The idle connections count, then the total connections count.
+     * @throws SQLException
+     *         If the counts cannot be read.
+     */
+    abstract int[] getConnectionsCounts(ConnectionProvider provider, String poolName) throws SQLException;
+
+    /**
+     * Returns the pool corresponding to the given {@code name}.
+     *
+     * @param name
+     *         The pool name (case insensitive), {@code null} for the default pool ({@link #C3P0}).
+     * @return The pool.
+     * @throws IllegalArgumentException
+     *         If the pool is not supported.
+     */
+    static ConnectionPool of(final String name) {
+        return name != null ? valueOf(name.trim().toUpperCase(Locale.ROOT)) : C3P0;
+    }
+
+}
@@ -0,0 +1,315 @@
+package dco.app.blog.server.config;
+
+import dco.app.blog.server.metrics.LatencyHistogram;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.ServiceRegistryAwareService;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.hibernate.service.spi.Startable;
+import org.hibernate.service.spi.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Hibernate connection provider measuring the {@link ConnectionPool} it delegates to.
+ * </p>
+ * <p>
+ * Counts the connections in use and the threads waiting for a connection, records the connections acquisition
+ * latencies and counts the failed acquisitions. A failure lasting about the pool acquisition timeout (90% of it, pools
+ * timers being coarse) is counted as a timeout: the pool is exhausted.
+ * </p>
+ *
+ * @author Denis
+ * @see dco.app.blog.server.metrics.ConnectionPoolMetrics
+ */
+public class InstrumentedConnectionProvider implements ConnectionProvider, Configurable, ServiceRegistryAwareService, Startable, Stoppable {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = -2950143413652218719L;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstrumentedConnectionProvider.class);
+
+    /**
+     * Persistence property setting the pool (see {@link ConnectionPool#of(String)}).
+     */
+    static final String POOL_PROPERTY = "blog.pool";
+
+    /**
+     * Persistence property setting the pool name.
+     */
+    static final String POOL_NAME_PROPERTY = "blog.pool.name";
+
+    /**
+     * Persistence property setting the maximum number of pooled connections.
+     */
+    static final String POOL_MAX_SIZE_PROPERTY = "blog.pool.max_size";
+
+    /**
+     * Persistence property setting the pool acquisition timeout (in milliseconds).
+     */
+    static final String POOL_ACQUIRE_TIMEOUT_PROPERTY = "blog.pool.acquire_timeout";
+
+    /**
+     * Property setting the acquisition latencies sliding window duration (in seconds).
+     */
+    private static final String WINDOW_PROPERTY = "metrics.window";
+
+    /**
+     * Number of slices of the acquisition latencies sliding window.
+     */
+    private static final int WINDOW_SLICES = 6;
+
+    /**
+     * Connections acquisition latencies.
+     */
+    private final LatencyHistogram acquireLatencies = new LatencyHistogram(ApplicationProperties.getLong(WINDOW_PROPERTY, 300L), WINDOW_SLICES,
+            TimeUnit.SECONDS);
+
+    /**
+     * Connections in use.
+     */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * Threads waiting for a connection.
+     */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Failed acquisitions count.
+     */
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Timed out acquisitions count.
+     */
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private ServiceRegistryImplementor serviceRegistry;
+
+    private ConnectionPool pool;
+
+    private String poolName;
+
+    private int maxSize;
+
+    /**
+     * Acquisition timeout in nanoseconds.
+     */
+    private long acquireTimeout;
+
+    /**
+     * The pool connection provider.
+     */
+    private ConnectionProvider delegate;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void injectServices(final ServiceRegistryImplementor serviceRegistry) {
+        this.serviceRegistry = serviceRegistry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void configure(final Map configurationValues) {
+
+        pool = ConnectionPool.of((String) configurationValues.get(POOL_PROPERTY));
+        poolName = String.valueOf(configurationValues.get(POOL_NAME_PROPERTY));
+        maxSize = Integer.parseInt(String.valueOf(configurationValues.get(POOL_MAX_SIZE_PROPERTY)));
+        acquireTimeout = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(String.valueOf(configurationValues.get(POOL_ACQUIRE_TIMEOUT_PROPERTY))));
+
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Connection pool '{}': {} ; Maximum size: {} ; Acquisition timeout: {} ms.", poolName, pool, maxSize,
+                    TimeUnit.NANOSECONDS.toMillis(acquireTimeout));
+        }
+
+        try {
+
+            delegate = (ConnectionProvider) Class.forName(pool.providerClass).newInstance();
+
+        } catch (final ReflectiveOperationException e) {
+            throw new HibernateException("Connection pool '" + pool + "' provider cannot be instantiated (missing dependency?).", e);
+        }
+
+        if (delegate instanceof ServiceRegistryAwareService) {
+            ((ServiceRegistryAwareService) delegate).injectServices(serviceRegistry);
+        }
+        if (delegate instanceof Configurable) {
+            ((Configurable) delegate).configure(configurationValues);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start() {
+        if (delegate instanceof Startable) {
+            ((Startable) delegate).start();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stop() {
+        if (delegate instanceof Stoppable) {
+            ((Stoppable) delegate).stop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+
+        waiting.incrementAndGet();
+        final long start = System.nanoTime();
+        boolean acquired = false;
+
+        try {
+
+            final Connection connection = delegate.getConnection();
+            acquired = true;
+            active.incrementAndGet();
+            return connection;
+
+        } finally {
+
+            final long duration = System.nanoTime() - start;
+            waiting.decrementAndGet();
+            acquireLatencies.record(duration);
+
+            if (!acquired) {
+                failures.incrementAndGet();
+                if (duration >= acquireTimeout / 10 * 9) {
+                    timeouts.incrementAndGet();
+                    if (LOGGER.isWarnEnabled()) {
+                        LOGGER.warn("Connection pool '{}' exhausted: no connection acquired within {} ms ({} in use, {} waiting).", poolName,
+                                TimeUnit.NANOSECONDS.toMillis(duration), active.get(), waiting.get());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void closeConnection(final Connection connection) throws SQLException {
+        try {
+            delegate.closeConnection(connection);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return delegate.supportsAggressiveRelease();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean isUnwrappableAs(final Class unwrapType) {
+        return unwrapType.isInstance(this) || delegate.isUnwrappableAs(unwrapType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(final Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return (T) this;
+        } else if (delegate.isUnwrappableAs(unwrapType)) {
+            return delegate.unwrap(unwrapType);
+        } else {
+            throw new UnknownUnwrapTypeException(unwrapType);
+        }
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // STATISTICS.
+    //
+    // --------------------------------------------------------------------------------
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    public LatencyHistogram.Snapshot getAcquireLatencies() {
+        return acquireLatencies.snapshot();
+    }
+
+    /**
+     * Returns the pool idle and total connections counts.
+     *
+     * @return The idle connections count, then the total connections count ; {@code null} if the pool cannot provide
+     * them.
+     */
+    public int[] getConnectionsCounts() {
+        try {
+
+            return pool.getConnectionsCounts(delegate, poolName);
+
+        } catch (final SQLException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Connection pool '" + poolName + "' counts cannot be read.", e);
+            }
+            return null;
+        }
+    }
+
+}
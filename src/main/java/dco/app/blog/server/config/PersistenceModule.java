@@ -5,14 +5,19 @@ import com.google.inject.Singleton;
 import com.google.inject.persist.jpa.JpaPersistModule;
 import dco.app.blog.server.dao.AuthenticationDAO;
 import dco.app.blog.server.dao.PostDAO;
+import dco.app.blog.server.dao.base.ReadReplica;
 import dco.app.blog.server.dao.impl.AuthenticationDAOImpl;
 import dco.app.blog.server.dao.impl.PostDAOImpl;
+import dco.app.blog.server.metrics.ConnectionPoolMetrics;
+import dco.app.blog.server.metrics.MetricsSources;
+import dco.app.blog.server.metrics.SecondLevelCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.validation.Validation;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
+import java.util.Properties;
 
 /**
  * Created by Denis on 24/04/15.
@@ -26,6 +31,11 @@ public class PersistenceModule extends AbstractModule {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(PersistenceModule.class);
 
+    /**
+     * The persistence unit name (see {@code persistence.xml}).
+     */
+    private static final String PERSISTENCE_UNIT = "blog-datasource";
+
     /**
      * {@inheritDoc}
      */
@@ -35,8 +45,11 @@ public class PersistenceModule extends AbstractModule {
         LOGGER.info("Initializing persistence module.");
 
         // Installs the JPA module.
-        install(new JpaPersistModule("blog-datasource")
-                .properties(PersistenceProperties.init(getPersistencePropertiesFile())));
+        final Properties properties = PersistenceProperties.init(getPersistencePropertiesFile());
+        install(new JpaPersistModule(PERSISTENCE_UNIT).properties(properties));
+
+        // Optional read replica.
+        bind(ReadReplica.class).toInstance(new ReadReplica(PERSISTENCE_UNIT, PersistenceProperties.initReplica(properties)));
 
         // JSR-303 : bean validation.
         final ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
@@ -45,6 +58,10 @@ public class PersistenceModule extends AbstractModule {
 
         bind(AuthenticationDAO.class).to(AuthenticationDAOImpl.class).in(Singleton.class);
         bind(PostDAO.class).to(PostDAOImpl.class).in(Singleton.class);
+
+        // Second-level cache and connection pools statistics.
+        MetricsSources.bind(binder(), SecondLevelCacheMetrics.class);
+        MetricsSources.bind(binder(), ConnectionPoolMetrics.class);
     }
 
     /**
@@ -1,5 +1,8 @@
 package dco.app.blog.server.config;
 
+import dco.app.blog.server.dao.PostDAO;
+import dco.app.blog.server.model.Post;
+import dco.app.blog.server.model.User;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +26,28 @@ final class PersistenceProperties {
      */
     private static final String PAAS_ENV_PREFIX = "CU_";
 
+    /**
+     * Prefix of the read replica connection properties in the local persistence properties file (e.g. {@code
+     * replica.hibernate.connection.url}).
+     */
+    private static final String REPLICA_PREFIX = "replica.";
+
+    /**
+     * Application property selecting the connection pool (see {@link ConnectionPool}) ; also the prefix of the pool
+     * sizing application properties.
+     */
+    private static final String POOL_PROPERTY = "persistence.pool";
+
+    /**
+     * Name of the primary database connection pool.
+     */
+    private static final String PRIMARY_POOL_NAME = "primary";
+
+    /**
+     * Name of the read replica connection pool.
+     */
+    private static final String REPLICA_POOL_NAME = "replica";
+
     /**
      * File corresponding {@link java.util.Properties}.
      */
@@ -45,11 +70,14 @@ final class PersistenceProperties {
         LOGGER.info("Initializing persistence properties ; System environment: {}", System.getenv());
 
         final Properties properties = new Properties();
+        PROPERTIES.clear();
 
-        // Connection pool configuration.
-        // https://community.jboss.org/wiki/HowToConfigureTheC3P0ConnectionPool
-        // http://www.mchange.com/projects/c3p0/
-        properties.setProperty("hibernate.connection.provider_class", "org.hibernate.service.jdbc.connections.internal.C3P0ConnectionProvider");
+        // Sequence ids are allocated by blocks (pooled optimizer), statements are sent in ordered JDBC batches.
+        properties.setProperty("hibernate.id.new_generator_mappings", "true");
+        properties.setProperty("hibernate.jdbc.batch_size", "50");
+        properties.setProperty("hibernate.jdbc.batch_versioned_data", "true");
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
 
         if (isProductionEnvironment()) {
 
@@ -83,13 +111,6 @@ final class PersistenceProperties {
             properties.setProperty("hibernate.show_sql", "false");
             properties.setProperty("hibernate.format_sql", "false");
 
-            properties.setProperty("hibernate.c3p0.min_size", "1");
-            properties.setProperty("hibernate.c3p0.max_size", "15");
-            properties.setProperty("hibernate.c3p0.max_statements", "100");
-            properties.setProperty("hibernate.c3p0.timeout", "0");
-            properties.setProperty("hibernate.c3p0.acquire_increment", "1");
-            properties.setProperty("hibernate.c3p0.numHelperThreads", "6");
-
         } else {
 
             // --
@@ -112,12 +133,30 @@ final class PersistenceProperties {
             setOptional(properties, "hibernate.hbm2ddl.auto", "");
             setOptional(properties, "hibernate.show_sql", "true");
             setOptional(properties, "hibernate.format_sql", "true");
-            setOptional(properties, "hibernate.c3p0.min_size", "1");
-            setOptional(properties, "hibernate.c3p0.max_size", "15");
-            setOptional(properties, "hibernate.c3p0.max_statements", "100");
-            setOptional(properties, "hibernate.c3p0.timeout", "0");
-            setOptional(properties, "hibernate.c3p0.acquire_increment", "1");
-            setOptional(properties, "hibernate.c3p0.numHelperThreads", "6");
+        }
+
+        // Connection pool (see 'persistence.pool.*' application properties).
+        initPool(properties, PRIMARY_POOL_NAME);
+
+        // Second-level cache (in-process) with its statistics ; see 'CacheRegionFactory' for regions configuration.
+        setOptional(properties, "hibernate.cache.use_second_level_cache", "true");
+        setOptional(properties, "hibernate.cache.use_query_cache", "true");
+        setOptional(properties, "hibernate.cache.region.factory_class", CacheRegionFactory.class.getName());
+        setOptional(properties, "hibernate.generate_statistics", "true");
+        setOptional(properties, CacheRegionFactory.PREFIX + CacheRegionFactory.DEFAULT_REGION + ".size", "1000");
+        setOptional(properties, CacheRegionFactory.PREFIX + CacheRegionFactory.DEFAULT_REGION + ".ttl", "600");
+        setOptional(properties, CacheRegionFactory.PREFIX + Post.CACHE_REGION + ".size", "1000");
+        setOptional(properties, CacheRegionFactory.PREFIX + Post.CACHE_REGION + ".ttl", "3600");
+        setOptional(properties, CacheRegionFactory.PREFIX + User.CACHE_REGION + ".size", "1000");
+        setOptional(properties, CacheRegionFactory.PREFIX + User.CACHE_REGION + ".ttl", "600");
+        setOptional(properties, CacheRegionFactory.PREFIX + PostDAO.POSTS_QUERY_REGION + ".size", "100");
+        setOptional(properties, CacheRegionFactory.PREFIX + PostDAO.POSTS_QUERY_REGION + ".ttl", "300");
+
+        for (final String key : PROPERTIES.stringPropertyNames()) {
+            if (key.startsWith(CacheRegionFactory.PREFIX)) {
+                // Other regions configuration.
+                properties.setProperty(key, PROPERTIES.getProperty(key));
+            }
         }
 
         LOGGER.info("Persistence properties: {}", properties);
@@ -125,6 +164,102 @@ final class PersistenceProperties {
         return properties;
     }
 
+    /**
+     * <p>
+     * Initializes the read replica persistence properties, from the given primary database {@code properties}.
+     * </p>
+     * <p>
+     * The replica is configured by the {@code env.database.replica.host} environment key in production environment, or
+     * by the {@code replica.hibernate.connection.*} properties of the local persistence properties file. The replica
+     * has no second-level cache (its entries could not be evicted by the primary database writes).
+     * </p>
+     * <p>
+     * <b>Must be called after {@link #init(String)}.</b>
+     * </p>
+     *
+     * @param properties
+     *         The primary database persistence properties.
+     * @return The read replica persistence properties, or {@code null} if no replica is configured.
+     */
+    static Properties initReplica(final Properties properties) {
+
+        final String url;
+
+        if (isProductionEnvironment()) {
+
+            final String hostKey = PROPERTIES.getProperty("env.database.replica.host");
+            final String host = hostKey != null ? System.getenv().get(hostKey) : null;
+            final String dbName = System.getenv().get(PROPERTIES.getProperty("env.database.name"));
+
+            url = StringUtils.isNotBlank(host) ? PROPERTIES.getProperty("jdbc.url").replace("{host}", host).replace("{dbName}", dbName) : null;
+
+        } else {
+            url = PROPERTIES.getProperty(REPLICA_PREFIX + "hibernate.connection.url");
+        }
+
+        if (StringUtils.isBlank(url)) {
+            LOGGER.info("No read replica configured.");
+            return null;
+        }
+
+        final Properties replicaProperties = new Properties();
+        replicaProperties.putAll(properties);
+
+        replicaProperties.setProperty("hibernate.connection.url", url);
+        replicaProperties.setProperty("hibernate.connection.username", PROPERTIES.getProperty(REPLICA_PREFIX + "hibernate.connection.username",
+                properties.getProperty("hibernate.connection.username")));
+        replicaProperties.setProperty("hibernate.connection.password", PROPERTIES.getProperty(REPLICA_PREFIX + "hibernate.connection.password",
+                properties.getProperty("hibernate.connection.password")));
+
+        initPool(replicaProperties, REPLICA_POOL_NAME);
+
+        replicaProperties.setProperty("hibernate.hbm2ddl.auto", "");
+        replicaProperties.setProperty("hibernate.cache.use_second_level_cache", "false");
+        replicaProperties.setProperty("hibernate.cache.use_query_cache", "false");
+
+        LOGGER.info("Read replica url: '{}'.", url);
+
+        return replicaProperties;
+    }
+
+    /**
+     * <p>
+     * Sets the connection pool properties: the pool selected by the {@code persistence.pool} application property, sized
+     * by the {@code persistence.pool.*} application properties (that can be overridden by system properties or
+     * environment variables, see {@link ApplicationProperties}).
+     * </p>
+     * <p>
+     * The pool specific properties read from the persistence properties file (e.g. {@code hibernate.c3p0.*}) take
+     * precedence.
+     * </p>
+     *
+     * @param properties
+     *         The persistence properties.
+     * @param poolName
+     *         The pool name (used by metrics).
+     */
+    private static void initPool(final Properties properties, final String poolName) {
+
+        final ConnectionPool pool = ConnectionPool.of(ApplicationProperties.get(POOL_PROPERTY, ConnectionPool.C3P0.name()));
+        final int maxSize = ApplicationProperties.getInt(POOL_PROPERTY + ".max_size", 15);
+        final int acquireTimeout = ApplicationProperties.getInt(POOL_PROPERTY + ".acquire_timeout", 30000);
+
+        properties.setProperty("hibernate.connection.provider_class", InstrumentedConnectionProvider.class.getName());
+        properties.setProperty(InstrumentedConnectionProvider.POOL_PROPERTY, pool.name());
+        properties.setProperty(InstrumentedConnectionProvider.POOL_NAME_PROPERTY, poolName);
+        properties.setProperty(InstrumentedConnectionProvider.POOL_MAX_SIZE_PROPERTY, String.valueOf(maxSize));
+        properties.setProperty(InstrumentedConnectionProvider.POOL_ACQUIRE_TIMEOUT_PROPERTY, String.valueOf(acquireTimeout));
+
+        pool.configure(properties, poolName, ApplicationProperties.getInt(POOL_PROPERTY + ".min_size", 1), maxSize,
+                ApplicationProperties.getInt(POOL_PROPERTY + ".idle_timeout", 0), acquireTimeout);
+
+        for (final String key : PROPERTIES.stringPropertyNames()) {
+            if (key.startsWith(pool.prefix)) {
+                properties.setProperty(key, PROPERTIES.getProperty(key));
+            }
+        }
+    }
+
     protected static String getLocalPersistencePropertiesFile() {
         return "";
     }
@@ -0,0 +1,29 @@
+package dco.app.blog.server.config;
+
+import org.hibernate.dialect.PostgreSQL9Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * PostgreSQL dialect registering the application specific SQL functions.
+ *
+ * @author Denis
+ */
+public class PostgreSQLDialect extends PostgreSQL9Dialect {
+
+    /**
+     * Function returning the total number of rows of the query (before {@code LIMIT/OFFSET}), using a window function.
+     * <br/>
+     * Dialects that do not register this function do not support window functions.
+     */
+    public static final String WINDOW_COUNT = "window_count";
+
+    /**
+     * Registers the application specific SQL functions.
+     */
+    public PostgreSQLDialect() {
+        super();
+        registerFunction(WINDOW_COUNT, new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over()"));
+    }
+
+}
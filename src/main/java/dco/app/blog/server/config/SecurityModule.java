@@ -2,7 +2,10 @@ package dco.app.blog.server.config;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Singleton;
+import dco.app.blog.server.metrics.MetricsSources;
+import dco.app.blog.server.security.AuthenticationCache;
 import dco.app.blog.server.security.SecureSessionValidator;
+import dco.app.blog.server.security.SessionActivityTracker;
 import dco.app.blog.shared.security.impl.AuthenticationSecureSessionValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +33,8 @@ public class SecurityModule extends AbstractModule {
         }
 
         bind(SecureSessionValidator.class).to(AuthenticationSecureSessionValidator.class).in(Singleton.class);
+        MetricsSources.bind(binder(), AuthenticationCache.class);
+        MetricsSources.bind(binder(), SessionActivityTracker.class);
         //bind(Authenticator.class).to(DatabaseAuthenticator.class).in(Singleton.class);
     }
 
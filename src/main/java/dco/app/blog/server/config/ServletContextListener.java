@@ -2,12 +2,24 @@ package dco.app.blog.server.config;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.persist.PersistService;
 import com.google.inject.servlet.GuiceServletContextListener;
+import dco.app.blog.server.dao.base.NamedQueries;
+import dco.app.blog.server.security.SessionActivityTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.ServletContextEvent;
+
 /**
+ * <p>
  * Server entry-point.
+ * </p>
+ * <p>
+ * Starts the persistence service, registers the DAO named queries (an invalid query fails the application startup)
+ * and starts the background jobs once the injector is created ; stops them on shutdown (after the filters destruction,
+ * so that the background jobs last run still reaches the database).
+ * </p>
  */
 public class ServletContextListener extends GuiceServletContextListener {
 
@@ -35,4 +47,54 @@ public class ServletContextListener extends GuiceServletContextListener {
                 new SecurityModule());
     }
 
-}
\ No newline at end of file
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void contextInitialized(final ServletContextEvent servletContextEvent) {
+
+        super.contextInitialized(servletContextEvent);
+
+        final Injector injector = getInjector(servletContextEvent);
+
+        injector.getInstance(PersistService.class).start();
+        NamedQueries.registerAll(injector);
+        injector.getInstance(SessionActivityTracker.class).start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void contextDestroyed(final ServletContextEvent servletContextEvent) {
+
+        final Injector injector = getInjector(servletContextEvent);
+
+        if (injector != null) {
+
+            LOGGER.info("Stopping background jobs and persistence service.");
+
+            try {
+
+                injector.getInstance(SessionActivityTracker.class).stop();
+
+            } finally {
+                injector.getInstance(PersistService.class).stop();
+            }
+        }
+
+        super.contextDestroyed(servletContextEvent);
+    }
+
+    /**
+     * Returns the injector stored into the servlet context.
+     *
+     * @param servletContextEvent
+     *         The servlet context event.
+     * @return The injector, or {@code null} if it has not been created.
+     */
+    private static Injector getInjector(final ServletContextEvent servletContextEvent) {
+        return (Injector) servletContextEvent.getServletContext().getAttribute(Injector.class.getName());
+    }
+
+}
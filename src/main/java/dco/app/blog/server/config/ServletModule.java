@@ -1,10 +1,22 @@
 package dco.app.blog.server.config;
 
-import com.google.inject.persist.PersistFilter;
 import dco.app.blog.client.security.SecureDispatchService;
+import dco.app.blog.server.dispatch.RpcResponseWriter;
 import dco.app.blog.server.dispatch.SecureDispatchServlet;
+import dco.app.blog.server.dispatch.impl.CommandResultCache;
+import dco.app.blog.server.file.FileStorage;
+import dco.app.blog.server.file.UploadQuota;
+import dco.app.blog.server.metrics.CommandMetrics;
+import dco.app.blog.server.metrics.FlightRecorderServlet;
+import dco.app.blog.server.metrics.MetricsServlet;
+import dco.app.blog.server.metrics.MetricsSources;
 import dco.app.blog.server.security.AuthenticationFilter;
+import dco.app.blog.server.servlet.FileServlet;
 import dco.app.blog.server.servlet.filter.CacheFilter;
+import dco.app.blog.server.servlet.filter.PrecompressedFilter;
+import dco.app.blog.server.servlet.filter.ReadReplicaFilter;
+import dco.app.blog.server.servlet.filter.UnitOfWorkFilter;
+import dco.app.blog.shared.servlet.Servlets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +37,16 @@ public class ServletModule extends com.google.inject.servlet.ServletModule {
      */
     public static final String ENDPOINT = "/blog/";
 
+    /**
+     * Metrics servlet path (relative to {@link #ENDPOINT}).
+     */
+    public static final String METRICS_PATH = "metrics";
+
+    /**
+     * Flight recorder servlet path (relative to {@link #ENDPOINT}).
+     */
+    public static final String FLIGHT_RECORDER_PATH = "flight-recorder";
+
     /**
      * {@inheritDoc}
      */
@@ -34,14 +56,25 @@ public class ServletModule extends com.google.inject.servlet.ServletModule {
         LOG.info("Installing servlets module.");
 
         // Filters.
-        filter("/*").through(PersistFilter.class);
-        filter("/*").through(AuthenticationFilter.class);
+        filter("/*").through(UnitOfWorkFilter.class);
+        filter("/*").through(ReadReplicaFilter.class);
+        filter(ENDPOINT + "*").through(AuthenticationFilter.class);
+        filter("/*").through(PrecompressedFilter.class);
         filter("/*").through(CacheFilter.class);
 
         // Servlets.
         serve(ENDPOINT + SecureDispatchService.REMOTE_SERVICE_RELATIVE_PATH).with(SecureDispatchServlet.class);
+        serve(ENDPOINT + METRICS_PATH).with(MetricsServlet.class);
+        serve(ENDPOINT + FLIGHT_RECORDER_PATH).with(FlightRecorderServlet.class);
+        serve(ENDPOINT + Servlets.Servlet.FILE.getPathName()).with(FileServlet.class);
+
+        // Metrics sources.
+        MetricsSources.bind(binder(), CommandMetrics.class);
+        MetricsSources.bind(binder(), CommandResultCache.class);
+        MetricsSources.bind(binder(), RpcResponseWriter.class);
+        MetricsSources.bind(binder(), FileStorage.class);
+        MetricsSources.bind(binder(), UploadQuota.class);
 //		serve("/").with(SigmahHostController.class);
 //		serve("/healthcheck").with(HealthCheckServlet.class);
-//		serve(ENDPOINT + Servlet.FILE.getPathName()).with(FileServlet.class);
     }
 }
\ No newline at end of file
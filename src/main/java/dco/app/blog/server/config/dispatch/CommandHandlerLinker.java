@@ -4,6 +4,7 @@ import com.google.inject.Binding;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.TypeLiteral;
+import dco.app.blog.server.config.ApplicationProperties;
 import dco.app.blog.server.dispatch.CommandHandlerRegistry;
 
 import java.util.List;
@@ -16,6 +17,11 @@ import java.util.List;
  */
 final class CommandHandlerLinker {
 
+    /**
+     * Property enabling the eager instantiation of command handlers at startup.
+     */
+    private static final String EAGER_HANDLERS_PROPERTY = "dispatch.handlers.eager";
+
     private CommandHandlerLinker() {
         // Only provides static methods.
     }
@@ -41,6 +47,10 @@ final class CommandHandlerLinker {
             final CommandHandlerMap map = binding.getProvider().get();
             registry.addHandlerClass(map.getCommandClass(), map.getCommandHandlerClass());
         }
+
+        if (ApplicationProperties.getBoolean(EAGER_HANDLERS_PROPERTY, false)) {
+            registry.warmUp();
+        }
     }
 
 }
\ No newline at end of file
@@ -5,7 +5,7 @@ import com.google.inject.Injector;
 import com.google.inject.Singleton;
 import dco.app.blog.server.dispatch.CommandHandlerRegistry;
 import dco.app.blog.server.dispatch.Dispatch;
-import dco.app.blog.server.dispatch.impl.LazyCommandHandlerRegistry;
+import dco.app.blog.server.dispatch.impl.DefaultCommandHandlerRegistry;
 import dco.app.blog.server.dispatch.impl.UserDispatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +13,7 @@ import org.slf4j.LoggerFactory;
 /**
  * This module will configure the implementation for the {@link Dispatch} and {@link CommandHandlerRegistry}
  * interfaces.<br>
- * If you want to override the defaults ({@code GuiceDispatch} and {@code DefaultCommandHandlerRegistry},
+ * If you want to override the defaults ({@code UserDispatch} and {@code DefaultCommandHandlerRegistry},
  * respectively), pass the override values into the constructor for this module and ensure it is installed
  * <b>before</b>  any {@link AbstractCommandHandlerModule} instances.
  *
@@ -36,7 +36,7 @@ final class DispatchModule extends AbstractModule {
             LOG.info("Installing dispatch module.");
         }
 
-        bind(CommandHandlerRegistry.class).to(LazyCommandHandlerRegistry.class).in(Singleton.class);
+        bind(CommandHandlerRegistry.class).to(DefaultCommandHandlerRegistry.class).in(Singleton.class);
         bind(Dispatch.class).to(UserDispatch.class).in(Singleton.class);
 
         // This will bind registered handlers to the registry.
@@ -3,11 +3,33 @@ package dco.app.blog.server.dao;
 import dco.app.blog.server.dao.base.DAO;
 import dco.app.blog.server.model.Authentication;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Created by Denis on 24/04/15.
  */
 public interface AuthenticationDAO extends DAO<Authentication, String> {
 
-    // Declare specific methods here.
+    /**
+     * Updates the last activity date of the given authentications, in JDBC batches.<br/>
+     * A last activity date is never moved backward.
+     *
+     * @param lastActivities
+     *         The last activity dates, mapped by authentication token.
+     * @return The number of updated authentications.
+     */
+    int updateLastActivity(Map<String, Date> lastActivities);
+
+    /**
+     * Removes the authentications inactive since the given date.
+     *
+     * @param inactiveSince
+     *         The date before which inactive authentications are removed.
+     * @return The removed authentications tokens (a token used again during the removal is neither removed nor
+     * returned, unless the JDBC driver does not report the batched statements update counts).
+     */
+    List<String> removeInactive(Date inactiveSince);
 
 }
@@ -2,12 +2,38 @@ package dco.app.blog.server.dao;
 
 import dco.app.blog.server.dao.base.DAO;
 import dco.app.blog.server.model.Post;
+import dco.app.blog.server.util.Pagination;
+import dco.app.blog.shared.dto.PostSummary;
+
+import java.util.List;
 
 /**
  * Created by Denis on 24/04/15.
  */
 public interface PostDAO extends DAO<Post, Long> {
 
-    // Declare specific methods here.
+    /**
+     * Query cache region of the posts listings.
+     */
+    String POSTS_QUERY_REGION = "query.posts";
+
+    /**
+     * Finds the latest posts (most recent first).<br/>
+     * The result is cached in the {@link #POSTS_QUERY_REGION} query cache region.
+     *
+     * @param count
+     *         The maximum number of posts.
+     * @return The latest posts.
+     */
+    List<Post> findLatest(int count);
+
+    /**
+     * Finds the posts summaries (most recent first), without loading the posts content.
+     *
+     * @param pagination
+     *         The {@link Pagination} data. Set to {@code null} to retrieve all posts summaries.
+     * @return The posts summaries.
+     */
+    List<PostSummary> findSummaries(Pagination pagination);
 
 }
@@ -1,23 +1,64 @@
 package dco.app.blog.server.dao.base;
 
 import com.google.inject.persist.Transactional;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.server.config.PostgreSQLDialect;
 import dco.app.blog.server.model.User;
 import dco.app.blog.server.model.base.Entity;
+import dco.app.blog.server.util.BoundedCache;
 import dco.app.blog.server.util.Injectors;
+import dco.app.blog.server.util.Keyset;
+import dco.app.blog.server.util.KeysetResult;
+import dco.app.blog.server.util.PageResult;
 import dco.app.blog.server.util.Pagination;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.persistence.Cacheable;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
 import javax.persistence.Query;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * <p>
@@ -40,18 +81,100 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractDAO.class);
 
+    /**
+     * Name of the query counting all entities.
+     */
+    protected static final String COUNT_ALL_QUERY = "countAll";
+
+    /**
+     * Name of the query retrieving all entities.
+     */
+    protected static final String FIND_ALL_QUERY = "findAll";
+
+    /**
+     * Separator between the keys of a continuation token.
+     */
+    private static final char KEYSET_SEPARATOR = ':';
+
+    /**
+     * Pattern of a continuation token creation date: epoch seconds and nanoseconds.
+     */
+    private static final Pattern TIMESTAMP_PATTERN = Pattern.compile("\\d{1,18}\\.\\d{9}");
+
+    /**
+     * Property setting the default fetch size of streamed queries.
+     */
+    private static final String STREAM_FETCH_SIZE_PROPERTY = "dao.stream.fetch.size";
+
+    /**
+     * Default fetch size of streamed queries.
+     */
+    private static final int STREAM_FETCH_SIZE = ApplicationProperties.getInt(STREAM_FETCH_SIZE_PROPERTY, 500);
+
+    /**
+     * Persistence property setting the JDBC batch size.
+     */
+    private static final String BATCH_SIZE_PROPERTY = "hibernate.jdbc.batch_size";
+
+    /**
+     * Default JDBC batch size (if the persistence unit does not set it).
+     */
+    private static final int BATCH_SIZE = 50;
+
+    /**
+     * Property setting the time-to-live (in seconds) of cached pages totals.
+     */
+    private static final String PAGE_TOTAL_TTL_PROPERTY = "dao.page.total.ttl";
+
+    /**
+     * Maximum number of cached pages totals (per DAO).
+     */
+    private static final int PAGE_TOTALS_SIZE = 1000;
+
     /**
      * The entity class managed by DAO implementation.
      */
     protected final Class<E> entityClass;
 
+    /**
+     * The entity id class managed by DAO implementation.
+     */
+    protected final Class<K> idClass;
+
+    /**
+     * Is the entity stored in the second-level cache? (its lookups by id are then never routed to the read replica).
+     */
+    private final boolean secondLevelCached;
+
+    /**
+     * Cached pages totals, keyed by filter key.
+     */
+    private final BoundedCache<String, Integer> pageTotals = new BoundedCache<>(PAGE_TOTALS_SIZE, ApplicationProperties.getLong(
+            PAGE_TOTAL_TTL_PROPERTY, 60L), TimeUnit.SECONDS);
+
+    /**
+     * Does the database dialect support the {@link PostgreSQLDialect#WINDOW_COUNT} function? ({@code null} until
+     * resolved).
+     */
+    private volatile Boolean windowCountSupported;
+
+    /**
+     * Entity manager factories (primary and read replica) into which the DAO queries have been registered.
+     */
+    private final Set<EntityManagerFactory> queriesFactories = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
     /**
      * Initializes a new AbstractDAO.<br/>
-     * Populates the {@link #entityClass} attribute.
+     * Populates the {@link #entityClass} and {@link #idClass} attributes.
      */
     @SuppressWarnings("unchecked")
     protected AbstractDAO() {
-        this.entityClass = (Class<E>) Injectors.findGenericSuperClass(getClass()).getActualTypeArguments()[0];
+        final Type[] typeArguments = Injectors.findGenericSuperClass(getClass()).getActualTypeArguments();
+        this.entityClass = (Class<E>) typeArguments[0];
+        this.idClass = (Class<K>) typeArguments[1];
+
+        final Cacheable cacheable = entityClass.getAnnotation(Cacheable.class);
+        this.secondLevelCached = cacheable != null && cacheable.value();
     }
 
     /**
@@ -78,8 +201,7 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
             LOGGER.trace("Counting total number of '{}' items.", entityClass.getName());
         }
 
-        final TypedQuery<Number> query = em().createQuery("SELECT COUNT(e) FROM " + entityClass.getName() + " e", Number.class);
-        return query.getSingleResult().intValue();
+        return createNamedQuery(COUNT_ALL_QUERY, Number.class).getSingleResult().intValue();
     }
 
     /**
@@ -92,7 +214,7 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
             LOGGER.trace("Counting total number of '{}' items for criteria '{}'.", entityClass.getName(), criteriaQuery);
         }
 
-        final Number total = em().createQuery(criteriaQuery).getSingleResult();
+        final Number total = readEm().createQuery(criteriaQuery).getSingleResult();
 
         return total != null ? total.intValue() : 0;
     }
@@ -113,6 +235,20 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
             LOGGER.trace("Retrieving '{}' item with primary key '{}'.", entityClass.getName(), primaryKey);
         }
 
+        // The read replica has no second-level cache: cached entities are read from the primary (cache hits).
+        return (secondLevelCached ? em() : readEm()).find(entityClass, primaryKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E findByIdOnPrimary(final K primaryKey) {
+
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Retrieving '{}' item with primary key '{}' on the primary database.", entityClass.getName(), primaryKey);
+        }
+
         return em().find(entityClass, primaryKey);
     }
 
@@ -138,10 +274,10 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
         final TypedQuery<E> query;
 
         if (criteriaQuery != null) {
-            query = em().createQuery(criteriaQuery);
+            query = readEm().createQuery(criteriaQuery);
 
         } else {
-            query = em().createQuery("SELECT e FROM " + entityClass.getName() + " e", entityClass);
+            query = createNamedQuery(FIND_ALL_QUERY, entityClass);
         }
 
         if (pagination != null) {
@@ -156,6 +292,226 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
         return items;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <P> List<P> findProjections(final Class<P> projectionClass, final QueryFilter<E> filter, final Pagination pagination,
+                                       final String... attributes) {
+
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Retrieving '{}' projections of '{}' items corresponding to filter '{}' and pagination '{}'.", projectionClass.getName(),
+                    entityClass.getName(), filter, pagination);
+        }
+
+        if (attributes == null || attributes.length == 0) {
+            throw new IllegalArgumentException("At least one projected attribute is required.");
+        }
+
+        final CriteriaBuilder cb = getCriteriaBuilder();
+        final CriteriaQuery<P> query = cb.createQuery(projectionClass);
+        final Root<E> root = query.from(entityClass);
+        applyFilter(filter, cb, query, root);
+
+        final Selection<?>[] selections = new Selection<?>[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            selections[i] = path(root, attributes[i]);
+        }
+
+        query.select(cb.construct(projectionClass, selections));
+
+        return paginate(readEm().createQuery(query), pagination).getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PageResult<E> findPage(final QueryFilter<E> filter, final Pagination pagination) {
+        return findPage(filter, pagination, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PageResult<E> findPage(final QueryFilter<E> filter, final Pagination pagination, final String totalCacheKey) {
+
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Retrieving '{}' items page corresponding to filter '{}', pagination '{}' and total cache key '{}'.", entityClass.getName(),
+                    filter, pagination, totalCacheKey);
+        }
+
+        final EntityManager em = readEm();
+        final CriteriaBuilder cb = getCriteriaBuilder();
+        Integer total = totalCacheKey != null ? pageTotals.get(totalCacheKey) : null;
+        final List<E> items;
+
+        if (pagination != null && total == null && isWindowCountSupported()) {
+
+            // Items and total in a single round-trip.
+            final CriteriaQuery<Tuple> query = cb.createTupleQuery();
+            final Root<E> root = query.from(entityClass);
+            applyFilter(filter, cb, query, root);
+            query.multiselect(root, cb.function(PostgreSQLDialect.WINDOW_COUNT, Long.class));
+
+            final List<Tuple> rows = paginate(em.createQuery(query), pagination).getResultList();
+
+            items = new ArrayList<>(rows.size());
+            for (final Tuple row : rows) {
+                items.add(entityClass.cast(row.get(0)));
+            }
+
+            if (!rows.isEmpty()) {
+                total = rows.get(0).get(1, Long.class).intValue();
+            }
+
+        } else {
+
+            final CriteriaQuery<E> query = cb.createQuery(entityClass);
+            final Root<E> root = query.from(entityClass);
+            applyFilter(filter, cb, query, root);
+            query.select(root);
+
+            items = paginate(em.createQuery(query), pagination).getResultList();
+        }
+
+        if (total == null) {
+            total = deduceTotal(items, pagination);
+        }
+
+        if (total == null) {
+            // Fallback: second round-trip.
+            final CriteriaQuery<Long> query = cb.createQuery(Long.class);
+            final Root<E> root = query.from(entityClass);
+            applyFilter(filter, cb, query, root);
+            query.select(cb.count(root)).orderBy(Collections.emptyList());
+
+            total = em.createQuery(query).getSingleResult().intValue();
+        }
+
+        if (totalCacheKey != null) {
+            pageTotals.put(totalCacheKey, total);
+        }
+
+        return new PageResult<>(items, total);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KeysetResult<E> seek(final QueryFilter<E> filter, final Keyset keyset) {
+
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Seeking '{}' items corresponding to filter '{}' and keyset '{}'.", entityClass.getName(), filter, keyset);
+        }
+
+        if (keyset == null || keyset.getResultsNumber() <= 0) {
+            throw new IllegalArgumentException("Keyset with a positive results number is required.");
+        }
+
+        final CriteriaBuilder cb = getCriteriaBuilder();
+        final CriteriaQuery<E> query = cb.createQuery(entityClass);
+        final Root<E> root = query.from(entityClass);
+        applyFilter(filter, cb, query, root);
+
+        final Path<Date> creationDate = root.get("creationDate");
+        final Path<Comparable<Object>> id = root.get("id");
+
+        if (keyset.getContinuationToken() != null) {
+
+            final String[] keys = decodeContinuationToken(keyset.getContinuationToken());
+            // Full precision (e.g. PostgreSQL microseconds): a truncated date would skip the rows in between.
+            final Timestamp lastCreationDate = parseTimestamp(keys[0]);
+            final Comparable<Object> lastId = parseId(keys[1]);
+
+            // (creationDate, id) < (lastCreationDate, lastId)
+            final Predicate seek = cb.or(cb.lessThan(creationDate, lastCreationDate),
+                    cb.and(cb.equal(creationDate, lastCreationDate), cb.lessThan(id, lastId)));
+
+            query.where(query.getRestriction() != null ? cb.and(query.getRestriction(), seek) : seek);
+        }
+
+        query.select(root).orderBy(cb.desc(creationDate), cb.desc(id));
+
+        // Retrieves one more item to know if a next page exists.
+        final List<E> items = readEm().createQuery(query).setMaxResults(keyset.getResultsNumber() + 1).getResultList();
+
+        String continuationToken = null;
+
+        if (items.size() > keyset.getResultsNumber()) {
+            items.subList(keyset.getResultsNumber(), items.size()).clear();
+            continuationToken = encodeContinuationToken(items.get(items.size() - 1));
+        }
+
+        LOGGER.trace("Returning items list: {} ; Continuation token: '{}'.", items, continuationToken);
+
+        return new KeysetResult<>(items, continuationToken);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<E> stream(final CriteriaQuery<E> criteriaQuery) {
+        return stream(criteriaQuery, STREAM_FETCH_SIZE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<E> stream(final CriteriaQuery<E> criteriaQuery, final int fetchSize) {
+
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Streaming '{}' items corresponding to criteriaQuery '{}' with fetch size '{}'.", entityClass.getName(), criteriaQuery,
+                    fetchSize);
+        }
+
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Positive fetch size is required.");
+        }
+
+        final EntityManager em = readEm();
+
+        // Cursor-based fetching requires a connection out of auto-commit mode (otherwise, e.g. with PostgreSQL, the
+        // fetch size is ignored and all rows are loaded): out of a transaction, the stream runs within its own
+        // transaction, never committed (rolled back once the stream is closed).
+        final EntityTransaction transaction = em.getTransaction().isActive() ? null : em.getTransaction();
+
+        if (transaction != null) {
+            transaction.begin();
+        }
+
+        try {
+
+            final TypedQuery<E> query;
+
+            if (criteriaQuery != null) {
+                query = em.createQuery(criteriaQuery);
+
+            } else {
+                query = createNamedQuery(em, FIND_ALL_QUERY, entityClass);
+            }
+
+            final ScrollableResults results = query.unwrap(org.hibernate.Query.class)
+                                                   .setFetchSize(fetchSize)
+                                                   .setReadOnly(true)
+                                                   .setCacheMode(CacheMode.IGNORE)
+                                                   .scroll(ScrollMode.FORWARD_ONLY);
+
+            final ScrollSpliterator<E> spliterator = new ScrollSpliterator<>(em, transaction, entityClass, results, fetchSize);
+            return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+
+        } catch (final RuntimeException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        }
+    }
+
     // --------------------------------------------------------------------------------
     //
     // PERSIST METHODS.
@@ -177,11 +533,61 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
             return null;
         }
 
+        stick();
         final E merged = em().merge(setEntityProperties(entity, user));
         entity.setId(merged.getId());
         return merged;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public List<E> persistAll(final Collection<E> entities, final User user) {
+
+        if (entities == null || entities.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+
+        final int batchSize = getBatchSize();
+
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Persisting {} entities processed by user '{}' with batch size '{}'.", entities.size(), logUser(user), batchSize);
+        }
+
+        stick();
+        final EntityManager em = em();
+        final List<E> persisted = new ArrayList<>(entities.size());
+
+        for (final E entity : entities) {
+
+            if (entity == null) {
+                continue;
+            }
+
+            if (entity.getId() == null) {
+                // New entity: no need to merge (avoids a select).
+                em.persist(setEntityProperties(entity, user));
+                persisted.add(entity);
+
+            } else {
+                persisted.add(em.merge(setEntityProperties(entity, user)));
+            }
+
+            if (persisted.size() % batchSize == 0) {
+                // Sends the batch and releases the persistence context.
+                em.flush();
+                em.clear();
+            }
+        }
+
+        em.flush();
+        em.clear();
+
+        return persisted;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -193,6 +599,7 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
             LOGGER.trace("Updating entities corresponding to criteria '{}'.", criteriaUpdate);
         }
 
+        stick();
         return em().createQuery(criteriaUpdate).executeUpdate();
     }
 
@@ -213,6 +620,7 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
             return;
         }
 
+        stick();
         final E entity = findById(primaryKey); // Avoids 'detached' entity issue.
 
         if (LOGGER.isTraceEnabled()) {
@@ -233,15 +641,233 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
             LOGGER.trace("Removing entities corresponding to criteria '{}'.", criteriaDelete);
         }
 
+        stick();
         return em().createQuery(criteriaDelete).executeUpdate();
     }
 
+    // ------------------------------------------------------------------------------------------
+    //
+    // NAMED QUERIES METHODS.
+    //
+    // ------------------------------------------------------------------------------------------
+
+    /**
+     * <p>
+     * Declares the DAO precompiled queries (see {@link #createNamedQuery(String, Class)}).
+     * </p>
+     * <p>
+     * Declares the {@link #COUNT_ALL_QUERY} and {@link #FIND_ALL_QUERY} queries. Implementations declaring their own
+     * queries should call {@code super.declareQueries(queries)}.
+     * </p>
+     *
+     * @param queries
+     *         The DAO queries registry.
+     */
+    protected void declareQueries(final NamedQueries queries) {
+        queries.declare(COUNT_ALL_QUERY, "SELECT COUNT(e) FROM " + entityClass.getName() + " e");
+        queries.declare(FIND_ALL_QUERY, "SELECT e FROM " + entityClass.getName() + " e");
+    }
+
+    /**
+     * Creates a new instance of the given declared read query (see {@link #declareQueries(NamedQueries)}), routed to
+     * the read replica if possible (see {@link #readEm()}).<br/>
+     * The DAO queries are registered on first use if the startup registration has not been triggered (or for the read
+     * replica).
+     *
+     * @param name
+     *         The query (unqualified) name.
+     * @param resultClass
+     *         The query result type.
+     * @return The query.
+     */
+    protected final <T> TypedQuery<T> createNamedQuery(final String name, final Class<T> resultClass) {
+        return createNamedQuery(readEm(), name, resultClass);
+    }
+
+    /**
+     * Creates a new instance of the given declared query on the given {@code em}.
+     *
+     * @param em
+     *         The entity manager.
+     * @param name
+     *         The query (unqualified) name.
+     * @param resultClass
+     *         The query result type.
+     * @return The query.
+     */
+    private <T> TypedQuery<T> createNamedQuery(final EntityManager em, final String name, final Class<T> resultClass) {
+
+        if (!queriesFactories.contains(em.getEntityManagerFactory())) {
+            registerQueries(em);
+        }
+
+        return em.createNamedQuery(NamedQueries.qualify(entityClass, name), resultClass);
+    }
+
+    /**
+     * Declares and registers the DAO queries into the given {@code em} factory (only once per factory).
+     *
+     * @param em
+     *         The entity manager.
+     * @throws IllegalStateException
+     *         If a declared query is invalid.
+     */
+    final synchronized void registerQueries(final EntityManager em) {
+
+        if (queriesFactories.contains(em.getEntityManagerFactory())) {
+            return;
+        }
+
+        final NamedQueries queries = new NamedQueries(entityClass);
+        declareQueries(queries);
+        queries.register(em);
+
+        queriesFactories.add(em.getEntityManagerFactory());
+    }
+
     // ------------------------------------------------------------------------------------------
     //
     // UTILITY METHODS.
     //
     // ------------------------------------------------------------------------------------------
 
+    /**
+     * {@link Spliterator} reading the entities of a forward-only {@link ScrollableResults} cursor.<br/>
+     * The streamed entities are detached every {@code clearInterval} entities (the entity manager is cleared if the
+     * stream runs within its own transaction), and the cursor is closed once exhausted (along with the transaction
+     * opened for the stream, if any).
+     *
+     * @param <E>
+     *         Entity type.
+     */
+    private static final class ScrollSpliterator<E> extends Spliterators.AbstractSpliterator<E> {
+
+        private final EntityManager em;
+
+        private final EntityTransaction transaction;
+
+        private final Class<E> entityClass;
+
+        private final ScrollableResults results;
+
+        private final int clearInterval;
+
+        /**
+         * Entities managed by the caller transaction when the stream has been opened ({@code null} if the stream runs
+         * within its own transaction).
+         */
+        private final Set<Object> managed;
+
+        /**
+         * Streamed entities of the current fetch window, detached once it is over ({@code null} if the stream runs
+         * within its own transaction).
+         */
+        private final List<Object> window;
+
+        private int count;
+
+        private boolean closed;
+
+        private ScrollSpliterator(final EntityManager em, final EntityTransaction transaction, final Class<E> entityClass,
+                                  final ScrollableResults results, final int clearInterval) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.em = em;
+            this.transaction = transaction;
+            this.entityClass = entityClass;
+            this.results = results;
+            this.clearInterval = clearInterval;
+
+            if (transaction != null) {
+                this.managed = null;
+                this.window = null;
+
+            } else {
+                this.managed = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (final Map.Entry<Object, EntityEntry> entry : em.unwrap(SessionImplementor.class).getPersistenceContext().reentrantSafeEntityEntries()) {
+                    managed.add(entry.getKey());
+                }
+                this.window = new ArrayList<>(clearInterval);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean tryAdvance(final Consumer<? super E> action) {
+
+            if (closed) {
+                return false;
+            }
+
+            if (count > 0 && count % clearInterval == 0) {
+                // Detaches the previously streamed entities.
+                detachWindow();
+            }
+
+            if (!results.next()) {
+                close();
+                return false;
+            }
+
+            count++;
+
+            final E entity = entityClass.cast(results.get(0));
+            if (window != null && !managed.contains(entity)) {
+                window.add(entity);
+            }
+
+            action.accept(entity);
+            return true;
+        }
+
+        /**
+         * Detaches the entities streamed during the fetch window just over.<br/>
+         * The caller transaction persistence context is not cleared: its pending changes would be lost.
+         */
+        private void detachWindow() {
+
+            if (window == null) {
+                // Stream own persistence context.
+                em.clear();
+                return;
+            }
+
+            for (final Object entity : window) {
+                em.detach(entity);
+            }
+            window.clear();
+        }
+
+        /**
+         * Releases the cursor and ends the stream transaction (does nothing if they have already been released).
+         */
+        private void close() {
+
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            try {
+
+                results.close();
+
+            } finally {
+                if (transaction != null && transaction.isActive()) {
+                    // Read-only: nothing to commit.
+                    transaction.rollback();
+                }
+            }
+
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("Stream of '{}' items closed after {} item(s).", entityClass.getName(), count);
+            }
+        }
+
+    }
+
     /**
      * Returns the given {@code user} corresponding <em>loggable</em> name.
      *
@@ -253,6 +879,231 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
         return user != null ? user.getFirstName() + ' ' + user.getName() : "anonymous";
     }
 
+    /**
+     * Applies the given {@code filter} (if any) to the given {@code query}.
+     *
+     * @param filter
+     *         The query filter, may be {@code null}.
+     * @param cb
+     *         The criteria builder.
+     * @param query
+     *         The query.
+     * @param root
+     *         The query root.
+     */
+    private static <E> void applyFilter(final QueryFilter<E> filter, final CriteriaBuilder cb, final CriteriaQuery<?> query, final Root<E> root) {
+        if (filter != null) {
+            filter.apply(cb, query, root);
+        }
+    }
+
+    /**
+     * Returns the path of the given dot-separated {@code attribute} from the given {@code root}.<br/>
+     * Intermediate associations are joined (inner join).
+     *
+     * @param root
+     *         The query root.
+     * @param attribute
+     *         The attribute path (e.g. {@code subject} or {@code user.name}).
+     * @return The attribute path.
+     */
+    private static Path<?> path(final From<?, ?> root, final String attribute) {
+
+        final String[] names = attribute.split("\\.");
+        From<?, ?> from = root;
+
+        for (int i = 0; i < names.length - 1; i++) {
+            from = from.join(names[i]);
+        }
+
+        return from.get(names[names.length - 1]);
+    }
+
+    /**
+     * Applies the given {@code pagination} (if any) to the given {@code query}.
+     *
+     * @param query
+     *         The query.
+     * @param pagination
+     *         The pagination, may be {@code null}.
+     * @return The query.
+     */
+    private static <T> TypedQuery<T> paginate(final TypedQuery<T> query, final Pagination pagination) {
+        if (pagination != null) {
+            query.setFirstResult(pagination.getStartOffset());
+            query.setMaxResults(pagination.getResultsNumber());
+        }
+        return query;
+    }
+
+    /**
+     * Deduces the total number of items from the given page {@code items}, if the page is the last one.
+     *
+     * @param items
+     *         The page items.
+     * @param pagination
+     *         The pagination, may be {@code null}.
+     * @return The total number of items, or {@code null} if it cannot be deduced.
+     */
+    private static Integer deduceTotal(final List<?> items, final Pagination pagination) {
+
+        if (pagination == null) {
+            return items.size();
+        }
+
+        if (items.size() < pagination.getResultsNumber() && (!items.isEmpty() || pagination.getStartOffset() == 0)) {
+            // Incomplete (last) page.
+            return pagination.getStartOffset() + items.size();
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns if the database dialect supports the {@link PostgreSQLDialect#WINDOW_COUNT} function.
+     *
+     * @return {@code true} if the window count function is registered by the dialect.
+     */
+    private boolean isWindowCountSupported() {
+
+        if (windowCountSupported == null) {
+            final SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor) em().getEntityManagerFactory().unwrap(SessionFactory.class);
+            windowCountSupported = sessionFactory.getSqlFunctionRegistry().findSQLFunction(PostgreSQLDialect.WINDOW_COUNT) != null;
+        }
+
+        return windowCountSupported;
+    }
+
+    /**
+     * Returns the JDBC batch size configured on the persistence unit.
+     *
+     * @return The JDBC batch size.
+     */
+    protected final int getBatchSize() {
+
+        final Object batchSize = em().getEntityManagerFactory().getProperties().get(BATCH_SIZE_PROPERTY);
+
+        try {
+
+            return batchSize != null ? Math.max(1, Integer.parseInt(batchSize.toString().trim())) : BATCH_SIZE;
+
+        } catch (final NumberFormatException e) {
+            return BATCH_SIZE;
+        }
+    }
+
+    /**
+     * Builds the continuation token referencing the given {@code entity} (last entity of a page).<br/>
+     * The creation date is encoded with its full precision (seconds and nanoseconds, see {@link #formatTimestamp(Date)}).
+     *
+     * @param entity
+     *         The last entity of a page.
+     * @return The opaque continuation token.
+     */
+    private static String encodeContinuationToken(final Entity<?> entity) {
+        final String keys = formatTimestamp(entity.getCreationDate()) + KEYSET_SEPARATOR + entity.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keys.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Formats the given {@code date} with its full precision: nanoseconds of {@link Timestamp} instances (as loaded by
+     * Hibernate) are kept.
+     *
+     * <pre>
+     * formatTimestamp(new Date(1500L)) -> "1.500000000"
+     * formatTimestamp(Timestamp 1970-01-01 00:00:01.500123) -> "1.500123000"
+     * </pre>
+     *
+     * @param date
+     *         The date.
+     * @return The date epoch seconds and nanoseconds.
+     */
+    static String formatTimestamp(final Date date) {
+
+        final long seconds = Math.floorDiv(date.getTime(), 1000L);
+        final int nanos = date instanceof Timestamp ? ((Timestamp) date).getNanos() : (int) Math.floorMod(date.getTime(), 1000L) * 1_000_000;
+
+        return String.valueOf(seconds) + '.' + StringUtils.leftPad(String.valueOf(nanos), 9, '0');
+    }
+
+    /**
+     * Parses the given {@code value} formatted by {@link #formatTimestamp(Date)}.
+     *
+     * @param value
+     *         The formatted date.
+     * @return The timestamp (with its nanoseconds).
+     */
+    static Timestamp parseTimestamp(final String value) {
+
+        final int dot = value.indexOf('.');
+
+        final Timestamp timestamp = new Timestamp(Long.parseLong(value.substring(0, dot)) * 1000L);
+        timestamp.setNanos(Integer.parseInt(value.substring(dot + 1)));
+
+        return timestamp;
+    }
+
+    /**
+     * Reads the keys of the given {@code continuationToken}.
+     *
+     * @param continuationToken
+     *         The continuation token.
+     * @return The continuation token keys: creation date (see {@link #formatTimestamp(Date)}) and id.
+     * @throws IllegalArgumentException
+     *         If the continuation token is invalid.
+     */
+    private static String[] decodeContinuationToken(final String continuationToken) {
+
+        final String keys;
+        try {
+
+            keys = new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token '" + continuationToken + "'.", e);
+        }
+
+        final int separator = keys.indexOf(KEYSET_SEPARATOR);
+
+        if (separator <= 0 || separator == keys.length() - 1 || !TIMESTAMP_PATTERN.matcher(keys.substring(0, separator)).matches()) {
+            throw new IllegalArgumentException("Invalid continuation token '" + continuationToken + "'.");
+        }
+
+        return new String[]{
+                keys.substring(0, separator),
+                keys.substring(separator + 1)
+        };
+    }
+
+    /**
+     * Parses the given {@code id} read from a continuation token into the entity id type.
+     *
+     * @param id
+     *         The id string value.
+     * @return The entity id.
+     * @throws IllegalArgumentException
+     *         If the id is invalid or if the entity id type is not supported.
+     */
+    @SuppressWarnings("unchecked")
+    private Comparable<Object> parseId(final String id) {
+
+        try {
+
+            if (idClass == Long.class) {
+                return (Comparable<Object>) (Comparable<?>) Long.valueOf(id);
+            } else if (idClass == Integer.class) {
+                return (Comparable<Object>) (Comparable<?>) Integer.valueOf(id);
+            } else if (idClass == String.class) {
+                return (Comparable<Object>) (Comparable<?>) id;
+            }
+
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid continuation token id '" + id + "'.", e);
+        }
+
+        throw new IllegalArgumentException("Keyset pagination does not support '" + idClass.getName() + "' ids.");
+    }
+
     /**
      * Sets {@code creation} or {@code update} properties on the given {@code entity}.
      *
@@ -297,6 +1148,7 @@ public abstract class AbstractDAO<E extends Entity<K>, K extends Serializable> e
             throw new IllegalArgumentException("Update query is required.");
         }
 
+        stick();
         checkTransaction(em());
 
         return updateQuery.executeUpdate();
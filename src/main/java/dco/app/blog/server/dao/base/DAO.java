@@ -2,6 +2,9 @@ package dco.app.blog.server.dao.base;
 
 import dco.app.blog.server.model.User;
 import dco.app.blog.server.model.base.Entity;
+import dco.app.blog.server.util.Keyset;
+import dco.app.blog.server.util.KeysetResult;
+import dco.app.blog.server.util.PageResult;
 import dco.app.blog.server.util.Pagination;
 
 import javax.persistence.criteria.CriteriaBuilder;
@@ -9,7 +12,9 @@ import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.CriteriaUpdate;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * <p>
@@ -59,13 +64,25 @@ public interface DAO<E extends Entity<K>, K extends Serializable> {
     // --------------------------------------------------------------------------------
 
     /**
-     * Finds the given {@code primaryKey} corresponding entity.
+     * Finds the given {@code primaryKey} corresponding entity.<br/>
+     * Second-level cached entities are always read from the primary database (the read replica has no second-level
+     * cache), other entities may be read from the read replica (see {@link ReadReplica}).
      *
      * @param primaryKey The entity primary key.
      * @return The given {@code primaryKey} corresponding entity.
      */
     E findById(K primaryKey);
 
+    /**
+     * Finds the given {@code primaryKey} corresponding entity on the primary database, never on the read replica.<br/>
+     * To be used by lookups which must see the latest committed writes (e.g. an entity created by a previous request
+     * and not yet replicated).
+     *
+     * @param primaryKey The entity primary key.
+     * @return The given {@code primaryKey} corresponding entity.
+     */
+    E findByIdOnPrimary(K primaryKey);
+
     /**
      * <p>
      * Finds the entities corresponding to the given {@code criteriaQuery}.
@@ -94,6 +111,112 @@ public interface DAO<E extends Entity<K>, K extends Serializable> {
      */
     List<E> find(CriteriaQuery<E> criteriaQuery, Pagination pagination);
 
+    /**
+     * <p>
+     * Finds the projections of the entities corresponding to the given {@code filter}.
+     * </p>
+     * <p>
+     * Only the given entity {@code attributes} are selected, and each row is passed to the {@code projectionClass}
+     * constructor whose parameters match the {@code attributes} (in the same order). Projections are not managed by
+     * the persistence context.
+     * </p>
+     *
+     * @param projectionClass The projection class.
+     * @param filter          The query filter (restriction and ordering). Set to {@code null} to retrieve all entities.
+     * @param pagination      The {@link Pagination} data. Set to {@code null} to ignore.
+     * @param attributes      The selected entity attributes (paths such as {@code user.name} are supported).
+     * @return The projections of the entities corresponding to the given {@code filter}.
+     */
+    <P> List<P> findProjections(Class<P> projectionClass, QueryFilter<E> filter, Pagination pagination, String... attributes);
+
+    /**
+     * <p>
+     * Finds a page of the entities corresponding to the given {@code filter}, with the total number of entities
+     * corresponding to the {@code filter}.
+     * </p>
+     * <p>
+     * If the database dialect supports window functions, the items and the total are retrieved in a single round-trip.
+     * Otherwise, the total is counted by a second query (unless it can be deduced from an incomplete page).
+     * </p>
+     *
+     * @param filter     The query filter (restriction and ordering). Set to {@code null} to page all entities.
+     * @param pagination The {@link Pagination} data. Set to {@code null} to retrieve all entities.
+     * @return The page entities with the total number of entities.
+     */
+    PageResult<E> findPage(QueryFilter<E> filter, Pagination pagination);
+
+    /**
+     * <p>
+     * Finds a page of the entities corresponding to the given {@code filter}, with the total number of entities
+     * corresponding to the {@code filter}.
+     * </p>
+     * <p>
+     * The total is cached under the given {@code totalCacheKey} for a short period (see {@code dao.page.total.ttl}
+     * property): while it is cached, only the page items are queried. The total may therefore be approximate, which
+     * suits listings of very large tables.
+     * </p>
+     *
+     * @param filter        The query filter (restriction and ordering). Set to {@code null} to page all entities.
+     * @param pagination    The {@link Pagination} data. Set to {@code null} to retrieve all entities.
+     * @param totalCacheKey The key identifying the {@code filter} total among this DAO totals. Set to {@code null} to
+     *                      always compute an exact total.
+     * @return The page entities with the (possibly cached) total number of entities.
+     * @see #findPage(QueryFilter, Pagination)
+     */
+    PageResult<E> findPage(QueryFilter<E> filter, Pagination pagination, String totalCacheKey);
+
+    /**
+     * <p>
+     * Finds a page of the entities corresponding to the given {@code filter}, using a <em>keyset</em>
+     * pagination: entities are sorted by descending {@code creationDate} then descending {@code id} (most recent
+     * first), and the page starts right after the entity referenced by the {@code keyset} continuation token.
+     * </p>
+     * <p>
+     * The {@code filter} restriction is kept, but its ordering is replaced by the keyset ordering.
+     * </p>
+     *
+     * @param filter The query filter (restriction). Set to {@code null} to page all entities.
+     * @param keyset The {@link Keyset} pagination data.
+     * @return The page entities with the token to retrieve the next page.
+     * @throws IllegalArgumentException If the {@code keyset} continuation token is invalid.
+     */
+    KeysetResult<E> seek(QueryFilter<E> filter, Keyset keyset);
+
+    /**
+     * Streams the entities corresponding to the given {@code criteriaQuery} with the default fetch size (see {@code
+     * dao.stream.fetch.size} property).
+     *
+     * @param criteriaQuery The criteria query. Set to {@code null} to stream all entities.
+     * @return The entities stream, that must be closed if it is not fully consumed.
+     * @see #stream(CriteriaQuery, int)
+     */
+    Stream<E> stream(CriteriaQuery<E> criteriaQuery);
+
+    /**
+     * <p>
+     * Streams the entities corresponding to the given {@code criteriaQuery}, reading them through a forward-only
+     * database cursor instead of materializing the whole result list.
+     * </p>
+     * <p>
+     * The entities are loaded read-only and detached from the persistence context every {@code fetchSize} entities,
+     * so that memory stays flat whatever the number of entities: a streamed entity must not be modified once its fetch
+     * window is over. Within a caller transaction, only the streamed entities are detached (the entities the caller
+     * already managed, and its pending changes, are left untouched) ; otherwise the stream own persistence context is
+     * cleared.
+     * </p>
+     * <p>
+     * Cursor-based fetching requires a transaction: out of a transaction, the stream opens its own one (never
+     * committed). The cursor (and its connection resources and transaction) is released once the stream is exhausted
+     * or closed: a stream that may not be fully consumed must be closed (e.g. with a {@code try-with-resources}
+     * statement).
+     * </p>
+     *
+     * @param criteriaQuery The criteria query. Set to {@code null} to stream all entities.
+     * @param fetchSize     The JDBC fetch size (number of rows retrieved per database round-trip).
+     * @return The entities stream, that must be closed if it is not fully consumed.
+     */
+    Stream<E> stream(CriteriaQuery<E> criteriaQuery, int fetchSize);
+
     // --------------------------------------------------------------------------------
     //
     // PERSIST METHODS.
@@ -109,6 +232,22 @@ public interface DAO<E extends Entity<K>, K extends Serializable> {
      */
     E persist(E entity, User user);
 
+    /**
+     * <p>
+     * Persists the given {@code entities} with the given {@code user}, within a single transaction.
+     * </p>
+     * <p>
+     * New entities are inserted without prior {@code merge} select, and statements are sent in JDBC batches (see
+     * {@code hibernate.jdbc.batch_size}). The persistence context is flushed and cleared after each batch: returned
+     * entities (and any entity previously loaded in the current transaction) are detached.
+     * </p>
+     *
+     * @param entities The entities to persist. {@code null} items are ignored.
+     * @param user     The user executing the persist action, may be {@code null}.
+     * @return The persisted entities, in the given {@code entities} order.
+     */
+    List<E> persistAll(Collection<E> entities, User user);
+
     /**
      * Updates the entities corresponding to the given {@code criteriaUpdate}.
      *
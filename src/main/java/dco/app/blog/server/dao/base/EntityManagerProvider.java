@@ -25,6 +25,12 @@ public abstract class EntityManagerProvider {
     @Inject
     private Provider<EntityManager> entityManagerProvider;
 
+    /**
+     * The injected read replica.
+     */
+    @Inject
+    private ReadReplica readReplica;
+
     /**
      * Returns the entity manager instance.
      *
@@ -34,6 +40,24 @@ public abstract class EntityManagerProvider {
         return entityManagerProvider.get();
     }
 
+    /**
+     * Returns the entity manager executing read-only queries: the read replica one if the read can be routed to the
+     * replica, the {@link #em()} one otherwise (see {@link ReadReplica#route(EntityManager)}).
+     *
+     * @return the read-only queries entity manager instance.
+     */
+    protected final EntityManager readEm() {
+        return readReplica.route(em());
+    }
+
+    /**
+     * Routes the next reads of the current unit of work to the primary database.<br/>
+     * Must be called before each write.
+     */
+    protected final void stick() {
+        readReplica.stick();
+    }
+
     /**
      * Returns the criteria builder.
      *
@@ -0,0 +1,162 @@
+package dco.app.blog.server.dao.base;
+
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * Registry of the precompiled (named) queries declared by a DAO.
+ * </p>
+ * <p>
+ * Each DAO declares its queries into its own registry (see {@link AbstractDAO#declareQueries(NamedQueries)}). The
+ * queries are named after the DAO entity (e.g. {@code Post.countAll}), parsed once and registered into the entity
+ * manager factory: an invalid query fails the registration.<br/>
+ * The registration of all DAOs queries is triggered at startup by {@link #registerAll(Injector)}.
+ * </p>
+ *
+ * @author Denis
+ */
+public final class NamedQueries {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(NamedQueries.class);
+
+    /**
+     * The DAO entity class.
+     */
+    private final Class<?> entityClass;
+
+    /**
+     * The declared queries JPQL, keyed by (unqualified) name.
+     */
+    private final Map<String, String> queries = new LinkedHashMap<>();
+
+    /**
+     * Initializes a new registry for the given {@code entityClass}.
+     *
+     * @param entityClass
+     *         The DAO entity class.
+     */
+    NamedQueries(final Class<?> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Declares a new query.
+     *
+     * @param name
+     *         The query name, unique among the DAO queries.
+     * @param jpql
+     *         The query JPQL.
+     * @return This registry.
+     * @throws IllegalArgumentException
+     *         If a query with the same {@code name} has already been declared.
+     */
+    public NamedQueries declare(final String name, final String jpql) {
+
+        if (queries.putIfAbsent(name, jpql) != null) {
+            throw new IllegalArgumentException("Query '" + qualify(entityClass, name) + "' is already declared.");
+        }
+
+        return this;
+    }
+
+    /**
+     * Parses the declared queries and registers them into the given {@code em} factory.
+     *
+     * @param em
+     *         The entity manager.
+     * @throws IllegalStateException
+     *         If a declared query is invalid.
+     */
+    void register(final EntityManager em) {
+
+        final EntityManagerFactory emf = em.getEntityManagerFactory();
+
+        for (final Map.Entry<String, String> entry : queries.entrySet()) {
+
+            final String name = qualify(entityClass, entry.getKey());
+            final Query query;
+
+            try {
+
+                query = em.createQuery(entry.getValue());
+
+            } catch (final IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid query '" + name + "': " + entry.getValue(), e);
+            }
+
+            emf.addNamedQuery(name, query);
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Query '{}' registered: {}", name, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the qualified name of the given {@code entityClass} query.
+     *
+     * @param entityClass
+     *         The DAO entity class.
+     * @param name
+     *         The query (unqualified) name.
+     * @return The qualified query name (e.g. {@code Post.countAll}).
+     */
+    static String qualify(final Class<?> entityClass, final String name) {
+        return entityClass.getSimpleName() + '.' + name;
+    }
+
+    /**
+     * Registers the queries of all the DAOs bound into the given {@code injector}.<br/>
+     * The persistence service must have been started.
+     *
+     * @param injector
+     *         The guice injector.
+     * @throws IllegalStateException
+     *         If a declared query is invalid.
+     */
+    public static void registerAll(final Injector injector) {
+
+        final Set<AbstractDAO<?, ?>> daos = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (final Binding<?> binding : injector.getBindings().values()) {
+            if (DAO.class.isAssignableFrom(binding.getKey().getTypeLiteral().getRawType())) {
+                final Object dao = binding.getProvider().get();
+                if (dao instanceof AbstractDAO) {
+                    daos.add((AbstractDAO<?, ?>) dao);
+                }
+            }
+        }
+
+        final EntityManager em = injector.getInstance(EntityManagerFactory.class).createEntityManager();
+
+        try {
+
+            for (final AbstractDAO<?, ?> dao : daos) {
+                dao.registerQueries(em);
+            }
+
+        } finally {
+            em.close();
+        }
+
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Queries of {} DAO(s) registered.", daos.size());
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package dco.app.blog.server.dao.base;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+/**
+ * <p>
+ * Restriction (and ordering) applicable to any query on an entity root.
+ * </p>
+ * <p>
+ * Unlike a {@link CriteriaQuery}, a filter can be applied to several queries of different result types (e.g. the
+ * items query and the count query of a page). Filters should not declare fetch joins, which are not allowed in count
+ * queries.
+ * </p>
+ *
+ * @param <E>
+ *         Entity type.
+ * @author Denis
+ * @see DAO#findPage(QueryFilter, dco.app.blog.server.util.Pagination)
+ */
+@FunctionalInterface
+public interface QueryFilter<E> {
+
+    /**
+     * Applies the filter restriction (and ordering) to the given {@code query}.
+     *
+     * @param cb
+     *         The criteria builder.
+     * @param query
+     *         The query to filter.
+     * @param root
+     *         The query entity root.
+     */
+    void apply(CriteriaBuilder cb, CriteriaQuery<?> query, Root<E> root);
+
+}
@@ -0,0 +1,185 @@
+package dco.app.blog.server.dao.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.util.Properties;
+
+/**
+ * <p>
+ * Optional read-only replica of the primary database.
+ * </p>
+ * <p>
+ * DAO reads are routed to the replica (see {@link #route(EntityManager)}) unless:
+ * <ul>
+ * <li>the replica is not configured ;</li>
+ * <li>a transaction is active on the primary database (reads see the transaction own writes) ;</li>
+ * <li>the current unit of work has already written to the primary database (<em>read-your-writes</em>: the replica
+ * may lag behind the primary).</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Replica entity managers are bound to the current thread and must be released at the end of the unit of work (see
+ * {@link #end()}). The replica has no second-level cache: its entries could not be evicted by the primary writes.
+ * Lookups by id of second-level cached entities are therefore kept on the primary database (see
+ * {@link DAO#findById(Object)}), queries are routed to the replica (they would not hit the entities cache anyway).
+ * </p>
+ *
+ * @author Denis
+ */
+public class ReadReplica {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadReplica.class);
+
+    /**
+     * The persistence unit name.
+     */
+    private final String persistenceUnit;
+
+    /**
+     * The replica persistence properties ({@code null} if the replica is not configured).
+     */
+    private final Properties properties;
+
+    /**
+     * The replica entity manager factory (lazily created).
+     */
+    private volatile EntityManagerFactory emf;
+
+    /**
+     * Replica entity manager of the current unit of work.
+     */
+    private final ThreadLocal<EntityManager> entityManagers = new ThreadLocal<>();
+
+    /**
+     * Has the current unit of work written to the primary database?
+     */
+    private final ThreadLocal<Boolean> sticky = new ThreadLocal<>();
+
+    /**
+     * Initializes the read replica.
+     *
+     * @param persistenceUnit
+     *         The persistence unit name.
+     * @param properties
+     *         The replica persistence properties, {@code null} if the replica is not configured (every read is then
+     *         routed to the primary database).
+     */
+    public ReadReplica(final String persistenceUnit, final Properties properties) {
+        this.persistenceUnit = persistenceUnit;
+        this.properties = properties;
+    }
+
+    /**
+     * Returns if the replica is configured.
+     *
+     * @return {@code true} if the replica is configured.
+     */
+    public boolean isEnabled() {
+        return properties != null;
+    }
+
+    /**
+     * Returns if the replica entity manager factory has been started.
+     *
+     * @return {@code true} if the replica entity manager factory has been started.
+     */
+    public boolean isStarted() {
+        return emf != null;
+    }
+
+    /**
+     * Returns the replica entity manager factory (created on first call).
+     *
+     * @return The replica entity manager factory.
+     * @throws IllegalStateException
+     *         If the replica is not configured.
+     */
+    public EntityManagerFactory getEntityManagerFactory() {
+
+        if (!isEnabled()) {
+            throw new IllegalStateException("Read replica is not configured.");
+        }
+
+        EntityManagerFactory factory = emf;
+
+        if (factory == null) {
+            synchronized (this) {
+                factory = emf;
+                if (factory == null) {
+                    LOGGER.info("Starting read replica persistence unit.");
+                    factory = emf = Persistence.createEntityManagerFactory(persistenceUnit, properties);
+                }
+            }
+        }
+
+        return factory;
+    }
+
+    /**
+     * Returns the entity manager executing a read.
+     *
+     * @param primary
+     *         The primary database entity manager of the current unit of work.
+     * @return The current unit of work replica entity manager, or the given {@code primary} entity manager if the read
+     * cannot be routed to the replica.
+     */
+    public EntityManager route(final EntityManager primary) {
+
+        if (!isEnabled() || sticky.get() != null || primary.getTransaction().isActive()) {
+            return primary;
+        }
+
+        EntityManager em = entityManagers.get();
+
+        if (em == null) {
+            em = getEntityManagerFactory().createEntityManager();
+            entityManagers.set(em);
+        }
+
+        return em;
+    }
+
+    /**
+     * Routes the next reads of the current unit of work to the primary database.<br/>
+     * Must be called before each write to the primary database.
+     */
+    public void stick() {
+        if (isEnabled()) {
+            sticky.set(Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Ends the current unit of work: releases its replica entity manager and resets its routing.
+     */
+    public void end() {
+
+        sticky.remove();
+
+        final EntityManager em = entityManagers.get();
+
+        if (em != null) {
+            entityManagers.remove();
+            em.close();
+        }
+    }
+
+    /**
+     * Closes the replica entity manager factory (if started).
+     */
+    public synchronized void close() {
+        if (emf != null) {
+            LOGGER.info("Stopping read replica persistence unit.");
+            emf.close();
+            emf = null;
+        }
+    }
+
+}
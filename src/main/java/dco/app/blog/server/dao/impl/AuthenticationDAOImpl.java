@@ -1,14 +1,161 @@
 package dco.app.blog.server.dao.impl;
 
+import com.google.inject.persist.Transactional;
 import dco.app.blog.server.dao.AuthenticationDAO;
 import dco.app.blog.server.dao.base.AbstractDAO;
 import dco.app.blog.server.model.Authentication;
+import org.hibernate.Session;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Created by Denis on 24/04/15.
  */
 public class AuthenticationDAOImpl extends AbstractDAO<Authentication, String> implements AuthenticationDAO {
 
-    // Implement specific methods here.
+    /**
+     * SQL statement updating an authentication last activity date (never moved backward).
+     */
+    private static final String UPDATE_LAST_ACTIVITY_SQL = "UPDATE t_authentication_au SET au_date_last_active = ? WHERE au_id = ? AND "
+        + "au_date_last_active < ?";
+
+    /**
+     * SQL statement removing an authentication if it is still inactive.
+     */
+    private static final String REMOVE_INACTIVE_SQL = "DELETE FROM t_authentication_au WHERE au_id = ? AND au_date_last_active < ?";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public int updateLastActivity(final Map<String, Date> lastActivities) {
+
+        if (lastActivities == null || lastActivities.isEmpty()) {
+            return 0;
+        }
+
+        final int batchSize = getBatchSize();
+
+        stick();
+        return em().unwrap(Session.class).doReturningWork(connection -> {
+
+            try (final PreparedStatement statement = connection.prepareStatement(UPDATE_LAST_ACTIVITY_SQL)) {
+
+                int updated = 0;
+                int pending = 0;
+
+                for (final Map.Entry<String, Date> lastActivity : lastActivities.entrySet()) {
+
+                    final Timestamp date = new Timestamp(lastActivity.getValue().getTime());
+
+                    statement.setTimestamp(1, date);
+                    statement.setString(2, lastActivity.getKey());
+                    statement.setTimestamp(3, date);
+                    statement.addBatch();
+
+                    if (++pending == batchSize) {
+                        updated += count(statement.executeBatch());
+                        pending = 0;
+                    }
+                }
+
+                if (pending > 0) {
+                    updated += count(statement.executeBatch());
+                }
+
+                return updated;
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public List<String> removeInactive(final Date inactiveSince) {
+
+        stick();
+
+        final CriteriaBuilder cb = getCriteriaBuilder();
+        final CriteriaQuery<String> query = cb.createQuery(String.class);
+        final Root<Authentication> authentication = query.from(Authentication.class);
+        query.select(authentication.get("id")).where(cb.lessThan(authentication.get("dateLastActive"), inactiveSince));
+
+        final List<String> tokens = em().createQuery(query).getResultList();
+
+        if (tokens.isEmpty()) {
+            return tokens;
+        }
+
+        final Timestamp date = new Timestamp(inactiveSince.getTime());
+        final int batchSize = getBatchSize();
+
+        return em().unwrap(Session.class).doReturningWork(connection -> {
+
+            try (final PreparedStatement statement = connection.prepareStatement(REMOVE_INACTIVE_SQL)) {
+
+                final List<String> removed = new ArrayList<>(tokens.size());
+
+                for (int start = 0; start < tokens.size(); start += batchSize) {
+
+                    final List<String> batch = tokens.subList(start, Math.min(start + batchSize, tokens.size()));
+
+                    // The activity date is checked again: a token may have been used since it has been selected.
+                    for (final String token : batch) {
+                        statement.setString(1, token);
+                        statement.setTimestamp(2, date);
+                        statement.addBatch();
+                    }
+
+                    final int[] counts = statement.executeBatch();
+
+                    for (int i = 0; i < counts.length; i++) {
+                        if (count(counts[i]) > 0) {
+                            removed.add(batch.get(i));
+                        }
+                    }
+                }
+
+                return removed;
+            }
+        });
+    }
+
+    /**
+     * Returns the number of rows updated by the given JDBC batch.
+     *
+     * @param counts
+     *         The batch update counts.
+     * @return The number of updated rows (a statement whose count is unknown counts for one row).
+     */
+    private static int count(final int[] counts) {
+        int updated = 0;
+        for (final int count : counts) {
+            updated += count(count);
+        }
+        return updated;
+    }
+
+    /**
+     * Returns the number of rows updated by a statement of a JDBC batch.
+     *
+     * @param count
+     *         The statement update count.
+     * @return The number of updated rows (a statement whose count is unknown counts for one row).
+     */
+    private static int count(final int count) {
+        return count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+    }
 
 }
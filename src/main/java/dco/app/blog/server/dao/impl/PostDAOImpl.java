@@ -2,13 +2,53 @@ package dco.app.blog.server.dao.impl;
 
 import dco.app.blog.server.dao.PostDAO;
 import dco.app.blog.server.dao.base.AbstractDAO;
+import dco.app.blog.server.dao.base.NamedQueries;
 import dco.app.blog.server.model.Post;
+import dco.app.blog.server.util.Pagination;
+import dco.app.blog.shared.dto.PostSummary;
+import org.hibernate.jpa.QueryHints;
+
+import java.util.List;
 
 /**
  * Created by Denis on 24/04/15.
  */
 public class PostDAOImpl extends AbstractDAO<Post, Long> implements PostDAO {
 
-    // Implement specific methods here.
+    /**
+     * Name of the query retrieving the latest posts.
+     */
+    private static final String FIND_LATEST_QUERY = "findLatest";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void declareQueries(final NamedQueries queries) {
+        super.declareQueries(queries);
+        queries.declare(FIND_LATEST_QUERY, "SELECT p FROM Post p ORDER BY p.creationDate DESC, p.id DESC");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Post> findLatest(final int count) {
+
+        return createNamedQuery(FIND_LATEST_QUERY, Post.class)
+                   .setMaxResults(count)
+                   .setHint(QueryHints.HINT_CACHEABLE, true)
+                   .setHint(QueryHints.HINT_CACHE_REGION, POSTS_QUERY_REGION)
+                   .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PostSummary> findSummaries(final Pagination pagination) {
+        return findProjections(PostSummary.class, (cb, query, post) -> query.orderBy(cb.desc(post.get("creationDate")), cb.desc(post.get("id"))),
+                pagination, PostSummary.ATTRIBUTES);
+    }
 
 }
@@ -0,0 +1,44 @@
+package dco.app.blog.server.dispatch;
+
+import dco.app.blog.shared.command.base.Command;
+import dco.app.blog.shared.command.result.base.Result;
+import dco.app.blog.shared.dispatch.CommandException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>
+ * {@link CommandHandler} variant whose execution completes asynchronously.
+ * </p>
+ * <p>
+ * When the dispatch servlet runs in asynchronous mode, the GWT-RPC response is written once the returned future
+ * completes, without holding a container thread. Otherwise (or when the command is executed as a sub-command), the
+ * caller waits for the future completion.
+ * </p>
+ * <p>
+ * Work performed outside of the calling thread must not rely on the calling thread entity manager.
+ * </p>
+ *
+ * @param <C>
+ *         The command type.
+ * @param <R>
+ *         The command result type.
+ * @author Denis
+ */
+public interface AsyncCommandHandler<C extends Command<R>, R extends Result> extends CommandHandler<C, R> {
+
+    /**
+     * Starts handling the specified {@code command}.
+     *
+     * @param command
+     *         The command.
+     * @param context
+     *         The execution context.
+     * @return The future command execution {@link Result}, completed exceptionally with a {@link CommandException} if
+     * there is a problem performing the specified command.
+     * @throws CommandException
+     *         If the command execution cannot be started.
+     */
+    CompletableFuture<R> executeAsync(final C command, final ExecutionContext context) throws CommandException;
+
+}
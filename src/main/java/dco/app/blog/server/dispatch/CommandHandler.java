@@ -34,7 +34,14 @@ public interface CommandHandler<C extends Command<R>, R extends Result> {
     R execute(final C command, final ExecutionContext context) throws CommandException;
 
     /**
+     * <p>
      * Attempts to roll back the specified {@code command}.
+     * </p>
+     * <p>
+     * If the {@code context} is transactional (see {@link ExecutionContext#isTransactional()}), the command database
+     * changes are already rolled back by the transaction: implementations must only undo their non-transactional side
+     * effects (files, mails, caches, etc.). Otherwise, they must also compensate their database changes.
+     * </p>
      *
      * @param command
      *         The command.
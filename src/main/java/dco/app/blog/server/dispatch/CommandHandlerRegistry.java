@@ -21,10 +21,15 @@ public interface CommandHandlerRegistry {
     <C extends Command<R>, R extends Result> CommandHandler<C, R> findHandler(final C command);
 
     /**
-     * Clears all registered handlers from the registry.
+     * Clears all handlers instances from the registry (handler classes remain registered).
      */
     void clearHandlers();
 
+    /**
+     * Instantiates every registered handler, so that no handler creation is performed while serving requests.
+     */
+    void warmUp();
+
     /**
      * Registers the specified {@link CommandHandler} class with the registry.
      *
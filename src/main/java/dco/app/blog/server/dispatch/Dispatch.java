@@ -7,6 +7,7 @@ import dco.app.blog.shared.command.result.base.Result;
 import dco.app.blog.shared.dispatch.DispatchException;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Executes commands and returns the results.
@@ -35,4 +36,29 @@ public interface Dispatch {
     <C extends Command<R>, R extends Result> R execute(final SecureDispatchAsync.CommandExecution<C, R> commandExecution, final User user,
                                                        final HttpServletRequest request) throws DispatchException;
 
-}
\ No newline at end of file
+    /**
+     * <p>
+     * Executes the specified {@code command} and returns the appropriate future result.
+     * </p>
+     * <p>
+     * Commands handled by an {@link AsyncCommandHandler} complete asynchronously ; other commands are executed by the
+     * calling thread and the returned future is already completed.
+     * </p>
+     *
+     * @param <C>
+     *         The command type.
+     * @param <R>
+     *         The {@link Result} type returned by {@code command} execution.
+     * @param commandExecution
+     *         The command execution (containing {@link Command} to execute).
+     * @param user
+     *         The user executing the command.
+     * @param request
+     *         The servlet HTTP request.
+     * @return The command's future result, completed exceptionally with a {@link DispatchException} if the command
+     * execution failed.
+     */
+    <C extends Command<R>, R extends Result> CompletableFuture<R> executeAsync(final SecureDispatchAsync.CommandExecution<C, R> commandExecution,
+                                                                               final User user, final HttpServletRequest request);
+
+}
@@ -46,4 +46,15 @@ public interface ExecutionContext {
      */
     <C extends Command<R>, R extends Result> R execute(final C command) throws DispatchException;
 
-}
\ No newline at end of file
+    /**
+     * Returns if the commands executed in this context run within a transaction rolling back their database changes on
+     * failure (see {@code dispatch.transactions.savepoints} property).<br/>
+     * If so, {@link CommandHandler#rollback(Command, Result, ExecutionContext)} implementations must only undo their
+     * non-transactional side effects ; otherwise, they must also compensate their database changes.
+     *
+     * @return {@code true} if the database changes are rolled back by the transaction, {@code false} if they must be
+     * compensated by the handlers.
+     */
+    boolean isTransactional();
+
+}
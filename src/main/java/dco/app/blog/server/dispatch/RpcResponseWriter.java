@@ -0,0 +1,184 @@
+package dco.app.blog.server.dispatch;
+
+import com.google.gwt.user.server.rpc.RPCServletUtils;
+import com.google.inject.Singleton;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.server.metrics.MetricsSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>
+ * Writes the GWT-RPC responses of the {@link SecureDispatchServlet}, in place of {@link
+ * RPCServletUtils#writeResponse(javax.servlet.ServletContext, HttpServletResponse, String, boolean)}.
+ * </p>
+ * <p>
+ * A response is gzipped only if the client accepts it and if its payload reaches the {@code
+ * dispatch.compression.threshold} size: large list results are shrunk, while small results (e.g. void or boolean
+ * results) are not worth the compression CPU. The compression level is set by the {@code dispatch.compression.level}
+ * property.
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class RpcResponseWriter implements MetricsSource {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(RpcResponseWriter.class);
+
+    /**
+     * Property setting the payload size (in bytes) from which a response is compressed (negative value disables the
+     * compression).
+     */
+    private static final String THRESHOLD_PROPERTY = "dispatch.compression.threshold";
+
+    /**
+     * Property setting the compression level (from {@code 1}, fastest, to {@code 9}, smallest).
+     */
+    private static final String LEVEL_PROPERTY = "dispatch.compression.level";
+
+    /**
+     * GWT-RPC responses content type.
+     */
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    /**
+     * Compression stream buffer size.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Compression threshold in bytes.
+     */
+    private final int threshold;
+
+    /**
+     * Compression level.
+     */
+    private final int level;
+
+    /**
+     * Number of written responses.
+     */
+    private final LongAdder responses = new LongAdder();
+
+    /**
+     * Number of compressed responses.
+     */
+    private final LongAdder compressedResponses = new LongAdder();
+
+    /**
+     * Written responses payloads size (before compression).
+     */
+    private final LongAdder bytesBefore = new LongAdder();
+
+    /**
+     * Written responses bodies size (after compression).
+     */
+    private final LongAdder bytesAfter = new LongAdder();
+
+    /**
+     * Initializes the writer from the application properties.
+     */
+    public RpcResponseWriter() {
+
+        this.threshold = ApplicationProperties.getInt(THRESHOLD_PROPERTY, 1024);
+        this.level = Math.max(1, Math.min(9, ApplicationProperties.getInt(LEVEL_PROPERTY, 6)));
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("GWT-RPC responses compression threshold: {} bytes ; Level: {}.", threshold, level);
+        }
+    }
+
+    /**
+     * Writes the given GWT-RPC {@code payload} into the {@code response}, compressed if worth it.
+     *
+     * @param request
+     *         The HTTP request.
+     * @param response
+     *         The HTTP response.
+     * @param payload
+     *         The GWT-RPC response payload.
+     * @throws IOException
+     *         If the response cannot be written.
+     */
+    public void write(final HttpServletRequest request, final HttpServletResponse response, final String payload) throws IOException {
+
+        final byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        byte[] body = bytes;
+
+        if (threshold >= 0 && bytes.length >= threshold && RPCServletUtils.acceptsGzipEncoding(request)) {
+            body = compress(bytes);
+            response.setHeader("Content-Encoding", "gzip");
+            compressedResponses.increment();
+        }
+
+        responses.increment();
+        bytesBefore.add(bytes.length);
+        bytesAfter.add(body.length);
+
+        response.setContentLength(body.length);
+        response.setContentType(CONTENT_TYPE);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setHeader("Content-Disposition", "attachment");
+
+        try (final OutputStream output = response.getOutputStream()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(final Map<String, Object> metrics) {
+        metrics.put("rpc.responses", responses.sum());
+        metrics.put("rpc.responses.compressed", compressedResponses.sum());
+        metrics.put("rpc.bytes.before", bytesBefore.sum());
+        metrics.put("rpc.bytes.after", bytesAfter.sum());
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Gzips the given {@code bytes} with the configured compression level.
+     *
+     * @param bytes
+     *         The bytes.
+     * @return The gzipped bytes.
+     * @throws IOException
+     *         If the compression fails.
+     */
+    private byte[] compress(final byte[] bytes) throws IOException {
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 4 + 64);
+
+        try (final GZIPOutputStream gzip = new GZIPOutputStream(output, BUFFER_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(bytes);
+        }
+
+        return output.toByteArray();
+    }
+
+}
@@ -1,11 +1,21 @@
 package dco.app.blog.server.dispatch;
 
+import com.google.gwt.user.client.rpc.IncompatibleRemoteServiceException;
+import com.google.gwt.user.server.rpc.RPC;
+import com.google.gwt.user.server.rpc.RPCRequest;
+import com.google.gwt.user.server.rpc.RPCServletUtils;
 import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.persist.UnitOfWork;
 import dco.app.blog.client.security.SecureDispatchAsync;
 import dco.app.blog.client.security.SecureDispatchService;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.server.dao.base.ReadReplica;
+import dco.app.blog.server.metrics.CommandMetrics;
+import dco.app.blog.server.metrics.FlightRecorder;
 import dco.app.blog.server.model.User;
+import dco.app.blog.server.security.RequestAuthentication;
 import dco.app.blog.server.security.SecureSessionValidator;
 import dco.app.blog.server.servlet.util.Servlets;
 import dco.app.blog.shared.command.base.Command;
@@ -18,7 +28,23 @@ import dco.app.blog.shared.security.UnauthorizedAccessException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.ConstraintViolationException;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract secure dispatch servlet.
@@ -38,6 +64,27 @@ public class SecureDispatchServlet extends RemoteServiceServlet implements Secur
      */
     private static final Logger LOG = LoggerFactory.getLogger(SecureDispatchServlet.class);
 
+    /**
+     * Property enabling the asynchronous mode: commands are executed by a bounded executor instead of container
+     * threads.
+     */
+    private static final String ASYNC_ENABLED_PROPERTY = "dispatch.async.enabled";
+
+    /**
+     * Property setting the number of threads of the asynchronous mode executor.
+     */
+    private static final String ASYNC_THREADS_PROPERTY = "dispatch.async.threads";
+
+    /**
+     * Property setting the maximum number of commands waiting for an asynchronous mode executor thread.
+     */
+    private static final String ASYNC_QUEUE_PROPERTY = "dispatch.async.queue";
+
+    /**
+     * Property setting the asynchronous requests timeout (in milliseconds).
+     */
+    private static final String ASYNC_TIMEOUT_PROPERTY = "dispatch.async.timeout";
+
     /**
      * Injected {@link SecureSessionValidator} instance.
      */
@@ -48,6 +95,41 @@ public class SecureDispatchServlet extends RemoteServiceServlet implements Secur
      */
     private final Dispatch dispatch;
 
+    /**
+     * Injected {@link UnitOfWork} instance, used to scope entity managers of asynchronous executions.
+     */
+    private final UnitOfWork unitOfWork;
+
+    /**
+     * Injected {@link ReadReplica} instance, whose entity managers are scoped like the unit of work ones.
+     */
+    private final ReadReplica readReplica;
+
+    /**
+     * Injected {@link CommandMetrics} instance.
+     */
+    private final CommandMetrics commandMetrics;
+
+    /**
+     * Injected {@link FlightRecorder} instance.
+     */
+    private final FlightRecorder flightRecorder;
+
+    /**
+     * Injected {@link RpcResponseWriter} instance.
+     */
+    private final RpcResponseWriter responseWriter;
+
+    /**
+     * Executor of asynchronous mode, {@code null} if asynchronous mode is disabled.
+     */
+    private transient ThreadPoolExecutor asyncExecutor;
+
+    /**
+     * Asynchronous requests timeout (in milliseconds).
+     */
+    private long asyncTimeout;
+
     /**
      * Initializes the {@code SecureDispatchServlet} that uses injected arguments.
      *
@@ -55,11 +137,28 @@ public class SecureDispatchServlet extends RemoteServiceServlet implements Secur
      *         The secure session validator service.
      * @param dispatch
      *         The dispatch service.
+     * @param unitOfWork
+     *         The persistence unit of work.
+     * @param readReplica
+     *         The read replica.
+     * @param commandMetrics
+     *         The commands latencies recorder.
+     * @param flightRecorder
+     *         The last commands executions recorder.
+     * @param responseWriter
+     *         The GWT-RPC responses writer.
      */
     @Inject
-    public SecureDispatchServlet(final SecureSessionValidator sessionValidator, final Dispatch dispatch) {
+    public SecureDispatchServlet(final SecureSessionValidator sessionValidator, final Dispatch dispatch, final UnitOfWork unitOfWork,
+                                 final ReadReplica readReplica, final CommandMetrics commandMetrics, final FlightRecorder flightRecorder,
+                                 final RpcResponseWriter responseWriter) {
         this.sessionValidator = sessionValidator;
         this.dispatch = dispatch;
+        this.unitOfWork = unitOfWork;
+        this.readReplica = readReplica;
+        this.commandMetrics = commandMetrics;
+        this.flightRecorder = flightRecorder;
+        this.responseWriter = responseWriter;
     }
 
     /**
@@ -86,6 +185,56 @@ public class SecureDispatchServlet extends RemoteServiceServlet implements Secur
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(final ServletConfig config) throws ServletException {
+
+        super.init(config);
+
+        if (!ApplicationProperties.getBoolean(ASYNC_ENABLED_PROPERTY, false)) {
+            return;
+        }
+
+        final int threads = ApplicationProperties.getInt(ASYNC_THREADS_PROPERTY, 16);
+        final int queueSize = ApplicationProperties.getInt(ASYNC_QUEUE_PROPERTY, 100);
+        asyncTimeout = ApplicationProperties.getLong(ASYNC_TIMEOUT_PROPERTY, 60000L);
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Asynchronous dispatch enabled ; Threads: {} ; Queue size: {} ; Timeout: {} ms.", threads, queueSize, asyncTimeout);
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        asyncExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize), runnable -> {
+            final Thread thread = new Thread(runnable, "dispatch-async-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+            try {
+                if (!asyncExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    asyncExecutor.shutdownNow();
+                }
+            } catch (final InterruptedException e) {
+                asyncExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        super.destroy();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -96,6 +245,310 @@ public class SecureDispatchServlet extends RemoteServiceServlet implements Secur
             LOG.trace("Executing dispatch command.");
         }
 
+        final long start = System.nanoTime();
+        User user = null;
+
+        try {
+
+            // Validates the user session and user access.
+            user = authorize(commandExecution, getThreadLocalRequest());
+
+            // Command execution.
+            final R result = dispatch.execute(commandExecution, user, getThreadLocalRequest());
+
+            record(commandExecution, user, result, CommandMetrics.Outcome.SUCCESS, start);
+            return result;
+
+        } catch (final Throwable e) {
+            final DispatchException error = failure(commandExecution, user, e);
+            record(commandExecution, user, null, CommandMetrics.Outcome.of(error), start);
+            throw error;
+        }
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // GWT-RPC PROCESSING METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void service(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+
+        if (!"POST".equals(request.getMethod())) {
+            super.service(request, response);
+            return;
+        }
+
+        synchronized (this) {
+            if (perThreadRequest == null) {
+                perThreadRequest = new ThreadLocal<>();
+            }
+            if (perThreadResponse == null) {
+                perThreadResponse = new ThreadLocal<>();
+            }
+        }
+
+        try {
+
+            perThreadRequest.set(request);
+            perThreadResponse.set(response);
+
+            if (asyncExecutor != null && request.isAsyncSupported()) {
+                processAsyncPost(request, response);
+            } else {
+                // Synchronous mode.
+                processSyncPost(request, response);
+            }
+
+        } catch (final Throwable e) {
+            doUnexpectedFailure(e);
+
+        } finally {
+            perThreadRequest.set(null);
+            perThreadResponse.set(null);
+        }
+    }
+
+    /**
+     * Processes the GWT-RPC request on the container thread (as {@link #processPost(HttpServletRequest,
+     * HttpServletResponse)} does), the response being written by the {@link RpcResponseWriter}.
+     *
+     * @param request
+     *         The HTTP request.
+     * @param response
+     *         The HTTP response.
+     * @throws Exception
+     *         If the request cannot be read or processed.
+     */
+    private void processSyncPost(final HttpServletRequest request, final HttpServletResponse response) throws Exception {
+
+        final String requestPayload = readContent(request);
+        onBeforeRequestDeserialized(requestPayload);
+
+        final String responsePayload = processCall(requestPayload);
+        onAfterResponseSerialized(responsePayload);
+
+        responseWriter.write(request, response, responsePayload);
+    }
+
+    /**
+     * <p>
+     * Decodes the GWT-RPC request on the container thread, then hands the command execution to the asynchronous
+     * executor.
+     * </p>
+     * <p>
+     * The container thread is released immediately ; the GWT-RPC response is written once the command future result
+     * completes.
+     * </p>
+     *
+     * @param request
+     *         The HTTP request.
+     * @param response
+     *         The HTTP response.
+     * @throws Exception
+     *         If the request cannot be read or decoded.
+     */
+    private void processAsyncPost(final HttpServletRequest request, final HttpServletResponse response) throws Exception {
+
+        final String requestPayload = readContent(request);
+        onBeforeRequestDeserialized(requestPayload);
+
+        checkPermutationStrongName();
+
+        final RPCRequest rpcRequest;
+        try {
+            rpcRequest = RPC.decodeRequest(requestPayload, getClass(), this);
+            onAfterRequestDeserialized(rpcRequest);
+
+        } catch (final IncompatibleRemoteServiceException e) {
+            log("An IncompatibleRemoteServiceException was thrown while processing this call.", e);
+            final String responsePayload = RPC.encodeResponseForFailedRequest(null, e);
+            onAfterResponseSerialized(responsePayload);
+            responseWriter.write(request, response, responsePayload);
+            return;
+        }
+
+        final SecureDispatchAsync.CommandExecution<?, ?> commandExecution = (SecureDispatchAsync.CommandExecution<?, ?>) rpcRequest.getParameters()[0];
+
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(asyncTimeout);
+
+        final AtomicBoolean completed = new AtomicBoolean();
+
+        asyncContext.addListener(new AsyncListener() {
+
+            @Override
+            public void onTimeout(final AsyncEvent event) throws IOException {
+                if (LOG.isErrorEnabled()) {
+                    LOG.error("COMMAND EXECUTION TIMED OUT - Command execution: '{}' ; Timeout: {} ms.", commandExecution, asyncTimeout);
+                }
+                writeAsyncResponse(asyncContext, completed, rpcRequest, null, new CommandException("Command execution timed out."));
+            }
+
+            @Override
+            public void onError(final AsyncEvent event) throws IOException {
+                writeAsyncResponse(asyncContext, completed, rpcRequest, null, failure(commandExecution, null, event.getThrowable()));
+            }
+
+            @Override
+            public void onComplete(final AsyncEvent event) throws IOException {
+                // Nothing to do.
+            }
+
+            @Override
+            public void onStartAsync(final AsyncEvent event) throws IOException {
+                // Nothing to do.
+            }
+        });
+
+        try {
+
+            asyncExecutor.execute(() -> {
+
+                CompletableFuture<? extends Result> future;
+
+                // Scopes the execution start only: the future continuations (completion thread) run within their own
+                // unit of work (see UserDispatch).
+                unitOfWork.begin();
+                try {
+                    future = executeAsync(commandExecution, request);
+                } finally {
+                    readReplica.end();
+                    unitOfWork.end();
+                }
+
+                future.whenComplete((result, error) -> writeAsyncResponse(asyncContext, completed, rpcRequest, result, error));
+            });
+
+        } catch (final RejectedExecutionException e) {
+
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("COMMAND EXECUTION REJECTED - Command execution: '{}' ; Error: asynchronous executor is saturated.", commandExecution);
+            }
+
+            writeAsyncResponse(asyncContext, completed, rpcRequest, null, new CommandException("Server is busy, please retry later."));
+        }
+    }
+
+    /**
+     * Validates the given {@code commandExecution} access and starts its execution.
+     *
+     * @param commandExecution
+     *         The command execution.
+     * @param request
+     *         The HTTP request.
+     * @return The command future result, completed exceptionally with the {@link DispatchException} to send back to
+     * the client if the command execution failed.
+     */
+    private <C extends Command<R>, R extends Result> CompletableFuture<R> executeAsync(final SecureDispatchAsync.CommandExecution<C, R> commandExecution,
+                                                                                       final HttpServletRequest request) {
+
+        final long start = System.nanoTime();
+        User user = null;
+
+        try {
+
+            // Validates the user session and user access.
+            user = authorize(commandExecution, request);
+
+            final User executingUser = user;
+
+            // Command execution.
+            return dispatch.executeAsync(commandExecution, user, request).handle((result, error) -> {
+
+                if (error == null) {
+                    record(commandExecution, executingUser, result, CommandMetrics.Outcome.SUCCESS, start);
+                    return result;
+                }
+
+                final DispatchException failure = failure(commandExecution, executingUser, unwrap(error));
+                record(commandExecution, executingUser, null, CommandMetrics.Outcome.of(failure), start);
+                throw new CompletionException(failure);
+            });
+
+        } catch (final Throwable e) {
+
+            final DispatchException failure = failure(commandExecution, user, e);
+            record(commandExecution, user, null, CommandMetrics.Outcome.of(failure), start);
+
+            final CompletableFuture<R> future = new CompletableFuture<>();
+            future.completeExceptionally(failure);
+            return future;
+        }
+    }
+
+    /**
+     * Writes the GWT-RPC response of an asynchronous command execution and completes the asynchronous request.<br/>
+     * Only the first call writes the response (the execution may race with the request timeout).
+     *
+     * @param asyncContext
+     *         The asynchronous request context.
+     * @param completed
+     *         Flag set once the response has been written.
+     * @param rpcRequest
+     *         The decoded GWT-RPC request.
+     * @param result
+     *         The command result (if succeed).
+     * @param error
+     *         The command error (if failed).
+     */
+    private void writeAsyncResponse(final AsyncContext asyncContext, final AtomicBoolean completed, final RPCRequest rpcRequest, final Object result,
+                                    final Throwable error) {
+
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+
+        final HttpServletRequest request = (HttpServletRequest) asyncContext.getRequest();
+        final HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+
+        try {
+
+            final String responsePayload;
+
+            if (error == null) {
+                responsePayload = RPC.encodeResponseForSuccess(rpcRequest.getMethod(), result, rpcRequest.getSerializationPolicy(), rpcRequest.getFlags());
+            } else {
+                responsePayload = RPC.encodeResponseForFailure(rpcRequest.getMethod(), unwrap(error), rpcRequest.getSerializationPolicy(), rpcRequest.getFlags());
+            }
+
+            onAfterResponseSerialized(responsePayload);
+            responseWriter.write(request, response, responsePayload);
+
+        } catch (final Throwable e) {
+            log("Exception while writing asynchronous dispatch response.", e);
+            RPCServletUtils.writeResponseForUnexpectedFailure(getServletContext(), response, e);
+
+        } finally {
+            asyncContext.complete();
+        }
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Validates the user session and user access to the given {@code commandExecution}.<br/>
+     * The authentication already resolved for the request (see {@link RequestAuthentication}) is used if it has been
+     * resolved from the command execution token.
+     *
+     * @param commandExecution
+     *         The command execution.
+     * @param request
+     *         The HTTP request.
+     * @return The user executing the command (may be {@code null} for anonymous user).
+     * @throws DispatchException
+     *         If the session is invalid or if the user is not granted to execute the command.
+     */
+    private User authorize(final SecureDispatchAsync.CommandExecution<?, ?> commandExecution, final HttpServletRequest request) throws DispatchException {
+
         if (sessionValidator == null) {
             throw new CommandException("No session validator found for servlet '" + getServletName() + "'. Please verify your server-side configuration.");
         }
@@ -104,48 +557,63 @@ public class SecureDispatchServlet extends RemoteServiceServlet implements Secur
             throw new CommandException("No dispatch found for servlet '" + getServletName() + "'. Please verify your server-side configuration.");
         }
 
-        User user = null;
         final String authToken = commandExecution.getAuthenticationToken();
 
-        // Roles validation case.
-        try {
+        final RequestAuthentication authentication = RequestAuthentication.get(request);
 
-            // Validates the user session and user access.
-            final SecureSessionValidator.Access access = sessionValidator.validate(authToken, commandExecution);
-            user = access.getUser();
+        final SecureSessionValidator.Access access;
+        if (authentication != null && authentication.matches(authToken)) {
+            access = sessionValidator.validate(authentication, commandExecution);
+        } else {
+            access = sessionValidator.validate(authToken, commandExecution);
+        }
+        final User user = access.getUser();
 
-            switch (access.getAccessType()) {
+        switch (access.getAccessType()) {
 
-                case INVALID_SESSION:
+            case INVALID_SESSION:
 
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("COMMAND EXECUTION FAILED - Command execution: '{}' ; User: '{}' ; Error: Invalid auth token '{}'.", commandExecution,
-                                Servlets.logUser(user), authToken);
-                    }
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("COMMAND EXECUTION FAILED - Command execution: '{}' ; User: '{}' ; Error: Invalid auth token '{}'.", commandExecution,
+                            Servlets.logUser(user), authToken);
+                }
 
-                    throw new InvalidSessionException();
+                throw new InvalidSessionException();
 
-                case UNAUTHORIZED_ACCESS:
+            case UNAUTHORIZED_ACCESS:
 
-                    if (LOG.isDebugEnabled()) {
-                        LOG
-                                .debug("COMMAND EXECUTION FAILED - Command execution: '{}' ; User: '{}' ; Error: Unauthorized access.", commandExecution, Servlets.logUser(user));
-                    }
+                if (LOG.isDebugEnabled()) {
+                    LOG
+                            .debug("COMMAND EXECUTION FAILED - Command execution: '{}' ; User: '{}' ; Error: Unauthorized access.", commandExecution, Servlets.logUser(user));
+                }
 
-                    throw new UnauthorizedAccessException();
+                throw new UnauthorizedAccessException();
 
-                default:
+            default:
 
-                    // Access granted.
-                    if (LOG.isTraceEnabled()) {
-                        LOG.trace("COMMAND EXECUTION GRANTED - Command execution: '{}' ; User: '{}'.", commandExecution, Servlets.logUser(user));
-                    }
+                // Access granted.
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("COMMAND EXECUTION GRANTED - Command execution: '{}' ; User: '{}'.", commandExecution, Servlets.logUser(user));
+                }
 
-                    // Command execution.
-                    return dispatch.execute(commandExecution, user, getThreadLocalRequest());
-            }
+                return user;
+        }
+    }
 
-        } catch (final FunctionalException e) {
+    /**
+     * Logs the given command execution failure and returns the exception to send back to the client.
+     *
+     * @param commandExecution
+     *         The failed command execution.
+     * @param user
+     *         The user executing the command (may be {@code null}).
+     * @param e
+     *         The failure cause.
+     * @return The exception to send back to the client.
+     */
+    private static DispatchException failure(final SecureDispatchAsync.CommandExecution<?, ?> commandExecution, final User user, final Throwable e) {
+
+        if (e instanceof FunctionalException) {
 
             // Functional exception.
             if (LOG.isWarnEnabled()) {
@@ -157,18 +625,18 @@ public class SecureDispatchServlet extends RemoteServiceServlet implements Secur
                                 + "'.", e);
             }
 
-            throw e;
+            return (FunctionalException) e;
 
-        } catch (final CommandException e) {
+        } else if (e instanceof CommandException) {
 
             // Command execution exception.
             if (LOG.isErrorEnabled()) {
                 LOG.error("COMMAND EXECUTION FAILED - Command execution: '" + commandExecution + "' ; User: '" + Servlets.logUser(user) + "'.", e);
             }
 
-            throw e;
+            return (CommandException) e;
 
-        } catch (final ConstraintViolationException e) {
+        } else if (e instanceof ConstraintViolationException) {
 
             // Bean validation failed.
             if (LOG.isErrorEnabled()) {
@@ -179,12 +647,12 @@ public class SecureDispatchServlet extends RemoteServiceServlet implements Secur
                         + "' ; Error: A bean validation failed while executing '"
                         + commandExecution.getCommand()
                         + "'. Consider performing the validation on client-side.\n"
-                        + Servlets.logConstraints(e.getConstraintViolations()), e);
+                        + Servlets.logConstraints(((ConstraintViolationException) e).getConstraintViolations()), e);
             }
 
-            throw new CommandException("A bean validation failed while executing '" + commandExecution.getCommand() + "'.", e);
+            return new CommandException("A bean validation failed while executing '" + commandExecution.getCommand() + "'.", e);
 
-        } catch (final Throwable e) {
+        } else {
 
             // Server unknown error.
             if (LOG.isErrorEnabled()) {
@@ -195,8 +663,44 @@ public class SecureDispatchServlet extends RemoteServiceServlet implements Secur
                         + "' ; RuntimeException while executing.", e);
             }
 
-            throw new CommandException("Server error.", e);
+            return new CommandException("Server error.", e);
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Records the latency of the given {@code commandExecution} and feeds the flight recorder.
+     *
+     * @param commandExecution
+     *         The command execution.
+     * @param user
+     *         The executing user ({@code null} if the session has not been validated).
+     * @param result
+     *         The command result ({@code null} if the execution failed).
+     * @param outcome
+     *         The command execution outcome.
+     * @param start
+     *         The command execution start {@link System#nanoTime()}.
+     */
+    private void record(final SecureDispatchAsync.CommandExecution<?, ?> commandExecution, final User user, final Result result,
+                        final CommandMetrics.Outcome outcome, final long start) {
+
+        final long duration = System.nanoTime() - start;
+        final Command<?> command = commandExecution.getCommand();
+        final Class<?> commandType = command != null ? command.getClass() : null;
+
+        commandMetrics.record(commandType, outcome, duration);
+        flightRecorder.record(commandType, user != null ? user.getId() : null, result, outcome, duration);
+    }
+
+    /**
+     * Unwraps the given {@code error} raised by a {@link CompletableFuture} stage.
+     *
+     * @param error
+     *         The error.
+     * @return The error cause if {@code error} is a {@link CompletionException}, the error itself otherwise.
+     */
+    private static Throwable unwrap(final Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+}
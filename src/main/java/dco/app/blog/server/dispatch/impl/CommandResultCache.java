@@ -0,0 +1,398 @@
+package dco.app.blog.server.dispatch.impl;
+
+import com.google.inject.Singleton;
+import dco.app.blog.server.metrics.MetricsSource;
+import dco.app.blog.server.model.User;
+import dco.app.blog.server.util.BoundedCache;
+import dco.app.blog.shared.command.base.AbstractCommand;
+import dco.app.blog.shared.command.base.CachedResult;
+import dco.app.blog.shared.command.base.Command;
+import dco.app.blog.shared.command.base.InvalidatesCache;
+import dco.app.blog.shared.command.result.base.Result;
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Server-side cache of the results of commands annotated with {@link CachedResult}.
+ * </p>
+ * <p>
+ * Each cacheable command type owns its own bounded region, configured by its annotation. Regions are invalidated when
+ * a command annotated with {@link InvalidatesCache} has been successfully executed, once the top-level execution
+ * enclosing it is complete (i.e. after its transaction commit, see {@link UserDispatch}).
+ * </p>
+ * <p>
+ * Results are cached as serialized snapshots, and each cache hit returns a new copy: a result modified by a caller
+ * (e.g. a handler editing a sub-command result) never alters the cached entry. Results that cannot be serialized are
+ * not cached.
+ * </p>
+ *
+ * @author Denis
+ * @see UserDispatch
+ */
+@Singleton
+public class CommandResultCache implements MetricsSource {
+
+    /**
+     * A cached result key: the command value and, for {@link CachedResult.Scope#USER} scope, the user id.
+     *
+     * @author Denis
+     */
+    private static final class Key {
+
+        private final Command<?> command;
+
+        private final Long userId;
+
+        private Key(final Command<?> command, final Long userId) {
+            this.command = command;
+            this.userId = userId;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return command.equals(other.command) && Objects.equals(userId, other.userId);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return 31 * command.hashCode() + Objects.hashCode(userId);
+        }
+
+    }
+
+    /**
+     * A command type cache region.
+     *
+     * @author Denis
+     */
+    private static final class Region {
+
+        /**
+         * Region of the command types that are not cacheable.
+         */
+        private static final Region NONE = new Region(null);
+
+        private final CachedResult configuration;
+
+        /**
+         * The serialized results.
+         */
+        private final BoundedCache<Key, byte[]> cache;
+
+        /**
+         * Region generation, incremented on each invalidation.
+         */
+        private final AtomicLong generation;
+
+        private Region(final CachedResult configuration) {
+            this.configuration = configuration;
+            this.cache = configuration != null ? new BoundedCache<Key, byte[]>(configuration.maxEntries(), configuration.ttl(), TimeUnit.SECONDS) : null;
+            this.generation = new AtomicLong();
+        }
+
+        /**
+         * Builds the cache key of the given {@code command}.
+         *
+         * @param command
+         *         The command.
+         * @param user
+         *         The executing user (may be {@code null}).
+         * @return The cache key.
+         */
+        private Key key(final Command<?> command, final User user) {
+            final boolean userScope = configuration.scope() == CachedResult.Scope.USER;
+            return new Key(command, userScope && user != null ? user.getId() : null);
+        }
+
+    }
+
+    /**
+     * Value returned by {@link #generation(Command)} for commands that are not cacheable.
+     */
+    public static final long NOT_CACHEABLE = -1L;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(CommandResultCache.class);
+
+    /**
+     * The command types with their region.
+     */
+    private final ConcurrentMap<Class<?>, Region> regions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the current generation of the given {@code command} type region.<br/>
+     * The generation must be retrieved <b>before</b> executing the command, and provided back to {@link #put(Command,
+     * User, Result, long)}: a result computed while its region was being invalidated is not cached.
+     *
+     * @param command
+     *         The command.
+     * @return The current generation, or {@link #NOT_CACHEABLE} if the command is not cacheable.
+     */
+    public long generation(final Command<?> command) {
+        final Region region = region(command.getClass());
+        return region != Region.NONE ? region.generation.get() : NOT_CACHEABLE;
+    }
+
+    /**
+     * Returns the cached result of the given {@code command}.
+     *
+     * @param command
+     *         The command.
+     * @param user
+     *         The executing user (may be {@code null}).
+     * @return A copy of the cached result, or {@code null} if the command is not cacheable or if there is no cached
+     * result.
+     */
+    public <R extends Result> R get(final Command<R> command, final User user) {
+
+        final Region region = region(command.getClass());
+
+        if (region == Region.NONE) {
+            return null;
+        }
+
+        final byte[] result = region.cache.get(region.key(command, user));
+
+        return result != null ? SerializationUtils.<R>deserialize(result) : null;
+    }
+
+    /**
+     * Caches the {@code result} of the given {@code command}.
+     *
+     * @param command
+     *         The command.
+     * @param user
+     *         The executing user (may be {@code null}).
+     * @param result
+     *         The command result (a snapshot is cached, the result may still be modified afterwards).
+     * @param generation
+     *         The region generation retrieved before executing the command.
+     */
+    public <R extends Result> void put(final Command<R> command, final User user, final R result, final long generation) {
+
+        final Region region = region(command.getClass());
+
+        if (region == Region.NONE || generation == NOT_CACHEABLE || result == null) {
+            return;
+        }
+
+        final byte[] snapshot;
+
+        try {
+
+            snapshot = SerializationUtils.serialize(result);
+
+        } catch (final SerializationException e) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Result of command '" + command.getClass().getName() + "' cannot be serialized ; it will not be cached.", e);
+            }
+            return;
+        }
+
+        final Key key = region.key(command, user);
+        region.cache.put(key, snapshot);
+
+        if (region.generation.get() != generation) {
+            // Region has been invalidated during the command execution.
+            region.cache.remove(key);
+        }
+    }
+
+    /**
+     * Invalidates the regions declared by the given successfully executed {@code command} (see {@link
+     * InvalidatesCache}).
+     *
+     * @param command
+     *         The executed command.
+     */
+    public void invalidate(final Command<?> command) {
+
+        final InvalidatesCache invalidation = command.getClass().getAnnotation(InvalidatesCache.class);
+
+        if (invalidation == null) {
+            return;
+        }
+
+        for (final Class<? extends Command<?>> commandType : invalidation.value()) {
+
+            final Region region = regions.get(commandType);
+
+            if (region == null || region == Region.NONE) {
+                continue;
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Command '{}' invalidates cached results of '{}'.", command, commandType.getName());
+            }
+
+            region.generation.incrementAndGet();
+            region.cache.clear();
+        }
+    }
+
+    /**
+     * Returns if the cached results of the given {@code command} are invalidated by one of the given {@code commands}
+     * (see {@link InvalidatesCache}).
+     *
+     * @param command
+     *         The command.
+     * @param commands
+     *         The commands (e.g. executed, but whose invalidations are not performed yet).
+     * @return {@code true} if one of the {@code commands} invalidates the {@code command} cached results.
+     */
+    public boolean isInvalidatedBy(final Command<?> command, final Iterable<? extends Command<?>> commands) {
+
+        for (final Command<?> other : commands) {
+
+            final InvalidatesCache invalidation = other.getClass().getAnnotation(InvalidatesCache.class);
+
+            if (invalidation == null) {
+                continue;
+            }
+
+            for (final Class<? extends Command<?>> commandType : invalidation.value()) {
+                if (commandType == command.getClass()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the statistics of each cached command type.
+     *
+     * @return The statistics of each cached command type, sorted by command type name.
+     */
+    public Map<String, BoundedCache.Statistics> getStatistics() {
+
+        final Map<String, BoundedCache.Statistics> statistics = new TreeMap<>();
+
+        for (final Map.Entry<Class<?>, Region> entry : regions.entrySet()) {
+            if (entry.getValue() != Region.NONE) {
+                statistics.put(entry.getKey().getName(), entry.getValue().cache.getStatistics());
+            }
+        }
+
+        return statistics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(final Map<String, Object> metrics) {
+        for (final Map.Entry<String, BoundedCache.Statistics> entry : getStatistics().entrySet()) {
+            entry.getValue().collect(metrics, "cache.command." + entry.getKey() + '.');
+        }
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Returns the region of the given {@code commandType}, creating it on first request.
+     *
+     * @param commandType
+     *         The command type.
+     * @return The command type region, or {@link Region#NONE} if the command type is not cacheable.
+     */
+    private Region region(final Class<?> commandType) {
+
+        final Region region = regions.get(commandType);
+
+        if (region != null) {
+            return region;
+        }
+
+        return regions.computeIfAbsent(commandType, CommandResultCache::createRegion);
+    }
+
+    /**
+     * Creates the region of the given {@code commandType}.
+     *
+     * @param commandType
+     *         The command type.
+     * @return The command type region, or {@link Region#NONE} if the command type is not cacheable.
+     */
+    private static Region createRegion(final Class<?> commandType) {
+
+        final CachedResult configuration = commandType.getAnnotation(CachedResult.class);
+
+        if (configuration == null) {
+            return Region.NONE;
+        }
+
+        if (!definesIdentity(commandType)) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Command '{}' is annotated with @{} but does not override '{}.getIdentity()' ; its results will not be cached.",
+                        commandType.getName(), CachedResult.class.getSimpleName(), AbstractCommand.class.getSimpleName());
+            }
+            return Region.NONE;
+        }
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Caching results of command '{}' ; TTL: {}s ; Scope: {} ; Max entries: {}.", commandType.getName(), configuration.ttl(),
+                    configuration.scope(), configuration.maxEntries());
+        }
+
+        return new Region(configuration);
+    }
+
+    /**
+     * Returns if the given {@code commandType} defines a value-based identity (see {@link
+     * AbstractCommand#getIdentity()}).
+     *
+     * @param commandType
+     *         The command type.
+     * @return {@code true} if the command type overrides {@link AbstractCommand#getIdentity()}.
+     */
+    private static boolean definesIdentity(final Class<?> commandType) {
+
+        if (!AbstractCommand.class.isAssignableFrom(commandType)) {
+            return false;
+        }
+
+        for (Class<?> type = commandType; type != AbstractCommand.class; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod("getIdentity");
+                return true;
+            } catch (final NoSuchMethodException e) {
+                // Looks into super class.
+            }
+        }
+
+        return false;
+    }
+
+}
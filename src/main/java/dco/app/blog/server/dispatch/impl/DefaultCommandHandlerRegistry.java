@@ -0,0 +1,190 @@
+package dco.app.blog.server.dispatch.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import dco.app.blog.server.dispatch.CommandHandler;
+import dco.app.blog.server.dispatch.CommandHandlerRegistry;
+import dco.app.blog.shared.command.base.Command;
+import dco.app.blog.shared.command.result.base.Result;
+import org.apache.commons.lang3.time.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Default thread-safe implementation of the registry.
+ * </p>
+ * <p>
+ * Registrations are held into an immutable snapshot which is replaced (copy-on-write) each time a handler class is
+ * added or removed. Handler lookups are therefore lock-free and can be performed concurrently by servlet threads.
+ * </p>
+ * <p>
+ * Handlers instances are created by the Guice injector, either eagerly at startup (see {@link #warmUp()}) or upon the
+ * first request of a handler for the {@link Command} it is registered with.
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class DefaultCommandHandlerRegistry implements CommandHandlerRegistry {
+
+    /**
+     * A {@link CommandHandler} class registration with its (lazily created) instance.
+     *
+     * @author Denis
+     */
+    private static final class Registration {
+
+        /**
+         * The handler class.
+         */
+        private final Class<? extends CommandHandler<?, ?>> handlerClass;
+
+        /**
+         * The handler instance, {@code null} until first requested.
+         */
+        private volatile CommandHandler<?, ?> handler;
+
+        private Registration(final Class<? extends CommandHandler<?, ?>> handlerClass) {
+            this.handlerClass = handlerClass;
+        }
+
+        /**
+         * Returns the handler instance, creating it if necessary.
+         *
+         * @param injector
+         *         The injector used to create the handler instance.
+         * @return The handler instance.
+         */
+        private CommandHandler<?, ?> getHandler(final Injector injector) {
+
+            CommandHandler<?, ?> instance = handler;
+
+            if (instance == null) {
+                synchronized (this) {
+                    instance = handler;
+                    if (instance == null) {
+                        instance = injector.getInstance(handlerClass);
+                        // Resolves the command type before publishing the handler.
+                        instance.getCommandType();
+                        handler = instance;
+                    }
+                }
+            }
+
+            return instance;
+        }
+
+    }
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultCommandHandlerRegistry.class);
+
+    /**
+     * Immutable snapshot of the {@link Command} classes with their corresponding {@link CommandHandler}
+     * registration.
+     */
+    private volatile Map<Class<?>, Registration> registrations;
+
+    /**
+     * Injected injector.
+     */
+    private final Injector injector;
+
+    @Inject
+    public DefaultCommandHandlerRegistry(final Injector injector) {
+        this.injector = injector;
+        this.registrations = Collections.emptyMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized <C extends Command<R>, R extends Result> void addHandlerClass(final Class<C> commandClass,
+                                                                                      final Class<? extends CommandHandler<C, R>> handlerClass) {
+
+        final Map<Class<?>, Registration> snapshot = new HashMap<>(registrations);
+        snapshot.put(commandClass, new Registration(handlerClass));
+
+        registrations = Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized <C extends Command<R>, R extends Result> void removeHandlerClass(final Class<C> commandClass,
+                                                                                         final Class<? extends CommandHandler<C, R>> handlerClass) {
+
+        final Registration registration = registrations.get(commandClass);
+
+        if (registration != null && registration.handlerClass == handlerClass) {
+            final Map<Class<?>, Registration> snapshot = new HashMap<>(registrations);
+            snapshot.remove(commandClass);
+
+            registrations = Collections.unmodifiableMap(snapshot);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <C extends Command<R>, R extends Result> CommandHandler<C, R> findHandler(final C command) {
+
+        final Registration registration = registrations.get(command.getClass());
+
+        if (registration == null) {
+            return null;
+        }
+
+        return (CommandHandler<C, R>) registration.getHandler(injector);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void warmUp() {
+
+        final StopWatch chrono = new StopWatch();
+        chrono.start();
+
+        final Map<Class<?>, Registration> snapshot = registrations;
+
+        for (final Registration registration : snapshot.values()) {
+            registration.getHandler(injector);
+        }
+
+        chrono.stop();
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("{} command handler(s) instantiated in {} ms.", snapshot.size(), chrono.getTime());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void clearHandlers() {
+
+        final Map<Class<?>, Registration> snapshot = new HashMap<>(registrations.size());
+
+        for (final Map.Entry<Class<?>, Registration> entry : registrations.entrySet()) {
+            snapshot.put(entry.getKey(), new Registration(entry.getValue().handlerClass));
+        }
+
+        registrations = Collections.unmodifiableMap(snapshot);
+    }
+
+}
@@ -0,0 +1,270 @@
+package dco.app.blog.server.dispatch.impl;
+
+import dco.app.blog.shared.dispatch.CommandException;
+import org.hibernate.HibernateException;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.event.spi.EventSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.sql.Connection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Transaction wrapping a whole command execution, in which each sub-command runs within its own JDBC savepoint.
+ * </p>
+ * <p>
+ * A failed sub-command is undone by rolling back to its savepoint, instead of asking each handler to compensate its
+ * database writes.
+ * </p>
+ * <p>
+ * The persistence context is kept consistent with the database: on a savepoint rollback, only the entities changed
+ * (or removed) after the savepoint are evicted and reloaded (or detached if they were not managed at the savepoint), so
+ * that the parent command keeps working with the entities it loaded before.
+ * </p>
+ * <p>
+ * A sub-command failure marking the transaction for rollback (e.g. a failed flush) is not undone by the savepoint
+ * rollback: Hibernate state can no longer be trusted, the parent command fails on {@link #commit()}. Batched commands
+ * are not exposed to this: each of them runs within its own transaction.
+ * </p>
+ *
+ * @author Denis
+ * @see UserDispatch.UserExecutionContext
+ */
+final class SavepointTransaction {
+
+    /**
+     * A sub-command savepoint.
+     *
+     * @author Denis
+     */
+    static final class Savepoint {
+
+        /**
+         * The JDBC savepoint.
+         */
+        private final java.sql.Savepoint savepoint;
+
+        /**
+         * The entities managed at the savepoint, with their loaded state.
+         */
+        private final Map<Object, Object[]> entities;
+
+        private Savepoint(final java.sql.Savepoint savepoint, final Map<Object, Object[]> entities) {
+            this.savepoint = savepoint;
+            this.entities = entities;
+        }
+
+    }
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(SavepointTransaction.class);
+
+    /**
+     * The entity manager.
+     */
+    private final EntityManager em;
+
+    /**
+     * Has the transaction been started by this instance? If not, it is only joined (never committed nor rolled back).
+     */
+    private final boolean owner;
+
+    /**
+     * Begins (or joins) the entity manager transaction.
+     *
+     * @param em
+     *         The entity manager.
+     */
+    SavepointTransaction(final EntityManager em) {
+
+        this.em = em;
+
+        final EntityTransaction transaction = em.getTransaction();
+        this.owner = !transaction.isActive();
+
+        if (owner) {
+            transaction.begin();
+        }
+    }
+
+    /**
+     * Flushes the pending changes and sets a new savepoint.
+     *
+     * @return The savepoint.
+     */
+    Savepoint savepoint() {
+
+        em.flush();
+
+        // Flushed: the managed entities state is the database state at the savepoint.
+        final Map<Object, Object[]> entities = new IdentityHashMap<>();
+
+        for (final Map.Entry<Object, EntityEntry> entry : persistenceContext().reentrantSafeEntityEntries()) {
+            if (entry.getValue().getStatus() == Status.MANAGED) {
+                entities.put(entry.getKey(), entry.getValue().getLoadedState());
+            }
+        }
+
+        return new Savepoint(session().doReturningWork(Connection::setSavepoint), entities);
+    }
+
+    /**
+     * Rollbacks the transaction to the given {@code savepoint}.<br/>
+     * The changes not flushed yet are discarded, the entities changed (or removed) after the savepoint are evicted and
+     * reloaded and the entities loaded (or persisted) after the savepoint are detached. The other entities are left untouched.
+     *
+     * @param savepoint
+     *         The savepoint.
+     */
+    void rollback(final Savepoint savepoint) {
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Rolling back to savepoint '{}'.", savepoint.savepoint);
+        }
+
+        session().doWork(connection -> connection.rollback(savepoint.savepoint));
+
+        // The actions queued since the savepoint (flushed) belong to the failed sub-command.
+        final EventSource session = (EventSource) session();
+        session.getActionQueue().clear();
+
+        for (final Map.Entry<Object, EntityEntry> entry : persistenceContext().reentrantSafeEntityEntries()) {
+
+            final Object entity = entry.getKey();
+
+            if (!savepoint.entities.containsKey(entity) || isChanged(entry.getValue(), entity, savepoint.entities.get(entity))) {
+                // Loaded or persisted after the savepoint (detached), or changed since (reloaded below).
+                session.evict(entity);
+            }
+        }
+
+        for (final Object entity : savepoint.entities.keySet()) {
+            if (!session.contains(entity)) {
+                // Changed or removed after the savepoint, or detached by an eviction cascade: reloaded.
+                session.buildLockRequest(LockOptions.NONE).lock(entity);
+                session.refresh(entity);
+            }
+        }
+
+        if (em.getTransaction().getRollbackOnly() && LOG.isWarnEnabled()) {
+            LOG.warn("Transaction has been marked for rollback by a failed sub-command ; the command will fail.");
+        }
+    }
+
+    /**
+     * Releases the given {@code savepoint}.
+     *
+     * @param savepoint
+     *         The savepoint.
+     */
+    void release(final Savepoint savepoint) {
+        try {
+
+            session().doWork(connection -> connection.releaseSavepoint(savepoint.savepoint));
+
+        } catch (final HibernateException e) {
+            // Some drivers do not support savepoints release ; they are released on transaction end.
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Savepoint '" + savepoint.savepoint + "' cannot be released.", e);
+            }
+        }
+    }
+
+    /**
+     * Commits the transaction (if it has been started by this instance).
+     *
+     * @throws CommandException
+     *         If the transaction is marked for rollback (it is then rolled back).
+     */
+    void commit() throws CommandException {
+
+        if (!owner) {
+            return;
+        }
+
+        final EntityTransaction transaction = em.getTransaction();
+
+        if (transaction.getRollbackOnly()) {
+            rollback();
+            throw new CommandException("The transaction has been marked for rollback by a failed (sub-)command.");
+        }
+
+        transaction.commit();
+    }
+
+    /**
+     * Rollbacks the transaction (if it has been started by this instance).
+     */
+    void rollback() {
+
+        if (!owner) {
+            return;
+        }
+
+        final EntityTransaction transaction = em.getTransaction();
+
+        if (transaction.isActive()) {
+            transaction.rollback();
+        }
+
+        em.clear();
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Returns if the given {@code entity}, managed at the savepoint, has been changed since.
+     *
+     * @param entry
+     *         The entity entry.
+     * @param entity
+     *         The entity.
+     * @param savepointState
+     *         The entity loaded state at the savepoint.
+     * @return {@code true} if the entity has been removed, flushed or modified since the savepoint.
+     */
+    private boolean isChanged(final EntityEntry entry, final Object entity, final Object[] savepointState) {
+
+        if (entry.getStatus() != Status.MANAGED || entry.getLoadedState() != savepointState) {
+            // Removed, or flushed (a flush replaces the loaded state).
+            return true;
+        }
+
+        return entry.getPersister().findDirty(entry.getPersister().getPropertyValues(entity), savepointState, entity, (EventSource) session())
+            != null;
+    }
+
+    /**
+     * Returns the Hibernate persistence context.
+     *
+     * @return The persistence context.
+     */
+    private PersistenceContext persistenceContext() {
+        return ((EventSource) session()).getPersistenceContext();
+    }
+
+    /**
+     * Returns the entity manager underlying Hibernate session.
+     *
+     * @return The Hibernate session.
+     */
+    private Session session() {
+        return em.unwrap(Session.class);
+    }
+
+}
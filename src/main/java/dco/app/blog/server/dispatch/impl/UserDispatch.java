@@ -1,16 +1,22 @@
 package dco.app.blog.server.dispatch.impl;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.persist.UnitOfWork;
 import dco.app.blog.client.navigation.Page;
 import dco.app.blog.client.navigation.PageRequest;
 import dco.app.blog.client.navigation.RequestParameter;
 import dco.app.blog.client.security.SecureDispatchAsync;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.server.dao.base.ReadReplica;
+import dco.app.blog.server.dispatch.AsyncCommandHandler;
 import dco.app.blog.server.dispatch.CommandHandler;
 import dco.app.blog.server.dispatch.CommandHandlerRegistry;
 import dco.app.blog.server.dispatch.Dispatch;
 import dco.app.blog.server.dispatch.ExecutionContext;
 import dco.app.blog.server.model.User;
 import dco.app.blog.server.servlet.base.ServletExecutionContext;
+import dco.app.blog.shared.command.BatchCommand;
 import dco.app.blog.shared.command.base.Command;
 import dco.app.blog.shared.command.result.base.Result;
 import dco.app.blog.shared.dispatch.CommandException;
@@ -20,9 +26,13 @@ import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.persistence.EntityManager;
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 /**
  * Dispatch custom implementation.
@@ -48,11 +58,34 @@ public class UserDispatch implements Dispatch {
          */
         private final List<CommandResult<?, ?>> commandResults;
 
+        /**
+         * Successfully executed commands whose cache invalidations are deferred until the end of the top-level
+         * execution (see {@link CommandResultCache#invalidate(Command)}).
+         */
+        private final List<Command<?>> invalidations;
+
+        /**
+         * Commands being executed (top-level command and its running sub-commands), whose cache invalidations are not
+         * registered yet.
+         */
+        private final List<Command<?>> executing;
+
         /**
          * The application URL.
          */
         private final String applicationUrl;
 
+        /**
+         * The transaction wrapping the command execution (or the running isolated command, see
+         * {@link #isolatedTransactions}), {@code null} if sub-commands do not run within savepoints.
+         */
+        private SavepointTransaction transaction;
+
+        /**
+         * Do the isolated commands run within their own transaction (see {@link #executeIsolated(Command)})?
+         */
+        private final boolean isolatedTransactions;
+
         /**
          * Initializes a new user execution context.
          *
@@ -64,14 +97,23 @@ public class UserDispatch implements Dispatch {
          *         See {@link #request}.
          * @param originPageToken
          *         See {@link #originPageToken}.
+         * @param transaction
+         *         See {@link #transaction}.
+         * @param isolatedTransactions
+         *         See {@link #isolatedTransactions}.
          */
-        private UserExecutionContext(final UserDispatch dispatch, final User user, final HttpServletRequest request, final String originPageToken) {
+        private UserExecutionContext(final UserDispatch dispatch, final User user, final HttpServletRequest request, final String originPageToken,
+                                     final SavepointTransaction transaction, final boolean isolatedTransactions) {
 
             super(user, request, originPageToken);
 
             this.dispatch = dispatch;
             this.commandResults = new java.util.ArrayList<CommandResult<?, ?>>();
+            this.invalidations = new java.util.ArrayList<Command<?>>();
+            this.executing = new java.util.ArrayList<Command<?>>();
             this.applicationUrl = request.getHeader("Referer").split(PageRequest.URL_TOKEN)[0];
+            this.transaction = transaction;
+            this.isolatedTransactions = isolatedTransactions;
         }
 
         /**
@@ -91,7 +133,11 @@ public class UserDispatch implements Dispatch {
 
             this.dispatch = null;
             this.commandResults = null;
+            this.invalidations = null;
+            this.executing = null;
             this.applicationUrl = null;
+            this.transaction = null;
+            this.isolatedTransactions = false;
         }
 
         /**
@@ -104,12 +150,16 @@ public class UserDispatch implements Dispatch {
 
         /**
          * {@inheritDoc}
+         * <p>
+         * If savepoints are enabled, the sub-command runs within its own savepoint: if it fails, its database changes
+         * are rolled back before the exception is thrown.
+         * </p>
          */
         @Override
         public <C extends Command<R>, R extends Result> R execute(final C command, final boolean allowRollback) throws CommandException {
 
             // Executes the sub-action.
-            final R result = dispatch.doExecute(command, this);
+            final R result = executeInSavepoint(command);
 
             // Registers it and its result.
             if (allowRollback) {
@@ -119,6 +169,111 @@ public class UserDispatch implements Dispatch {
             return result;
         }
 
+        /**
+         * <p>
+         * Executes the given {@code command} in the current context, as if it was executed on its own.
+         * </p>
+         * <p>
+         * The command is not registered for rollback ; however, if it fails (with a {@link CommandException} or any
+         * runtime exception), the sub-commands it has executed are rolled back (and, if savepoints are enabled, its
+         * database changes) before the exception is thrown.
+         * </p>
+         * <p>
+         * If savepoints are enabled and the context is not transactional (batch execution), the command runs within its
+         * own transaction, committed once it succeeds: a failed command (even marking its transaction for rollback)
+         * does not undo the commands isolated before it.
+         * </p>
+         *
+         * @param <C>
+         *         The command type.
+         * @param <R>
+         *         The result type.
+         * @param command
+         *         The command.
+         * @return The result.
+         * @throws DispatchException
+         *         If the command execution fails.
+         */
+        public <C extends Command<R>, R extends Result> R executeIsolated(final C command) throws DispatchException {
+
+            final int registered = commandResults.size();
+            final SavepointTransaction isolatedTransaction =
+                isolatedTransactions && transaction == null ? new SavepointTransaction(dispatch.entityManagerProvider.get()) : null;
+
+            if (isolatedTransaction != null) {
+                transaction = isolatedTransaction;
+            }
+
+            try {
+
+                if (isolatedTransaction == null) {
+                    return executeInSavepoint(command);
+                }
+
+                final R result = dispatch.doExecute(command, this);
+                isolatedTransaction.commit();
+                return result;
+
+            } catch (final CommandException | RuntimeException e) {
+                if (isolatedTransaction != null) {
+                    isolatedTransaction.rollback();
+                }
+                // Rollbacks (and forgets) the sub-commands executed by the failed command.
+                for (int i = commandResults.size() - 1; i >= registered; i--) {
+                    rollback(commandResults.remove(i));
+                }
+                throw e;
+
+            } finally {
+                if (isolatedTransaction != null) {
+                    transaction = null;
+                }
+            }
+        }
+
+        /**
+         * Executes the given sub-{@code command}, within its own savepoint if savepoints are enabled.
+         *
+         * @param <C>
+         *         The command type.
+         * @param <R>
+         *         The result type.
+         * @param command
+         *         The command.
+         * @return The result.
+         * @throws CommandException
+         *         If the command execution fails.
+         */
+        private <C extends Command<R>, R extends Result> R executeInSavepoint(final C command) throws CommandException {
+
+            if (transaction == null) {
+                return dispatch.doExecute(command, this);
+            }
+
+            final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+            final R result;
+
+            try {
+
+                result = dispatch.doExecute(command, this);
+
+            } catch (final CommandException | RuntimeException e) {
+                transaction.rollback(savepoint);
+                throw e;
+            }
+
+            transaction.release(savepoint);
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isTransactional() {
+            return transaction != null;
+        }
+
         /**
          * Cancels the memorized commands or results.
          *
@@ -183,9 +338,54 @@ public class UserDispatch implements Dispatch {
      */
     private final CommandHandlerRegistry handlerRegistry;
 
+    /**
+     * Property enabling savepoints: each command execution is wrapped into a transaction in which sub-commands run
+     * within their own savepoint.
+     */
+    private static final String SAVEPOINTS_PROPERTY = "dispatch.transactions.savepoints";
+
+    /**
+     * The commands results cache.
+     */
+    private final CommandResultCache resultCache;
+
+    /**
+     * The entity manager provider.
+     */
+    private final Provider<EntityManager> entityManagerProvider;
+
+    /**
+     * The unit of work, scoping the entity managers of the asynchronous executions continuations.
+     */
+    private final UnitOfWork unitOfWork;
+
+    /**
+     * The read replica, scoped as the unit of work.
+     */
+    private final ReadReplica readReplica;
+
+    /**
+     * Are savepoints enabled?
+     */
+    private final boolean savepoints;
+
     @Inject
-    public UserDispatch(final CommandHandlerRegistry handlerRegistry) {
+    public UserDispatch(final CommandHandlerRegistry handlerRegistry, final CommandResultCache resultCache,
+                        final Provider<EntityManager> entityManagerProvider, final UnitOfWork unitOfWork, final ReadReplica readReplica) {
+        this(handlerRegistry, resultCache, entityManagerProvider, unitOfWork, readReplica, ApplicationProperties.getBoolean(SAVEPOINTS_PROPERTY, false));
+    }
+
+    /**
+     * Initializes the dispatch, with savepoints enabled or not.
+     */
+    UserDispatch(final CommandHandlerRegistry handlerRegistry, final CommandResultCache resultCache, final Provider<EntityManager> entityManagerProvider,
+                 final UnitOfWork unitOfWork, final ReadReplica readReplica, final boolean savepoints) {
         this.handlerRegistry = handlerRegistry;
+        this.resultCache = resultCache;
+        this.entityManagerProvider = entityManagerProvider;
+        this.unitOfWork = unitOfWork;
+        this.readReplica = readReplica;
+        this.savepoints = savepoints;
     }
 
     /**
@@ -221,19 +421,68 @@ public class UserDispatch implements Dispatch {
     public <C extends Command<R>, R extends Result> R execute(final SecureDispatchAsync.CommandExecution<C, R> commandExecution, final User user, final HttpServletRequest request)
             throws DispatchException {
 
-        // Builds a new user execution context.
-        final UserExecutionContext context = new UserExecutionContext(this, user, request, commandExecution.getCurrentPageToken());
+        return execute(commandExecution.getCommand(), user, request, commandExecution.getCurrentPageToken());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <C extends Command<R>, R extends Result> CompletableFuture<R> executeAsync(final SecureDispatchAsync.CommandExecution<C, R> commandExecution,
+                                                                                      final User user, final HttpServletRequest request) {
+
+        final C command = commandExecution.getCommand();
+        final UserExecutionContext context;
+
+        CompletableFuture<R> future;
 
         try {
 
+            final CommandHandler<C, R> handler = findHandler(command);
+
+            if (!(handler instanceof AsyncCommandHandler)) {
+                // Synchronous handler.
+                return CompletableFuture.completedFuture(execute(command, user, request, commandExecution.getCurrentPageToken()));
+            }
+
+            // Builds a new user execution context (asynchronous executions do not run within a transaction).
+            context = new UserExecutionContext(this, user, request, commandExecution.getCurrentPageToken(), null, false);
+
             // Tries to execute the action.
-            return doExecute(commandExecution.getCommand(), context);
+            future = doExecuteAsync(command, (AsyncCommandHandler<C, R>) handler, context);
 
-        } catch (final CommandException e) {
-            // Rollback if necessary.
-            context.rollback();
-            throw e;
+        } catch (final Throwable e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
         }
+
+        // Continuations run on the thread completing the future (e.g. the handler I/O thread).
+        return future.handle((result, error) -> inUnitOfWork(() -> {
+
+            try {
+
+                if (error == null) {
+                    return result;
+                }
+
+                final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+                if (cause instanceof CommandException) {
+                    // Rollback if necessary.
+                    try {
+                        context.rollback();
+                    } catch (final DispatchException e) {
+                        throw new CompletionException(e);
+                    }
+                }
+
+                throw new CompletionException(cause);
+
+            } finally {
+                invalidateCache(context);
+            }
+        }));
     }
 
     /**
@@ -254,20 +503,89 @@ public class UserDispatch implements Dispatch {
     public <C extends Command<R>, R extends Result> R execute(final C command, final ServletExecutionContext executionContext)
             throws DispatchException {
 
+        return execute(command, executionContext.getUser(), executionContext.getRequest(), null);
+    }
+
+    /**
+     * Executes the given top-level {@code command} within a new execution context.<br/>
+     * If savepoints are enabled, the execution is wrapped into a transaction: it is committed if the command succeeds,
+     * rolled back otherwise (the handlers {@code rollback} methods are still called, to undo their non-transactional
+     * side effects ; see {@link ExecutionContext#isTransactional()}). A command whose transaction has been marked for
+     * rollback by a failed sub-command fails.<br/>
+     * A {@link BatchCommand} is not wrapped into a transaction: each batched command runs within its own transaction
+     * (see {@link UserExecutionContext#executeIsolated(Command)}), so that a failed command does not abort the batch.<br/>
+     * The cached results invalidated by the executed commands are invalidated once the execution is complete.
+     *
+     * @param <C>
+     *         Command type.
+     * @param <R>
+     *         Result type.
+     * @param command
+     *         Command to execute.
+     * @param user
+     *         The user executing the command.
+     * @param request
+     *         The HTTP request.
+     * @param originPageToken
+     *         The origin page token.
+     * @return Execution result.
+     * @throws DispatchException
+     *         If the command handler execution fails.
+     */
+    <C extends Command<R>, R extends Result> R execute(final C command, final User user, final HttpServletRequest request, final String originPageToken)
+            throws DispatchException {
+
+        final boolean batch = command instanceof BatchCommand;
+        final SavepointTransaction transaction = savepoints && !batch ? new SavepointTransaction(entityManagerProvider.get()) : null;
+
         // Builds a new user execution context.
-        final UserExecutionContext context = new UserExecutionContext(this, executionContext.getUser(), executionContext.getRequest(), null);
+        final UserExecutionContext context = new UserExecutionContext(this, user, request, originPageToken, transaction, savepoints && batch);
 
         try {
+
             // Tries to execute the action.
-            return doExecute(command, context);
+            final R result = doExecute(command, context);
+
+            if (transaction != null) {
+                transaction.commit();
+            }
+
+            return result;
 
         } catch (final CommandException e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
             // Rollback if necessary.
             context.rollback();
             throw e;
+
+        } catch (final RuntimeException | Error e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw e;
+
+        } finally {
+            // Once the changes are committed: a concurrent read would otherwise cache stale results again.
+            invalidateCache(context);
         }
     }
 
+    /**
+     * Invalidates the cached results declared by the commands successfully executed within the given {@code context},
+     * once its top-level execution is complete (i.e. once the enclosing transaction is committed or rolled back).
+     *
+     * @param context
+     *         The execution context.
+     */
+    private void invalidateCache(final UserExecutionContext context) {
+        for (final Command<?> command : context.invalidations) {
+            resultCache.invalidate(command);
+        }
+        context.invalidations.clear();
+    }
+
     /**
      * Executes a command.
      *
@@ -286,6 +604,18 @@ public class UserDispatch implements Dispatch {
         // Retrieves the handler.
         final CommandHandler<C, R> handler = findHandler(command);
 
+        // Serves the result from cache (if cacheable, and not invalidated by this execution yet).
+        final long cacheGeneration = isInvalidatedWithin(command, context) ? CommandResultCache.NOT_CACHEABLE : resultCache.generation(command);
+        if (cacheGeneration != CommandResultCache.NOT_CACHEABLE) {
+            final R cachedResult = resultCache.get(command, context.getUser());
+            if (cachedResult != null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("COMMAND '{}' RESULT SERVED FROM CACHE ; User: '{}'.", command, context.getUser());
+                }
+                return cachedResult;
+            }
+        }
+
         if (LOG.isDebugEnabled()) {
             LOG.debug("EXECUTING COMMAND - Command: '{}' ; Handler: '{}' ; User: '{}'.", command, handler, context.getUser());
         }
@@ -300,16 +630,132 @@ public class UserDispatch implements Dispatch {
         }
 
         // Asks for the action execution.
-        final R executionResult = handler.execute(command, context);
+        final R executionResult;
+        context.executing.add(command);
+
+        try {
+
+            executionResult = handler.execute(command, context);
+
+        } finally {
+            context.executing.remove(context.executing.size() - 1);
+        }
 
         if (LOG.isDebugEnabled() && chrono != null) {
             chrono.stop();
             LOG.debug("COMMAND '{}' EXECUTED IN {} MS.", command, chrono.getTime());
         }
 
+        resultCache.put(command, context.getUser(), executionResult, cacheGeneration);
+        // Deferred until the enclosing transaction completes.
+        context.invalidations.add(command);
+
         return executionResult;
     }
 
+    /**
+     * Returns if the cached results of the given {@code command} are invalidated by a command executed (or being
+     * executed) within the given {@code context}: its invalidations are deferred until the top-level execution is
+     * complete, the cached results are stale for this execution meanwhile.
+     *
+     * @param command
+     *         The command.
+     * @param context
+     *         The execution context.
+     * @return {@code true} if the {@code command} must not be served from (nor put into) the cache.
+     */
+    private boolean isInvalidatedWithin(final Command<?> command, final UserExecutionContext context) {
+        return resultCache.isInvalidatedBy(command, context.invalidations) || resultCache.isInvalidatedBy(command, context.executing);
+    }
+
+    /**
+     * Executes a command with its {@link AsyncCommandHandler}.
+     *
+     * @param <C>
+     *         The command type.
+     * @param <R>
+     *         The command result type.
+     * @param handler
+     *         The command handler.
+     * @param context
+     *         The execution context.
+     * @return The command execution future result.
+     * @throws CommandException
+     *         If the command handler execution cannot be started.
+     */
+    private <C extends Command<R>, R extends Result> CompletableFuture<R> doExecuteAsync(final C command, final AsyncCommandHandler<C, R> handler,
+                                                                                         final UserExecutionContext context) throws CommandException {
+
+        // Serves the result from cache (if cacheable).
+        final long cacheGeneration = resultCache.generation(command);
+        if (cacheGeneration != CommandResultCache.NOT_CACHEABLE) {
+            final R cachedResult = resultCache.get(command, context.getUser());
+            if (cachedResult != null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("COMMAND '{}' RESULT SERVED FROM CACHE ; User: '{}'.", command, context.getUser());
+                }
+                return CompletableFuture.completedFuture(cachedResult);
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("EXECUTING ASYNC COMMAND - Command: '{}' ; Handler: '{}' ; User: '{}'.", command, handler, context.getUser());
+        }
+
+        final long start = System.currentTimeMillis();
+
+        // Asks for the action execution.
+        return handler.executeAsync(command, context).thenApply(executionResult -> inUnitOfWork(() -> {
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("ASYNC COMMAND '{}' EXECUTED IN {} MS.", command, System.currentTimeMillis() - start);
+            }
+
+            resultCache.put(command, context.getUser(), executionResult, cacheGeneration);
+            context.invalidations.add(command);
+
+            return executionResult;
+        }));
+    }
+
+    /**
+     * Runs the given asynchronous execution {@code continuation} within a unit of work of the current thread.<br/>
+     * The continuations of a future run on the thread completing it, which is not the thread having started the
+     * execution: the unit of work (and its read replica routing) is begun and ended here, unless it is already
+     * active on the current thread (future completed synchronously, or by a thread running its own unit of work).
+     *
+     * @param <T>
+     *         The continuation result type.
+     * @param continuation
+     *         The continuation.
+     * @return The continuation result.
+     */
+    private <T> T inUnitOfWork(final Supplier<T> continuation) {
+
+        boolean begun;
+
+        try {
+
+            unitOfWork.begin();
+            begun = true;
+
+        } catch (final IllegalStateException e) {
+            // Unit of work already active on this thread: ended by its owner.
+            begun = false;
+        }
+
+        try {
+
+            return continuation.get();
+
+        } finally {
+            if (begun) {
+                readReplica.end();
+                unitOfWork.end();
+            }
+        }
+    }
+
     /**
      * Rollbacks a command.
      *
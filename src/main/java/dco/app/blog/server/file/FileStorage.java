@@ -0,0 +1,531 @@
+package dco.app.blog.server.file;
+
+import com.google.inject.Singleton;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.server.metrics.MetricsSource;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Files storage (trip photos, attachments, etc.), rooted at the {@code files.storage.directory} directory.
+ * </p>
+ * <p>
+ * Files are identified by their path relative to the storage directory ; identifiers escaping the storage directory
+ * are rejected.
+ * </p>
+ * <p>
+ * Stored files are content-addressed: a file is stored under its SHA-256 hash ({@code ab/cd/abcd...[.ext]}), computed
+ * while the content is staged into a temporary file, then atomically linked to its final path once published. An
+ * identical content is therefore stored only once.
+ * </p>
+ * <p>
+ * Stored files are never deleted: any storage of the same content may have been handed out the file identifier. A
+ * request storing several files must stage them all, and publish them only once the whole request has succeeded (see
+ * {@link StagedFile}).
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class FileStorage implements MetricsSource {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(FileStorage.class);
+
+    /**
+     * Property setting the storage directory.
+     */
+    private static final String DIRECTORY_PROPERTY = "files.storage.directory";
+
+    /**
+     * Temporary directory of the files being stored (relative to the storage directory).
+     */
+    private static final String TEMPORARY_DIRECTORY = ".tmp";
+
+    /**
+     * Content hash algorithm.
+     */
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    /**
+     * Content hash pattern (hexadecimal SHA-256).
+     */
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Extensions kept by the stored files (media and documents only).<br/>
+     * Files are served from the application origin: extensions whose content may be rendered as an active document
+     * by the browser ({@code html}, {@code svg}, {@code xhtml}, {@code js}, etc.) must never be added.
+     */
+    private static final Set<String> EXTENSIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        // Images.
+        "jpg", "jpeg", "png", "gif", "webp", "bmp", "tif", "tiff",
+        // Videos.
+        "mp4", "m4v", "webm", "ogv", "mov", "avi",
+        // Audios.
+        "mp3", "m4a", "oga", "ogg", "wav", "flac",
+        // Documents.
+        "pdf", "txt", "csv", "doc", "docx", "xls", "xlsx", "ppt", "pptx", "odt", "ods", "odp", "zip", "gpx", "kml")));
+
+    /**
+     * The storage directory (absolute and normalized).
+     */
+    private final Path root;
+
+    /**
+     * The temporary directory of the files being stored.
+     */
+    private final Path temporaryDirectory;
+
+    /**
+     * A file staged into the temporary directory, not yet published to its content-addressed path.
+     */
+    public static final class StagedFile {
+
+        /**
+         * The file identifier, once published.
+         */
+        private final String id;
+
+        /**
+         * The file size (in bytes).
+         */
+        private final long size;
+
+        /**
+         * The temporary file.
+         */
+        private final Path temporaryFile;
+
+        private StagedFile(final String id, final long size, final Path temporaryFile) {
+            this.id = id;
+            this.size = size;
+            this.temporaryFile = temporaryFile;
+        }
+
+        /**
+         * Returns the file identifier, once published.
+         *
+         * @return The file identifier.
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the file size.
+         *
+         * @return The file size (in bytes).
+         */
+        public long getSize() {
+            return size;
+        }
+
+    }
+
+    /**
+     * A stored file.
+     */
+    public static final class StoredFile {
+
+        /**
+         * The file identifier.
+         */
+        private final String id;
+
+        /**
+         * The file size (in bytes).
+         */
+        private final long size;
+
+        /**
+         * Has the file been created by its storage ({@code false} if its content was already stored)?
+         */
+        private final boolean created;
+
+        private StoredFile(final String id, final long size, final boolean created) {
+            this.id = id;
+            this.size = size;
+            this.created = created;
+        }
+
+        /**
+         * Returns the file identifier (see {@link #resolve(String)}).
+         *
+         * @return The file identifier.
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the file size.
+         *
+         * @return The file size (in bytes).
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Returns if the file has been created by its storage.
+         *
+         * @return {@code true} if the file has been created, {@code false} if its content was already stored.
+         */
+        public boolean isCreated() {
+            return created;
+        }
+
+    }
+
+    /**
+     * Number of stored files (including deduplicated ones).
+     */
+    private final LongAdder stored = new LongAdder();
+
+    /**
+     * Number of stored files whose content was already present.
+     */
+    private final LongAdder deduplicated = new LongAdder();
+
+    /**
+     * Number of bytes actually written to the storage.
+     */
+    private final LongAdder bytesWritten = new LongAdder();
+
+    /**
+     * Initializes the storage from the application properties.
+     */
+    public FileStorage() {
+        this(Paths.get(ApplicationProperties.get(DIRECTORY_PROPERTY, System.getProperty("user.home") + File.separator + ".blog" + File.separator
+            + "files")));
+    }
+
+    /**
+     * Initializes the storage.
+     *
+     * @param root
+     *         The storage directory.
+     */
+    FileStorage(final Path root) {
+
+        this.root = root.toAbsolutePath().normalize();
+        this.temporaryDirectory = this.root.resolve(TEMPORARY_DIRECTORY);
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Files storage directory: '{}'.", this.root);
+        }
+    }
+
+    /**
+     * Returns the storage directory.
+     *
+     * @return The storage directory (absolute and normalized).
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the stored file identified by the given {@code fileId}.
+     *
+     * @param fileId
+     *         The file identifier (path relative to the storage directory).
+     * @return The stored file, or {@code null} if the identifier is invalid or if the file does not exist.
+     */
+    public Path resolve(final String fileId) {
+
+        if (StringUtils.isBlank(fileId)) {
+            return null;
+        }
+
+        final Path file;
+
+        try {
+
+            file = root.resolve(fileId).normalize();
+
+        } catch (final InvalidPathException e) {
+            return null;
+        }
+
+        if (!file.startsWith(root) || file.equals(root) || file.startsWith(temporaryDirectory)) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("File identifier '{}' is outside of the storage directory.", fileId);
+            }
+            return null;
+        }
+
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try {
+
+            // Symbolic links must not escape the storage directory either.
+            return file.toRealPath().startsWith(root.toRealPath()) ? file : null;
+
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the content hash of the given stored {@code file} (see {@link #resolve(String)}), given by its name.
+     *
+     * <pre>
+     * getContentHash(".../18/5f/185f8d...381969.jpg") -> "185f8d...381969"
+     * getContentHash(".../photos/holidays.jpg") -> null
+     * </pre>
+     *
+     * @param file
+     *         The stored file.
+     * @return The hexadecimal SHA-256 hash of the file content, or {@code null} if the file has not been stored by
+     * content (e.g. a file copied into the storage directory).
+     */
+    public static String getContentHash(final Path file) {
+
+        final String hash = StringUtils.substringBefore(file.getFileName().toString(), ".");
+
+        return HASH_PATTERN.matcher(hash).matches() ? hash : null;
+    }
+
+    /**
+     * Stores the given {@code input} content (read until its end, but not closed): the content is staged (see
+     * {@link #stage(InputStream, String)}), then published (see {@link #publish(StagedFile)}).
+     *
+     * @param input
+     *         The content input stream.
+     * @param fileName
+     *         The original file name (only its extension is kept, if it is a media or document one), may be
+     *         {@code null}.
+     * @return The stored file.
+     * @throws IOException
+     *         If the content cannot be read or stored.
+     */
+    public StoredFile store(final InputStream input, final String fileName) throws IOException {
+
+        final StagedFile stagedFile = stage(input, fileName);
+
+        try {
+
+            return publish(stagedFile);
+
+        } finally {
+            discard(stagedFile);
+        }
+    }
+
+    /**
+     * Stages the given {@code input} content (read until its end, but not closed) into the temporary directory.<br/>
+     * The content is never buffered into the heap: it is hashed while streamed to a temporary file, which is not
+     * reachable by the file identifiers until it is published (see {@link #publish(StagedFile)}) ; it must otherwise
+     * be discarded (see {@link #discard(StagedFile)}). The temporary file is deleted if the content cannot be read (e.g.
+     * upload size limit exceeded).
+     *
+     * @param input
+     *         The content input stream.
+     * @param fileName
+     *         The original file name (only its extension is kept, if it is a media or document one), may be
+     *         {@code null}.
+     * @return The staged file.
+     * @throws IOException
+     *         If the content cannot be read or staged.
+     */
+    public StagedFile stage(final InputStream input, final String fileName) throws IOException {
+
+        Files.createDirectories(temporaryDirectory);
+
+        final Path temporaryFile = Files.createTempFile(temporaryDirectory, "upload-", null);
+
+        try {
+
+            final MessageDigest digest = newDigest();
+            final long size = Files.copy(new DigestInputStream(input, digest), temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+
+            final String hash = toHex(digest.digest());
+            final String extension = getExtension(fileName);
+            final String fileId = hash.substring(0, 2) + '/' + hash.substring(2, 4) + '/' + hash + (extension != null ? '.' + extension : "");
+
+            return new StagedFile(fileId, size, temporaryFile);
+
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Publishes the given {@code stagedFile} to its content-addressed path (or drops it if this content is already
+     * stored).<br/>
+     * The staged file is hard linked to its final path, which never replaces an existing file (unlike a
+     * {@code rename}): a content stored concurrently is detected as deduplicated. File systems without hard links
+     * support fall back to a (non atomic) move.
+     *
+     * @param stagedFile
+     *         The staged file.
+     * @return The stored file.
+     * @throws IOException
+     *         If the file cannot be stored.
+     */
+    public StoredFile publish(final StagedFile stagedFile) throws IOException {
+
+        final String fileId = stagedFile.getId();
+        final long size = stagedFile.getSize();
+        final Path file = root.resolve(fileId);
+
+        stored.increment();
+
+        if (Files.isRegularFile(file)) {
+            deduplicated.increment();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Content of {} bytes already stored as '{}'.", size, fileId);
+            }
+            discard(stagedFile);
+            return new StoredFile(fileId, size, false);
+        }
+
+        Files.createDirectories(file.getParent());
+
+        try {
+
+            try {
+
+                Files.createLink(file, stagedFile.temporaryFile);
+
+            } catch (final UnsupportedOperationException e) {
+                Files.move(stagedFile.temporaryFile, file);
+            }
+
+        } catch (final FileAlreadyExistsException e) {
+            // Same content stored concurrently.
+            deduplicated.increment();
+            return new StoredFile(fileId, size, false);
+
+        } finally {
+            discard(stagedFile);
+        }
+
+        bytesWritten.add(size);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Content of {} bytes stored as '{}'.", size, fileId);
+        }
+
+        return new StoredFile(fileId, size, true);
+    }
+
+    /**
+     * Discards the given {@code stagedFile} temporary file (no-op once the file is published).<br/>
+     * Stored files are never deleted: a content-addressed file may be referenced by any other storage of the same
+     * content.
+     *
+     * @param stagedFile
+     *         The staged file.
+     * @throws IOException
+     *         If the temporary file cannot be deleted.
+     */
+    public void discard(final StagedFile stagedFile) throws IOException {
+        Files.deleteIfExists(stagedFile.temporaryFile);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(final Map<String, Object> metrics) {
+        metrics.put("files.stored", stored.sum());
+        metrics.put("files.stored.deduplicated", deduplicated.sum());
+        metrics.put("files.stored.bytes", bytesWritten.sum());
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Creates a new content hash digest.
+     *
+     * @return The new digest.
+     */
+    private static MessageDigest newDigest() {
+        try {
+
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+
+        } catch (final NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the lower case hexadecimal representation of the given {@code bytes}.
+     *
+     * @param bytes
+     *         The bytes.
+     * @return The hexadecimal representation.
+     */
+    private static String toHex(final byte[] bytes) {
+
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+
+        for (final byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Returns the extension of the given {@code fileName}, if it is a media or document one (see
+     * {@link #EXTENSIONS}).
+     *
+     * <pre>
+     * getExtension(null) -> null
+     * getExtension("photo.JPG") -> "jpg"
+     * getExtension("archive") -> null
+     * getExtension("../../script.j$") -> null
+     * getExtension("page.html") -> null
+     * getExtension("drawing.svg") -> null
+     * </pre>
+     *
+     * @param fileName
+     *         The file name.
+     * @return The lower case extension, or {@code null} if the file name has no allowed extension.
+     */
+    private static String getExtension(final String fileName) {
+
+        final String extension = StringUtils.lowerCase(StringUtils.substringAfterLast(fileName, "."), Locale.ROOT);
+
+        return extension != null && EXTENSIONS.contains(extension) ? extension : null;
+    }
+
+}
@@ -0,0 +1,240 @@
+package dco.app.blog.server.file;
+
+import com.google.inject.Singleton;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.server.metrics.MetricsSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Per-user upload budget: each user may upload at most {@code files.upload.user.max_bytes} bytes per window of
+ * {@code files.upload.user.window} seconds (fixed windows, starting with the user first upload).
+ * </p>
+ * <p>
+ * The budget is consumed while the uploaded content is read (see {@link #limit(InputStream, Long)}), so that an
+ * upload exceeding it is aborted mid-stream. Bytes of aborted uploads are consumed too.
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class UploadQuota implements MetricsSource {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(UploadQuota.class);
+
+    /**
+     * Property setting the maximum number of bytes uploaded by a user per window (negative value for no limit).
+     */
+    private static final String MAX_BYTES_PROPERTY = "files.upload.user.max_bytes";
+
+    /**
+     * Property setting the window duration (in seconds).
+     */
+    private static final String WINDOW_PROPERTY = "files.upload.user.window";
+
+    /**
+     * A user usage of the current window (immutable: replaced on each consumption).
+     */
+    private static final class Usage {
+
+        /**
+         * The window start (in milliseconds).
+         */
+        private final long start;
+
+        /**
+         * The bytes uploaded during the window.
+         */
+        private final long bytes;
+
+        private Usage(final long start, final long bytes) {
+            this.start = start;
+            this.bytes = bytes;
+        }
+
+    }
+
+    /**
+     * Exception thrown while reading an upload exceeding its user budget.
+     */
+    public static final class QuotaExceededException extends IOException {
+
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = 4416920741396317617L;
+
+        private QuotaExceededException(final Long userId, final long maxBytes) {
+            super("User #" + userId + " upload budget of " + maxBytes + " bytes exceeded.");
+        }
+
+    }
+
+    /**
+     * Maximum number of bytes uploaded by a user per window.
+     */
+    private final long maxBytes;
+
+    /**
+     * Window duration (in milliseconds).
+     */
+    private final long window;
+
+    /**
+     * Current window usages, mapped by user id.
+     */
+    private final Map<Long, Usage> usages = new ConcurrentHashMap<>();
+
+    /**
+     * Next purge of the expired usages (in milliseconds).
+     */
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    /**
+     * Number of uploads aborted by the budget.
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Initializes the budget from the application properties.
+     */
+    public UploadQuota() {
+        this(ApplicationProperties.getLong(MAX_BYTES_PROPERTY, -1L), TimeUnit.SECONDS.toMillis(ApplicationProperties.getLong(WINDOW_PROPERTY,
+                3600L)));
+    }
+
+    /**
+     * Initializes the budget.
+     *
+     * @param maxBytes
+     *         The maximum number of bytes uploaded by a user per window (negative value for no limit).
+     * @param window
+     *         The window duration (in milliseconds).
+     */
+    UploadQuota(final long maxBytes, final long window) {
+
+        this.maxBytes = maxBytes;
+        this.window = window;
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Uploads maximum size: {} bytes per user every {} s.", maxBytes, TimeUnit.MILLISECONDS.toSeconds(window));
+        }
+    }
+
+    /**
+     * Returns an input stream consuming the given {@code userId} budget while the given {@code input} is read.
+     *
+     * @param input
+     *         The uploaded content.
+     * @param userId
+     *         The uploading user id ({@code null} if anonymous: no budget).
+     * @return The input stream, throwing a {@link QuotaExceededException} once the user budget is exceeded.
+     */
+    public InputStream limit(final InputStream input, final Long userId) {
+
+        if (maxBytes < 0L || userId == null) {
+            return input;
+        }
+
+        return new FilterInputStream(input) {
+
+            @Override
+            public int read() throws IOException {
+                final int b = super.read();
+                if (b >= 0) {
+                    consume(userId, 1L);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+                final int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    consume(userId, read);
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(final long n) throws IOException {
+                final long skipped = super.skip(n);
+                if (skipped > 0L) {
+                    consume(userId, skipped);
+                }
+                return skipped;
+            }
+
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(final Map<String, Object> metrics) {
+        metrics.put("files.upload.users", usages.size());
+        metrics.put("files.upload.rejected", rejected.get());
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Consumes the given number of {@code bytes} of the user budget.
+     *
+     * @param userId
+     *         The user id.
+     * @param bytes
+     *         The number of read bytes.
+     * @throws QuotaExceededException
+     *         If the user budget is exceeded.
+     */
+    private void consume(final Long userId, final long bytes) throws QuotaExceededException {
+
+        final long now = System.currentTimeMillis();
+
+        purge(now);
+
+        // The returned usage holds the user total including this consumption (concurrent uploads of the user included).
+        final Usage usage = usages.compute(userId, (id, current) -> current == null || now - current.start >= window
+                ? new Usage(now, bytes)
+                : new Usage(current.start, current.bytes + bytes));
+
+        if (usage.bytes > maxBytes) {
+            rejected.incrementAndGet();
+            throw new QuotaExceededException(userId, maxBytes);
+        }
+    }
+
+    /**
+     * Removes the expired usages (at most once per window).
+     *
+     * @param now
+     *         The current time (in milliseconds).
+     */
+    private void purge(final long now) {
+
+        final long next = nextPurge.get();
+
+        if (now >= next && nextPurge.compareAndSet(next, now + window)) {
+            usages.entrySet().removeIf(entry -> now - entry.getValue().start >= window);
+        }
+    }
+
+}
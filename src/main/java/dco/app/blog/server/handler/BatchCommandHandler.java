@@ -0,0 +1,214 @@
+package dco.app.blog.server.handler;
+
+import com.google.inject.Inject;
+import dco.app.blog.server.dispatch.impl.UserDispatch;
+import dco.app.blog.server.handler.base.AbstractCommandHandler;
+import dco.app.blog.server.metrics.CommandMetrics;
+import dco.app.blog.server.metrics.FlightRecorder;
+import dco.app.blog.server.security.SecureSessionValidator;
+import dco.app.blog.server.servlet.util.Servlets;
+import dco.app.blog.shared.command.BatchCommand;
+import dco.app.blog.shared.command.base.Command;
+import dco.app.blog.shared.command.result.BatchResult;
+import dco.app.blog.shared.command.result.base.Result;
+import dco.app.blog.shared.dispatch.CommandException;
+import dco.app.blog.shared.dispatch.DispatchException;
+import dco.app.blog.shared.dispatch.FunctionalException;
+import dco.app.blog.shared.security.UnauthorizedAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.ConstraintViolationException;
+
+/**
+ * <p>
+ * {@link BatchCommand} handler.
+ * </p>
+ * <p>
+ * The session has already been validated once for the whole batch by the dispatch servlet. Each batched command access
+ * right is checked, then the command is executed within the batch execution context. A failed command does not abort
+ * the batch: its error is returned at its index into the {@link BatchResult}.
+ * </p>
+ * <p>
+ * If savepoints are enabled, the batch is not wrapped into a transaction: each batched command runs within its own
+ * transaction (see {@link UserDispatch.UserExecutionContext#executeIsolated(Command)}), committed once it succeeds.
+ * </p>
+ *
+ * @author Denis
+ */
+public class BatchCommandHandler extends AbstractCommandHandler<BatchCommand, BatchResult> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(BatchCommandHandler.class);
+
+    /**
+     * Injected {@link SecureSessionValidator} instance.
+     */
+    private final SecureSessionValidator sessionValidator;
+
+    /**
+     * Injected {@link CommandMetrics} instance.
+     */
+    private final CommandMetrics commandMetrics;
+
+    /**
+     * Injected {@link FlightRecorder} instance.
+     */
+    private final FlightRecorder flightRecorder;
+
+    @Inject
+    public BatchCommandHandler(final SecureSessionValidator sessionValidator, final CommandMetrics commandMetrics, final FlightRecorder flightRecorder) {
+        this.sessionValidator = sessionValidator;
+        this.commandMetrics = commandMetrics;
+        this.flightRecorder = flightRecorder;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected BatchResult execute(final BatchCommand command, final UserDispatch.UserExecutionContext context) throws CommandException {
+
+        if (command.getCommands() == null) {
+            return new BatchResult(0);
+        }
+
+        final BatchResult result = new BatchResult(command.getCommands().size());
+
+        for (final Command<?> batchedCommand : command.getCommands()) {
+
+            final long start = System.nanoTime();
+            final Class<?> commandType = batchedCommand != null ? batchedCommand.getClass() : null;
+            final Long userId = context.getUser() != null ? context.getUser().getId() : null;
+
+            try {
+
+                final Result batchedResult = executeBatched(batchedCommand, context);
+                result.addResult(batchedResult);
+
+                final long duration = System.nanoTime() - start;
+                commandMetrics.record(commandType, CommandMetrics.Outcome.SUCCESS, duration);
+                flightRecorder.record(commandType, userId, batchedResult, CommandMetrics.Outcome.SUCCESS, duration);
+
+            } catch (final DispatchException e) {
+                addError(result, e, commandType, userId, start);
+
+            } catch (final RuntimeException e) {
+                // Must not abort the batch: the previous batched commands have already been executed.
+                if (LOG.isErrorEnabled()) {
+                    LOG.error("BATCHED COMMAND EXECUTION FAILED - Command: '"
+                            + batchedCommand
+                            + "' ; User: '"
+                            + Servlets.logUser(context.getUser())
+                            + "' ; RuntimeException while executing.", e);
+                }
+                addError(result, new CommandException("Server error.", e), commandType, userId, start);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Records the given batched command {@code error} into the batch {@code result} and the metrics.
+     *
+     * @param result
+     *         The batch result.
+     * @param error
+     *         The batched command error.
+     * @param commandType
+     *         The batched command type.
+     * @param userId
+     *         The user id (may be {@code null}).
+     * @param start
+     *         The batched command execution start ({@link System#nanoTime()}).
+     */
+    private void addError(final BatchResult result, final DispatchException error, final Class<?> commandType, final Long userId, final long start) {
+
+        result.addError(error);
+
+        final long duration = System.nanoTime() - start;
+        commandMetrics.record(commandType, CommandMetrics.Outcome.of(error), duration);
+        flightRecorder.record(commandType, userId, null, CommandMetrics.Outcome.of(error), duration);
+    }
+
+    /**
+     * Executes the given batched {@code command}.
+     *
+     * @param command
+     *         The batched command.
+     * @param context
+     *         The batch execution context.
+     * @return The command result.
+     * @throws DispatchException
+     *         If the command is not granted or if its execution fails.
+     */
+    private <R extends Result> R executeBatched(final Command<R> command, final UserDispatch.UserExecutionContext context)
+            throws DispatchException {
+
+        if (command instanceof BatchCommand) {
+            throw new CommandException("Nested batch commands are not supported.");
+        }
+
+        if (!sessionValidator.isUserGranted(context.getUser(), command)) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("BATCHED COMMAND EXECUTION FAILED - Command: '{}' ; User: '{}' ; Error: Unauthorized access.", command,
+                        Servlets.logUser(context.getUser()));
+            }
+            throw new UnauthorizedAccessException();
+        }
+
+        try {
+
+            return context.executeIsolated(command);
+
+        } catch (final FunctionalException e) {
+
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("BATCHED COMMAND EXECUTION ABORTED: A functional exception has been raised - Command: '"
+                        + command
+                        + "' ; User: '"
+                        + Servlets.logUser(context.getUser())
+                        + "'.", e);
+            }
+
+            throw e;
+
+        } catch (final DispatchException e) {
+
+            if (LOG.isErrorEnabled()) {
+                LOG.error("BATCHED COMMAND EXECUTION FAILED - Command: '" + command + "' ; User: '" + Servlets.logUser(context.getUser()) + "'.", e);
+            }
+
+            throw e;
+
+        } catch (final ConstraintViolationException e) {
+
+            if (LOG.isErrorEnabled()) {
+                LOG.error("BATCHED COMMAND EXECUTION FAILED - Command: '"
+                        + command
+                        + "' ; User: '"
+                        + Servlets.logUser(context.getUser())
+                        + "' ; Error: A bean validation failed.\n"
+                        + Servlets.logConstraints(e.getConstraintViolations()), e);
+            }
+
+            throw new CommandException("A bean validation failed while executing '" + command + "'.", e);
+
+        } catch (final RuntimeException e) {
+
+            if (LOG.isErrorEnabled()) {
+                LOG.error("BATCHED COMMAND EXECUTION FAILED - Command: '"
+                        + command
+                        + "' ; User: '"
+                        + Servlets.logUser(context.getUser())
+                        + "' ; RuntimeException while executing.", e);
+            }
+
+            throw new CommandException("Server error.", e);
+        }
+    }
+
+}
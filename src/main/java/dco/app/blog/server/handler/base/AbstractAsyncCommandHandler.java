@@ -0,0 +1,89 @@
+package dco.app.blog.server.handler.base;
+
+import dco.app.blog.server.dispatch.AsyncCommandHandler;
+import dco.app.blog.server.dispatch.ExecutionContext;
+import dco.app.blog.server.dispatch.impl.UserDispatch;
+import dco.app.blog.shared.command.base.Command;
+import dco.app.blog.shared.command.result.base.Result;
+import dco.app.blog.shared.dispatch.CommandException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A super class for asynchronous handlers which manages the specific execution context.
+ *
+ * @param <C>
+ *         The command type.
+ * @param <R>
+ *         The result type.
+ * @author Denis
+ */
+public abstract class AbstractAsyncCommandHandler<C extends Command<R>, R extends Result> extends AbstractCommandHandler<C, R>
+        implements AsyncCommandHandler<C, R> {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final CompletableFuture<R> executeAsync(final C command, final ExecutionContext context) throws CommandException {
+
+        if (context != null) {
+
+            ensureGuiceExecutionContext(context);
+
+            return executeAsync(command, (UserDispatch.UserExecutionContext) context);
+
+        } else {
+
+            return executeAsync(command, (UserDispatch.UserExecutionContext) null);
+
+        }
+    }
+
+    /**
+     * Starts the given {@code command} execution within given {@code context}.
+     *
+     * @param command
+     *         The command
+     * @param context
+     *         The execution context.
+     * @return The future command execution result.
+     * @throws CommandException
+     *         If the command execution cannot be started.
+     */
+    protected abstract CompletableFuture<R> executeAsync(final C command, final UserDispatch.UserExecutionContext context) throws CommandException;
+
+    /**
+     * Executes the given {@code command} and waits for its completion.
+     *
+     * @param command
+     *         The command
+     * @param context
+     *         The execution context.
+     * @return The command execution result.
+     * @throws CommandException
+     *         If the command execution fails.
+     */
+    @Override
+    protected final R execute(final C command, final UserDispatch.UserExecutionContext context) throws CommandException {
+        try {
+
+            return executeAsync(command, context).get();
+
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandException("Command execution has been interrupted.", e);
+
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof CommandException) {
+                throw (CommandException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CommandException(e.getCause());
+        }
+    }
+
+}
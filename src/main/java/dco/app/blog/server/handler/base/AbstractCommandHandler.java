@@ -32,7 +32,7 @@ public abstract class AbstractCommandHandler<C extends Command<R>, R extends Res
      * @throws CommandException
      *         If the context doesn't extends the {@link UserDispatch.UserExecutionContext} class.
      */
-    private static void ensureGuiceExecutionContext(final ExecutionContext context) throws CommandException {
+    static void ensureGuiceExecutionContext(final ExecutionContext context) throws CommandException {
         if (!(context instanceof UserDispatch.UserExecutionContext)) {
             throw new CommandException("The execution context doesn't extends '"
                     + UserDispatch.UserExecutionContext.class.getCanonicalName()
@@ -127,7 +127,8 @@ public abstract class AbstractCommandHandler<C extends Command<R>, R extends Res
 
     /**
      * Rollbacks the given {@code command} execution.<br/>
-     * The default implementation does nothing.
+     * Database changes must be compensated only if the {@code context} is not transactional (see
+     * {@link ExecutionContext#isTransactional()}). The default implementation does nothing.
      *
      * @param command
      *         The command.
@@ -0,0 +1,162 @@
+package dco.app.blog.server.metrics;
+
+import com.google.inject.Singleton;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.shared.dispatch.FunctionalException;
+import dco.app.blog.shared.security.InvalidSessionException;
+import dco.app.blog.shared.security.UnauthorizedAccessException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * Always-on commands execution latencies, recorded per command type and per {@link Outcome}.
+ * </p>
+ * <p>
+ * Each (command type, outcome) pair owns a {@link LatencyHistogram} over a sliding window (see {@code
+ * metrics.window} property).
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class CommandMetrics implements MetricsSource {
+
+    /**
+     * Command execution outcomes.
+     *
+     * @author Denis
+     */
+    public static enum Outcome {
+
+        SUCCESS,
+        FUNCTIONAL_ERROR,
+        COMMAND_ERROR,
+        INVALID_SESSION,
+        UNAUTHORIZED_ACCESS;
+
+        /**
+         * Returns the outcome of a command execution that failed with the given {@code error}.
+         *
+         * @param error
+         *         The command execution error.
+         * @return The command execution outcome.
+         */
+        public static Outcome of(final Throwable error) {
+            if (error instanceof InvalidSessionException) {
+                return INVALID_SESSION;
+            } else if (error instanceof UnauthorizedAccessException) {
+                return UNAUTHORIZED_ACCESS;
+            } else if (error instanceof FunctionalException) {
+                return FUNCTIONAL_ERROR;
+            } else {
+                return COMMAND_ERROR;
+            }
+        }
+
+    }
+
+    /**
+     * Property setting the sliding window duration (in seconds).
+     */
+    private static final String WINDOW_PROPERTY = "metrics.window";
+
+    /**
+     * Number of slices of each sliding window.
+     */
+    private static final int WINDOW_SLICES = 6;
+
+    /**
+     * Outcomes values (cached to avoid copying the array on each record).
+     */
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    /**
+     * The command types with their histograms (indexed by outcome ordinal, lazily created).
+     */
+    private final ConcurrentMap<Class<?>, AtomicReferenceArray<LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Sliding window duration in seconds.
+     */
+    private final long window = ApplicationProperties.getLong(WINDOW_PROPERTY, 300L);
+
+    /**
+     * Records the execution latency of the given {@code commandType}.
+     *
+     * @param commandType
+     *         The executed command type.
+     * @param outcome
+     *         The command execution outcome.
+     * @param latency
+     *         The command execution latency in nanoseconds.
+     */
+    public void record(final Class<?> commandType, final Outcome outcome, final long latency) {
+
+        if (commandType == null) {
+            return;
+        }
+
+        AtomicReferenceArray<LatencyHistogram> outcomes = histograms.get(commandType);
+
+        if (outcomes == null) {
+            outcomes = histograms.computeIfAbsent(commandType, type -> new AtomicReferenceArray<>(OUTCOMES.length));
+        }
+
+        LatencyHistogram histogram = outcomes.get(outcome.ordinal());
+
+        if (histogram == null) {
+            outcomes.compareAndSet(outcome.ordinal(), null, new LatencyHistogram(window, WINDOW_SLICES, TimeUnit.SECONDS));
+            histogram = outcomes.get(outcome.ordinal());
+        }
+
+        histogram.record(latency);
+    }
+
+    /**
+     * Returns the latency statistics of each command type and outcome.
+     *
+     * @return The latency statistics keyed by {@code <command class name>.<outcome>}, sorted by key.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getSnapshots() {
+
+        final Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+
+        for (final Map.Entry<Class<?>, AtomicReferenceArray<LatencyHistogram>> entry : histograms.entrySet()) {
+            for (final Outcome outcome : OUTCOMES) {
+
+                final LatencyHistogram histogram = entry.getValue().get(outcome.ordinal());
+
+                if (histogram != null) {
+                    snapshots.put(entry.getKey().getName() + '.' + outcome.name().toLowerCase(), histogram.snapshot());
+                }
+            }
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(final Map<String, Object> metrics) {
+        for (final Map.Entry<String, LatencyHistogram.Snapshot> entry : getSnapshots().entrySet()) {
+
+            final String prefix = "command." + entry.getKey() + '.';
+            final LatencyHistogram.Snapshot snapshot = entry.getValue();
+
+            metrics.put(prefix + "count", snapshot.getCount());
+            metrics.put(prefix + "p50_us", snapshot.getP50());
+            metrics.put(prefix + "p90_us", snapshot.getP90());
+            metrics.put(prefix + "p99_us", snapshot.getP99());
+            metrics.put(prefix + "max_us", snapshot.getMax());
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package dco.app.blog.server.metrics;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import dco.app.blog.server.config.InstrumentedConnectionProvider;
+import dco.app.blog.server.dao.base.ReadReplica;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+
+/**
+ * <p>
+ * JDBC connection pools statistics (primary database and read replica, if started).
+ * </p>
+ * <p>
+ * Exposes, for each pool, the connections in use, idle and total, the threads waiting for a connection, the
+ * connections acquisition latencies and the failed and timed out acquisitions (see {@link
+ * InstrumentedConnectionProvider}).
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class ConnectionPoolMetrics implements MetricsSource {
+
+    /**
+     * Metrics names prefix.
+     */
+    private static final String PREFIX = "pool.";
+
+    /**
+     * Injected {@link EntityManagerFactory} provider.
+     */
+    private final Provider<EntityManagerFactory> entityManagerFactoryProvider;
+
+    /**
+     * Injected {@link ReadReplica}.
+     */
+    private final ReadReplica readReplica;
+
+    @Inject
+    public ConnectionPoolMetrics(final Provider<EntityManagerFactory> entityManagerFactoryProvider, final ReadReplica readReplica) {
+        this.entityManagerFactoryProvider = entityManagerFactoryProvider;
+        this.readReplica = readReplica;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(final Map<String, Object> metrics) {
+
+        collect(entityManagerFactoryProvider.get(), metrics);
+
+        if (readReplica.isStarted()) {
+            collect(readReplica.getEntityManagerFactory(), metrics);
+        }
+    }
+
+    /**
+     * Adds the given {@code emf} connection pool metrics to the given {@code metrics}.
+     *
+     * @param emf
+     *         The entity manager factory.
+     * @param metrics
+     *         The metrics.
+     */
+    private static void collect(final EntityManagerFactory emf, final Map<String, Object> metrics) {
+
+        final ConnectionProvider connectionProvider = ((SessionFactoryImplementor) emf.unwrap(SessionFactory.class)).getServiceRegistry()
+                                                                                                                   .getService(ConnectionProvider.class);
+
+        if (!(connectionProvider instanceof InstrumentedConnectionProvider)) {
+            return;
+        }
+
+        final InstrumentedConnectionProvider pool = (InstrumentedConnectionProvider) connectionProvider;
+        final String prefix = PREFIX + pool.getPoolName() + '.';
+
+        metrics.put(prefix + "max", pool.getMaxSize());
+        metrics.put(prefix + "active", pool.getActive());
+        metrics.put(prefix + "waiting", pool.getWaiting());
+
+        final int[] counts = pool.getConnectionsCounts();
+        if (counts != null) {
+            metrics.put(prefix + "idle", counts[0]);
+            metrics.put(prefix + "total", counts[1]);
+        }
+
+        final LatencyHistogram.Snapshot acquire = pool.getAcquireLatencies();
+        metrics.put(prefix + "acquire.count", acquire.getCount());
+        metrics.put(prefix + "acquire.p50_us", acquire.getP50());
+        metrics.put(prefix + "acquire.p90_us", acquire.getP90());
+        metrics.put(prefix + "acquire.p99_us", acquire.getP99());
+        metrics.put(prefix + "acquire.max_us", acquire.getMax());
+        metrics.put(prefix + "acquire.failures", pool.getFailures());
+        metrics.put(prefix + "acquire.timeouts", pool.getTimeouts());
+    }
+
+}
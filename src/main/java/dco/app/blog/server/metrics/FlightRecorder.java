@@ -0,0 +1,282 @@
+package dco.app.blog.server.metrics;
+
+import com.google.inject.Singleton;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.shared.command.result.BatchResult;
+import dco.app.blog.shared.command.result.ListResult;
+import dco.app.blog.shared.command.result.base.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * In-memory flight recorder of the last command executions.
+ * </p>
+ * <p>
+ * Executions are recorded into a fixed-size ring buffer (the oldest records are overwritten). Successful executions
+ * are sampled (see {@code flightrecorder.sampling} property) ; failed and slow executions are always recorded.
+ * Recording an execution costs one small immutable record allocation and a lock-free slot write ; records are only
+ * formatted when the buffer is dumped.
+ * </p>
+ *
+ * @author Denis
+ * @see FlightRecorderServlet
+ */
+@Singleton
+public class FlightRecorder implements FlightRecorderMBean {
+
+    /**
+     * A recorded command execution.
+     *
+     * @author Denis
+     */
+    private static final class Record {
+
+        private final long sequence;
+
+        private final long timestamp;
+
+        private final Class<?> commandType;
+
+        private final Long userId;
+
+        private final long duration;
+
+        private final int resultSize;
+
+        private final CommandMetrics.Outcome outcome;
+
+        private final String thread;
+
+        private Record(final long sequence, final long timestamp, final Class<?> commandType, final Long userId, final long duration,
+                       final int resultSize, final CommandMetrics.Outcome outcome, final String thread) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.commandType = commandType;
+            this.userId = userId;
+            this.duration = duration;
+            this.resultSize = resultSize;
+            this.outcome = outcome;
+            this.thread = thread;
+        }
+
+    }
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(FlightRecorder.class);
+
+    /**
+     * Property setting the number of recorded executions ({@code 0} disables the recorder).
+     */
+    private static final String SIZE_PROPERTY = "flightrecorder.size";
+
+    /**
+     * Property setting the successful executions sampling: one successful execution out of {@code N} is recorded.
+     */
+    private static final String SAMPLING_PROPERTY = "flightrecorder.sampling";
+
+    /**
+     * Property setting the duration (in milliseconds) above which an execution is always recorded.
+     */
+    private static final String SLOW_PROPERTY = "flightrecorder.slow";
+
+    /**
+     * The ring buffer ({@code null} if the recorder is disabled).
+     */
+    private final AtomicReferenceArray<Record> records;
+
+    /**
+     * Next record sequence.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Successful executions sampling.
+     */
+    private final int sampling;
+
+    /**
+     * Slow executions threshold in nanoseconds.
+     */
+    private final long slowThreshold;
+
+    /**
+     * Initializes the flight recorder from the application properties.
+     */
+    public FlightRecorder() {
+        this(ApplicationProperties.getInt(SIZE_PROPERTY, 1024), ApplicationProperties.getInt(SAMPLING_PROPERTY, 1),
+                ApplicationProperties.getLong(SLOW_PROPERTY, 1000L), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Initializes the flight recorder.
+     *
+     * @param size
+     *         The number of recorded executions ({@code 0} disables the recorder).
+     * @param sampling
+     *         The successful executions sampling.
+     * @param slowThreshold
+     *         The duration above which an execution is always recorded.
+     * @param unit
+     *         The {@code slowThreshold} unit.
+     */
+    FlightRecorder(final int size, final int sampling, final long slowThreshold, final TimeUnit unit) {
+
+        this.records = size > 0 ? new AtomicReferenceArray<Record>(size) : null;
+        this.sampling = Math.max(1, sampling);
+        this.slowThreshold = unit.toNanos(slowThreshold);
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Flight recorder size: {} ; Sampling: 1/{} ; Slow executions threshold: {} ms.", size, this.sampling,
+                    TimeUnit.NANOSECONDS.toMillis(this.slowThreshold));
+        }
+    }
+
+    /**
+     * Records a command execution (if sampled).
+     *
+     * @param commandType
+     *         The executed command type.
+     * @param userId
+     *         The executing user id ({@code null} for anonymous user).
+     * @param result
+     *         The command result ({@code null} if the execution failed).
+     * @param outcome
+     *         The command execution outcome.
+     * @param duration
+     *         The command execution duration in nanoseconds.
+     */
+    public void record(final Class<?> commandType, final Long userId, final Result result, final CommandMetrics.Outcome outcome, final long duration) {
+
+        if (records == null) {
+            return;
+        }
+
+        if (outcome == CommandMetrics.Outcome.SUCCESS && duration < slowThreshold && sampling > 1 && ThreadLocalRandom.current().nextInt(sampling) != 0) {
+            return;
+        }
+
+        final long index = sequence.getAndIncrement();
+
+        records.lazySet((int) (index % records.length()), new Record(index, System.currentTimeMillis(), commandType, userId, duration, sizeOf(result),
+                outcome, Thread.currentThread().getName()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String dump() {
+        final StringBuilder builder = new StringBuilder();
+        try {
+            dump(builder);
+        } catch (final IOException e) {
+            // Cannot happen with a StringBuilder.
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes the recorded executions (most recent first), one line per execution.
+     *
+     * @param output
+     *         The output.
+     * @throws IOException
+     *         If the output cannot be written.
+     */
+    public void dump(final Appendable output) throws IOException {
+
+        if (records == null) {
+            output.append("Flight recorder is disabled.\n");
+            return;
+        }
+
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ROOT);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        final long last = sequence.get() - 1;
+
+        for (long index = last; index >= 0 && index > last - records.length(); index--) {
+
+            final Record record = records.get((int) (index % records.length()));
+
+            if (record == null || record.sequence != index) {
+                // Slot not written yet, or already overwritten by a more recent record.
+                continue;
+            }
+
+            output.append(dateFormat.format(new Date(record.timestamp)))
+                  .append(" outcome=").append(record.outcome.name())
+                  .append(" command=").append(record.commandType != null ? record.commandType.getSimpleName() : "null")
+                  .append(" user=").append(String.valueOf(record.userId))
+                  .append(" duration_us=").append(String.valueOf(TimeUnit.NANOSECONDS.toMicros(record.duration)))
+                  .append(" result_size=").append(String.valueOf(record.resultSize))
+                  .append(" thread=").append(record.thread)
+                  .append('\n');
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSize() {
+        return records != null ? records.length() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSampling() {
+        return sampling;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRecordedCount() {
+        return sequence.get();
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Returns the size of the given {@code result}.
+     *
+     * @param result
+     *         The command result.
+     * @return The number of elements of a list (or batch) result, {@code 1} for other results, {@code 0} if there is no
+     * result.
+     */
+    private static int sizeOf(final Result result) {
+        if (result == null) {
+            return 0;
+        } else if (result instanceof ListResult) {
+            return ((ListResult<?>) result).getList() != null ? ((ListResult<?>) result).getList().size() : 0;
+        } else if (result instanceof BatchResult) {
+            return ((BatchResult) result).size();
+        } else {
+            return 1;
+        }
+    }
+
+}
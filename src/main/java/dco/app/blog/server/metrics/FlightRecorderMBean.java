@@ -0,0 +1,38 @@
+package dco.app.blog.server.metrics;
+
+/**
+ * JMX management interface of the {@link FlightRecorder}.
+ *
+ * @author Denis
+ */
+public interface FlightRecorderMBean {
+
+    /**
+     * Dumps the recorded command executions (most recent first), one line per execution.
+     *
+     * @return The recorded command executions.
+     */
+    String dump();
+
+    /**
+     * Returns the number of recorded executions kept in memory.
+     *
+     * @return The recorder size ({@code 0} if the recorder is disabled).
+     */
+    int getSize();
+
+    /**
+     * Returns the successful executions sampling.
+     *
+     * @return The sampling: one successful execution out of {@code N} is recorded.
+     */
+    int getSampling();
+
+    /**
+     * Returns the number of executions recorded since startup (including the overwritten ones).
+     *
+     * @return The number of recorded executions.
+     */
+    long getRecordedCount();
+
+}
@@ -0,0 +1,139 @@
+package dco.app.blog.server.metrics;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dco.app.blog.server.security.SecureSessionValidator;
+import dco.app.blog.shared.servlet.Servlets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+
+import static dco.app.blog.server.servlet.util.Servlets.authorize;
+import static dco.app.blog.server.servlet.util.Servlets.getAuthenticationToken;
+
+/**
+ * <p>
+ * Read-only servlet dumping the {@link FlightRecorder} content as plain text (most recent execution first).
+ * </p>
+ * <p>
+ * The recorder is also registered as the {@value #OBJECT_NAME} MBean while the servlet is in service. As for the
+ * {@link MetricsServlet}, the access is validated by the {@link SecureSessionValidator}
+ * ({@link Servlets.ServletMethod#READ_FLIGHT_RECORDER}, authenticated users only).
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class FlightRecorderServlet extends HttpServlet {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 3618520381416257347L;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(FlightRecorderServlet.class);
+
+    /**
+     * Flight recorder MBean name.
+     */
+    private static final String OBJECT_NAME = "dco.app.blog:type=FlightRecorder";
+
+    /**
+     * Injected {@link FlightRecorder} instance.
+     */
+    private final transient FlightRecorder flightRecorder;
+
+    /**
+     * Injected {@link SecureSessionValidator} instance.
+     */
+    private final transient SecureSessionValidator sessionValidator;
+
+    /**
+     * The registered MBean name ({@code null} if the registration failed).
+     */
+    private transient ObjectName objectName;
+
+    @Inject
+    public FlightRecorderServlet(final FlightRecorder flightRecorder, final SecureSessionValidator sessionValidator) {
+        this.flightRecorder = flightRecorder;
+        this.sessionValidator = sessionValidator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init() throws ServletException {
+        try {
+
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(flightRecorder, name);
+                objectName = name;
+            }
+
+        } catch (final JMException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Flight recorder MBean '" + OBJECT_NAME + "' cannot be registered.", e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+
+        if (objectName != null) {
+            try {
+
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+
+            } catch (final JMException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("Flight recorder MBean '" + objectName + "' cannot be unregistered.", e);
+                }
+            }
+            objectName = null;
+        }
+
+        super.destroy();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+
+        if (authorize(sessionValidator, request, response, Servlets.Servlet.METRICS, Servlets.ServletMethod.READ_FLIGHT_RECORDER,
+                getAuthenticationToken(request)) == null) {
+            return;
+        }
+
+        response.setContentType("text/plain");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache, no-store");
+
+        final PrintWriter writer = response.getWriter();
+        flightRecorder.dump(writer);
+        writer.flush();
+    }
+
+}
@@ -0,0 +1,347 @@
+package dco.app.blog.server.metrics;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * Lock-free latency histogram over a sliding time window.
+ * </p>
+ * <p>
+ * Latencies are recorded in microseconds into log-linear buckets (8 sub-buckets per power of two, i.e. a relative
+ * error below 12.5%). The sliding window is split into slices ; each slice is a fixed array of atomic counters, so
+ * that recording a latency costs a few atomic increments and never allocates (except when a new slice starts).
+ * </p>
+ * <p>
+ * Snapshots are computed on demand by merging the slices that are still in the window. As recording never locks,
+ * a snapshot taken concurrently may miss a few values being recorded.
+ * </p>
+ *
+ * @author Denis
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Latency statistics snapshot (latencies in microseconds).
+     *
+     * @author Denis
+     */
+    public static final class Snapshot {
+
+        private final long count;
+
+        private final long p50;
+
+        private final long p90;
+
+        private final long p99;
+
+        private final long max;
+
+        private Snapshot(final long count, final long p50, final long p90, final long p99, final long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return ToStringBuilder.reflectionToString(this);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+    }
+
+    /**
+     * A window slice: the counters of the values recorded during one slice period.
+     *
+     * @author Denis
+     */
+    private static final class Slice {
+
+        /**
+         * Slice period index (see {@link #period(long)}).
+         */
+        private final long period;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        private final AtomicLong max = new AtomicLong();
+
+        private Slice(final long period) {
+            this.period = period;
+        }
+
+    }
+
+    /**
+     * Number of bits of the sub-buckets index.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * Number of sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Highest recordable value (in microseconds, about 19 hours) ; higher values are recorded as this value.
+     */
+    static final long HIGHEST_VALUE = (1L << 36) - 1;
+
+    /**
+     * Number of buckets.
+     */
+    private static final int BUCKETS = bucket(HIGHEST_VALUE) + 1;
+
+    /**
+     * Slice duration in nanoseconds.
+     */
+    private final long sliceDuration;
+
+    /**
+     * The window slices (used as a ring).
+     */
+    private final AtomicReferenceArray<Slice> slices;
+
+    /**
+     * Initializes a new {@code LatencyHistogram}.
+     *
+     * @param window
+     *         The sliding window duration.
+     * @param slicesCount
+     *         The number of slices the window is split into (the higher, the smoother the window slides).
+     * @param unit
+     *         The {@code window} unit.
+     */
+    public LatencyHistogram(final long window, final int slicesCount, final TimeUnit unit) {
+
+        if (window <= 0 || slicesCount <= 0) {
+            throw new IllegalArgumentException("Histogram window and slices count must be positive.");
+        }
+
+        this.sliceDuration = Math.max(1L, unit.toNanos(window) / slicesCount);
+        this.slices = new AtomicReferenceArray<>(slicesCount);
+    }
+
+    /**
+     * Records the given {@code latency}.
+     *
+     * @param latency
+     *         The latency in nanoseconds.
+     */
+    public void record(final long latency) {
+        record(latency, System.nanoTime());
+    }
+
+    /**
+     * Records the given {@code latency} at the given {@code now} time.
+     *
+     * @param latency
+     *         The latency in nanoseconds.
+     * @param now
+     *         The current {@link System#nanoTime()}.
+     */
+    void record(final long latency, final long now) {
+
+        final long value = Math.min(HIGHEST_VALUE, Math.max(0L, TimeUnit.NANOSECONDS.toMicros(latency)));
+        final Slice slice = currentSlice(now);
+
+        slice.counts.incrementAndGet(bucket(value));
+
+        long max = slice.max.get();
+        while (value > max && !slice.max.compareAndSet(max, value)) {
+            max = slice.max.get();
+        }
+    }
+
+    /**
+     * Computes the statistics of the values recorded in the current window.
+     *
+     * @return The statistics snapshot.
+     */
+    public Snapshot snapshot() {
+        return snapshot(System.nanoTime());
+    }
+
+    /**
+     * Computes the statistics of the values recorded in the window ending at the given {@code now} time.
+     *
+     * @param now
+     *         The current {@link System#nanoTime()}.
+     * @return The statistics snapshot.
+     */
+    Snapshot snapshot(final long now) {
+
+        final long current = period(now);
+        final long[] counts = new long[BUCKETS];
+        long count = 0L;
+        long max = 0L;
+
+        for (int i = 0; i < slices.length(); i++) {
+
+            final Slice slice = slices.get(i);
+
+            if (slice == null || current - slice.period >= slices.length()) {
+                // Empty or out of window.
+                continue;
+            }
+
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                final long bucketCount = slice.counts.get(bucket);
+                counts[bucket] += bucketCount;
+                count += bucketCount;
+            }
+
+            max = Math.max(max, slice.max.get());
+        }
+
+        return new Snapshot(count, percentile(counts, count, 0.50, max), percentile(counts, count, 0.90, max), percentile(counts, count, 0.99, max),
+                max);
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Returns the slice of the given {@code now} time, starting a new slice if the ring slot holds an older one.
+     *
+     * @param now
+     *         The current {@link System#nanoTime()}.
+     * @return The current slice.
+     */
+    private Slice currentSlice(final long now) {
+
+        final long period = period(now);
+        final int index = (int) Math.floorMod(period, (long) slices.length());
+
+        while (true) {
+
+            final Slice slice = slices.get(index);
+
+            if (slice != null && slice.period >= period) {
+                return slice;
+            }
+
+            final Slice newSlice = new Slice(period);
+            if (slices.compareAndSet(index, slice, newSlice)) {
+                return newSlice;
+            }
+        }
+    }
+
+    /**
+     * Returns the slice period index of the given {@code time}.
+     *
+     * @param time
+     *         The {@link System#nanoTime()} value.
+     * @return The slice period index.
+     */
+    private long period(final long time) {
+        return Math.floorDiv(time, sliceDuration);
+    }
+
+    /**
+     * Returns the value at the given {@code quantile}.
+     *
+     * @param counts
+     *         The buckets counts.
+     * @param count
+     *         The total count.
+     * @param quantile
+     *         The quantile (between {@code 0} and {@code 1}).
+     * @param max
+     *         The highest recorded value.
+     * @return The bucket upper bound holding the quantile (never higher than {@code max}), or {@code 0} if there is no
+     * value.
+     */
+    static long percentile(final long[] counts, final long count, final double quantile, final long max) {
+
+        if (count == 0L) {
+            return 0L;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+        long cumulated = 0L;
+
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            cumulated += counts[bucket];
+            if (cumulated >= rank) {
+                return Math.min(max, upperBound(bucket));
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Returns the bucket index of the given {@code value}.
+     *
+     * @param value
+     *         The value (positive).
+     * @return The bucket index.
+     */
+    static int bucket(final long value) {
+
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the highest value of the given {@code bucket}.
+     *
+     * @param bucket
+     *         The bucket index.
+     * @return The bucket highest value.
+     */
+    static long upperBound(final int bucket) {
+
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final int subBucket = bucket % SUB_BUCKETS;
+        final int shift = exponent - SUB_BUCKET_BITS;
+
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+}
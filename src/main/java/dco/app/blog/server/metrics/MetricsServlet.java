@@ -0,0 +1,121 @@
+package dco.app.blog.server.metrics;
+
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import dco.app.blog.server.security.SecureSessionValidator;
+import dco.app.blog.shared.servlet.Servlets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static dco.app.blog.server.servlet.util.Servlets.authorize;
+import static dco.app.blog.server.servlet.util.Servlets.getAuthenticationToken;
+
+/**
+ * <p>
+ * Read-only servlet exposing the metrics of every registered {@link MetricsSource}.
+ * </p>
+ * <p>
+ * Metrics are written as plain text, one {@code name=value} line per metric, sorted by name. The access is validated
+ * by the {@link SecureSessionValidator} ({@link Servlets.ServletMethod#READ_METRICS}, authenticated users only): the
+ * client address is not trusted, every client of a reverse proxy sharing the same (loopback) address.
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class MetricsServlet extends HttpServlet {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = -2094611352467216780L;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsServlet.class);
+
+    /**
+     * Injected {@link Injector} instance.
+     */
+    private final transient Injector injector;
+
+    /**
+     * Injected {@link SecureSessionValidator} instance.
+     */
+    private final transient SecureSessionValidator sessionValidator;
+
+    /**
+     * The registered metrics sources.
+     */
+    private transient List<MetricsSource> sources;
+
+    @Inject
+    public MetricsServlet(final Injector injector, final SecureSessionValidator sessionValidator) {
+        this.injector = injector;
+        this.sessionValidator = sessionValidator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init() throws ServletException {
+
+        sources = MetricsSources.find(injector);
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Metrics servlet initialized with {} source(s).", sources.size());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+
+        if (authorize(sessionValidator, request, response, Servlets.Servlet.METRICS, Servlets.ServletMethod.READ_METRICS, getAuthenticationToken(
+                request)) == null) {
+            return;
+        }
+
+        final Map<String, Object> metrics = new TreeMap<>();
+
+        for (final MetricsSource source : sources) {
+            try {
+
+                source.collect(metrics);
+
+            } catch (final RuntimeException e) {
+                if (LOG.isErrorEnabled()) {
+                    LOG.error("Metrics source '" + source.getClass().getName() + "' failed to collect its metrics.", e);
+                }
+            }
+        }
+
+        response.setContentType("text/plain");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache, no-store");
+
+        final PrintWriter writer = response.getWriter();
+
+        for (final Map.Entry<String, Object> metric : metrics.entrySet()) {
+            writer.append(metric.getKey()).append('=').append(String.valueOf(metric.getValue())).append('\n');
+        }
+
+        writer.flush();
+    }
+
+}
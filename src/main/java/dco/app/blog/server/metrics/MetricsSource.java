@@ -0,0 +1,26 @@
+package dco.app.blog.server.metrics;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * Source of metrics exposed by the metrics servlet.
+ * </p>
+ * <p>
+ * Sources are registered with {@link MetricsSources#bind(com.google.inject.Binder, Class)}.
+ * </p>
+ *
+ * @author Denis
+ * @see MetricsServlet
+ */
+public interface MetricsSource {
+
+    /**
+     * Adds the current source metrics values to the given {@code metrics}.
+     *
+     * @param metrics
+     *         The metrics names with their value (names should be dot-separated and prefixed with the source name).
+     */
+    void collect(final Map<String, Object> metrics);
+
+}
@@ -0,0 +1,48 @@
+package dco.app.blog.server.metrics;
+
+import com.google.inject.Binder;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+import com.google.inject.internal.UniqueAnnotations;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class registering and retrieving the {@link MetricsSource} implementations.
+ *
+ * @author Denis
+ */
+public final class MetricsSources {
+
+    private MetricsSources() {
+        // Only provides static methods.
+    }
+
+    /**
+     * Registers the given {@code sourceClass} as a metrics source.
+     *
+     * @param binder
+     *         The module binder.
+     * @param sourceClass
+     *         The metrics source class (should be a singleton).
+     */
+    public static void bind(final Binder binder, final Class<? extends MetricsSource> sourceClass) {
+        binder.bind(MetricsSource.class).annotatedWith(UniqueAnnotations.create()).to(sourceClass);
+    }
+
+    /**
+     * Returns the registered metrics sources.
+     *
+     * @param injector
+     *         The guice injector.
+     * @return The registered metrics sources.
+     */
+    public static List<MetricsSource> find(final Injector injector) {
+        return injector.findBindingsByType(TypeLiteral.get(MetricsSource.class))
+                       .stream()
+                       .map(binding -> binding.getProvider().get())
+                       .collect(Collectors.toList());
+    }
+
+}
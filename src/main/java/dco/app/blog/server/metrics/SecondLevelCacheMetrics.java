@@ -0,0 +1,94 @@
+package dco.app.blog.server.metrics;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p>
+ * Hibernate second-level and query caches statistics.
+ * </p>
+ * <p>
+ * Exposes the global hits/misses counters and, for each cache region, its hits, misses, puts and in-memory size.
+ * Nothing is collected if Hibernate statistics are disabled ({@code hibernate.generate_statistics}).
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class SecondLevelCacheMetrics implements MetricsSource {
+
+    /**
+     * Metrics names prefix.
+     */
+    private static final String PREFIX = "cache.hibernate.";
+
+    /**
+     * Injected {@link EntityManagerFactory} provider.
+     */
+    private final Provider<EntityManagerFactory> entityManagerFactoryProvider;
+
+    @Inject
+    public SecondLevelCacheMetrics(final Provider<EntityManagerFactory> entityManagerFactoryProvider) {
+        this.entityManagerFactoryProvider = entityManagerFactoryProvider;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(final Map<String, Object> metrics) {
+
+        final Statistics statistics = entityManagerFactoryProvider.get().unwrap(SessionFactory.class).getStatistics();
+
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+
+        metrics.put(PREFIX + "hits", statistics.getSecondLevelCacheHitCount());
+        metrics.put(PREFIX + "misses", statistics.getSecondLevelCacheMissCount());
+        metrics.put(PREFIX + "puts", statistics.getSecondLevelCachePutCount());
+        metrics.put(PREFIX + "hit_ratio", hitRatio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()));
+        metrics.put(PREFIX + "query.hits", statistics.getQueryCacheHitCount());
+        metrics.put(PREFIX + "query.misses", statistics.getQueryCacheMissCount());
+        metrics.put(PREFIX + "query.puts", statistics.getQueryCachePutCount());
+        metrics.put(PREFIX + "query.hit_ratio", hitRatio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+
+        for (final String region : statistics.getSecondLevelCacheRegionNames()) {
+
+            final SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(region);
+
+            if (regionStatistics == null) {
+                continue;
+            }
+
+            final String prefix = PREFIX + "region." + region + '.';
+
+            metrics.put(prefix + "size", regionStatistics.getElementCountInMemory());
+            metrics.put(prefix + "hits", regionStatistics.getHitCount());
+            metrics.put(prefix + "misses", regionStatistics.getMissCount());
+            metrics.put(prefix + "puts", regionStatistics.getPutCount());
+        }
+    }
+
+    /**
+     * Returns the formatted hit ratio of the given counters.
+     *
+     * @param hits
+     *         The hits count.
+     * @param misses
+     *         The misses count.
+     * @return The formatted hit ratio (between {@code 0} and {@code 1}).
+     */
+    private static String hitRatio(final long hits, final long misses) {
+        return String.format(Locale.ROOT, "%.3f", hits + misses > 0 ? (double) hits / (hits + misses) : 0d);
+    }
+
+}
@@ -2,6 +2,8 @@ package dco.app.blog.server.model;
 
 import dco.app.blog.server.model.base.AbstractEntity;
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -42,7 +44,9 @@ public class Authentication extends AbstractEntity<String> {
     //
     // --------------------------------------------------------------------------------
 
+    // Loaded by id (instead of joined) to be read from the second-level cache.
     @ManyToOne(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "us_id", nullable = false)
     @NotNull
     private User user;
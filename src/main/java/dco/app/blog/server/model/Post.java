@@ -2,6 +2,8 @@ package dco.app.blog.server.model;
 
 import dco.app.blog.server.model.base.AbstractEntity;
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -9,12 +11,19 @@ import javax.persistence.*;
  * Created by Denis on 24/04/15.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Post.CACHE_REGION)
 @Table(name = "t_post_po")
 @AttributeOverrides({
         @AttributeOverride(name = "id", column = @Column(name = "po_id", nullable = false))
 })
 public class Post extends AbstractEntity<Long> {
 
+    /**
+     * Second-level cache region.
+     */
+    public static final String CACHE_REGION = "post";
+
     // --
     //
     // Attributes.
@@ -24,6 +33,8 @@ public class Post extends AbstractEntity<Long> {
     @Column(name = "po_subject")
     private String subject;
 
+    // Unbounded text, only loaded when accessed (requires build-time bytecode instrumentation, see 'pom.xml').
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "po_content")
     private String content;
 
@@ -39,7 +50,7 @@ public class Post extends AbstractEntity<Long> {
     @Override
     protected void appendToString(final ToStringBuilder builder) {
         builder.append("subject", subject);
-        builder.append("content", content);
+        // Content is not appended: it would be loaded.
     }
 
     // --
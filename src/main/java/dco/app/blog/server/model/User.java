@@ -2,6 +2,8 @@ package dco.app.blog.server.model;
 
 import dco.app.blog.server.model.base.AbstractEntity;
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -9,12 +11,19 @@ import javax.persistence.*;
  * Created by Denis on 24/04/15.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 @Table(name = "t_user_us")
 @AttributeOverrides({
         @AttributeOverride(name = "id", column = @Column(name = "us_id", nullable = false))
 })
 public class User extends AbstractEntity<Long> {
 
+    /**
+     * Second-level cache region.
+     */
+    public static final String CACHE_REGION = "user";
+
     @Column(name = "us_name", nullable = false)
     private String name;
 
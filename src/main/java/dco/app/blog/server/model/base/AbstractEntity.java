@@ -22,9 +22,10 @@ public abstract class AbstractEntity<K extends Serializable> implements Entity<K
     private static final long serialVersionUID = -7822034341683441998L;
 
     // GenerationType.AUTO does not seem to work properly with H2 test database.
+    // Ids are allocated by blocks of 50 (pooled optimizer) ; 'hibernate_sequence' must be incremented by 50.
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator", sequenceName = "hibernate_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "sequenceGenerator", sequenceName = "hibernate_sequence", allocationSize = 50)
     @Column(name = "id")
     private K id;
 
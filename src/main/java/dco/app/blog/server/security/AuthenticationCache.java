@@ -0,0 +1,311 @@
+package dco.app.blog.server.security;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.server.dao.AuthenticationDAO;
+import dco.app.blog.server.metrics.MetricsSource;
+import dco.app.blog.server.model.Authentication;
+import dco.app.blog.server.model.User;
+import dco.app.blog.server.util.BoundedCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * In-memory cache of the authentication tokens in front of {@link AuthenticationDAO}.
+ * </p>
+ * <p>
+ * Valid tokens are cached with a detached copy of their {@link User} and their session expiry (last activity date
+ * plus the {@code security.sessions.expiration} inactivity duration) until their time-to-live expires ; each caller
+ * gets its own copy, so that the cached user is never shared by concurrent requests nor bound to the entity manager
+ * of the request having loaded it. Expired sessions are rejected, even if they are still cached or not removed yet by
+ * the {@link SessionActivityTracker}. Unknown tokens are
+ * cached too (negative cache, with a shorter time-to-live) so that a flood of forged tokens does not turn into a flood
+ * of database queries. Both caches are bounded: least recently used tokens are evicted first.
+ * </p>
+ * <p>
+ * Processes removing an authentication (logout) or deactivating a user must call {@link #invalidate(String)} or
+ * {@link #invalidateUser(Long)}, otherwise the change is only seen once the cached entry expires.
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class AuthenticationCache implements MetricsSource {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(AuthenticationCache.class);
+
+    /**
+     * Property setting the valid tokens time-to-live (in seconds).
+     */
+    private static final String TTL_PROPERTY = "security.sessions.cache.ttl";
+
+    /**
+     * Property setting the maximum number of cached valid tokens.
+     */
+    private static final String SIZE_PROPERTY = "security.sessions.cache.size";
+
+    /**
+     * Property setting the unknown tokens time-to-live (in seconds).
+     */
+    private static final String NEGATIVE_TTL_PROPERTY = "security.sessions.cache.negative.ttl";
+
+    /**
+     * Property setting the maximum number of cached unknown tokens.
+     */
+    private static final String NEGATIVE_SIZE_PROPERTY = "security.sessions.cache.negative.size";
+
+    /**
+     * Property setting the inactivity duration (in seconds) after which a session expires ({@code 0} if sessions never
+     * expire).
+     */
+    private static final String EXPIRATION_PROPERTY = "security.sessions.expiration";
+
+    /**
+     * A cached valid session.
+     */
+    private static final class Session {
+
+        /**
+         * The detached copy of the session user.
+         */
+        private final User user;
+
+        /**
+         * The session expiry (in milliseconds), {@link Long#MAX_VALUE} if the session never expires.
+         */
+        private final long expiry;
+
+        private Session(final User user, final long expiry) {
+            this.user = user;
+            this.expiry = expiry;
+        }
+
+    }
+
+    /**
+     * The injected {@code AuthenticationDAO}.
+     */
+    private final AuthenticationDAO authenticationDAO;
+
+    /**
+     * Valid tokens with their session.
+     */
+    private final BoundedCache<String, Session> sessions;
+
+    /**
+     * Unknown tokens.
+     */
+    private final BoundedCache<String, Boolean> unknownTokens;
+
+    /**
+     * Sessions expiration in milliseconds ({@code 0} if sessions never expire).
+     */
+    private final long expiration;
+
+    /**
+     * The clock checking the sessions expiry.
+     */
+    private final Clock clock;
+
+    @Inject
+    public AuthenticationCache(final AuthenticationDAO authenticationDAO) {
+        this(authenticationDAO, TimeUnit.SECONDS.toMillis(ApplicationProperties.getLong(EXPIRATION_PROPERTY, 1209600L)), Clock.systemUTC());
+    }
+
+    /**
+     * Initializes the cache with the given sessions {@code expiration} and {@code clock}.
+     *
+     * @param authenticationDAO
+     *         The authentication DAO.
+     * @param expiration
+     *         The sessions expiration in milliseconds ({@code 0} if sessions never expire).
+     * @param clock
+     *         The clock checking the sessions expiry.
+     */
+    AuthenticationCache(final AuthenticationDAO authenticationDAO, final long expiration, final Clock clock) {
+
+        this.authenticationDAO = authenticationDAO;
+
+        this.sessions = new BoundedCache<>(ApplicationProperties.getInt(SIZE_PROPERTY, 10000), ApplicationProperties.getLong(TTL_PROPERTY, 300L),
+                TimeUnit.SECONDS);
+        this.unknownTokens = new BoundedCache<>(ApplicationProperties.getInt(NEGATIVE_SIZE_PROPERTY, 10000),
+                ApplicationProperties.getLong(NEGATIVE_TTL_PROPERTY, 30L), TimeUnit.SECONDS);
+        this.expiration = expiration;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the user authenticated by the given {@code authenticationToken}.
+     *
+     * @param authenticationToken
+     *         The authentication token (not blank).
+     * @return A detached copy of the authenticated user, or {@code null} if the token is unknown, has no user or has
+     * expired.
+     */
+    public User getUser(final String authenticationToken) {
+
+        final long now = clock.millis();
+        final Session cachedSession = sessions.get(authenticationToken);
+
+        if (cachedSession != null) {
+            if (now < cachedSession.expiry) {
+                return copy(cachedSession.user);
+            }
+            // Session expired meanwhile.
+            sessions.remove(authenticationToken);
+            return rejectExpired(authenticationToken);
+        }
+
+        if (unknownTokens.get(authenticationToken) != null) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Authentication token '{}' is known to be invalid.", authenticationToken);
+            }
+            return null;
+        }
+
+        // Read on the primary: a token created by a login may not be replicated yet and its miss would be cached.
+        final Authentication authentication = authenticationDAO.findByIdOnPrimary(authenticationToken);
+
+        if (authentication == null || authentication.getUser() == null) {
+            unknownTokens.put(authenticationToken, Boolean.TRUE);
+            return null;
+        }
+
+        final long expiry = getExpiry(authentication);
+
+        if (now >= expiry) {
+            // Not removed yet by the sessions activity job.
+            return rejectExpired(authenticationToken);
+        }
+
+        final User user = copy(authentication.getUser());
+        sessions.put(authenticationToken, new Session(user, expiry));
+        return copy(user);
+    }
+
+    /**
+     * Invalidates the given {@code authenticationToken} (e.g. on logout).
+     *
+     * @param authenticationToken
+     *         The authentication token.
+     */
+    public void invalidate(final String authenticationToken) {
+
+        if (authenticationToken == null) {
+            return;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Invalidating authentication token '{}'.", authenticationToken);
+        }
+
+        sessions.remove(authenticationToken);
+        unknownTokens.remove(authenticationToken);
+    }
+
+    /**
+     * Invalidates every authentication token of the given user (e.g. on user deactivation or update).
+     *
+     * @param userId
+     *         The user id.
+     */
+    public void invalidateUser(final Long userId) {
+
+        if (userId == null) {
+            return;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Invalidating authentication tokens of user #{}.", userId);
+        }
+
+        sessions.removeIf((token, session) -> Objects.equals(userId, session.user.getId()));
+    }
+
+    /**
+     * Invalidates every cached authentication token.
+     */
+    public void clear() {
+        sessions.clear();
+        unknownTokens.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(final Map<String, Object> metrics) {
+        sessions.getStatistics().collect(metrics, "cache.sessions.");
+        unknownTokens.getStatistics().collect(metrics, "cache.sessions.negative.");
+    }
+
+    /**
+     * Returns the expiry of the given {@code authentication} session.
+     *
+     * @param authentication
+     *         The authentication.
+     * @return The session expiry (in milliseconds), {@link Long#MAX_VALUE} if the session never expires.
+     */
+    private long getExpiry(final Authentication authentication) {
+
+        if (expiration <= 0L || authentication.getDateLastActive() == null) {
+            return Long.MAX_VALUE;
+        }
+
+        return authentication.getDateLastActive().getTime() + expiration;
+    }
+
+    /**
+     * Rejects the given expired {@code authenticationToken} (cached as unknown).
+     *
+     * @param authenticationToken
+     *         The authentication token.
+     * @return {@code null}.
+     */
+    private User rejectExpired(final String authenticationToken) {
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Authentication token '{}' has expired.", authenticationToken);
+        }
+
+        unknownTokens.put(authenticationToken, Boolean.TRUE);
+        return null;
+    }
+
+    /**
+     * Returns a detached copy of the given {@code user} (its persistent state only).
+     *
+     * @param user
+     *         The user (managed, detached or proxy).
+     * @return The user copy.
+     */
+    private static User copy(final User user) {
+
+        final User copy = new User();
+
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setFirstName(user.getFirstName());
+        copy.setLogin(user.getLogin());
+        copy.setPassword(user.getPassword());
+        copy.setEmail(user.getEmail());
+        copy.setActive(user.getActive());
+        copy.setCreationDate(user.getCreationDate());
+        copy.setCreationUser(user.getCreationUser());
+        copy.setUpdateDate(user.getUpdateDate());
+        copy.setUpdateUser(user.getUpdateUser());
+
+        return copy;
+    }
+
+}
@@ -2,15 +2,32 @@ package dco.app.blog.server.security;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import dco.app.blog.server.dao.PostDAO;
+import dco.app.blog.shared.servlet.Servlets;
+import dco.app.blog.shared.util.Cookies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.*;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 
 /**
- * Created by Denis on 25/04/15.
+ * <p>
+ * Authentication stage of the filter chain.
+ * </p>
+ * <p>
+ * Stores a {@link RequestAuthentication} into each filtered request, holding the request authentication token read
+ * from the {@value Servlets#AUTHENTICATION_TOKEN} header, the {@link Cookies#AUTH_TOKEN_COOKIE} cookie or (for
+ * {@code GET} requests only) the {@value Servlets#AUTHENTICATION_TOKEN} parameter. The token is resolved lazily, at most
+ * once per request, by the first servlet consuming it.
+ * </p>
+ * <p>
+ * The request body is never read: a {@code POST} parameter would consume the GWT-RPC payload.
+ * </p>
+ *
+ * @author Denis
+ * @see RequestAuthentication
  */
 @Singleton
 public class AuthenticationFilter implements Filter {
@@ -20,8 +37,15 @@ public class AuthenticationFilter implements Filter {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticationFilter.class);
 
+    /**
+     * Injected {@link SecureSessionValidator} instance.
+     */
+    private final SecureSessionValidator sessionValidator;
+
     @Inject
-    private PostDAO postDAO;
+    public AuthenticationFilter(final SecureSessionValidator sessionValidator) {
+        this.sessionValidator = sessionValidator;
+    }
 
     /**
      * {@inheritDoc}
@@ -46,13 +70,56 @@ public class AuthenticationFilter implements Filter {
     public void doFilter(final ServletRequest servletRequest, final ServletResponse servletResponse, final FilterChain filterChain)
             throws IOException, ServletException {
 
-        LOGGER.trace("(TODO) Authentication security.");
+        if (servletRequest instanceof HttpServletRequest && RequestAuthentication.get(servletRequest) == null) {
 
-        // TODO Authentication security implementation.
+            final String authenticationToken = getAuthenticationToken((HttpServletRequest) servletRequest);
 
-        LOGGER.trace("[_TEST ONLY: TO REMOVE_] Posts: {}", postDAO.find(null));
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("Request authentication token: '{}'.", authenticationToken);
+            }
+
+            RequestAuthentication.set(servletRequest, new RequestAuthentication(authenticationToken, sessionValidator));
+        }
 
         filterChain.doFilter(servletRequest, servletResponse);
     }
 
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Reads the authentication token of the given {@code request}.
+     *
+     * @param request
+     *         The HTTP request.
+     * @return The authentication token, or {@code null} if the request does not carry one.
+     */
+    private static String getAuthenticationToken(final HttpServletRequest request) {
+
+        final String header = RequestAuthentication.normalize(request.getHeader(Servlets.AUTHENTICATION_TOKEN));
+
+        if (header != null) {
+            return header;
+        }
+
+        final Cookie[] cookies = request.getCookies();
+
+        if (cookies != null) {
+            for (final Cookie cookie : cookies) {
+                if (Cookies.AUTH_TOKEN_COOKIE.equals(cookie.getName()) && RequestAuthentication.normalize(cookie.getValue()) != null) {
+                    return cookie.getValue();
+                }
+            }
+        }
+
+        if ("GET".equals(request.getMethod())) {
+            return RequestAuthentication.normalize(request.getParameter(Servlets.AUTHENTICATION_TOKEN));
+        }
+
+        return null;
+    }
+
 }
@@ -0,0 +1,180 @@
+package dco.app.blog.server.security;
+
+import dco.app.blog.server.model.User;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.servlet.ServletRequest;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Authentication of the current HTTP request, resolved by {@link AuthenticationFilter} and stored as a request
+ * attribute.
+ * </p>
+ * <p>
+ * The authentication token is resolved lazily (on first access) and at most once per request, whichever servlet (or
+ * asynchronous thread) consumes it.
+ * </p>
+ *
+ * @author Denis
+ * @see AuthenticationFilter
+ */
+public final class RequestAuthentication {
+
+    /**
+     * Request attribute name.
+     */
+    private static final String ATTRIBUTE = RequestAuthentication.class.getName();
+
+    /**
+     * The request authentication token ({@code null} for anonymous requests).
+     */
+    private final String authenticationToken;
+
+    /**
+     * The validator resolving the token.
+     */
+    private final SecureSessionValidator sessionValidator;
+
+    /**
+     * Has the token been resolved?
+     */
+    private boolean resolved;
+
+    /**
+     * Is the token valid (always {@code true} for anonymous requests)?
+     */
+    private boolean valid;
+
+    /**
+     * The authenticated user ({@code null} for anonymous requests or invalid token).
+     */
+    private User user;
+
+    /**
+     * Initializes a new {@code RequestAuthentication}.
+     *
+     * @param authenticationToken
+     *         The request authentication token (may be {@code null}).
+     * @param sessionValidator
+     *         The validator resolving the token.
+     */
+    RequestAuthentication(final String authenticationToken, final SecureSessionValidator sessionValidator) {
+        this.authenticationToken = normalize(authenticationToken);
+        this.sessionValidator = sessionValidator;
+    }
+
+    /**
+     * Returns the authentication of the given {@code request}.
+     *
+     * @param request
+     *         The request.
+     * @return The request authentication, or {@code null} if the request has not been through {@link
+     * AuthenticationFilter}.
+     */
+    public static RequestAuthentication get(final ServletRequest request) {
+        return request != null ? (RequestAuthentication) request.getAttribute(ATTRIBUTE) : null;
+    }
+
+    /**
+     * Stores the given {@code authentication} into the given {@code request}.
+     *
+     * @param request
+     *         The request.
+     * @param authentication
+     *         The request authentication.
+     */
+    static void set(final ServletRequest request, final RequestAuthentication authentication) {
+        request.setAttribute(ATTRIBUTE, authentication);
+    }
+
+    /**
+     * Normalizes the given {@code authenticationToken}.
+     *
+     * @param authenticationToken
+     *         The authentication token.
+     * @return The authentication token, or {@code null} if it is blank or equals to {@code "null"}.
+     */
+    public static String normalize(final String authenticationToken) {
+        return StringUtils.isBlank(authenticationToken) || "null".equalsIgnoreCase(authenticationToken) ? null : authenticationToken;
+    }
+
+    /**
+     * Returns if this authentication has been resolved from the given {@code authenticationToken}.<br/>
+     * A command payload may carry a token different from the request one (cookie or header) ; the request
+     * authentication must not be used in such case.
+     *
+     * @param authenticationToken
+     *         The authentication token.
+     * @return {@code true} if this authentication token equals the given one (both being normalized).
+     */
+    public boolean matches(final String authenticationToken) {
+        return Objects.equals(this.authenticationToken, normalize(authenticationToken));
+    }
+
+    /**
+     * Returns the request authentication token.
+     *
+     * @return The request authentication token, or {@code null} for anonymous requests.
+     */
+    public String getAuthenticationToken() {
+        return authenticationToken;
+    }
+
+    /**
+     * Returns if the request is anonymous (no authentication token).
+     *
+     * @return {@code true} if the request is anonymous.
+     */
+    public boolean isAnonymous() {
+        return authenticationToken == null;
+    }
+
+    /**
+     * Returns if the request authentication token is valid.
+     *
+     * @return {@code true} if the request is anonymous or if its token is valid, {@code false} if the token is
+     * invalid.
+     */
+    public boolean isValid() {
+        resolve();
+        return valid;
+    }
+
+    /**
+     * Returns the authenticated user.
+     *
+     * @return The authenticated user, or {@code null} if the request is anonymous or if its token is invalid.
+     */
+    public User getUser() {
+        resolve();
+        return user;
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Resolves the authentication token (only once).
+     */
+    private synchronized void resolve() {
+
+        if (resolved) {
+            return;
+        }
+
+        if (authenticationToken == null) {
+            valid = true;
+
+        } else {
+            user = sessionValidator.authenticate(authenticationToken);
+            valid = user != null;
+        }
+
+        resolved = true;
+    }
+
+}
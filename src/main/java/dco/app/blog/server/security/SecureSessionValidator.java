@@ -109,6 +109,45 @@ public interface SecureSessionValidator {
      */
     Access validate(final String authenticationToken, final SecureDispatchAsync.CommandExecution<? extends Command<?>, ? extends Result> commandExecution);
 
+    /**
+     * Validates the access to the given {@code servlet} resource for the already resolved request {@code
+     * authentication}.
+     *
+     * @param authentication
+     *         The request authentication (see {@link AuthenticationFilter}).
+     * @param servlet
+     *         The servlet name.
+     * @param method
+     *         The servlet method.
+     * @param originPageToken
+     *         The origin page token.
+     * @return The validation access result.
+     */
+    Access validate(final RequestAuthentication authentication, final Servlets.Servlet servlet, final Servlets.ServletMethod method,
+                    final String originPageToken);
+
+    /**
+     * Validates the access to the given {@code commandExecution} resource for the already resolved request {@code
+     * authentication}.
+     *
+     * @param authentication
+     *         The request authentication (see {@link AuthenticationFilter}).
+     * @param commandExecution
+     *         The command execution (containing command and origin page token).
+     * @return The validation access result.
+     */
+    Access validate(final RequestAuthentication authentication,
+                    final SecureDispatchAsync.CommandExecution<? extends Command<?>, ? extends Result> commandExecution);
+
+    /**
+     * Resolves the user authenticated by the given {@code authenticationToken}.
+     *
+     * @param authenticationToken
+     *         The authentication token (not blank).
+     * @return The authenticated user, or {@code null} if the token is invalid.
+     */
+    User authenticate(final String authenticationToken);
+
     /**
      * Returns the grant access to the given {@code page} resource for the {@code user}.
      *
@@ -120,4 +159,16 @@ public interface SecureSessionValidator {
      */
     boolean isUserGranted(final User user, final Page page);
 
+    /**
+     * Returns the grant access to the given {@code command} resource for the {@code user}.<br/>
+     * Used to secure commands executed within a batch, whose session has already been validated.
+     *
+     * @param user
+     *         The user (authenticated or anonymous).
+     * @param command
+     *         The {@link Command} resource to secure.
+     * @return {@code true} if the {@code user} is granted to execute {@code command}, {@code false} otherwise.
+     */
+    boolean isUserGranted(final User user, final Command<?> command);
+
 }
\ No newline at end of file
@@ -0,0 +1,369 @@
+package dco.app.blog.server.security;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.persist.UnitOfWork;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.server.dao.AuthenticationDAO;
+import dco.app.blog.server.dao.base.ReadReplica;
+import dco.app.blog.server.metrics.MetricsSource;
+import dco.app.blog.server.model.Authentication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * <p>
+ * Write-behind tracker of the sessions activity ({@link Authentication#getDateLastActive()}).
+ * </p>
+ * <p>
+ * A request only records its session last activity in memory: the touches of a token are coalesced into a single
+ * pending timestamp (and touches within the same second do not even write the map). A background job periodically
+ * flushes the pending timestamps in JDBC batches, then removes in bulk the sessions inactive for longer than the
+ * sessions expiration.
+ * </p>
+ * <p>
+ * The job is started and stopped (with a last flush) by the {@link dco.app.blog.server.config.ServletContextListener}.
+ * Pending timestamps are lost if the application is killed ; the sessions are only seen less active than they are.
+ * The job and the shutdown flush run outside of any request: each one runs within its own unit of work, so that the
+ * thread entity managers are released.
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class SessionActivityTracker implements MetricsSource {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(SessionActivityTracker.class);
+
+    /**
+     * Property setting the period (in seconds) of the flush job ({@code 0} disables the job).
+     */
+    private static final String FLUSH_PROPERTY = "security.sessions.activity.flush";
+
+    /**
+     * Property setting the inactivity duration (in seconds) after which a session is removed ({@code 0} disables the
+     * removal).
+     */
+    private static final String EXPIRATION_PROPERTY = "security.sessions.expiration";
+
+    /**
+     * Maximum time (in seconds) waited for a running job on shutdown.
+     */
+    private static final long SHUTDOWN_TIMEOUT = 10L;
+
+    /**
+     * Resolution (in milliseconds) of the recorded activity: touches within this duration are coalesced without
+     * writing.
+     */
+    private static final long RESOLUTION = 1000L;
+
+    /**
+     * The injected {@code AuthenticationDAO}.
+     */
+    private final AuthenticationDAO authenticationDAO;
+
+    /**
+     * The injected {@code AuthenticationCache}.
+     */
+    private final AuthenticationCache authenticationCache;
+
+    /**
+     * The injected {@code UnitOfWork}.
+     */
+    private final UnitOfWork unitOfWork;
+
+    /**
+     * The injected {@code ReadReplica}.
+     */
+    private final ReadReplica readReplica;
+
+    /**
+     * Pending last activity timestamps (in milliseconds), mapped by authentication token.
+     */
+    private final Map<String, Long> activities = new ConcurrentHashMap<>();
+
+    /**
+     * Flush job period in seconds.
+     */
+    private final long flushPeriod;
+
+    /**
+     * Sessions expiration in milliseconds.
+     */
+    private final long expiration;
+
+    /**
+     * Number of recorded touches.
+     */
+    private final LongAdder touches = new LongAdder();
+
+    /**
+     * Number of flushed activity timestamps.
+     */
+    private final AtomicLong flushed = new AtomicLong();
+
+    /**
+     * Number of failed flushes.
+     */
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Number of removed sessions.
+     */
+    private final AtomicLong purged = new AtomicLong();
+
+    /**
+     * The flush job executor ({@code null} if the job is not started).
+     */
+    private ScheduledExecutorService executor;
+
+    @Inject
+    public SessionActivityTracker(final AuthenticationDAO authenticationDAO, final AuthenticationCache authenticationCache,
+                                  final UnitOfWork unitOfWork, final ReadReplica readReplica) {
+
+        this.authenticationDAO = authenticationDAO;
+        this.authenticationCache = authenticationCache;
+        this.unitOfWork = unitOfWork;
+        this.readReplica = readReplica;
+
+        this.flushPeriod = ApplicationProperties.getLong(FLUSH_PROPERTY, 60L);
+        this.expiration = TimeUnit.SECONDS.toMillis(ApplicationProperties.getLong(EXPIRATION_PROPERTY, 1209600L));
+    }
+
+    /**
+     * Records an activity of the session identified by the given {@code authenticationToken}.
+     *
+     * @param authenticationToken
+     *         The (valid) authentication token.
+     */
+    public void touch(final String authenticationToken) {
+
+        if (authenticationToken == null) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final Long pending = activities.get(authenticationToken);
+
+        if (pending == null || now - pending >= RESOLUTION) {
+            activities.put(authenticationToken, now);
+        }
+
+        touches.increment();
+    }
+
+    /**
+     * Starts the flush job (does nothing if the job is disabled or already started).
+     */
+    public synchronized void start() {
+
+        if (executor != null || flushPeriod <= 0L) {
+            return;
+        }
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Starting sessions activity job ; Period: {} s ; Sessions expiration: {} s.", flushPeriod,
+                    TimeUnit.MILLISECONDS.toSeconds(expiration));
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "session-activity");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(this::run, flushPeriod, flushPeriod, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the flush job (if started) and flushes the pending activity timestamps.
+     */
+    public synchronized void stop() {
+
+        if (executor != null) {
+
+            executor.shutdown();
+
+            try {
+                if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (final InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+
+            executor = null;
+        }
+
+        try {
+
+            final int updated = inUnitOfWork(this::flush);
+
+            if (LOG.isInfoEnabled()) {
+                LOG.info("Sessions activity job stopped ; {} session(s) updated by last flush.", updated);
+            }
+
+        } catch (final RuntimeException e) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Error while flushing the sessions activity on shutdown.", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending activity timestamps into the database.<br/>
+     * The flushed timestamps are released, unless their session has been touched again meanwhile. If the write
+     * fails, they are kept for the next flush.
+     *
+     * @return The number of updated sessions.
+     */
+    public int flush() {
+
+        if (activities.isEmpty()) {
+            return 0;
+        }
+
+        final Map<String, Long> snapshot = new HashMap<>(activities);
+        final Map<String, Date> lastActivities = new HashMap<>(snapshot.size());
+
+        for (final Map.Entry<String, Long> activity : snapshot.entrySet()) {
+            lastActivities.put(activity.getKey(), new Date(activity.getValue()));
+        }
+
+        final long start = System.nanoTime();
+        final int updated;
+
+        try {
+
+            updated = authenticationDAO.updateLastActivity(lastActivities);
+
+        } catch (final RuntimeException e) {
+            failures.incrementAndGet();
+            throw e;
+        }
+
+        for (final Map.Entry<String, Long> activity : snapshot.entrySet()) {
+            activities.remove(activity.getKey(), activity.getValue());
+        }
+
+        flushed.addAndGet(snapshot.size());
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("{} session(s) activity flushed ({} updated) in {} ms.", snapshot.size(), updated,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+
+        return updated;
+    }
+
+    /**
+     * Removes the sessions inactive for longer than the sessions expiration, and invalidates their cached tokens.
+     *
+     * @return The number of removed sessions.
+     */
+    public int purge() {
+
+        if (expiration <= 0L) {
+            return 0;
+        }
+
+        final List<String> tokens = authenticationDAO.removeInactive(new Date(System.currentTimeMillis() - expiration));
+
+        for (final String token : tokens) {
+            authenticationCache.invalidate(token);
+        }
+
+        purged.addAndGet(tokens.size());
+
+        if (LOG.isDebugEnabled() && !tokens.isEmpty()) {
+            LOG.debug("{} inactive session(s) removed.", tokens.size());
+        }
+
+        return tokens.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collect(final Map<String, Object> metrics) {
+        metrics.put("sessions.activity.touches", touches.sum());
+        metrics.put("sessions.activity.pending", activities.size());
+        metrics.put("sessions.activity.flushed", flushed.get());
+        metrics.put("sessions.activity.failures", failures.get());
+        metrics.put("sessions.purged", purged.get());
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Runs the flush job: flushes the pending activity timestamps then removes the inactive sessions.<br/>
+     * Errors are logged (an exception would cancel the next runs).
+     */
+    private void run() {
+        try {
+
+            inUnitOfWork(() -> flush() + purge());
+
+        } catch (final RuntimeException e) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Error while running the sessions activity job.", e);
+            }
+        }
+    }
+
+    /**
+     * Runs the given {@code job} within a unit of work, begun and ended by this method unless one is already active
+     * on the current thread.
+     *
+     * @param job
+     *         The job.
+     * @return The job result.
+     */
+    private int inUnitOfWork(final IntSupplier job) {
+
+        boolean begun;
+
+        try {
+
+            unitOfWork.begin();
+            begun = true;
+
+        } catch (final IllegalStateException e) {
+            // Unit of work already active on this thread: ended by its owner.
+            begun = false;
+        }
+
+        try {
+
+            return job.getAsInt();
+
+        } finally {
+            if (begun) {
+                readReplica.end();
+                unitOfWork.end();
+            }
+        }
+    }
+
+}
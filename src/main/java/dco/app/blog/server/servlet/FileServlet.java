@@ -0,0 +1,714 @@
+package dco.app.blog.server.servlet;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dco.app.blog.client.navigation.RequestParameter;
+import dco.app.blog.server.config.ApplicationProperties;
+import dco.app.blog.server.model.User;
+import dco.app.blog.server.file.FileStorage;
+import dco.app.blog.server.file.UploadQuota;
+import dco.app.blog.server.security.RequestAuthentication;
+import dco.app.blog.server.security.SecureSessionValidator;
+import dco.app.blog.shared.servlet.Servlets;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static dco.app.blog.server.servlet.util.Servlets.logUser;
+
+/**
+ * <p>
+ * {@link Servlets.Servlet#FILE} servlet, serving the files of the {@link FileStorage}.
+ * </p>
+ * <p>
+ * {@link Servlets.ServletMethod#DOWNLOAD} requests ({@code GET} or {@code HEAD}) stream the file identified by the
+ * {@link RequestParameter#ID} parameter:
+ * <ul>
+ * <li>the access is validated by the {@link SecureSessionValidator} ;</li>
+ * <li>files are served with {@code X-Content-Type-Options: nosniff} and {@code Content-Security-Policy: sandbox}
+ * headers, and only images, videos and audios are displayed inline (other files are downloaded as attachments): user
+ * contents must never run as active documents of the application origin ;</li>
+ * <li>responses carry validators ({@code ETag}, the file content hash, and {@code Last-Modified}) and conditional
+ * requests are answered with a {@code 304 Not Modified} status ;</li>
+ * <li>a single bytes {@code Range} (optionally conditioned by {@code If-Range}) is served with a {@code 206 Partial
+ * Content} status (resumable downloads, video seeking) ;</li>
+ * <li>the file is never loaded into the heap: it is handed to the container {@code sendfile} support if available
+ * (zero-copy, Tomcat NIO/APR connectors) ; otherwise it is transferred from its {@link FileChannel} to the response
+ * output stream, which copies it through a small heap buffer (constant memory, but not zero-copy: the Servlet API does
+ * not expose the connector socket channel).</li>
+ * </ul>
+ * </p>
+ * <p>
+ * {@link Servlets.ServletMethod#UPLOAD} requests ({@code POST multipart/form-data}) store each file part into the
+ * {@link FileStorage} and answer the stored files identifiers (one per line, {@code text/plain}):
+ * <ul>
+ * <li>parts are read with the streaming API of {@code commons-fileupload}: each part is streamed to the storage
+ * without being buffered into the heap or in a fileupload temporary file (constant memory, whatever the files size)
+ * ;</li>
+ * <li>each user upload request is limited to {@code files.upload.max_request_size} bytes, and each of its files to
+ * {@code files.upload.max_size} bytes, and each user to {@code files.upload.user.max_bytes} bytes per window (see
+ * {@link UploadQuota}) ; limits are enforced while reading the stream, exceeding uploads are aborted with a
+ * {@code 413 Request Entity Too Large} status ;</li>
+ * <li>an aborted upload request stores nothing: its parts are staged into the storage temporary directory, and
+ * published only once the whole request has been read ; the staged files of an aborted request are discarded (stored
+ * files are never deleted, their content may be referenced by other uploads).</li>
+ * </ul>
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class FileServlet extends HttpServlet {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = -4329624126553727207L;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(FileServlet.class);
+
+    /**
+     * Request attribute set by containers supporting {@code sendfile} (Tomcat).
+     */
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+    /**
+     * Request attributes prefix of the file to send by the container.
+     */
+    private static final String SENDFILE_ATTRIBUTE = "org.apache.tomcat.sendfile.";
+
+    /**
+     * Default content type of the files.
+     */
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    /**
+     * Property setting the maximum size (in bytes) of an uploaded file (negative value for no limit).
+     */
+    private static final String UPLOAD_MAX_SIZE_PROPERTY = "files.upload.max_size";
+
+    /**
+     * Property setting the maximum size (in bytes) of an upload request (negative value for no limit).
+     */
+    private static final String UPLOAD_MAX_REQUEST_SIZE_PROPERTY = "files.upload.max_request_size";
+
+    /**
+     * Injected {@link SecureSessionValidator} instance.
+     */
+    private final transient SecureSessionValidator sessionValidator;
+
+    /**
+     * Injected {@link FileStorage} instance.
+     */
+    private final transient FileStorage fileStorage;
+
+    /**
+     * Injected {@link UploadQuota} instance.
+     */
+    private final transient UploadQuota uploadQuota;
+
+    /**
+     * Maximum size of an uploaded file.
+     */
+    private long uploadMaxSize;
+
+    /**
+     * Maximum size of an upload request.
+     */
+    private long uploadMaxRequestSize;
+
+    @Inject
+    public FileServlet(final SecureSessionValidator sessionValidator, final FileStorage fileStorage, final UploadQuota uploadQuota) {
+        this.sessionValidator = sessionValidator;
+        this.fileStorage = fileStorage;
+        this.uploadQuota = uploadQuota;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init() throws ServletException {
+
+        uploadMaxSize = ApplicationProperties.getLong(UPLOAD_MAX_SIZE_PROPERTY, -1L);
+        uploadMaxRequestSize = ApplicationProperties.getLong(UPLOAD_MAX_REQUEST_SIZE_PROPERTY, -1L);
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Uploads maximum size: {} bytes per file ; {} bytes per request.", uploadMaxSize, uploadMaxRequestSize);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+        if (authorize(request, response, Servlets.ServletMethod.DOWNLOAD) != null) {
+            download(request, response, true);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doHead(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+        if (authorize(request, response, Servlets.ServletMethod.DOWNLOAD) != null) {
+            download(request, response, false);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doPost(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+        final SecureSessionValidator.Access access = authorize(request, response, Servlets.ServletMethod.UPLOAD);
+        if (access != null) {
+            upload(request, response, access.getUser());
+        }
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UPLOAD METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Stores the files of the given multipart {@code request}.
+     *
+     * @param request
+     *         The HTTP request.
+     * @param response
+     *         The HTTP response.
+     * @param user
+     *         The uploading user (its upload budget is consumed).
+     * @throws IOException
+     *         If the request cannot be read or the response cannot be written.
+     */
+    private void upload(final HttpServletRequest request, final HttpServletResponse response, final User user) throws IOException {
+
+        if (!ServletFileUpload.isMultipartContent(request)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        // No FileItemFactory: the streaming API never buffers the parts.
+        final ServletFileUpload upload = new ServletFileUpload();
+        upload.setHeaderEncoding("UTF-8");
+        upload.setFileSizeMax(uploadMaxSize);
+        upload.setSizeMax(uploadMaxRequestSize);
+
+        final Long userId = user != null ? user.getId() : null;
+        final List<FileStorage.StagedFile> stagedFiles = new ArrayList<>();
+        final List<FileStorage.StoredFile> storedFiles = new ArrayList<>();
+
+        try {
+
+            final FileItemIterator iterator = upload.getItemIterator(request);
+
+            while (iterator.hasNext()) {
+
+                final FileItemStream item = iterator.next();
+
+                if (item.isFormField()) {
+                    // Skipped by the iterator.
+                    continue;
+                }
+
+                try (final InputStream input = uploadQuota.limit(item.openStream(), userId)) {
+                    stagedFiles.add(fileStorage.stage(input, item.getName()));
+                }
+            }
+
+            // The whole request has been read: its files are published.
+            for (final FileStorage.StagedFile stagedFile : stagedFiles) {
+                storedFiles.add(fileStorage.publish(stagedFile));
+            }
+
+        } catch (final UploadQuota.QuotaExceededException e) {
+            rejectUpload(response, e);
+            return;
+
+        } catch (final FileUploadBase.FileUploadIOException e) {
+            // Limits exceeded mid-stream are wrapped into I/O exceptions.
+            if (isSizeLimitExceeded(e.getCause())) {
+                rejectUpload(response, e.getCause());
+                return;
+            }
+            throw e;
+
+        } catch (final FileUploadException e) {
+            if (isSizeLimitExceeded(e)) {
+                rejectUpload(response, e);
+                return;
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Invalid upload request.", e);
+            }
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+
+        } finally {
+            discard(stagedFiles);
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/plain; charset=utf-8");
+
+        try (final PrintWriter writer = response.getWriter()) {
+            for (final FileStorage.StoredFile storedFile : storedFiles) {
+                writer.println(storedFile.getId());
+            }
+        }
+    }
+
+    /**
+     * Discards the temporary files of the given staged files (published files are kept).
+     *
+     * @param stagedFiles
+     *         The files staged by the upload request.
+     */
+    private void discard(final List<FileStorage.StagedFile> stagedFiles) {
+        for (final FileStorage.StagedFile stagedFile : stagedFiles) {
+            try {
+
+                fileStorage.discard(stagedFile);
+
+            } catch (final IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("Staged file '" + stagedFile.getId() + "' of an upload cannot be discarded.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns if the given upload exception is due to an exceeded size limit.
+     *
+     * @param e
+     *         The upload exception.
+     * @return {@code true} if the upload file or request size limit is exceeded, {@code false} otherwise.
+     */
+    private static boolean isSizeLimitExceeded(final Throwable e) {
+        return e instanceof FileUploadBase.FileSizeLimitExceededException || e instanceof FileUploadBase.SizeLimitExceededException;
+    }
+
+    /**
+     * Rejects an upload exceeding the size limits.
+     *
+     * @param response
+     *         The HTTP response.
+     * @param e
+     *         The size limit exception.
+     * @throws IOException
+     *         If the error cannot be sent.
+     */
+    private static void rejectUpload(final HttpServletResponse response, final Throwable e) throws IOException {
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Upload rejected: {}", e.getMessage());
+        }
+
+        response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // DOWNLOAD METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Serves the file identified by the {@link RequestParameter#ID} parameter.
+     *
+     * @param request
+     *         The HTTP request.
+     * @param response
+     *         The HTTP response.
+     * @param content
+     *         {@code true} to send the file content, {@code false} to send the headers only.
+     * @throws IOException
+     *         If the response cannot be written.
+     */
+    private void download(final HttpServletRequest request, final HttpServletResponse response, final boolean content) throws IOException {
+
+        final Path file = fileStorage.resolve(request.getParameter(RequestParameter.ID.getRequestName()));
+
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        final long size = Files.size(file);
+        final long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000L * 1000L;
+        // Strong validator of the content itself (kept by a restore or a copy to another node) ; size and date
+        // otherwise.
+        final String hash = FileStorage.getContentHash(file);
+        final String etag = '"' + (hash != null ? hash : Long.toHexString(size) + '-' + Long.toHexString(lastModified)) + '"';
+
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Accept-Ranges", "bytes");
+        // Cached by the browser only, and revalidated (the access may have been revoked).
+        response.setHeader("Cache-Control", "private, no-cache");
+        // User contents are served from the application origin: never sniffed nor run as an active document.
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader("Content-Security-Policy", "sandbox");
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0L;
+        long length = size;
+
+        final long[] range = isRangeApplicable(request, etag, lastModified) ? parseRange(request.getHeader("Range"), size) : null;
+
+        if (range == UNSATISFIABLE_RANGE) {
+            response.setHeader("Content-Range", "bytes */" + size);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+
+        } else if (range != null) {
+            start = range[0];
+            length = range[1] - range[0] + 1L;
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + range[0] + '-' + range[1] + '/' + size);
+        }
+
+        final String fileName = file.getFileName().toString();
+        final String contentType = StringUtils.defaultIfBlank(getServletContext().getMimeType(fileName), DEFAULT_CONTENT_TYPE);
+        response.setContentType(contentType);
+        response.setHeader("Content-Disposition", (isInline(contentType) ? "inline" : "attachment") + "; filename=\"" + fileName.replace("\"", "") + '"');
+        response.setHeader("Content-Length", String.valueOf(length));
+
+        if (!content || length == 0L) {
+            return;
+        }
+
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Sending {} bytes of file '{}' from position {}.", length, file, start);
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            // The container sends the file itself (zero-copy) once the servlet returns.
+            request.setAttribute(SENDFILE_ATTRIBUTE + "filename", file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_ATTRIBUTE + "start", start);
+            request.setAttribute(SENDFILE_ATTRIBUTE + "end", start + length);
+            return;
+        }
+
+        transfer(file, start, length, response);
+    }
+
+    /**
+     * Transfers the given {@code file} section to the {@code response} output stream.<br/>
+     * The response output stream is not a file or socket channel: the transfer is copied through the (small, reused)
+     * buffer of {@link Channels#newChannel(java.io.OutputStream)}, the file is never loaded into the heap as a whole.
+     *
+     * @param file
+     *         The file.
+     * @param start
+     *         The section start position.
+     * @param length
+     *         The section length.
+     * @param response
+     *         The HTTP response.
+     * @throws IOException
+     *         If the file cannot be read.
+     */
+    private static void transfer(final Path file, final long start, final long length, final HttpServletResponse response) throws IOException {
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            final WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+
+            long position = start;
+            long remaining = length;
+
+            while (remaining > 0L) {
+
+                final long transferred;
+
+                try {
+
+                    transferred = channel.transferTo(position, remaining, output);
+
+                } catch (final IOException e) {
+                    // Usually the client aborting the download (e.g. video seeking).
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Transfer of file '" + file + "' interrupted.", e);
+                    }
+                    return;
+                }
+
+                if (transferred <= 0L) {
+                    // File truncated meanwhile.
+                    break;
+                }
+
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Marker of an unsatisfiable range (see {@link #parseRange(String, long)}).
+     */
+    static final long[] UNSATISFIABLE_RANGE = new long[0];
+
+    /**
+     * Validates the access to the requested servlet method (read from the {@link Servlets#SERVLET_METHOD} parameter),
+     * and sends the corresponding error if it is not granted.
+     *
+     * @param request
+     *         The HTTP request.
+     * @param response
+     *         The HTTP response.
+     * @param expectedMethod
+     *         The servlet method served by the HTTP method.
+     * @return The granted access, or {@code null} if an error has been sent.
+     * @throws IOException
+     *         If the error cannot be sent.
+     */
+    private SecureSessionValidator.Access authorize(final HttpServletRequest request, final HttpServletResponse response, final Servlets.ServletMethod expectedMethod)
+            throws IOException {
+
+        final Servlets.ServletMethod method = Servlets.ServletMethod.fromMethodName(request.getParameter(Servlets.SERVLET_METHOD));
+
+        if (method != expectedMethod) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return null;
+        }
+
+        final String originPageToken = request.getParameter(Servlets.ORIGIN_PAGE_TOKEN);
+        final RequestAuthentication authentication = RequestAuthentication.get(request);
+
+        final SecureSessionValidator.Access access;
+        if (authentication != null) {
+            access = sessionValidator.validate(authentication, Servlets.Servlet.FILE, method, originPageToken);
+        } else {
+            access = sessionValidator.validate(request.getParameter(Servlets.AUTHENTICATION_TOKEN), Servlets.Servlet.FILE, method, originPageToken);
+        }
+
+        switch (access.getAccessType()) {
+
+            case INVALID_SESSION:
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return null;
+
+            case UNAUTHORIZED_ACCESS:
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("FILE SERVLET ACCESS REFUSED - Method: '{}' ; User: '{}'.", method, logUser(access.getUser()));
+                }
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return null;
+
+            default:
+                return access;
+        }
+    }
+
+    /**
+     * Returns if a file of the given {@code contentType} may be displayed inline by the browser: only images, videos and
+     * audios are, other files (documents, archives, etc.) are downloaded as attachments.
+     *
+     * <pre>
+     * isInline("image/jpeg") -> true
+     * isInline("video/mp4") -> true
+     * isInline("image/svg+xml") -> false
+     * isInline("application/pdf") -> false
+     * isInline("text/html") -> false
+     * </pre>
+     *
+     * @param contentType
+     *         The file content type.
+     * @return {@code true} if the file may be displayed inline, {@code false} if it must be downloaded.
+     */
+    static boolean isInline(final String contentType) {
+
+        final String type = StringUtils.lowerCase(contentType, Locale.ROOT);
+
+        if (type == null || type.startsWith("image/svg")) {
+            // SVG images are (scriptable) documents.
+            return false;
+        }
+
+        return type.startsWith("image/") || type.startsWith("video/") || type.startsWith("audio/");
+    }
+
+    /**
+     * Returns if the file held by the browser (according to the {@code request} conditional headers) is still valid.
+     *
+     * @param request
+     *         The HTTP request.
+     * @param etag
+     *         The file entity tag.
+     * @param lastModified
+     *         The file last modification date.
+     * @return {@code true} if the file has not been modified, {@code false} otherwise.
+     */
+    static boolean isNotModified(final HttpServletRequest request, final String etag, final long lastModified) {
+
+        final String ifNoneMatch = request.getHeader("If-None-Match");
+
+        if (ifNoneMatch != null) {
+            for (final String candidate : ifNoneMatch.split(",")) {
+                if ("*".equals(candidate.trim()) || etag.equals(StringUtils.removeStart(candidate.trim(), "W/"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        final long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+        return ifModifiedSince >= 0L && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * Returns if the request {@code Range} header applies, according to its {@code If-Range} header (the range
+     * applies only if the file has not been modified since the client got its first part).
+     *
+     * @param request
+     *         The HTTP request.
+     * @param etag
+     *         The file entity tag.
+     * @param lastModified
+     *         The file last modification date.
+     * @return {@code true} if the range applies, {@code false} if the whole file must be sent.
+     */
+    static boolean isRangeApplicable(final HttpServletRequest request, final String etag, final long lastModified) {
+
+        final String ifRange = request.getHeader("If-Range");
+
+        if (ifRange == null) {
+            return true;
+        }
+
+        if (ifRange.trim().startsWith("\"")) {
+            // Strong comparison.
+            return etag.equals(ifRange.trim());
+        }
+
+        return getDateHeader(request, "If-Range") == lastModified;
+    }
+
+    /**
+     * Parses the given {@code Range} header value.<br/>
+     * Only a single bytes range is supported ; multiple ranges are ignored (the whole file is sent).
+     *
+     * <pre>
+     * parseRange(null, 100) -> null
+     * parseRange("bytes=0-9", 100) -> [0, 9]
+     * parseRange("bytes=90-", 100) -> [90, 99]
+     * parseRange("bytes=-10", 100) -> [90, 99]
+     * parseRange("bytes=50-500", 100) -> [50, 99]
+     * parseRange("bytes=100-", 100) -> UNSATISFIABLE_RANGE
+     * parseRange("bytes=0-9,20-29", 100) -> null
+     * </pre>
+     *
+     * @param range
+     *         The {@code Range} header value.
+     * @param size
+     *         The file size.
+     * @return The range first and last (inclusive) positions, {@code null} if the header is absent, invalid or not
+     * supported, or {@link #UNSATISFIABLE_RANGE} if the range cannot be satisfied.
+     */
+    static long[] parseRange(final String range, final long size) {
+
+        if (range == null || !range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+
+        final String spec = range.substring("bytes=".length()).trim();
+        final int dash = spec.indexOf('-');
+
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+
+            final long first;
+            final long last;
+
+            if (dash == 0) {
+                // Suffix range: last N bytes.
+                final long suffix = Long.parseLong(spec.substring(1).trim());
+                if (suffix <= 0L) {
+                    return UNSATISFIABLE_RANGE;
+                }
+                first = Math.max(0L, size - suffix);
+                last = size - 1L;
+
+            } else {
+                first = Long.parseLong(spec.substring(0, dash).trim());
+                last = dash == spec.length() - 1 ? size - 1L : Math.min(Long.parseLong(spec.substring(dash + 1).trim()), size - 1L);
+            }
+
+            if (first < 0L || first >= size || last < first) {
+                return UNSATISFIABLE_RANGE;
+            }
+
+            return new long[]{first, last};
+
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the given date header value, ignoring invalid dates.
+     *
+     * @param request
+     *         The HTTP request.
+     * @param name
+     *         The header name.
+     * @return The header date, or {@code -1} if the header is absent or invalid.
+     */
+    private static long getDateHeader(final HttpServletRequest request, final String name) {
+        try {
+
+            return request.getDateHeader(name);
+
+        } catch (final IllegalArgumentException e) {
+            return -1L;
+        }
+    }
+
+}
@@ -2,12 +2,23 @@ package dco.app.blog.server.servlet.filter;
 
 import com.google.inject.Singleton;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>
@@ -36,12 +47,113 @@ import java.util.Date;
  * </pre>
  * <p/>
  * </p>
+ * <p>
+ * Static resources responses also carry strong validators: an {@code ETag} (hash of the resource content) and a
+ * {@code Last-Modified} date. The validators are computed on the first serve of a resource (and again if its file is
+ * modified) and cached by resource path. Conditional requests ({@code If-None-Match} / {@code If-Modified-Since})
+ * matching the validators are answered with a {@code 304 Not Modified} status, without invoking the rest of the chain.
+ * A precompressed variant (see {@link PrecompressedFilter}) has its own validators.
+ * </p>
  *
  * @author Denis
  */
 @Singleton
 public class CacheFilter implements Filter {
 
+    /**
+     * Validators of a static resource.
+     *
+     * @author Denis
+     */
+    private static final class Validators {
+
+        /**
+         * Modification date of the resource file when the validators have been computed ({@code 0} if the resource is
+         * not a file).
+         */
+        private final long fileModified;
+
+        /**
+         * The entity tag (quoted).
+         */
+        private final String etag;
+
+        /**
+         * The last modification date (truncated to the second, as HTTP dates).
+         */
+        private final long lastModified;
+
+        private Validators(final long fileModified, final String etag, final long lastModified) {
+            this.fileModified = fileModified;
+            this.etag = etag;
+            this.lastModified = lastModified / 1000L * 1000L;
+        }
+
+    }
+
+    /**
+     * Response ignoring the validators headers set by the rest of the chain (e.g. the container default servlet), so
+     * that the filter validators are the ones sent back by the browsers.
+     *
+     * @author Denis
+     */
+    private static final class ValidatedResponse extends HttpServletResponseWrapper {
+
+        private ValidatedResponse(final HttpServletResponse response) {
+            super(response);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setHeader(final String name, final String value) {
+            if (!isValidator(name)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void addHeader(final String name, final String value) {
+            if (!isValidator(name)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setDateHeader(final String name, final long date) {
+            if (!isValidator(name)) {
+                super.setDateHeader(name, date);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void addDateHeader(final String name, final long date) {
+            if (!isValidator(name)) {
+                super.addDateHeader(name, date);
+            }
+        }
+
+        private static boolean isValidator(final String name) {
+            return ETAG_HEADER.equalsIgnoreCase(name) || LAST_MODIFIED_HEADER.equalsIgnoreCase(name);
+        }
+
+    }
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(CacheFilter.class);
+
     /**
      * Resources containing one of these value(s) will <b>never</b> be cached.
      *
@@ -67,6 +179,52 @@ public class CacheFilter implements Filter {
      */
     private static final String CUSTOM_HEADER_NAME = "appHeader";
 
+    /**
+     * {@code Cache-Control} header of the cached resources (GWT hashed artifacts never change).
+     */
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    /**
+     * Entity tag validator header.
+     */
+    private static final String ETAG_HEADER = "ETag";
+
+    /**
+     * Last modification date validator header.
+     */
+    private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+
+    /**
+     * Entity tags conditional request header.
+     */
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+    /**
+     * Modification date conditional request header.
+     */
+    private static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+
+    /**
+     * Resource served for directory requests.
+     */
+    private static final String WELCOME_FILE = "index.html";
+
+    /**
+     * Static resources validators, mapped by resource path.
+     */
+    private final Map<String, Validators> validators = new ConcurrentHashMap<>();
+
+    /**
+     * The servlet context.
+     */
+    private ServletContext servletContext;
+
+    /**
+     * Filter initialization date, used as last modification date of the resources which are not files (packed
+     * archive).
+     */
+    private long initDate;
+
     /**
      * {@inheritDoc}
      */
@@ -86,6 +244,7 @@ public class CacheFilter implements Filter {
         if (containsAny(requestURI, CACHE_FILTERS)) {
             // Cached resource.
             httpResponse.setDateHeader("Expires", new Date().getTime() + YEAR);
+            httpResponse.setHeader("Cache-Control", IMMUTABLE_CACHE_CONTROL);
 
             // Control flag.
             httpResponse.setHeader(CUSTOM_HEADER_NAME, "Resource cached by application filter");
@@ -110,7 +269,22 @@ public class CacheFilter implements Filter {
             httpResponse.setContentType("application/json");
         }
 
-        filterChain.doFilter(request, response);
+        final Validators resourceValidators = isConditional(httpRequest) ? getValidators(httpRequest) : null;
+
+        if (resourceValidators == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        httpResponse.setHeader(ETAG_HEADER, resourceValidators.etag);
+        httpResponse.setDateHeader(LAST_MODIFIED_HEADER, resourceValidators.lastModified);
+
+        if (isNotModified(httpRequest, resourceValidators)) {
+            httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        filterChain.doFilter(request, new ValidatedResponse(httpResponse));
     }
 
     /**
@@ -118,7 +292,8 @@ public class CacheFilter implements Filter {
      */
     @Override
     public void init(final FilterConfig filterConfig) throws ServletException {
-        // Nothing to initialize.
+        servletContext = filterConfig.getServletContext();
+        initDate = System.currentTimeMillis();
     }
 
     /**
@@ -129,6 +304,136 @@ public class CacheFilter implements Filter {
         // Nothing to destroy.
     }
 
+    /**
+     * Returns if the given {@code request} method supports conditional requests.
+     *
+     * @param request
+     *         The HTTP request.
+     * @return {@code true} for {@code GET} and {@code HEAD} requests.
+     */
+    private static boolean isConditional(final HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+
+    /**
+     * Returns if the resource held by the browser (according to the {@code request} conditional headers) matches the
+     * given {@code resourceValidators}.<br/>
+     * The {@code If-None-Match} header takes precedence over the {@code If-Modified-Since} one.
+     *
+     * @param request
+     *         The HTTP request.
+     * @param resourceValidators
+     *         The requested resource validators.
+     * @return {@code true} if the resource has not been modified, {@code false} otherwise.
+     */
+    private static boolean isNotModified(final HttpServletRequest request, final Validators resourceValidators) {
+
+        final String ifNoneMatch = request.getHeader(IF_NONE_MATCH_HEADER);
+
+        if (ifNoneMatch != null) {
+            for (final String etag : ifNoneMatch.split(",")) {
+                final String candidate = StringUtils.removeStart(etag.trim(), "W/");
+                if ("*".equals(candidate) || resourceValidators.etag.equals(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        try {
+
+            final long ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE_HEADER);
+            return ifModifiedSince >= 0L && resourceValidators.lastModified <= ifModifiedSince;
+
+        } catch (final IllegalArgumentException e) {
+            // Invalid date.
+            return false;
+        }
+    }
+
+    /**
+     * Returns the validators of the static resource targeted by the given {@code request} (computed on first call, and
+     * again if the resource file has been modified since).
+     *
+     * @param request
+     *         The HTTP request.
+     * @return The resource validators, or {@code null} if the request does not target a static resource.
+     */
+    private Validators getValidators(final HttpServletRequest request) {
+
+        String path = request.getServletPath() + StringUtils.defaultString(request.getPathInfo());
+
+        if (path.isEmpty() || path.endsWith("/")) {
+            path += WELCOME_FILE;
+        }
+
+        final String realPath = servletContext.getRealPath(path);
+        final File file = realPath != null ? new File(realPath) : null;
+
+        if (file != null && !file.isFile()) {
+            return null;
+        }
+
+        final long fileModified = file != null ? file.lastModified() : 0L;
+        final Validators cached = validators.get(path);
+
+        if (cached != null && cached.fileModified == fileModified) {
+            return cached;
+        }
+
+        try (final InputStream input = file != null ? new FileInputStream(file) : servletContext.getResourceAsStream(path)) {
+
+            if (input == null) {
+                return null;
+            }
+
+            final Validators computed = new Validators(fileModified, hash(input), file != null ? fileModified : initDate);
+            validators.put(path, computed);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Resource '{}' validators computed: ETag {}.", path, computed.etag);
+            }
+
+            return computed;
+
+        } catch (final IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Validators of resource '" + path + "' cannot be computed.", e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Computes the entity tag of the given content.
+     *
+     * @param input
+     *         The content.
+     * @return The quoted content hash.
+     * @throws IOException
+     *         If the content cannot be read.
+     */
+    private static String hash(final InputStream input) throws IOException {
+
+        final MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256.
+            throw new IllegalStateException(e);
+        }
+
+        final byte[] buffer = new byte[8192];
+        int read;
+
+        while ((read = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+
+        return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + '"';
+    }
+
     /**
      * Returns if the given {@code seq} contains any of the given {@code searchSeqs}.<br/>
      * The search is case insensitive.
@@ -0,0 +1,329 @@
+package dco.app.blog.server.servlet.filter;
+
+import com.google.inject.Singleton;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * <p>
+ * Serves the precompressed variants of the static resources (generated at build time next to the original files, see
+ * {@code precompress-assets} execution in {@code pom.xml}).
+ * </p>
+ * <p>
+ * The best variant accepted by the request {@code Accept-Encoding} header is negotiated (brotli first, then gzip) ;
+ * the rest of the chain then serves the variant file as if it had been requested, with the original resource content
+ * type and the variant {@code Content-Encoding}. Requests not accepting any variant are served the original resource.
+ * </p>
+ * <p>
+ * Must be mapped before the {@link CacheFilter}, so that each variant gets its own validators.
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class PrecompressedFilter implements Filter {
+
+    /**
+     * Precompressed variants encodings, by order of preference.
+     *
+     * @author Denis
+     */
+    private static enum Encoding {
+
+        /**
+         * Brotli variant.
+         */
+        BROTLI("br", ".br"),
+
+        /**
+         * Gzip variant.
+         */
+        GZIP("gzip", ".gz");
+
+        /**
+         * The {@code Content-Encoding} token.
+         */
+        private final String token;
+
+        /**
+         * The variant file extension.
+         */
+        private final String extension;
+
+        private Encoding(final String token, final String extension) {
+            this.token = token;
+            this.extension = extension;
+        }
+
+    }
+
+    /**
+     * Request targeting the precompressed variant of the original resource (the request URI is kept).
+     *
+     * @author Denis
+     */
+    private static final class VariantRequest extends HttpServletRequestWrapper {
+
+        /**
+         * The variant resource path.
+         */
+        private final String variantPath;
+
+        private VariantRequest(final HttpServletRequest request, final String variantPath) {
+            super(request);
+            this.variantPath = variantPath;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getServletPath() {
+            return variantPath;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getPathInfo() {
+            return null;
+        }
+
+    }
+
+    /**
+     * Response keeping the original resource content type (the rest of the chain sets the variant file one).
+     *
+     * @author Denis
+     */
+    private static final class VariantResponse extends HttpServletResponseWrapper {
+
+        private VariantResponse(final HttpServletResponse response) {
+            super(response);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setContentType(final String type) {
+            // Original resource content type is kept.
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setHeader(final String name, final String value) {
+            if (!CONTENT_TYPE_HEADER.equalsIgnoreCase(name)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void addHeader(final String name, final String value) {
+            if (!CONTENT_TYPE_HEADER.equalsIgnoreCase(name)) {
+                super.addHeader(name, value);
+            }
+        }
+
+    }
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(PrecompressedFilter.class);
+
+    /**
+     * Request accepted encodings header.
+     */
+    private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+    /**
+     * Response encoding header.
+     */
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+    /**
+     * Response content type header.
+     */
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+
+    /**
+     * Response variation header.
+     */
+    private static final String VARY_HEADER = "Vary";
+
+    /**
+     * Welcome file served for directory requests (see {@code web.xml}), e.g. the web root host page.
+     */
+    private static final String WELCOME_FILE = "index.html";
+
+    /**
+     * The servlet context.
+     */
+    private ServletContext servletContext;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+        servletContext = filterConfig.getServletContext();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain filterChain) throws IOException,
+            ServletException {
+
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+            // Just in case.
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final HttpServletRequest httpRequest = (HttpServletRequest) request;
+        final HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        if (!"GET".equals(httpRequest.getMethod()) && !"HEAD".equals(httpRequest.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final String requestPath = httpRequest.getServletPath() + StringUtils.defaultString(httpRequest.getPathInfo());
+        final String path = requestPath.endsWith("/") ? requestPath + WELCOME_FILE : requestPath;
+        final String realPath = servletContext.getRealPath(path);
+
+        if (realPath == null || !new File(realPath).isFile()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean precompressed = false;
+        Encoding negotiated = null;
+
+        for (final Encoding encoding : Encoding.values()) {
+            if (new File(realPath + encoding.extension).isFile()) {
+                precompressed = true;
+                if (negotiated == null && isAccepted(httpRequest.getHeader(ACCEPT_ENCODING_HEADER), encoding)) {
+                    negotiated = encoding;
+                }
+            }
+        }
+
+        if (precompressed) {
+            // Representation depends on the request encodings (shared caches must not serve a variant to any client).
+            httpResponse.addHeader(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+        }
+
+        if (negotiated == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Serving '{}' variant of resource '{}'.", negotiated.token, path);
+        }
+
+        final String contentType = servletContext.getMimeType(path);
+
+        if (contentType != null) {
+            httpResponse.setContentType(contentType);
+        }
+
+        httpResponse.setHeader(CONTENT_ENCODING_HEADER, negotiated.token);
+
+        filterChain.doFilter(new VariantRequest(httpRequest, path + negotiated.extension), new VariantResponse(httpResponse));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        // Nothing to destroy.
+    }
+
+    /**
+     * Returns if the given {@code encoding} is accepted by the given {@code Accept-Encoding} header value.
+     *
+     * <pre>
+     * isAccepted(null, GZIP) -> false
+     * isAccepted("gzip, deflate", GZIP) -> true
+     * isAccepted("gzip;q=0", GZIP) -> false
+     * isAccepted("*", BROTLI) -> true
+     * isAccepted("br;q=0, *", BROTLI) -> false
+     * </pre>
+     *
+     * @param acceptEncoding
+     *         The {@code Accept-Encoding} header value.
+     * @param encoding
+     *         The encoding.
+     * @return {@code true} if the encoding is accepted (with a non-zero quality), {@code false} otherwise.
+     */
+    private static boolean isAccepted(final String acceptEncoding, final Encoding encoding) {
+
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Boolean wildcard = null;
+
+        for (final String coding : acceptEncoding.split(",")) {
+
+            final String[] parameters = coding.split(";");
+            final String token = parameters[0].trim();
+
+            if (encoding.token.equalsIgnoreCase(token)) {
+                return hasQuality(parameters);
+
+            } else if ("*".equals(token)) {
+                wildcard = hasQuality(parameters);
+            }
+        }
+
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    /**
+     * Returns if the given coding parameters do not carry a zero quality.
+     *
+     * @param parameters
+     *         The coding and its parameters.
+     * @return {@code false} if the coding quality is {@code 0}, {@code true} otherwise.
+     */
+    private static boolean hasQuality(final String[] parameters) {
+
+        for (int i = 1; i < parameters.length; i++) {
+
+            final String parameter = parameters[i].trim();
+
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim()) > 0d;
+                } catch (final NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+}
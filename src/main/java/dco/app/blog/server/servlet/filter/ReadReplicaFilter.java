@@ -0,0 +1,68 @@
+package dco.app.blog.server.servlet.filter;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dco.app.blog.server.dao.base.ReadReplica;
+
+import javax.servlet.*;
+import java.io.IOException;
+
+/**
+ * <p>
+ * Scopes the {@link ReadReplica} entity managers and routing to the request (as the {@link UnitOfWorkFilter} does for
+ * the primary database unit of work).
+ * </p>
+ * <p>
+ * The replica persistence unit (if configured) is started on initialization, so that a misconfigured replica fails
+ * the application startup, and stopped on destruction.
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class ReadReplicaFilter implements Filter {
+
+    /**
+     * Injected read replica.
+     */
+    private final ReadReplica readReplica;
+
+    @Inject
+    public ReadReplicaFilter(final ReadReplica readReplica) {
+        this.readReplica = readReplica;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+        if (readReplica.isEnabled()) {
+            readReplica.getEntityManagerFactory();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain filterChain) throws IOException,
+            ServletException {
+        try {
+
+            filterChain.doFilter(request, response);
+
+        } finally {
+            readReplica.end();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        readReplica.close();
+    }
+
+}
@@ -0,0 +1,70 @@
+package dco.app.blog.server.servlet.filter;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.persist.PersistFilter;
+import com.google.inject.persist.UnitOfWork;
+
+import javax.servlet.*;
+import java.io.IOException;
+
+/**
+ * <p>
+ * Scopes the primary database unit of work to the request.
+ * </p>
+ * <p>
+ * Unlike the {@link PersistFilter}, the persistence service is not started nor stopped by this filter but by the
+ * {@link dco.app.blog.server.config.ServletContextListener}: the filters are destroyed before the context listeners are
+ * notified, and the shutdown tasks still need the database.
+ * </p>
+ *
+ * @author Denis
+ */
+@Singleton
+public class UnitOfWorkFilter implements Filter {
+
+    /**
+     * Injected unit of work.
+     */
+    private final UnitOfWork unitOfWork;
+
+    @Inject
+    public UnitOfWorkFilter(final UnitOfWork unitOfWork) {
+        this.unitOfWork = unitOfWork;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+        // Nothing to do here.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain filterChain) throws IOException,
+            ServletException {
+
+        unitOfWork.begin();
+
+        try {
+
+            filterChain.doFilter(request, response);
+
+        } finally {
+            unitOfWork.end();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        // Nothing to do here.
+    }
+
+}
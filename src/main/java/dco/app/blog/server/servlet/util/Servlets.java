@@ -2,8 +2,16 @@ package dco.app.blog.server.servlet.util;
 
 import com.google.gwt.dom.client.Style.Display;
 import dco.app.blog.server.model.User;
+import dco.app.blog.server.security.RequestAuthentication;
+import dco.app.blog.server.security.SecureSessionValidator;
+import dco.app.blog.shared.servlet.Servlets.Servlet;
+import dco.app.blog.shared.servlet.Servlets.ServletMethod;
 import org.apache.commons.collections4.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.ConstraintViolation;
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -19,6 +27,11 @@ import java.util.Collection;
  */
 public final class Servlets {
 
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(Servlets.class);
+
     /**
      * UTF-8 charset.
      */
@@ -48,6 +61,81 @@ public final class Servlets {
         return sb.toString();
     }
 
+    /**
+     * Returns the authentication token of the given {@code request}: the one resolved by the authentication filter
+     * (header, cookie or {@code GET} parameter), or the authentication token parameter if the request has not been
+     * through the filter.
+     *
+     * @param request
+     *         The HTTP request.
+     * @return The authentication token, or {@code null} for anonymous requests.
+     */
+    public static String getAuthenticationToken(final HttpServletRequest request) {
+
+        final RequestAuthentication authentication = RequestAuthentication.get(request);
+
+        if (authentication != null) {
+            return authentication.getAuthenticationToken();
+        }
+
+        return RequestAuthentication.normalize(request.getParameter(dco.app.blog.shared.servlet.Servlets.AUTHENTICATION_TOKEN));
+    }
+
+    /**
+     * Validates the access of the given {@code authenticationToken} to the given servlet {@code method}, and sends the
+     * corresponding error if it is not granted ({@code 401} for an invalid session, {@code 403} for a refused
+     * access).<br/>
+     * The request authentication is reused if it has been resolved from the same token.
+     *
+     * @param sessionValidator
+     *         The session validator.
+     * @param request
+     *         The HTTP request.
+     * @param response
+     *         The HTTP response.
+     * @param servlet
+     *         The servlet.
+     * @param method
+     *         The servlet method.
+     * @param authenticationToken
+     *         The authentication token ({@code null} for anonymous requests).
+     * @return The granted access, or {@code null} if an error has been sent.
+     * @throws IOException
+     *         If the error cannot be sent.
+     */
+    public static SecureSessionValidator.Access authorize(final SecureSessionValidator sessionValidator, final HttpServletRequest request,
+                                                          final HttpServletResponse response, final Servlet servlet, final ServletMethod method,
+                                                          final String authenticationToken)
+            throws IOException {
+
+        final String originPageToken = request.getParameter(dco.app.blog.shared.servlet.Servlets.ORIGIN_PAGE_TOKEN);
+        final RequestAuthentication authentication = RequestAuthentication.get(request);
+
+        final SecureSessionValidator.Access access;
+        if (authentication != null && authentication.matches(authenticationToken)) {
+            access = sessionValidator.validate(authentication, servlet, method, originPageToken);
+        } else {
+            access = sessionValidator.validate(authenticationToken, servlet, method, originPageToken);
+        }
+
+        switch (access.getAccessType()) {
+
+            case INVALID_SESSION:
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return null;
+
+            case UNAUTHORIZED_ACCESS:
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("SERVLET ACCESS REFUSED - Servlet: '{}' ; Method: '{}' ; User: '{}'.", servlet, method, logUser(access.getUser()));
+                }
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return null;
+
+            default:
+                return access;
+        }
+    }
+
     /**
      * Returns the given {@code user} corresponding <em>loggable</em> string.<br/>
      * If the {@code user} is {@code null}, the method returns "<em>unknow</em>" value.
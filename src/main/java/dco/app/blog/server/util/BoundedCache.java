@@ -0,0 +1,384 @@
+package dco.app.blog.server.util;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+ * <p>
+ * Bounded in-memory cache with entries time-to-live.
+ * </p>
+ * <p>
+ * Entries are spread among several segments, each one being a <em>least recently used</em> map guarded by its own
+ * lock, so that concurrent accesses to different keys rarely contend. When a segment is full, its least recently used
+ * entry is evicted.
+ * </p>
+ * <p>
+ * Hits, misses, evictions and expirations are counted (see {@link #getStatistics()}).
+ * </p>
+ *
+ * @param <K>
+ *         The keys type.
+ * @param <V>
+ *         The values type.
+ * @author Denis
+ */
+public final class BoundedCache<K, V> {
+
+    /**
+     * Cache statistics snapshot.
+     *
+     * @author Denis
+     */
+    public static final class Statistics {
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long evictions;
+
+        private final long expirations;
+
+        private final int size;
+
+        private Statistics(final long hits, final long misses, final long evictions, final long expirations, final int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.size = size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return ToStringBuilder.reflectionToString(this);
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the hit ratio.
+         *
+         * @return The hit ratio (between {@code 0} and {@code 1}), or {@code 0} if the cache has never been requested.
+         */
+        public double getHitRatio() {
+            final long requests = hits + misses;
+            return requests == 0 ? 0d : (double) hits / requests;
+        }
+
+        /**
+         * Adds these statistics to the given {@code metrics} (see {@code MetricsSource}).
+         *
+         * @param metrics
+         *         The metrics names with their value.
+         * @param prefix
+         *         The metrics names prefix (e.g. {@code "cache.sessions."}).
+         */
+        public void collect(final Map<String, Object> metrics, final String prefix) {
+            metrics.put(prefix + "size", size);
+            metrics.put(prefix + "hits", hits);
+            metrics.put(prefix + "misses", misses);
+            metrics.put(prefix + "evictions", evictions);
+            metrics.put(prefix + "expirations", expirations);
+            metrics.put(prefix + "hit_ratio", String.format(Locale.ROOT, "%.3f", getHitRatio()));
+        }
+
+    }
+
+    /**
+     * A cached value with its expiration time.
+     *
+     * @param <V>
+     *         The value type.
+     */
+    private static final class CachedValue<V> {
+
+        private final V value;
+
+        private final long expiration;
+
+        private CachedValue(final V value, final long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+
+    }
+
+    /**
+     * A cache segment: an access-ordered map evicting its eldest entry when full.
+     *
+     * @param <K>
+     *         The keys type.
+     * @param <V>
+     *         The values type.
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, CachedValue<V>> {
+
+        private static final long serialVersionUID = 6829187004735106012L;
+
+        private final int maxEntries;
+
+        private final LongAdder evictions;
+
+        private Segment(final int maxEntries, final LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.evictions = evictions;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, CachedValue<V>> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * Maximum number of segments.
+     */
+    private static final int MAX_SEGMENTS = 16;
+
+    /**
+     * Minimum number of entries per segment.
+     */
+    private static final int MIN_SEGMENT_SIZE = 16;
+
+    /**
+     * The cache segments.
+     */
+    private final Segment<K, V>[] segments;
+
+    /**
+     * Entries time-to-live in nanoseconds ({@code 0} if entries never expire).
+     */
+    private final long ttl;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Initializes a new {@code BoundedCache}.
+     *
+     * @param maxEntries
+     *         The maximum number of entries (approximate, as each segment is bounded on its own).
+     * @param ttl
+     *         The entries time-to-live ({@code 0} if entries never expire).
+     * @param unit
+     *         The {@code ttl} unit.
+     */
+    @SuppressWarnings("unchecked")
+    public BoundedCache(final int maxEntries, final long ttl, final TimeUnit unit) {
+
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache maximum number of entries must be positive.");
+        }
+
+        final int segmentsCount = Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MIN_SEGMENT_SIZE));
+        final int segmentSize = (maxEntries + segmentsCount - 1) / segmentsCount;
+
+        this.segments = new Segment[segmentsCount];
+        for (int i = 0; i < segmentsCount; i++) {
+            segments[i] = new Segment<>(segmentSize, evictions);
+        }
+
+        this.ttl = unit.toNanos(Math.max(0, ttl));
+    }
+
+    /**
+     * Returns the value cached for the given {@code key}.
+     *
+     * @param key
+     *         The key.
+     * @return The cached value, or {@code null} if there is no value or if it has expired.
+     */
+    public V get(final K key) {
+
+        final Segment<K, V> segment = segmentFor(key);
+        final CachedValue<V> entry;
+
+        synchronized (segment) {
+            final CachedValue<V> candidate = segment.get(key);
+
+            if (candidate != null && isExpired(candidate, System.nanoTime())) {
+                segment.remove(key);
+                expirations.increment();
+                entry = null;
+
+            } else {
+                entry = candidate;
+            }
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Caches the given {@code value} for the given {@code key}.
+     *
+     * @param key
+     *         The key.
+     * @param value
+     *         The value (ignored if {@code null}).
+     */
+    public void put(final K key, final V value) {
+
+        if (value == null) {
+            return;
+        }
+
+        final CachedValue<V> entry = new CachedValue<>(value, ttl > 0 ? System.nanoTime() + ttl : 0L);
+        final Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    /**
+     * Removes the value cached for the given {@code key}.
+     *
+     * @param key
+     *         The key.
+     */
+    public void remove(final K key) {
+
+        final Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * Removes the cached entries matching the given {@code predicate}.
+     *
+     * @param predicate
+     *         The predicate applied to each key and value.
+     */
+    public void removeIf(final BiPredicate<? super K, ? super V> predicate) {
+        for (final Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                final Iterator<Map.Entry<K, CachedValue<V>>> iterator = segment.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final Map.Entry<K, CachedValue<V>> entry = iterator.next();
+                    if (predicate.test(entry.getKey(), entry.getValue().value)) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all cached entries.
+     */
+    public void clear() {
+        for (final Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cached entries (including expired entries that have not been removed yet).
+     *
+     * @return The number of cached entries.
+     */
+    public int size() {
+        int size = 0;
+        for (final Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the cache statistics.
+     *
+     * @return The cache statistics snapshot.
+     */
+    public Statistics getStatistics() {
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size());
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // UTILITY METHODS.
+    //
+    // --------------------------------------------------------------------------------
+
+    /**
+     * Returns the segment holding the given {@code key}.
+     *
+     * @param key
+     *         The key.
+     * @return The segment holding the given {@code key}.
+     */
+    private Segment<K, V> segmentFor(final K key) {
+        final int hash = key != null ? key.hashCode() : 0;
+        return segments[((hash ^ (hash >>> 16)) & 0x7fffffff) % segments.length];
+    }
+
+    /**
+     * Returns if the given {@code entry} has expired.
+     *
+     * @param entry
+     *         The entry.
+     * @param now
+     *         The current {@link System#nanoTime()}.
+     * @return {@code true} if the entry has expired.
+     */
+    private boolean isExpired(final CachedValue<V> entry, final long now) {
+        return ttl > 0 && now - entry.expiration >= 0;
+    }
+
+}
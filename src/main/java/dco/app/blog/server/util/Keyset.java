@@ -0,0 +1,72 @@
+package dco.app.blog.server.util;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * <p>
+ * Keyset (<em>seek</em>) pagination POJO used to specify a pagination on a select query.
+ * </p>
+ * <p>
+ * Unlike {@link Pagination}, a keyset pagination does not skip the preceding rows: it seeks directly after the last
+ * row of the previous page, identified by an opaque continuation token. Any page therefore costs the same as the
+ * first one.
+ * </p>
+ *
+ * @author Denis
+ * @see KeysetResult
+ */
+public final class Keyset {
+
+    /**
+     * The continuation token returned with the previous page, or {@code null} to retrieve the first page.
+     */
+    private final String continuationToken;
+
+    /**
+     * Number of results that should be returned.
+     */
+    private final int resultsNumber;
+
+    /**
+     * Initializes a new {@code Keyset} instance.
+     *
+     * @param continuationToken See {@link #continuationToken} description.
+     * @param resultsNumber     See {@link #resultsNumber} description.
+     */
+    public Keyset(final String continuationToken, final int resultsNumber) {
+        this.continuationToken = continuationToken;
+        this.resultsNumber = resultsNumber;
+    }
+
+    /**
+     * Initializes a new {@code Keyset} instance targeting the first page.
+     *
+     * @param resultsNumber See {@link #resultsNumber} description.
+     */
+    public Keyset(final int resultsNumber) {
+        this(null, resultsNumber);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    /**
+     * See {@link #continuationToken} description.
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    /**
+     * See {@link #resultsNumber} description.
+     */
+    public int getResultsNumber() {
+        return resultsNumber;
+    }
+
+}
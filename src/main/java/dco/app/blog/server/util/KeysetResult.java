@@ -0,0 +1,68 @@
+package dco.app.blog.server.util;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * A page retrieved with a {@link Keyset} pagination.
+ *
+ * @param <E>
+ *         Items type.
+ * @author Denis
+ */
+public final class KeysetResult<E> {
+
+    /**
+     * The page items.
+     */
+    private final List<E> items;
+
+    /**
+     * The token to retrieve the next page, or {@code null} if this page is the last one.
+     */
+    private final String continuationToken;
+
+    /**
+     * Initializes a new {@code KeysetResult} instance.
+     *
+     * @param items             See {@link #items} description.
+     * @param continuationToken See {@link #continuationToken} description.
+     */
+    public KeysetResult(final List<E> items, final String continuationToken) {
+        this.items = items;
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    /**
+     * See {@link #items} description.
+     */
+    public List<E> getItems() {
+        return items;
+    }
+
+    /**
+     * See {@link #continuationToken} description.
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    /**
+     * Returns if a next page exists.
+     *
+     * @return {@code true} if a next page can be retrieved with the {@link #continuationToken}.
+     */
+    public boolean hasNext() {
+        return continuationToken != null;
+    }
+
+}
@@ -0,0 +1,59 @@
+package dco.app.blog.server.util;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * A page retrieved with a {@link Pagination}, with the total number of items.
+ *
+ * @param <E>
+ *         Items type.
+ * @author Denis
+ */
+public final class PageResult<E> {
+
+    /**
+     * The page items.
+     */
+    private final List<E> items;
+
+    /**
+     * The total number of items (all pages).
+     */
+    private final int total;
+
+    /**
+     * Initializes a new {@code PageResult} instance.
+     *
+     * @param items See {@link #items} description.
+     * @param total See {@link #total} description.
+     */
+    public PageResult(final List<E> items, final int total) {
+        this.items = items;
+        this.total = total;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    /**
+     * See {@link #items} description.
+     */
+    public List<E> getItems() {
+        return items;
+    }
+
+    /**
+     * See {@link #total} description.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+}
@@ -0,0 +1,49 @@
+package dco.app.blog.shared.command;
+
+import dco.app.blog.client.util.ToStringBuilder;
+import dco.app.blog.shared.command.base.AbstractCommand;
+import dco.app.blog.shared.command.base.Command;
+import dco.app.blog.shared.command.result.BatchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Batch command.
+ * </p>
+ * <p>
+ * Wraps several independent commands in order to execute them within a single RPC round-trip. Each wrapped command is
+ * executed on its own: one command failure does not prevent the others to be executed (see {@link BatchResult}).
+ * </p>
+ *
+ * @author Denis
+ */
+public class BatchCommand extends AbstractCommand<BatchResult> {
+
+    /**
+     * The batched commands.
+     */
+    private ArrayList<Command<?>> commands;
+
+    public BatchCommand() {
+        // Serialization.
+    }
+
+    public BatchCommand(final List<? extends Command<?>> commands) {
+        this.commands = new ArrayList<Command<?>>(commands);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendToString(final ToStringBuilder builder) {
+        builder.append("commands", commands);
+    }
+
+    public List<Command<?>> getCommands() {
+        return commands;
+    }
+
+}
@@ -21,6 +21,14 @@ public class SecureNavigationCommand extends AbstractCommand<SecureNavigationRes
         this.page = page;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object[] getIdentity() {
+        return new Object[]{page};
+    }
+
     public Page getPage() {
         return page;
     }
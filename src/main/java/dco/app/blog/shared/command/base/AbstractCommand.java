@@ -3,6 +3,8 @@ package dco.app.blog.shared.command.base;
 import dco.app.blog.client.util.ToStringBuilder;
 import dco.app.blog.shared.command.result.base.Result;
 
+import java.util.Arrays;
+
 /**
  * <p>
  * Abstract dispatch command.
@@ -10,6 +12,11 @@ import dco.app.blog.shared.command.result.base.Result;
  * <p>
  * All command implementations should extend this abstract layer and declare an empty constructor.
  * </p>
+ * <p>
+ * Commands {@code equals}/{@code hashCode} contract is based on the values returned by {@link #getIdentity()}: two
+ * commands of the same type are equal if their identity values are equal. Commands that do not override
+ * {@link #getIdentity()} are only equal to themselves.
+ * </p>
  *
  * @param <R>
  *         The command result type.
@@ -34,6 +41,53 @@ public abstract class AbstractCommand<R extends Result> implements Command<R> {
         return builder.toString();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean equals(final Object obj) {
+
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+
+        final Object[] identity = getIdentity();
+        return identity != null && Arrays.equals(identity, ((AbstractCommand<?>) obj).getIdentity());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int hashCode() {
+        final Object[] identity = getIdentity();
+        return identity != null ? Arrays.hashCode(identity) : super.hashCode();
+    }
+
+    /**
+     * <p>
+     * Returns the values identifying this command, used by {@link #equals(Object)} and {@link #hashCode()}.
+     * </p>
+     * <p>
+     * Child commands should return all the properties that may change their execution result, for example:
+     * <p/>
+     * <pre>
+     * return new Object[] { postId, pageSize };
+     * </pre>
+     * <p/>
+     * Commands annotated with {@link CachedResult} <b>must</b> override this method.
+     * </p>
+     *
+     * @return The values identifying this command, or {@code null} if the command is only equal to itself (default).
+     */
+    protected Object[] getIdentity() {
+        return null;
+    }
+
     /**
      * <p>
      * Allows child commands to append other properties to the given {@code builder}.
@@ -0,0 +1,68 @@
+package dco.app.blog.shared.command.base;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Declares that the annotated <em>read-only</em> command results can be served from the server-side results cache.
+ * </p>
+ * <p>
+ * Cached results are keyed on the command value (see {@link AbstractCommand#getIdentity()}, that the annotated command
+ * <b>must</b> override) and, for {@link Scope#USER} scope, on the executing user.<br/>
+ * Cached results are serialized snapshots (each execution served from the cache gets its own copy): results must be
+ * {@code java.io.Serializable} as a whole (including their elements), otherwise they are not cached.
+ * </p>
+ *
+ * @author Denis
+ * @see InvalidatesCache
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CachedResult {
+
+    /**
+     * Cached results sharing scope.
+     *
+     * @author Denis
+     */
+    public static enum Scope {
+
+        /**
+         * Results are cached per user (anonymous users share the same entries).
+         */
+        USER,
+
+        /**
+         * Results are shared between all users.
+         */
+        SHARED;
+
+    }
+
+    /**
+     * Returns the cached results time-to-live, in seconds.
+     *
+     * @return The cached results time-to-live, in seconds.
+     */
+    int ttl() default 60;
+
+    /**
+     * Returns the cached results scope.
+     *
+     * @return The cached results scope.
+     */
+    Scope scope() default Scope.USER;
+
+    /**
+     * Returns the maximum number of cached results for the annotated command type.
+     *
+     * @return The maximum number of cached results.
+     */
+    int maxEntries() default 100;
+
+}
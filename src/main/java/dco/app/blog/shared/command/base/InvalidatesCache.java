@@ -0,0 +1,37 @@
+package dco.app.blog.shared.command.base;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Declares the command types whose cached results are invalidated once the annotated (write) command has been
+ * successfully executed.
+ * </p>
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;InvalidatesCache({GetPostsCommand.class, GetPostCommand.class})
+ * public class SavePostCommand extends AbstractCommand&lt;VoidResult&gt; { ... }
+ * </pre>
+ * </p>
+ *
+ * @author Denis
+ * @see CachedResult
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface InvalidatesCache {
+
+    /**
+     * Returns the command types whose cached results are invalidated.
+     *
+     * @return The command types whose cached results are invalidated.
+     */
+    Class<? extends Command<?>>[] value();
+
+}
@@ -0,0 +1,83 @@
+package dco.app.blog.shared.command.result;
+
+import dco.app.blog.shared.command.result.base.Result;
+import dco.app.blog.shared.dispatch.DispatchException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * {@link dco.app.blog.shared.command.BatchCommand} corresponding result.
+ * </p>
+ * <p>
+ * Results and errors are stored at the index of their command into the batch: for a given index, either the result or
+ * the error is set.
+ * </p>
+ *
+ * @author Denis
+ */
+public class BatchResult implements Result {
+
+    /**
+     * The commands results.
+     */
+    private ArrayList<Result> results;
+
+    /**
+     * The commands errors.
+     */
+    private ArrayList<DispatchException> errors;
+
+    public BatchResult() {
+        // Serialization.
+    }
+
+    public BatchResult(final int size) {
+        this.results = new ArrayList<Result>(size);
+        this.errors = new ArrayList<DispatchException>(size);
+    }
+
+    /**
+     * Adds the given successful command {@code result}.
+     *
+     * @param result
+     *         The command result.
+     */
+    public void addResult(final Result result) {
+        results.add(result);
+        errors.add(null);
+    }
+
+    /**
+     * Adds the given failed command {@code error}.
+     *
+     * @param error
+     *         The command error.
+     */
+    public void addError(final DispatchException error) {
+        results.add(null);
+        errors.add(error);
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public List<DispatchException> getErrors() {
+        return errors;
+    }
+
+    public Result getResult(final int index) {
+        return results.get(index);
+    }
+
+    public DispatchException getError(final int index) {
+        return errors.get(index);
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+}
@@ -26,6 +26,11 @@ public class ListResult<E extends IsSerializable> implements Result {
      */
     private int size;
 
+    /**
+     * The token to retrieve the next page of a <em>keyset</em> paginated list ({@code null} if there is no next page).
+     */
+    private String continuationToken;
+
     public ListResult() {
         // Serialization.
     }
@@ -46,6 +51,7 @@ public class ListResult<E extends IsSerializable> implements Result {
     public ListResult(ListResult<E> result) {
         this.list = result != null && result.getList() != null ? new ArrayList<E>(result.getList()) : null;
         this.size = result != null ? result.getSize() : 0;
+        this.continuationToken = result != null ? result.getContinuationToken() : null;
     }
 
     public List<E> getList() {
@@ -65,6 +71,14 @@ public class ListResult<E extends IsSerializable> implements Result {
         this.size = size;
     }
 
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(final String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
     // --------------------------------------------------------------------------------
     //
     // UTILITY METHODS.
@@ -0,0 +1,88 @@
+package dco.app.blog.shared.dto;
+
+import com.google.gwt.user.client.rpc.IsSerializable;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * <p>
+ * Read-only post summary, used by posts listings.
+ * </p>
+ * <p>
+ * Only holds the post listing columns: the post content is neither queried nor serialized.
+ * </p>
+ * <p>
+ * Also {@link Serializable}, in order to be held by cached command results.
+ * </p>
+ *
+ * @author Denis
+ */
+public class PostSummary implements IsSerializable, Serializable {
+
+    /**
+     * The projected entity attributes, in the projection constructor parameters order.
+     */
+    public static final String[] ATTRIBUTES = {
+            "id",
+            "subject",
+            "creationDate",
+            "updateDate"
+    };
+
+    private Long id;
+
+    private String subject;
+
+    private Date creationDate;
+
+    private Date updateDate;
+
+    public PostSummary() {
+        // Serialization.
+    }
+
+    /**
+     * Projection constructor (see {@link #ATTRIBUTES}).
+     *
+     * @param id
+     *         The post id.
+     * @param subject
+     *         The post subject.
+     * @param creationDate
+     *         The post creation date.
+     * @param updateDate
+     *         The post last update date, may be {@code null}.
+     */
+    public PostSummary(final Long id, final String subject, final Date creationDate, final Date updateDate) {
+        this.id = id;
+        this.subject = subject;
+        this.creationDate = creationDate;
+        this.updateDate = updateDate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "PostSummary[id=" + id + ", subject=" + subject + ", creationDate=" + creationDate + ", updateDate=" + updateDate + ']';
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Date getCreationDate() {
+        return creationDate;
+    }
+
+    public Date getUpdateDate() {
+        return updateDate;
+    }
+
+}
@@ -3,44 +3,133 @@ package dco.app.blog.shared.security.impl;
 import dco.app.blog.client.navigation.Page;
 import dco.app.blog.server.model.User;
 import dco.app.blog.server.servlet.base.ServletExecutionContext;
+import dco.app.blog.shared.command.BatchCommand;
 import dco.app.blog.shared.command.SecureNavigationCommand;
 import dco.app.blog.shared.command.base.Command;
 import dco.app.blog.shared.servlet.Servlets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * <p>
  * Access rights configuration.
+ * </p>
+ * <p>
+ * The {@code sperm} declarations are compiled once (at class initialization) into a decision table indexed by command
+ * class, {@link Page} ordinal and servlet method ordinal. Each resource {@link Permission} holds its anonymous and
+ * authenticated outcomes, so that granting an access requires neither string building nor map lookup.
+ * </p>
  *
  * @author Denis
  */
 final class AccessRights {
 
+    /**
+     * A compiled resource permission.
+     *
+     * @author Denis
+     */
+    static final class Permission {
+
+        /**
+         * The resource token (used for logging only).
+         */
+        private final String token;
+
+        /**
+         * Is an anonymous user granted?
+         */
+        private final boolean anonymous;
+
+        /**
+         * Is an authenticated user granted?
+         */
+        private final boolean authenticated;
+
+        /**
+         * Has the missing permission warning been emitted? ({@code null} if the permission has been declared).
+         */
+        private final AtomicBoolean missingWarned;
+
+        private Permission(final String token, final GrantType grantType, final boolean missing) {
+            this.token = token;
+            this.anonymous = grantType != null && grantType != GrantType.AUTHENTICATED_ONLY;
+            this.authenticated = grantType != null && grantType != GrantType.ANONYMOUS_ONLY;
+            this.missingWarned = missing ? new AtomicBoolean() : null;
+        }
+
+        /**
+         * Grants or refuse {@code user} access to this resource.
+         *
+         * @param user
+         *         The user (authenticated or anonymous).
+         * @param originPageToken
+         *         The origin page token <em>(TODO Not used yet)</em>.
+         * @return {@code true} if the user is granted, {@code false} otherwise.
+         */
+        boolean isGranted(final User user, final String originPageToken) {
+
+            if (missingWarned != null && !missingWarned.get() && missingWarned.compareAndSet(false, true) && LOG.isWarnEnabled()) {
+                LOG.warn("No security permission can be found for token '{}'. Did you forget to declare corresponding 'sperm'?", token);
+            }
+
+            if (user == null || ServletExecutionContext.ANONYMOUS_USER.equals(user)) {
+                // Anonymous user.
+                return anonymous;
+
+            } else {
+                // Authenticated user.
+                return authenticated;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return token;
+        }
+
+    }
+
     /**
      * Logger.
      */
     private static final Logger LOG = LoggerFactory.getLogger(AccessRights.class);
 
     /**
-     * Permissions map linking a secured token to its grant type.
+     * Declared pages permissions.
+     */
+    private static final Map<Page, GrantType> pagePermissions = new EnumMap<>(Page.class);
+
+    /**
+     * Declared commands permissions.
+     */
+    private static final Map<Class<?>, GrantType> commandPermissions = new HashMap<>();
+
+    /**
+     * Declared servlet methods permissions.
      */
-    private static final Map<String, GrantType> permissions = new HashMap<>();
+    private static final Map<String, GrantType> servletPermissions = new HashMap<>();
 
     /**
-     * Unchecked resources tokens (they are always granted).
+     * Unchecked commands (they are always granted).
      */
-    private static final Set<String> grantedTokens = new HashSet<>();
+    private static final Set<Class<?>> grantedCommands = new HashSet<>();
 
     /**
-     * Token representing <em>missing tokens</em>.<br/>
-     * If a token is not declared among security permissions, this token is used.
+     * Grant type of <em>missing</em> permissions.<br/>
+     * If a resource is not declared among security permissions, this grant type is used.
      */
-    private static final String MISSING_TOKEN = "*";
+    private static GrantType missingGrantType;
 
     /**
      * Permissions configuration.
@@ -49,121 +138,137 @@ final class AccessRights {
     static {
 
         // FIXME For the time being, all missing tokens are considered NOT secured. This line should be deleted in production.
-        sperm(MISSING_TOKEN, GrantType.BOTH);
+        spermMissing(GrantType.BOTH);
 
         // Pages.
-        sperm(pageToken(Page.LOGIN), GrantType.ANONYMOUS_ONLY);
-        sperm(pageToken(Page.HOME), GrantType.AUTHENTICATED_ONLY);
+        sperm(Page.LOGIN, GrantType.ANONYMOUS_ONLY);
+        sperm(Page.HOME, GrantType.AUTHENTICATED_ONLY);
 
         // Commands.
-        // sperm(commandToken(AddOrgUnit.class), GrantType.AUTHENTICATED_ONLY);
+        // sperm(AddOrgUnit.class, GrantType.AUTHENTICATED_ONLY);
 
         // Servlet methods.
-        // sperm(servletToken(Servlet.FILE, ServletMethod.DOWNLOAD_LOGO), GrantType.AUTHENTICATED_ONLY);
+        sperm(Servlets.Servlet.FILE, Servlets.ServletMethod.DOWNLOAD, GrantType.BOTH);
+        sperm(Servlets.Servlet.FILE, Servlets.ServletMethod.UPLOAD, GrantType.AUTHENTICATED_ONLY);
+        sperm(Servlets.Servlet.METRICS, Servlets.ServletMethod.READ_METRICS, GrantType.AUTHENTICATED_ONLY);
+        sperm(Servlets.Servlet.METRICS, Servlets.ServletMethod.READ_FLIGHT_RECORDER, GrantType.AUTHENTICATED_ONLY);
     }
 
     /**
-     * Granted tokens that are always granted in order to optimize application processes.
+     * Granted commands that are always granted in order to optimize application processes.
      */
     static {
-        grantedTokens.add(commandToken(SecureNavigationCommand.class));
+        grantedCommands.add(SecureNavigationCommand.class);
+        // Batched commands are secured one by one by the batch handler.
+        grantedCommands.add(BatchCommand.class);
     }
 
-    /**
-     * Grants or refuse {@code user} access to the given {@code token}.
-     *
-     * @param user
-     *         The user (authenticated or anonymous).
-     * @param token
-     *         The resource token (page, command, servlet method, etc.).
-     * @param originPageToken
-     *         The origin page token <em>(TODO Not used yet)</em>.
-     * @return {@code true} if the user is granted, {@code false} otherwise.
-     */
-    static boolean isGranted(final User user, final String token, final String originPageToken) {
-
-        if (grantedTokens.contains(token)) {
-            // Granted tokens ; avoids profile aggregation if user is authenticated.
-            return true;
-        }
+    // -------------------------------------------------------------------------------------
+    //
+    // COMPILED DECISION TABLE.
+    //
+    // -------------------------------------------------------------------------------------
 
-        if (!permissions.containsKey(token)) {
-            if (LOG.isWarnEnabled()) {
-                LOG.warn("No security permission can be found for token '{}'. Did you forget to declare corresponding 'sperm'?", token);
-            }
-            return isGranted(user, MISSING_TOKEN, originPageToken);
-        }
+    /**
+     * Permission of {@code null} resources.
+     */
+    private static final Permission NULL_PERMISSION = new Permission(null, missingGrantType, true);
 
-        final GrantType grantType = permissions.get(token);
+    /**
+     * Pages permissions, indexed by page ordinal.
+     */
+    private static final Permission[] PAGES = new Permission[Page.values().length];
 
-        final boolean granted;
+    /**
+     * Servlet methods permissions, indexed by servlet ordinal then by method ordinal.
+     */
+    private static final Permission[][] SERVLETS = new Permission[Servlets.Servlet.values().length][Servlets.ServletMethod.values().length];
 
-        if (user == null || ServletExecutionContext.ANONYMOUS_USER.equals(user)) {
-            // Anonymous user.
-            granted = grantType != null && grantType != GrantType.AUTHENTICATED_ONLY;
+    /**
+     * Commands permissions, computed once per command class.
+     */
+    private static final ClassValue<Permission> COMMANDS = new ClassValue<Permission>() {
 
-        } else {
-            // Authenticated user.
-            if (grantType != null && grantType == GrantType.ANONYMOUS_ONLY) {
-                granted = false;
+        @Override
+        protected Permission computeValue(final Class<?> commandClass) {
 
-            } else {
-                granted = true;
+            if (grantedCommands.contains(commandClass)) {
+                return new Permission(commandClass.getName(), GrantType.BOTH, false);
             }
+
+            final GrantType grantType = commandPermissions.get(commandClass);
+            return grantType != null ? new Permission(commandClass.getName(), grantType, false) : new Permission(commandClass.getName(),
+                    missingGrantType, true);
+        }
+    };
+
+    static {
+
+        for (final Page page : Page.values()) {
+            final GrantType grantType = pagePermissions.get(page);
+            PAGES[page.ordinal()] = grantType != null ? new Permission(page.getToken(), grantType, false) : new Permission(page.getToken(),
+                    missingGrantType, true);
         }
 
-        return granted;
+        for (final Servlets.Servlet servlet : Servlets.Servlet.values()) {
+            for (final Servlets.ServletMethod method : Servlets.ServletMethod.values()) {
+                final String token = servletToken(servlet, method);
+                final GrantType grantType = servletPermissions.get(token);
+                SERVLETS[servlet.ordinal()][method.ordinal()] = grantType != null ? new Permission(token, grantType, false) : new Permission(token,
+                        missingGrantType, true);
+            }
+        }
     }
 
     // -------------------------------------------------------------------------------------
     //
-    // TOKEN METHODS.
+    // PERMISSION METHODS.
     //
     // -------------------------------------------------------------------------------------
 
     /**
-     * Return the <em>resource</em> token for the given servlet arguments.
+     * Return the <em>resource</em> permission for the given servlet arguments.
      *
      * @param servlet
      *         The {@link Servlets.Servlet} name.
      * @param method
      *         The {@link Servlets.Servlet} method.
-     * @return the <em>resource</em> token for the given servlet arguments, or {@code null}.
+     * @return the <em>resource</em> permission for the given servlet arguments (never {@code null}).
      */
-    static String servletToken(final Servlets.Servlet servlet, final Servlets.ServletMethod method) {
+    static Permission servletPermission(final Servlets.Servlet servlet, final Servlets.ServletMethod method) {
         if (servlet == null || method == null) {
-            return null;
+            return NULL_PERMISSION;
         }
-        return servlet.name() + '#' + method.name();
+        return SERVLETS[servlet.ordinal()][method.ordinal()];
     }
 
     /**
-     * Return the <em>resource</em> token for the given {@code commandClass}.
+     * Return the <em>resource</em> permission for the given {@code commandClass}.
      *
      * @param commandClass
      *         The {@link Command} class.
-     * @return the <em>resource</em> token for the given {@code commandClass}, or {@code null}.
+     * @return the <em>resource</em> permission for the given {@code commandClass} (never {@code null}).
      */
     @SuppressWarnings("rawtypes")
-    static String commandToken(final Class<? extends Command> commandClass) {
+    static Permission commandPermission(final Class<? extends Command> commandClass) {
         if (commandClass == null) {
-            return null;
+            return NULL_PERMISSION;
         }
-        return commandClass.getName();
+        return COMMANDS.get(commandClass);
     }
 
     /**
-     * Return the <em>resource</em> token for the given {@code page}.
+     * Return the <em>resource</em> permission for the given {@code page}.
      *
      * @param page
      *         The {@link Page} instance.
-     * @return the <em>resource</em> token for the given {@code page}, or {@code null}.
+     * @return the <em>resource</em> permission for the given {@code page} (never {@code null}).
      */
-    static String pageToken(final Page page) {
+    static Permission pagePermission(final Page page) {
         if (page == null) {
-            return null;
+            return NULL_PERMISSION;
         }
-        return page.getToken();
+        return PAGES[page.ordinal()];
     }
 
     // -------------------------------------------------------------------------------------
@@ -191,21 +296,74 @@ final class AccessRights {
 
     }
 
+    /**
+     * Return the <em>resource</em> token for the given servlet arguments.
+     *
+     * @param servlet
+     *         The {@link Servlets.Servlet} name.
+     * @param method
+     *         The {@link Servlets.Servlet} method.
+     * @return the <em>resource</em> token for the given servlet arguments.
+     */
+    private static String servletToken(final Servlets.Servlet servlet, final Servlets.ServletMethod method) {
+        return servlet.name() + '#' + method.name();
+    }
+
     /**
      * <p>
-     * Registers a new <u>S</u>ecurity <u>PERM</u>ission for the given {@code token}.
+     * Registers a new <u>S</u>ecurity <u>PERM</u>ission for the given {@code page}.
      * </p>
      * <p>
      * ;-)
      * </p>
      *
-     * @param token
-     *         The resource token.
+     * @param page
+     *         The page.
+     * @param grantType
+     *         The grant type, see {@link GrantType}.
+     */
+    private static void sperm(final Page page, final GrantType grantType) {
+        pagePermissions.put(page, grantType);
+    }
+
+    /**
+     * Registers a new <u>S</u>ecurity <u>PERM</u>ission for the given {@code commandClass}.
+     *
+     * @param commandClass
+     *         The command class.
+     * @param grantType
+     *         The grant type, see {@link GrantType}.
+     */
+    @SuppressWarnings({
+            "rawtypes",
+            "unused"
+    })
+    private static void sperm(final Class<? extends Command> commandClass, final GrantType grantType) {
+        commandPermissions.put(commandClass, grantType);
+    }
+
+    /**
+     * Registers a new <u>S</u>ecurity <u>PERM</u>ission for the given servlet method.
+     *
+     * @param servlet
+     *         The servlet.
+     * @param method
+     *         The servlet method.
+     * @param grantType
+     *         The grant type, see {@link GrantType}.
+     */
+    private static void sperm(final Servlets.Servlet servlet, final Servlets.ServletMethod method, final GrantType grantType) {
+        servletPermissions.put(servletToken(servlet, method), grantType);
+    }
+
+    /**
+     * Registers the <u>S</u>ecurity <u>PERM</u>ission of the resources that are not declared.
+     *
      * @param grantType
      *         The grant type, see {@link GrantType}.
      */
-    private static void sperm(final String token, final GrantType grantType) {
-        permissions.put(token, grantType);
+    private static void spermMissing(final GrantType grantType) {
+        missingGrantType = grantType;
     }
 
     /**
@@ -215,4 +373,4 @@ final class AccessRights {
         // Only provides static constants.
     }
 
-}
\ No newline at end of file
+}
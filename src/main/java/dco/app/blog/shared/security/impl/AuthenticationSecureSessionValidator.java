@@ -3,15 +3,15 @@ package dco.app.blog.shared.security.impl;
 import com.google.inject.Inject;
 import dco.app.blog.client.navigation.Page;
 import dco.app.blog.client.security.SecureDispatchAsync;
-import dco.app.blog.server.dao.AuthenticationDAO;
-import dco.app.blog.server.model.Authentication;
 import dco.app.blog.server.model.User;
+import dco.app.blog.server.security.AuthenticationCache;
+import dco.app.blog.server.security.RequestAuthentication;
 import dco.app.blog.server.security.SecureSessionValidator;
+import dco.app.blog.server.security.SessionActivityTracker;
 import dco.app.blog.shared.command.base.Command;
 import dco.app.blog.shared.command.result.base.Result;
 import dco.app.blog.shared.servlet.Servlets;
 import org.apache.commons.lang3.BooleanUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,19 +35,27 @@ public class AuthenticationSecureSessionValidator implements SecureSessionValida
     private static final Logger LOG = LoggerFactory.getLogger(AuthenticationSecureSessionValidator.class);
 
     /**
-     * The injected {@code AuthenticationDAO}.
+     * The injected {@code AuthenticationCache}.
      */
-    private final AuthenticationDAO authenticationDAO;
+    private final AuthenticationCache authenticationCache;
+
+    /**
+     * The injected {@code SessionActivityTracker}.
+     */
+    private final SessionActivityTracker sessionActivityTracker;
 
     /**
      * AuthenticationSecureSessionValidator initialization.
      *
-     * @param authenticationDAO
-     *         Injected DAO.
+     * @param authenticationCache
+     *         Injected authentication tokens cache.
+     * @param sessionActivityTracker
+     *         Injected sessions activity tracker.
      */
     @Inject
-    public AuthenticationSecureSessionValidator(final AuthenticationDAO authenticationDAO) {
-        this.authenticationDAO = authenticationDAO;
+    public AuthenticationSecureSessionValidator(final AuthenticationCache authenticationCache, final SessionActivityTracker sessionActivityTracker) {
+        this.authenticationCache = authenticationCache;
+        this.sessionActivityTracker = sessionActivityTracker;
     }
 
     /**
@@ -55,7 +63,7 @@ public class AuthenticationSecureSessionValidator implements SecureSessionValida
      */
     @Override
     public Access validate(final String authenticationToken, final Servlets.Servlet servlet, final Servlets.ServletMethod method, final String originPageToken) {
-        return validate(authenticationToken, AccessRights.servletToken(servlet, method), originPageToken);
+        return validate(authenticationToken, AccessRights.servletPermission(servlet, method), originPageToken);
     }
 
     /**
@@ -63,7 +71,51 @@ public class AuthenticationSecureSessionValidator implements SecureSessionValida
      */
     @Override
     public Access validate(final String authenticationToken, final SecureDispatchAsync.CommandExecution<? extends Command<?>, ? extends Result> commandExecution) {
-        return validate(authenticationToken, AccessRights.commandToken(commandExecution.getCommand().getClass()), commandExecution.getCurrentPageToken());
+        return validate(authenticationToken, AccessRights.commandPermission(commandExecution.getCommand().getClass()), commandExecution.getCurrentPageToken());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Access validate(final RequestAuthentication authentication, final Servlets.Servlet servlet, final Servlets.ServletMethod method,
+                           final String originPageToken) {
+        return validate(authentication, AccessRights.servletPermission(servlet, method), originPageToken);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Access validate(final RequestAuthentication authentication,
+                           final SecureDispatchAsync.CommandExecution<? extends Command<?>, ? extends Result> commandExecution) {
+        return validate(authentication, AccessRights.commandPermission(commandExecution.getCommand().getClass()), commandExecution.getCurrentPageToken());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public User authenticate(final String authenticationToken) {
+
+        try {
+
+            final User user = authenticationCache.getUser(authenticationToken);
+
+            if (user != null) {
+                sessionActivityTracker.touch(authenticationToken);
+            }
+
+            return user;
+
+        } catch (final RuntimeException e) {
+
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Error while resolving the authentication token '" + authenticationToken + "'.", e);
+            }
+
+            return null;
+        }
     }
 
     /**
@@ -71,90 +123,101 @@ public class AuthenticationSecureSessionValidator implements SecureSessionValida
      */
     @Override
     public boolean isUserGranted(final User user, final Page page) {
-        return isUserGranted(user, AccessRights.pageToken(page), null);
+        return isUserGranted(user, AccessRights.pagePermission(page), null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isUserGranted(final User user, final Command<?> command) {
+        return isUserGranted(user, AccessRights.commandPermission(command.getClass()), null);
     }
 
     /**
-     * Validates the access to the given {@code resourceToken} resource for the {@code authenticationToken}.
+     * Validates the access to the given {@code resource} for the {@code authenticationToken}.
      *
      * @param authenticationToken
      *         The authentication token.
-     * @param resourceToken
-     *         The resource token.
+     * @param resource
+     *         The resource permission.
      * @param originPageToken
      *         The origin page token.
      * @return The validation access result.
      */
-    private Access validate(final String authenticationToken, final String resourceToken, final String originPageToken) {
+    private Access validate(final String authenticationToken, final AccessRights.Permission resource, final String originPageToken) {
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug("Starting validation of authentication token '{}' for resource '{}'.", authenticationToken, resourceToken);
+            LOG.debug("Starting validation of authentication token '{}' for resource '{}'.", authenticationToken, resource);
         }
 
         try {
 
-            if (StringUtils.isBlank(authenticationToken) || "null".equalsIgnoreCase(authenticationToken)) {
+            if (RequestAuthentication.normalize(authenticationToken) == null) {
 
                 if (LOG.isTraceEnabled()) {
                     LOG.trace("No authentication token (anonymous user): '{}'.", authenticationToken);
                 }
 
-                final boolean commandAuthorizedForAnonymous = isUserGranted(null, resourceToken, originPageToken);
-
-                if (commandAuthorizedForAnonymous) {
-                    if (LOG.isTraceEnabled()) {
-                        LOG.trace("ACCESS GRANTED for authentication token '{}'.", authenticationToken);
-                    }
-                    return new Access(AccessType.ACCESS_GRANTED, null);
-
-                } else {
-                    if (LOG.isTraceEnabled()) {
-                        LOG.trace("ACCESS UNAUTHORIZED for authentication token '{}'.", authenticationToken);
-                    }
-                    return new Access(AccessType.UNAUTHORIZED_ACCESS, null);
-                }
+                return grant(null, resource, originPageToken);
             }
 
-            // Retrieves the authentication token corresponding user.
-            final Authentication authentication = authenticationDAO.findById(authenticationToken);
+            // Retrieves the authentication token corresponding user (cached).
+            final User user = authenticate(authenticationToken);
 
             // Invalid token ?
-            if (authentication == null) {
+            if (user == null) {
                 if (LOG.isTraceEnabled()) {
-                    LOG.trace("ACCESS UNAUTHORIZED - Invalid session, no Authentication found in database for token '{}'.", authenticationToken);
+                    LOG.trace("ACCESS UNAUTHORIZED - Invalid session, no Authentication (or no User) found for token '{}'.", authenticationToken);
                 }
                 return new Access(AccessType.INVALID_SESSION, null);
             }
 
-            if (authentication.getUser() == null) {
-                if (LOG.isTraceEnabled()) {
-                    LOG.trace("ACCESS UNAUTHORIZED - Invalid session, no User for Authentification token '{}'.", authenticationToken);
-                }
-                return new Access(AccessType.INVALID_SESSION, null);
+            return grant(user, resource, originPageToken);
+
+        } catch (final Throwable e) {
+
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Error while validating the authentication token '" + authenticationToken + "'.", e);
             }
 
-            final User user = authentication.getUser(); // Cannot be null at this point.
+            return new Access(AccessType.INVALID_SESSION, null);
+        }
+    }
 
-            final boolean processAuthorizedForUser = isUserGranted(user, resourceToken, originPageToken);
+    /**
+     * Validates the access to the given {@code resource} for the already resolved {@code
+     * authentication}.
+     *
+     * @param authentication
+     *         The request authentication.
+     * @param resource
+     *         The resource permission.
+     * @param originPageToken
+     *         The origin page token.
+     * @return The validation access result.
+     */
+    private Access validate(final RequestAuthentication authentication, final AccessRights.Permission resource, final String originPageToken) {
 
-            if (processAuthorizedForUser) {
-                if (LOG.isTraceEnabled()) {
-                    LOG.trace("ACCESS GRANTED - User '{}' is granted to execute process.", user);
-                }
+        try {
 
-                return new Access(AccessType.ACCESS_GRANTED, user);
+            if (authentication.isAnonymous()) {
+                return grant(null, resource, originPageToken);
             }
 
-            if (LOG.isTraceEnabled()) {
-                LOG.trace("ACCESS UNAUTHORIZED - User '{}' does not have required permission to execute process.", user);
+            if (!authentication.isValid()) {
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("ACCESS UNAUTHORIZED - Invalid session for token '{}'.", authentication.getAuthenticationToken());
+                }
+                return new Access(AccessType.INVALID_SESSION, null);
             }
 
-            return new Access(AccessType.UNAUTHORIZED_ACCESS, user);
+            return grant(authentication.getUser(), resource, originPageToken);
 
         } catch (final Throwable e) {
 
             if (LOG.isErrorEnabled()) {
-                LOG.error("Error while validating the authentication token '" + authenticationToken + "'.", e);
+                LOG.error("Error while validating the authentication token '" + authentication.getAuthenticationToken() + "'.", e);
             }
 
             return new Access(AccessType.INVALID_SESSION, null);
@@ -162,26 +225,54 @@ public class AuthenticationSecureSessionValidator implements SecureSessionValida
     }
 
     /**
-     * Returns the grant access to the given {@code resourceToken} for the {@code user}.
+     * Grants (or not) the access to the given {@code resource} for the authenticated {@code user}.
+     *
+     * @param user
+     *         The authenticated user, {@code null} for anonymous user.
+     * @param resource
+     *         The resource permission.
+     * @param originPageToken
+     *         The origin page token.
+     * @return The validation access result.
+     */
+    private Access grant(final User user, final AccessRights.Permission resource, final String originPageToken) {
+
+        if (isUserGranted(user, resource, originPageToken)) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("ACCESS GRANTED - User '{}' is granted to execute process.", user);
+            }
+
+            return new Access(AccessType.ACCESS_GRANTED, user);
+        }
+
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("ACCESS UNAUTHORIZED - User '{}' does not have required permission to execute process.", user);
+        }
+
+        return new Access(AccessType.UNAUTHORIZED_ACCESS, user);
+    }
+
+    /**
+     * Returns the grant access to the given {@code resource} for the {@code user}.
      *
      * @param user
      *         The user.
-     * @param resourceToken
-     *         The resource token to secure.
+     * @param resource
+     *         The resource permission to secure.
      * @param originPageToken
      *         The origin page token, may be {@code null}.
-     * @return {@code true} if the {@code user} is granted to access {@code resourceToken}, {@code false} otherwise.
+     * @return {@code true} if the {@code user} is granted to access {@code resource}, {@code false} otherwise.
      */
-    private boolean isUserGranted(final User user, final String resourceToken, final String originPageToken) {
+    private boolean isUserGranted(final User user, final AccessRights.Permission resource, final String originPageToken) {
 
         if (user != null && BooleanUtils.isFalse(user.getActive())) {
             if (LOG.isWarnEnabled()) {
-                LOG.warn("User '{}' cannot access resource '{}' because it is no longer active.", user, resourceToken);
+                LOG.warn("User '{}' cannot access resource '{}' because it is no longer active.", user, resource);
             }
             return false;
         }
 
-        return AccessRights.isGranted(user, resourceToken, originPageToken);
+        return resource.isGranted(user, originPageToken);
     }
 
 }
\ No newline at end of file
@@ -38,6 +38,11 @@ public final class Servlets {
          */
         FILE,
 
+        /**
+         * Monitoring servlets (metrics, flight recorder).
+         */
+        METRICS,
+
         // Add other servlets here.
         ;
 
@@ -129,6 +134,20 @@ public final class Servlets {
          */
         DOWNLOAD("download"),
 
+        // --
+        // Monitoring Servlets.
+        // --
+
+        /**
+         * Reads the metrics of every metrics source.
+         */
+        READ_METRICS("readMetrics"),
+
+        /**
+         * Dumps the commands flight recorder.
+         */
+        READ_FLIGHT_RECORDER("readFlightRecorder"),
+
         // Add other servlets methods here.
 
         ;
@@ -4,6 +4,7 @@ import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.persist.PersistService;
+import dco.app.blog.server.dao.base.NamedQueries;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.model.InitializationError;
 import org.slf4j.Logger;
@@ -145,11 +146,12 @@ public final class GuiceJUnitRunner extends BlockJUnit4ClassRunner {
     }
 
     /**
-     * Starts the {@link PersistService}.<br/>
+     * Starts the {@link PersistService} and registers the DAO named queries.<br/>
      * <b>Should be done only once.</b>
      */
     private void startPersistUnit() {
         LOGGER.info("Starting JPA Persist Service.");
         injector.getInstance(PersistService.class).start();
+        NamedQueries.registerAll(injector);
     }
 }
\ No newline at end of file
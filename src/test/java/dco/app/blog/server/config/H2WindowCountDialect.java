@@ -0,0 +1,26 @@
+package dco.app.blog.server.config;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * <p>
+ * H2 test dialect registering the {@link PostgreSQLDialect#WINDOW_COUNT} function, so that the single round-trip
+ * paging path of the DAO is executed by the tests.
+ * </p>
+ * <p>
+ * H2 1.4.188 does not support window functions ({@code count(*) over()}): the function is emulated by a scalar
+ * sub-query counting all the posts, which is only equivalent for unfiltered posts queries.
+ * </p>
+ *
+ * @author Denis
+ */
+public class H2WindowCountDialect extends H2Dialect {
+
+    public H2WindowCountDialect() {
+        super();
+        registerFunction(PostgreSQLDialect.WINDOW_COUNT, new SQLFunctionTemplate(StandardBasicTypes.LONG, "(select count(*) from t_post_po)"));
+    }
+
+}
@@ -0,0 +1,18 @@
+package dco.app.blog.server.config;
+
+/**
+ * Persistence test module with a read replica.
+ *
+ * @author Denis
+ */
+public class PersistenceReplicaTestModule extends PersistenceModule {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getPersistencePropertiesFile() {
+        return "persistence-replica-test.properties";
+    }
+
+}
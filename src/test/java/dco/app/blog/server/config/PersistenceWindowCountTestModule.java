@@ -0,0 +1,18 @@
+package dco.app.blog.server.config;
+
+/**
+ * Persistence test module whose dialect registers the {@link PostgreSQLDialect#WINDOW_COUNT} function.
+ *
+ * @author Denis
+ */
+public class PersistenceWindowCountTestModule extends PersistenceModule {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getPersistencePropertiesFile() {
+        return "persistence-window-count-test.properties";
+    }
+
+}
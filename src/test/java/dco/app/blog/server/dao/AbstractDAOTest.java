@@ -6,6 +6,7 @@ import dco.app.blog.server.config.PersistenceTestModule;
 import dco.app.blog.server.dao.base.EntityManagerProvider;
 import org.apache.commons.lang3.StringUtils;
 import org.h2.tools.RunScript;
+import org.hibernate.SessionFactory;
 import org.hibernate.internal.SessionImpl;
 import org.junit.After;
 import org.junit.Before;
@@ -13,10 +14,13 @@ import org.junit.runner.RunWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import java.io.File;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.util.Date;
 
 /**
  * Abstract DAO test class initializing {@code Injector}.
@@ -42,10 +46,59 @@ public abstract class AbstractDAOTest extends EntityManagerProvider {
     @After
     public final void shutdownDatabase() {
         em().clear(); // Important.
+        // Second-level cache is not aware of the tables drop.
+        em().getEntityManagerFactory().getCache().evictAll();
+        em().getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictQueryRegions();
         executeScript("db/shutdown-test-db.sql");
     }
 
+    /**
+     * Inserts the user #1 ({@code login}).
+     */
+    protected final void insertUser() {
+        execute(em().createNativeQuery("INSERT INTO t_user_us (us_id, us_name, us_first_name, us_login, us_password, creation_date) "
+            + "VALUES (1, 'Name', 'First name', 'login', 'password', CURRENT_TIMESTAMP)"));
+    }
+
+    /**
+     * Inserts an authentication of the user #1 (see {@link #insertUser()}).
+     *
+     * @param token
+     *         The authentication token.
+     * @param dateLastActive
+     *         The authentication creation and last activity date.
+     */
+    protected final void insertAuthentication(final String token, final Date dateLastActive) {
+        execute(em().createNativeQuery("INSERT INTO t_authentication_au (au_id, us_id, au_date_created, au_date_last_active, creation_date) "
+            + "VALUES (?, 1, ?, ?, CURRENT_TIMESTAMP)").setParameter(1, token).setParameter(2, dateLastActive).setParameter(3, dateLastActive));
+    }
+
+    /**
+     * Executes the given update {@code query} within its own transaction.
+     *
+     * @param query
+     *         The update query.
+     */
+    protected final void execute(final Query query) {
+        final EntityManager em = em();
+        em.getTransaction().begin();
+        query.executeUpdate();
+        em.getTransaction().commit();
+    }
+
     private void executeScript(final String scriptName) {
+        executeScript(scriptName, getConnection());
+    }
+
+    /**
+     * Executes the given SQL script with the given {@code connection}.
+     *
+     * @param scriptName
+     *         The SQL script resource name.
+     * @param connection
+     *         The database connection.
+     */
+    protected static void executeScript(final String scriptName, final Connection connection) {
 
         final URL script = AbstractDAOTest.class.getClassLoader().getResource(scriptName);
 
@@ -57,7 +110,7 @@ public abstract class AbstractDAOTest extends EntityManagerProvider {
 
         try {
 
-            RunScript.execute(getConnection(), Files.newReader(new File(script.getPath()), StandardCharsets.UTF_8));
+            RunScript.execute(connection, Files.newReader(new File(script.getPath()), StandardCharsets.UTF_8));
 
         } catch (Exception e) {
             throw new RuntimeException("Error during SQL script '" + scriptName + "' execution", e);
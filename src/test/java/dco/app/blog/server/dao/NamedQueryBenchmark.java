@@ -0,0 +1,136 @@
+package dco.app.blog.server.dao;
+
+import com.google.common.io.Files;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.persist.PersistService;
+import dco.app.blog.server.config.PersistenceTestModule;
+import dco.app.blog.server.dao.base.NamedQueries;
+import dco.app.blog.server.model.Post;
+import org.h2.tools.RunScript;
+import org.hibernate.internal.SessionImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Compares the DAO precompiled (named) queries with the former JPQL string building, on the {@code countAll} query:
+ * query creation only ({@code *Create} benchmarks) and query creation and execution.
+ * </p>
+ * <p>
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=dco.app.blog.server.dao.NamedQueryBenchmark}.
+ * </p>
+ *
+ * @author Denis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NamedQueryBenchmark {
+
+    private Injector injector;
+
+    private PostDAO postDAO;
+
+    private EntityManager em;
+
+    @Setup(Level.Trial)
+    public void startPersistence() throws Exception {
+
+        injector = Guice.createInjector(new PersistenceTestModule());
+        injector.getInstance(PersistService.class).start();
+        NamedQueries.registerAll(injector);
+
+        postDAO = injector.getInstance(PostDAO.class);
+        em = injector.getInstance(EntityManager.class);
+
+        executeScript("db/shutdown-test-db.sql");
+        executeScript("db/create-test-db.sql");
+
+        for (int i = 0; i < 100; i++) {
+            final Post post = new Post();
+            post.setSubject("Benchmark post subject " + i);
+            post.setContent("Benchmark post content " + i);
+            postDAO.persist(post, null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPersistence() {
+        injector.getInstance(PersistService.class).stop();
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // QUERY CREATION.
+    //
+    // --------------------------------------------------------------------------------
+
+    @Benchmark
+    public TypedQuery<Number> stringQueryCreate() {
+        return em.createQuery("SELECT COUNT(e) FROM " + Post.class.getName() + " e", Number.class);
+    }
+
+    @Benchmark
+    public TypedQuery<Number> namedQueryCreate() {
+        return em.createNamedQuery("Post.countAll", Number.class);
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // QUERY CREATION AND EXECUTION.
+    //
+    // --------------------------------------------------------------------------------
+
+    @Benchmark
+    public int stringQuery() {
+        return em.createQuery("SELECT COUNT(e) FROM " + Post.class.getName() + " e", Number.class).getSingleResult().intValue();
+    }
+
+    @Benchmark
+    public int namedQuery() {
+        return postDAO.countAll();
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *         Unused.
+     * @throws RunnerException
+     *         If the benchmark fails.
+     */
+    public static void main(final String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(NamedQueryBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private void executeScript(final String scriptName) throws Exception {
+        final File script = new File(NamedQueryBenchmark.class.getClassLoader().getResource(scriptName).toURI());
+        RunScript.execute(em.unwrap(SessionImpl.class).connection(), Files.newReader(script, StandardCharsets.UTF_8));
+        em.clear();
+    }
+
+}
@@ -1,13 +1,32 @@
 package dco.app.blog.server.dao;
 
 import com.google.inject.Inject;
+import com.google.inject.persist.UnitOfWork;
+import dco.app.blog.server.dao.base.QueryFilter;
 import dco.app.blog.server.model.Post;
+import dco.app.blog.server.util.Keyset;
+import dco.app.blog.server.util.KeysetResult;
+import dco.app.blog.server.util.PageResult;
+import dco.app.blog.server.util.Pagination;
+import dco.app.blog.shared.dto.PostSummary;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.stat.Statistics;
 import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.persistence.criteria.CriteriaDelete;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 /**
  * Created by Denis on 25/04/15.
@@ -22,6 +41,9 @@ public class PostDAOTest extends AbstractDAOTest {
     @Inject
     private PostDAO postDAO;
 
+    @Inject
+    private UnitOfWork unitOfWork;
+
     @Test
     public void insert() {
         final Post post = new Post();
@@ -45,6 +67,274 @@ public class PostDAOTest extends AbstractDAOTest {
 
         Assert.assertNotNull(posts);
         Assert.assertEquals(5, posts.size());
+        Assert.assertEquals(5, postDAO.countAll());
+    }
+
+    @Test
+    public void testPersistAll() {
+
+        final List<Post> posts = new ArrayList<>();
+
+        for (int i = 1; i <= 120; i++) {
+            final Post post = new Post();
+            post.setSubject("Imported post subject " + i);
+            post.setContent("Imported post content " + i);
+            posts.add(post);
+        }
+
+        final List<Post> persisted = postDAO.persistAll(posts, null);
+
+        Assert.assertEquals(120, persisted.size());
+        Assert.assertEquals(120, persisted.stream().map(Post::getId).distinct().count());
+        Assert.assertEquals(120, postDAO.countAll());
+        Assert.assertEquals("Imported post subject 120", postDAO.findById(persisted.get(119).getId()).getSubject());
+    }
+
+    @Test
+    public void testSecondLevelCache() {
+
+        final Statistics statistics = em().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        for (int i = 1; i <= 3; i++) {
+            insert();
+        }
+
+        // New unit of work, as for a new request (cached items are not readable by older sessions).
+        unitOfWork.end();
+        unitOfWork.begin();
+
+        // Entity cache.
+        final Long id = postDAO.findLatest(10).get(0).getId();
+        em().clear();
+
+        final long hits = statistics.getSecondLevelCacheHitCount();
+        Assert.assertNotNull(postDAO.findById(id));
+        Assert.assertEquals(hits + 1, statistics.getSecondLevelCacheHitCount());
+
+        // Query cache.
+        final long queryHits = statistics.getQueryCacheHitCount();
+        Assert.assertEquals(3, postDAO.findLatest(10).size());
+        Assert.assertEquals(queryHits + 1, statistics.getQueryCacheHitCount());
+
+        // Hibernate bulk operation cleanup evicts the cached rows once the transaction completes.
+        em().getTransaction().begin();
+        final CriteriaDelete<Post> delete = postDAO.getCriteriaBuilder().createCriteriaDelete(Post.class);
+        delete.from(Post.class);
+        Assert.assertEquals(3, postDAO.remove(delete));
+        em().getTransaction().commit();
+        em().clear();
+
+        Assert.assertNull(postDAO.findById(id));
+        Assert.assertTrue(postDAO.findLatest(10).isEmpty());
+    }
+
+    @Test
+    public void testStream() {
+
+        final int total = 200_000;
+        final int fetchSize = 1_000;
+
+        // Inserts posts in bulk.
+        em().getTransaction().begin();
+        em().createNativeQuery("INSERT INTO t_post_po (po_id, po_subject, po_content, creation_date) "
+                + "SELECT X, 'Subject ' || X, 'Content ' || X, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + total + ")").executeUpdate();
+        em().getTransaction().commit();
+
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicInteger maxManagedEntities = new AtomicInteger();
+        final AtomicBoolean autoCommit = new AtomicBoolean(true);
+
+        // Streams all posts.
+        try (final Stream<Post> posts = postDAO.stream(null, fetchSize)) {
+            posts.forEach(post -> {
+                if (count.incrementAndGet() == 1) {
+                    autoCommit.set(em().unwrap(Session.class).doReturningWork(Connection::getAutoCommit));
+                }
+                maxManagedEntities.set(Math.max(maxManagedEntities.get(), em().unwrap(Session.class).getStatistics().getEntityCount()));
+            });
+        }
+
+        LOGGER.debug("Streamed posts: {} ; Max managed entities: {}.", count, maxManagedEntities);
+
+        Assert.assertEquals(total, count.get());
+        // The persistence context never holds more than one fetch of entities.
+        Assert.assertTrue(maxManagedEntities.get() <= fetchSize);
+        // The cursor is read out of auto-commit mode (otherwise the fetch size may be ignored).
+        Assert.assertFalse(autoCommit.get());
+        assertStreamReleased();
+
+        // Stops consuming early: the cursor and the stream transaction are released on close.
+        try (final Stream<Post> posts = postDAO.stream(null, fetchSize)) {
+            Assert.assertEquals(10, posts.limit(10).count());
+            Assert.assertTrue(em().getTransaction().isActive());
+            Assert.assertTrue(hasJdbcResources());
+        }
+
+        assertStreamReleased();
+
+        // Within a caller transaction: the cursor is released, the transaction is left to its owner.
+        em().getTransaction().begin();
+        final Post edited = em().find(Post.class, 1L);
+        edited.setSubject("Edited subject");
+        maxManagedEntities.set(0);
+
+        try (final Stream<Post> posts = postDAO.stream(null, fetchSize)) {
+            posts.limit(fetchSize * 2 + 10).forEach(post ->
+                    maxManagedEntities.set(Math.max(maxManagedEntities.get(), em().unwrap(Session.class).getStatistics().getEntityCount())));
+        }
+
+        // Only the streamed entities are detached: the caller entity and its pending change are kept.
+        Assert.assertTrue(maxManagedEntities.get() <= fetchSize + 1);
+        Assert.assertTrue(em().contains(edited));
+        em().flush();
+        Assert.assertEquals("Edited subject", em().createNativeQuery("SELECT po_subject FROM t_post_po WHERE po_id = 1").getSingleResult());
+
+        Assert.assertTrue(em().getTransaction().isActive());
+        Assert.assertFalse(hasJdbcResources());
+        em().getTransaction().rollback();
+
+        Assert.assertEquals(total, postDAO.countAll());
+    }
+
+    private void assertStreamReleased() {
+        Assert.assertFalse(em().getTransaction().isActive());
+        Assert.assertFalse(hasJdbcResources());
+    }
+
+    private boolean hasJdbcResources() {
+        return em().unwrap(SessionImplementor.class).getTransactionCoordinator().getJdbcCoordinator().hasRegisteredResources();
+    }
+
+    @Test
+    public void testFindPage() {
+
+        // Inserts 25 posts.
+        for (int i = 1; i <= 25; i++) {
+            insert();
+        }
+
+        final QueryFilter<Post> filter = (cb, query, root) -> query.orderBy(cb.desc(root.get("id")));
+
+        final PageResult<Post> firstPage = postDAO.findPage(filter, new Pagination(0, 10));
+        Assert.assertEquals(10, firstPage.getItems().size());
+        Assert.assertEquals(25, firstPage.getTotal());
+
+        final PageResult<Post> lastPage = postDAO.findPage(filter, new Pagination(20, 10));
+        Assert.assertEquals(5, lastPage.getItems().size());
+        Assert.assertEquals(25, lastPage.getTotal());
+        Assert.assertTrue(firstPage.getItems().get(0).getId() > lastPage.getItems().get(0).getId());
+
+        final PageResult<Post> outOfRangePage = postDAO.findPage(filter, new Pagination(30, 10));
+        Assert.assertTrue(outOfRangePage.getItems().isEmpty());
+        Assert.assertEquals(25, outOfRangePage.getTotal());
+
+        // Cached total.
+        Assert.assertEquals(25, postDAO.findPage(null, new Pagination(0, 10), "all").getTotal());
+        insert();
+        Assert.assertEquals(25, postDAO.findPage(null, new Pagination(0, 10), "all").getTotal());
+        Assert.assertEquals(26, postDAO.findPage(null, new Pagination(0, 10)).getTotal());
+    }
+
+    @Test
+    public void testFindSummaries() {
+
+        // Inserts 15 posts.
+        for (int i = 1; i <= 15; i++) {
+            insert();
+        }
+
+        final List<PostSummary> summaries = postDAO.findSummaries(new Pagination(0, 10));
+        LOGGER.debug("Posts summaries: {}", summaries);
+
+        Assert.assertEquals(10, summaries.size());
+        Assert.assertEquals("Test post subject", summaries.get(0).getSubject());
+        Assert.assertNotNull(summaries.get(0).getCreationDate());
+        Assert.assertTrue(summaries.get(0).getId() > summaries.get(9).getId());
+
+        final List<PostSummary> allSummaries = postDAO.findProjections(PostSummary.class, null, null, PostSummary.ATTRIBUTES);
+        Assert.assertEquals(15, allSummaries.size());
+
+        // Post content is lazily loaded (requires the entities bytecode instrumentation).
+        em().getEntityManagerFactory().getCache().evict(Post.class);
+        em().clear();
+
+        final Post post = postDAO.findById(summaries.get(0).getId());
+        Assert.assertFalse(Hibernate.isPropertyInitialized(post, "content"));
+        Assert.assertEquals("Test post dumb content.", post.getContent());
+        Assert.assertTrue(Hibernate.isPropertyInitialized(post, "content"));
+    }
+
+    @Test
+    public void testSeek() {
+
+        // Inserts 25 posts.
+        for (int i = 1; i <= 25; i++) {
+            insert();
+        }
+
+        // Seeks posts 10 by 10.
+        final List<Post> posts = new ArrayList<>();
+        final List<Integer> pageSizes = new ArrayList<>();
+        String continuationToken = null;
+
+        do {
+            final KeysetResult<Post> page = postDAO.seek(null, new Keyset(continuationToken, 10));
+            posts.addAll(page.getItems());
+            pageSizes.add(page.getItems().size());
+            continuationToken = page.getContinuationToken();
+        } while (continuationToken != null);
+
+        LOGGER.debug("Sought posts: {}", posts);
+
+        Assert.assertEquals(25, posts.size());
+        Assert.assertEquals(3, pageSizes.size());
+        Assert.assertEquals(Integer.valueOf(5), pageSizes.get(2));
+
+        // Most recent first, without duplicates.
+        for (int i = 1; i < posts.size(); i++) {
+            final Post previous = posts.get(i - 1);
+            final Post current = posts.get(i);
+            Assert.assertTrue(previous.getCreationDate().compareTo(current.getCreationDate()) >= 0);
+            Assert.assertTrue(previous.getCreationDate().compareTo(current.getCreationDate()) > 0 || previous.getId() > current.getId());
+        }
+
+        // The filter restriction is kept ; the same filter seeks each page.
+        final Long threshold = posts.stream().map(Post::getId).sorted().skip(4).findFirst().get();
+        final QueryFilter<Post> filter = (cb, query, root) -> query.where(cb.greaterThan(root.<Long>get("id"), threshold));
+        final KeysetResult<Post> firstPage = postDAO.seek(filter, new Keyset(null, 10));
+        final KeysetResult<Post> lastPage = postDAO.seek(filter, new Keyset(firstPage.getContinuationToken(), 10));
+
+        Assert.assertEquals(10, firstPage.getItems().size());
+        Assert.assertEquals(10, lastPage.getItems().size());
+        Assert.assertNull(lastPage.getContinuationToken());
+        Assert.assertTrue(lastPage.getItems().stream().allMatch(post -> post.getId() > threshold));
+        Assert.assertEquals(firstPage.getItems(), postDAO.seek(filter, new Keyset(null, 10)).getItems());
+    }
+
+    @Test
+    public void testSeekSubMillisecondDates() {
+
+        // Posts created within the same millisecond (e.g. PostgreSQL microseconds precision).
+        em().getTransaction().begin();
+        em().createNativeQuery("INSERT INTO t_post_po (po_id, po_subject, po_content, creation_date) VALUES "
+                + "(1, 'Subject 1', 'Content 1', TIMESTAMP '2015-09-01 12:00:00.000900'), "
+                + "(2, 'Subject 2', 'Content 2', TIMESTAMP '2015-09-01 12:00:00.000500'), "
+                + "(3, 'Subject 3', 'Content 3', TIMESTAMP '2015-09-01 12:00:00.000100')").executeUpdate();
+        em().getTransaction().commit();
+
+        // Seeks posts one by one: no post is skipped.
+        final List<Long> ids = new ArrayList<>();
+        String continuationToken = null;
+
+        do {
+            final KeysetResult<Post> page = postDAO.seek(null, new Keyset(continuationToken, 1));
+            for (final Post post : page.getItems()) {
+                ids.add(post.getId());
+            }
+            continuationToken = page.getContinuationToken();
+        } while (continuationToken != null);
+
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L), ids);
     }
 
 }
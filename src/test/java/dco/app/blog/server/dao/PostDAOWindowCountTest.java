@@ -0,0 +1,71 @@
+package dco.app.blog.server.dao;
+
+import com.google.inject.Inject;
+import dco.app.blog.server.config.GuiceJUnitRunner;
+import dco.app.blog.server.config.PersistenceWindowCountTestModule;
+import dco.app.blog.server.dao.base.QueryFilter;
+import dco.app.blog.server.model.Post;
+import dco.app.blog.server.util.PageResult;
+import dco.app.blog.server.util.Pagination;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the single round-trip path of {@link PostDAO#findPage(QueryFilter, Pagination)} (items and total count
+ * fetched by the same query), with a dialect emulating the window count function.
+ *
+ * @author Denis
+ */
+@GuiceJUnitRunner.GuiceModules({
+        PersistenceWindowCountTestModule.class
+})
+public class PostDAOWindowCountTest extends AbstractDAOTest {
+
+    @Inject
+    private PostDAO postDAO;
+
+    @Test
+    public void testFindPageInOneRoundTrip() {
+
+        // Inserts 25 posts.
+        for (int i = 1; i <= 25; i++) {
+            final Post post = new Post();
+            post.setSubject("Test post subject " + i);
+            post.setContent("Test post dumb content.");
+            postDAO.persist(post, null);
+        }
+
+        em().clear();
+
+        final Statistics statistics = em().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        final QueryFilter<Post> filter = (cb, query, root) -> query.orderBy(cb.desc(root.get("id")));
+
+        // A full page does not allow deducing the total: it is read from the window count column.
+        long queries = statistics.getPrepareStatementCount();
+        final PageResult<Post> firstPage = postDAO.findPage(filter, new Pagination(0, 10));
+
+        Assert.assertEquals(1, statistics.getPrepareStatementCount() - queries);
+        Assert.assertEquals(10, firstPage.getItems().size());
+        Assert.assertEquals(25, firstPage.getTotal());
+        Assert.assertEquals("Test post subject 25", firstPage.getItems().get(0).getSubject());
+
+        queries = statistics.getPrepareStatementCount();
+        final PageResult<Post> secondPage = postDAO.findPage(filter, new Pagination(10, 10));
+
+        Assert.assertEquals(1, statistics.getPrepareStatementCount() - queries);
+        Assert.assertEquals(10, secondPage.getItems().size());
+        Assert.assertEquals(25, secondPage.getTotal());
+        Assert.assertEquals("Test post subject 15", secondPage.getItems().get(0).getSubject());
+
+        // Out of range page: no row carries the total, which is counted by a second query.
+        queries = statistics.getPrepareStatementCount();
+        final PageResult<Post> outOfRangePage = postDAO.findPage(filter, new Pagination(30, 10));
+
+        Assert.assertEquals(2, statistics.getPrepareStatementCount() - queries);
+        Assert.assertTrue(outOfRangePage.getItems().isEmpty());
+        Assert.assertEquals(25, outOfRangePage.getTotal());
+    }
+
+}
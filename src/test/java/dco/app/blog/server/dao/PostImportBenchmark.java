@@ -0,0 +1,124 @@
+package dco.app.blog.server.dao;
+
+import com.google.common.io.Files;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.persist.PersistService;
+import dco.app.blog.server.config.PersistenceTestModule;
+import dco.app.blog.server.model.Post;
+import org.h2.tools.RunScript;
+import org.hibernate.internal.SessionImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.persistence.EntityManager;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Measures posts import throughput (inserts per second), persisting {@value #POSTS} posts one by one with {@link
+ * PostDAO#persist} versus in JDBC batches with {@link PostDAO#persistAll}.
+ * </p>
+ * <p>
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=dco.app.blog.server.dao.PostImportBenchmark}.
+ * </p>
+ *
+ * @author Denis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostImportBenchmark {
+
+    private static final int POSTS = 2_000;
+
+    private Injector injector;
+
+    private PostDAO postDAO;
+
+    private List<Post> posts;
+
+    @Setup(Level.Trial)
+    public void startPersistence() {
+        injector = Guice.createInjector(new PersistenceTestModule());
+        injector.getInstance(PersistService.class).start();
+        postDAO = injector.getInstance(PostDAO.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPersistence() {
+        injector.getInstance(PersistService.class).stop();
+    }
+
+    @Setup(Level.Invocation)
+    public void createPosts() throws Exception {
+
+        executeScript("db/shutdown-test-db.sql");
+        executeScript("db/create-test-db.sql");
+
+        posts = new ArrayList<>(POSTS);
+
+        for (int i = 0; i < POSTS; i++) {
+            final Post post = new Post();
+            post.setSubject("Imported post subject " + i);
+            post.setContent("Imported post content " + i);
+            posts.add(post);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSTS)
+    public void persist() {
+        for (final Post post : posts) {
+            postDAO.persist(post, null);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSTS)
+    public List<Post> persistAll() {
+        return postDAO.persistAll(posts, null);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *         Unused.
+     * @throws RunnerException
+     *         If the benchmark fails.
+     */
+    public static void main(final String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PostImportBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private void executeScript(final String scriptName) throws Exception {
+        final EntityManager em = injector.getInstance(EntityManager.class);
+        final File script = new File(PostImportBenchmark.class.getClassLoader().getResource(scriptName).toURI());
+        RunScript.execute(em.unwrap(SessionImpl.class).connection(), Files.newReader(script, StandardCharsets.UTF_8));
+        em.clear();
+    }
+
+}
@@ -0,0 +1,117 @@
+package dco.app.blog.server.dao;
+
+import com.google.inject.Inject;
+import dco.app.blog.server.config.GuiceJUnitRunner;
+import dco.app.blog.server.config.PersistenceReplicaTestModule;
+import dco.app.blog.server.dao.base.ReadReplica;
+import dco.app.blog.server.model.Post;
+import org.hibernate.internal.SessionImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import java.util.Date;
+
+/**
+ * Read replica routing tests, the replica being a second H2 database (not replicated).
+ *
+ * @author Denis
+ */
+@GuiceJUnitRunner.GuiceModules({
+        PersistenceReplicaTestModule.class
+})
+public class ReadReplicaTest extends AbstractDAOTest {
+
+    @Inject
+    private PostDAO postDAO;
+
+    @Inject
+    private AuthenticationDAO authenticationDAO;
+
+    @Inject
+    private ReadReplica readReplica;
+
+    /**
+     * Replica entity manager, used to populate the replica database.
+     */
+    private EntityManager replicaEm;
+
+    @Before
+    public void createReplicaDatabase() {
+        replicaEm = readReplica.getEntityManagerFactory().createEntityManager();
+        executeScript("db/create-test-db.sql", replicaEm.unwrap(SessionImpl.class).connection());
+    }
+
+    @After
+    public void shutdownReplicaDatabase() {
+        readReplica.end();
+        executeScript("db/shutdown-test-db.sql", replicaEm.unwrap(SessionImpl.class).connection());
+        replicaEm.close();
+    }
+
+    @Test
+    public void testRouting() {
+
+        Assert.assertTrue(readReplica.isEnabled());
+
+        // Writes one post to the primary database: next reads are routed to the primary (read-your-writes).
+        final Post primaryPost = postDAO.persist(newPost("Primary post"), null);
+        Assert.assertEquals(1, postDAO.countAll());
+
+        // Writes two posts to the replica database only.
+        final Post replicaPost = newPost("Replica post");
+        replicaEm.getTransaction().begin();
+        replicaEm.persist(replicaPost);
+        replicaEm.persist(newPost("Other replica post"));
+        replicaEm.getTransaction().commit();
+
+        // New unit of work: reads are routed to the replica.
+        readReplica.end();
+        Assert.assertEquals(2, postDAO.countAll());
+        Assert.assertEquals(2, postDAO.find(null).size());
+        Assert.assertEquals(2, postDAO.findLatest(10).size());
+
+        // Lookups by id of second-level cached entities are kept on the primary.
+        Assert.assertEquals("Primary post", postDAO.findById(primaryPost.getId()).getSubject());
+
+        // Reads within a primary transaction are routed to the primary.
+        em().getTransaction().begin();
+        try {
+            Assert.assertEquals(1, postDAO.countAll());
+        } finally {
+            em().getTransaction().rollback();
+        }
+
+        // A write sticks the unit of work to the primary.
+        postDAO.persist(newPost("Other primary post"), null);
+        Assert.assertEquals(2, postDAO.countAll());
+        Assert.assertEquals("Other primary post", postDAO.findLatest(1).get(0).getSubject());
+    }
+
+    @Test
+    public void testFindByIdOnPrimary() {
+
+        // Authentication created on the primary only (not replicated yet).
+        em().getTransaction().begin();
+        em().createNativeQuery("INSERT INTO t_user_us (us_id, us_name, us_first_name, us_login, us_password, creation_date) "
+            + "VALUES (1, 'Name', 'First name', 'login', 'password', CURRENT_TIMESTAMP)").executeUpdate();
+        em().createNativeQuery("INSERT INTO t_authentication_au (au_id, us_id, au_date_created, au_date_last_active, creation_date) "
+            + "VALUES ('token', 1, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)").executeUpdate();
+        em().getTransaction().commit();
+
+        readReplica.end();
+        Assert.assertNull(authenticationDAO.findById("token"));
+        Assert.assertEquals(Long.valueOf(1L), authenticationDAO.findByIdOnPrimary("token").getUser().getId());
+    }
+
+    private static Post newPost(final String subject) {
+        final Post post = new Post();
+        post.setSubject(subject);
+        post.setContent("Test post dumb content.");
+        post.setCreationDate(new Date());
+        return post;
+    }
+
+}
@@ -0,0 +1,250 @@
+package dco.app.blog.server.dispatch.impl;
+
+import com.google.gwt.user.client.rpc.IsSerializable;
+import dco.app.blog.server.model.User;
+import dco.app.blog.shared.command.base.AbstractCommand;
+import dco.app.blog.shared.command.base.CachedResult;
+import dco.app.blog.shared.command.base.Command;
+import dco.app.blog.shared.command.base.InvalidatesCache;
+import dco.app.blog.shared.command.result.ListResult;
+import dco.app.blog.shared.command.result.StringResult;
+import dco.app.blog.shared.command.result.VoidResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests the {@link CommandResultCache}.
+ *
+ * @author Denis
+ */
+public class CommandResultCacheTest {
+
+    /**
+     * Cached command whose results are scoped by user.
+     */
+    @CachedResult(ttl = 1)
+    public static class GetUserValueCommand extends AbstractCommand<StringResult> {
+
+        private String name;
+
+        public GetUserValueCommand() {
+            // Serialization.
+        }
+
+        public GetUserValueCommand(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        protected Object[] getIdentity() {
+            return new Object[]{name};
+        }
+
+    }
+
+    /**
+     * Cached command whose results are shared between users.
+     */
+    @CachedResult(scope = CachedResult.Scope.SHARED)
+    public static class GetSharedValueCommand extends AbstractCommand<StringResult> {
+
+        private String name;
+
+        public GetSharedValueCommand() {
+            // Serialization.
+        }
+
+        public GetSharedValueCommand(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        protected Object[] getIdentity() {
+            return new Object[]{name};
+        }
+
+    }
+
+    /**
+     * Cached command without identity (not cacheable).
+     */
+    @CachedResult
+    public static class NoIdentityCommand extends AbstractCommand<StringResult> {
+
+    }
+
+    /**
+     * Cached command whose result elements are not {@code java.io.Serializable}.
+     */
+    @CachedResult(scope = CachedResult.Scope.SHARED)
+    public static class GetValuesCommand extends AbstractCommand<ListResult<GwtOnlyValue>> {
+
+        @Override
+        protected Object[] getIdentity() {
+            return new Object[0];
+        }
+
+    }
+
+    /**
+     * Value only serializable by GWT-RPC.
+     */
+    public static class GwtOnlyValue implements IsSerializable {
+
+    }
+
+    /**
+     * Write command invalidating the shared values.
+     */
+    @InvalidatesCache(GetSharedValueCommand.class)
+    public static class SetSharedValueCommand extends AbstractCommand<VoidResult> {
+
+    }
+
+    @Test
+    public void testHitAndMiss() {
+
+        final CommandResultCache cache = new CommandResultCache();
+        final User user = user(1L);
+
+        Assert.assertNull(cache.get(new GetSharedValueCommand("a"), user));
+
+        put(cache, new GetSharedValueCommand("a"), user, "A");
+
+        Assert.assertEquals("A", cache.get(new GetSharedValueCommand("a"), user).getValue());
+        Assert.assertNull(cache.get(new GetSharedValueCommand("b"), user));
+
+        Assert.assertEquals(1L, cache.getStatistics().get(GetSharedValueCommand.class.getName()).getHits());
+        Assert.assertEquals(2L, cache.getStatistics().get(GetSharedValueCommand.class.getName()).getMisses());
+    }
+
+    @Test
+    public void testScopes() {
+
+        final CommandResultCache cache = new CommandResultCache();
+
+        put(cache, new GetUserValueCommand("a"), user(1L), "User 1");
+        put(cache, new GetSharedValueCommand("a"), user(1L), "Shared");
+
+        Assert.assertEquals("User 1", cache.get(new GetUserValueCommand("a"), user(1L)).getValue());
+        Assert.assertNull(cache.get(new GetUserValueCommand("a"), user(2L)));
+        Assert.assertNull(cache.get(new GetUserValueCommand("a"), null));
+
+        Assert.assertEquals("Shared", cache.get(new GetSharedValueCommand("a"), user(2L)).getValue());
+        Assert.assertEquals("Shared", cache.get(new GetSharedValueCommand("a"), null).getValue());
+    }
+
+    @Test
+    public void testTtlExpiry() throws InterruptedException {
+
+        final CommandResultCache cache = new CommandResultCache();
+
+        put(cache, new GetUserValueCommand("a"), user(1L), "A");
+        Assert.assertNotNull(cache.get(new GetUserValueCommand("a"), user(1L)));
+
+        Thread.sleep(1100L);
+
+        Assert.assertNull(cache.get(new GetUserValueCommand("a"), user(1L)));
+        Assert.assertEquals(1L, cache.getStatistics().get(GetUserValueCommand.class.getName()).getExpirations());
+    }
+
+    @Test
+    public void testInvalidation() {
+
+        final CommandResultCache cache = new CommandResultCache();
+
+        put(cache, new GetSharedValueCommand("a"), null, "A");
+        cache.invalidate(new SetSharedValueCommand());
+
+        Assert.assertNull(cache.get(new GetSharedValueCommand("a"), null));
+    }
+
+    @Test
+    public void testInvalidationDuringExecutionDropsStalePut() {
+
+        final CommandResultCache cache = new CommandResultCache();
+        final GetSharedValueCommand command = new GetSharedValueCommand("a");
+
+        // Generation retrieved before the execution, invalidated while the command executes.
+        final long generation = cache.generation(command);
+        cache.invalidate(new SetSharedValueCommand());
+        cache.put(command, null, new StringResult("Stale"), generation);
+
+        Assert.assertNull(cache.get(command, null));
+
+        // Next execution result is cached.
+        put(cache, command, null, "Fresh");
+        Assert.assertEquals("Fresh", cache.get(command, null).getValue());
+    }
+
+    @Test
+    public void testNotCacheableCommands() {
+
+        final CommandResultCache cache = new CommandResultCache();
+        final NoIdentityCommand command = new NoIdentityCommand();
+
+        Assert.assertEquals(CommandResultCache.NOT_CACHEABLE, cache.generation(command));
+        Assert.assertEquals(CommandResultCache.NOT_CACHEABLE, cache.generation(new SetSharedValueCommand()));
+
+        cache.put(command, null, new StringResult("A"), CommandResultCache.NOT_CACHEABLE);
+        Assert.assertNull(cache.get(command, null));
+        Assert.assertTrue(cache.getStatistics().isEmpty());
+    }
+
+    @Test
+    public void testCachedResultsAreCopies() {
+
+        final CommandResultCache cache = new CommandResultCache();
+        final GetSharedValueCommand command = new GetSharedValueCommand("a");
+        final StringResult result = new StringResult("A");
+
+        cache.put(command, user(1L), result, cache.generation(command));
+
+        // Modifying the put result, or a returned result, never alters the cached entry.
+        result.setValue("Modified");
+        final StringResult first = cache.get(command, user(1L));
+        Assert.assertEquals("A", first.getValue());
+
+        first.setValue("Modified");
+        final StringResult second = cache.get(command, user(2L));
+        Assert.assertEquals("A", second.getValue());
+        Assert.assertNotSame(first, second);
+    }
+
+    @Test
+    public void testNotSerializableResultsAreNotCached() {
+
+        final CommandResultCache cache = new CommandResultCache();
+        final GetValuesCommand command = new GetValuesCommand();
+
+        cache.put(command, null, new ListResult<GwtOnlyValue>(Collections.singletonList(new GwtOnlyValue())), cache.generation(command));
+
+        Assert.assertNull(cache.get(command, null));
+    }
+
+    @Test
+    public void testIsInvalidatedBy() {
+
+        final CommandResultCache cache = new CommandResultCache();
+        final GetSharedValueCommand command = new GetSharedValueCommand("a");
+
+        Assert.assertTrue(cache.isInvalidatedBy(command, Arrays.asList(new GetUserValueCommand("a"), new SetSharedValueCommand())));
+        Assert.assertFalse(cache.isInvalidatedBy(command, Collections.singletonList(new GetUserValueCommand("a"))));
+        Assert.assertFalse(cache.isInvalidatedBy(new GetUserValueCommand("a"), Collections.singletonList(new SetSharedValueCommand())));
+        Assert.assertFalse(cache.isInvalidatedBy(command, Collections.<Command<?>>emptyList()));
+    }
+
+    private static void put(final CommandResultCache cache, final AbstractCommand<StringResult> command, final User user, final String value) {
+        cache.put(command, user, new StringResult(value), cache.generation(command));
+    }
+
+    private static User user(final Long id) {
+        final User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+}
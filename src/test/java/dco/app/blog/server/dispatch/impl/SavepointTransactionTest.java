@@ -0,0 +1,416 @@
+package dco.app.blog.server.dispatch.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.google.inject.persist.UnitOfWork;
+import dco.app.blog.server.dao.AbstractDAOTest;
+import dco.app.blog.server.dao.base.ReadReplica;
+import dco.app.blog.server.dispatch.CommandHandler;
+import dco.app.blog.server.dispatch.CommandHandlerRegistry;
+import dco.app.blog.server.handler.BatchCommandHandler;
+import dco.app.blog.server.handler.base.AbstractCommandHandler;
+import dco.app.blog.server.metrics.CommandMetrics;
+import dco.app.blog.server.metrics.FlightRecorder;
+import dco.app.blog.server.model.User;
+import dco.app.blog.server.security.SecureSessionValidator;
+import dco.app.blog.server.servlet.base.ServletExecutionContext;
+import dco.app.blog.shared.command.BatchCommand;
+import dco.app.blog.shared.command.base.AbstractCommand;
+import dco.app.blog.shared.command.base.Command;
+import dco.app.blog.shared.command.result.BatchResult;
+import dco.app.blog.shared.command.result.VoidResult;
+import dco.app.blog.shared.command.result.base.Result;
+import dco.app.blog.shared.dispatch.CommandException;
+import dco.app.blog.shared.dispatch.DispatchException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+/**
+ * Tests the {@link SavepointTransaction} sub-commands savepoints and rollback-only handling.
+ *
+ * @author Denis
+ */
+public class SavepointTransactionTest extends AbstractDAOTest {
+
+    /**
+     * Command inserting a user.
+     */
+    private static final class InsertUserCommand extends AbstractCommand<VoidResult> {
+
+        private final Long id;
+
+        private final String login;
+
+        private InsertUserCommand(final Long id, final String login) {
+            this.id = id;
+            this.login = login;
+        }
+
+    }
+
+    /**
+     * {@link InsertUserCommand} handler.
+     */
+    private final class InsertUserCommandHandler extends AbstractCommandHandler<InsertUserCommand, VoidResult> {
+
+        @Override
+        protected VoidResult execute(final InsertUserCommand command, final UserDispatch.UserExecutionContext context) {
+            insertUser(command.id, command.login);
+            return new VoidResult();
+        }
+
+    }
+
+    @Inject
+    private Injector injector;
+
+    @Inject
+    private Provider<EntityManager> entityManagerProvider;
+
+    @Inject
+    private UnitOfWork unitOfWork;
+
+    @Inject
+    private ReadReplica readReplica;
+
+    @After
+    public void endTransaction() {
+        if (em().getTransaction().isActive()) {
+            em().getTransaction().rollback();
+        }
+    }
+
+    @Test
+    public void testSubCommandRolledBackToSavepoint() throws CommandException {
+
+        final SavepointTransaction transaction = new SavepointTransaction(em());
+        insertUser(1L, "parent");
+
+        final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+        insertUser(2L, "sub-command");
+        transaction.rollback(savepoint);
+
+        transaction.commit();
+
+        Assert.assertFalse(em().getTransaction().isActive());
+        Assert.assertTrue(userExists("parent"));
+        Assert.assertFalse(userExists("sub-command"));
+    }
+
+    @Test
+    public void testParentCommit() throws CommandException {
+
+        final SavepointTransaction transaction = new SavepointTransaction(em());
+        insertUser(1L, "parent");
+
+        final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+        insertUser(2L, "sub-command");
+        transaction.release(savepoint);
+
+        transaction.commit();
+
+        Assert.assertTrue(userExists("parent"));
+        Assert.assertTrue(userExists("sub-command"));
+    }
+
+    @Test
+    public void testParentRollback() {
+
+        final SavepointTransaction transaction = new SavepointTransaction(em());
+        insertUser(1L, "parent");
+
+        final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+        insertUser(2L, "sub-command");
+        transaction.release(savepoint);
+
+        transaction.rollback();
+
+        Assert.assertFalse(em().getTransaction().isActive());
+        Assert.assertFalse(userExists("parent"));
+        Assert.assertFalse(userExists("sub-command"));
+    }
+
+    @Test
+    public void testJoinedTransaction() throws CommandException {
+
+        final EntityTransaction outer = em().getTransaction();
+        outer.begin();
+
+        final SavepointTransaction transaction = new SavepointTransaction(em());
+        insertUser(1L, "parent");
+
+        final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+        insertUser(2L, "sub-command");
+        transaction.rollback(savepoint);
+
+        // A joined transaction is neither committed nor rolled back.
+        transaction.commit();
+        Assert.assertTrue(outer.isActive());
+        transaction.rollback();
+        Assert.assertTrue(outer.isActive());
+
+        outer.rollback();
+
+        Assert.assertFalse(userExists("parent"));
+        Assert.assertFalse(userExists("sub-command"));
+    }
+
+    @Test
+    public void testRollbackOnlyKeptBySavepointRollback() {
+
+        final SavepointTransaction transaction = new SavepointTransaction(em());
+        insertUser(1L, "parent");
+
+        final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+        failInsert();
+        Assert.assertTrue(em().getTransaction().getRollbackOnly());
+
+        transaction.rollback(savepoint);
+
+        // The sub-command failure mark is not erased: the parent command fails.
+        Assert.assertTrue(em().getTransaction().getRollbackOnly());
+
+        assertCommitRefused(transaction);
+        Assert.assertFalse(em().getTransaction().isActive());
+        Assert.assertFalse(userExists("parent"));
+    }
+
+    @Test
+    public void testParentEditAfterSubCommandFailure() throws CommandException {
+
+        final SavepointTransaction transaction = new SavepointTransaction(em());
+        insertUser(1L, "parent");
+        final User parent = em().find(User.class, 1L);
+
+        final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+
+        // Sub-command edits the parent entity (flushed or not) and loads a new one, then fails.
+        parent.setLogin("sub-command");
+        em().flush();
+        parent.setName("Sub-command name");
+        insertUser(2L, "other");
+        final User other = em().find(User.class, 2L);
+        transaction.rollback(savepoint);
+
+        // The parent entity is still managed, with its savepoint state ; the sub-command entity is detached.
+        Assert.assertTrue(em().contains(parent));
+        Assert.assertEquals("parent", parent.getLogin());
+        Assert.assertEquals("Name", parent.getName());
+        Assert.assertFalse(em().contains(other));
+
+        // Parent command edits its entity.
+        parent.setFirstName("Parent first name");
+        transaction.commit();
+
+        Assert.assertTrue(userExists("parent"));
+        Assert.assertFalse(userExists("sub-command"));
+        Assert.assertFalse(userExists("other"));
+        Assert.assertEquals("Parent first name", em().createNativeQuery("SELECT us_first_name FROM t_user_us WHERE us_id = 1").getSingleResult());
+        Assert.assertEquals("Name", em().createNativeQuery("SELECT us_name FROM t_user_us WHERE us_id = 1").getSingleResult());
+    }
+
+    @Test
+    public void testRemovedEntityRestoredBySavepointRollback() throws CommandException {
+
+        final SavepointTransaction transaction = new SavepointTransaction(em());
+        insertUser(1L, "parent");
+        final User parent = em().find(User.class, 1L);
+
+        final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+        em().remove(parent);
+        em().flush();
+        transaction.rollback(savepoint);
+
+        Assert.assertTrue(em().contains(parent));
+
+        parent.setLogin("edited");
+        transaction.commit();
+
+        Assert.assertTrue(userExists("edited"));
+    }
+
+    @Test
+    public void testDeletedEntityRestoredBySavepointRollback() throws CommandException {
+
+        final SavepointTransaction transaction = new SavepointTransaction(em());
+        insertUser(1L, "parent");
+        final User parent = em().find(User.class, 1L);
+
+        final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+
+        // Sub-command edits then removes the parent entity without flushing it (DELETED status), then fails.
+        parent.setName("Sub-command name");
+        em().remove(parent);
+        transaction.rollback(savepoint);
+
+        // The parent entity is managed again, reloaded with its savepoint state.
+        Assert.assertTrue(em().contains(parent));
+        Assert.assertEquals("Name", parent.getName());
+
+        parent.setLogin("edited");
+        transaction.commit();
+
+        Assert.assertTrue(userExists("edited"));
+        Assert.assertEquals("Name", em().createNativeQuery("SELECT us_name FROM t_user_us WHERE us_id = 1").getSingleResult());
+    }
+
+    @Test
+    public void testRollbackOnlyRaisedAfterSavepointRollback() {
+
+        final SavepointTransaction transaction = new SavepointTransaction(em());
+        insertUser(1L, "parent");
+
+        final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+        failInsert();
+        transaction.rollback(savepoint);
+
+        // Parent own failure (caught).
+        failInsert();
+
+        assertCommitRefused(transaction);
+        Assert.assertFalse(userExists("parent"));
+    }
+
+    @Test
+    public void testRollbackOnlyRaisedBeforeSavepoint() {
+
+        final SavepointTransaction transaction = new SavepointTransaction(em());
+        insertUser(1L, "parent");
+        failInsert();
+
+        final SavepointTransaction.Savepoint savepoint = transaction.savepoint();
+        insertUser(2L, "sub-command");
+        transaction.rollback(savepoint);
+
+        // The parent failure mark is not cleared by the sub-command rollback.
+        Assert.assertTrue(em().getTransaction().getRollbackOnly());
+
+        assertCommitRefused(transaction);
+        Assert.assertFalse(userExists("parent"));
+    }
+
+    @Test
+    public void testBatchedCommandsRunWithinTheirOwnTransaction() throws DispatchException {
+
+        final BatchCommandHandler batchHandler = new BatchCommandHandler(grantingSessionValidator(), new CommandMetrics(), new FlightRecorder());
+        final InsertUserCommandHandler insertUserHandler = new InsertUserCommandHandler();
+        injector.injectMembers(batchHandler);
+        injector.injectMembers(insertUserHandler);
+
+        final UserDispatch dispatch = new UserDispatch(registry(batchHandler, insertUserHandler), new CommandResultCache(), entityManagerProvider,
+                unitOfWork, readReplica, true);
+
+        // The second batched command fails with a persistence error, marking its transaction for rollback.
+        final BatchResult result = dispatch.execute(new BatchCommand(Arrays.asList(
+                new InsertUserCommand(1L, "first"),
+                new InsertUserCommand(1L, "duplicate"),
+                new InsertUserCommand(2L, "third"))), ServletExecutionContext.ANONYMOUS_USER, request(), null);
+
+        Assert.assertNull(result.getError(0));
+        Assert.assertNotNull(result.getError(1));
+        Assert.assertNull(result.getError(2));
+
+        // The other batched commands are committed.
+        Assert.assertFalse(em().getTransaction().isActive());
+        Assert.assertTrue(userExists("first"));
+        Assert.assertFalse(userExists("duplicate"));
+        Assert.assertTrue(userExists("third"));
+    }
+
+    private static void assertCommitRefused(final SavepointTransaction transaction) {
+        try {
+            transaction.commit();
+            Assert.fail("Transaction marked for rollback must not be committed.");
+        } catch (final CommandException e) {
+            // Expected.
+        }
+    }
+
+    private void insertUser(final Long id, final String login) {
+        em().createNativeQuery("INSERT INTO t_user_us (us_id, us_name, us_first_name, us_login, us_password, creation_date) "
+            + "VALUES (?, 'Name', 'First name', ?, 'password', CURRENT_TIMESTAMP)").setParameter(1, id).setParameter(2, login).executeUpdate();
+    }
+
+    /**
+     * Inserts a user violating the primary key of the first user, marking the transaction for rollback.
+     */
+    private void failInsert() {
+        try {
+            insertUser(1L, "duplicate");
+            Assert.fail("Duplicate user must not be inserted.");
+        } catch (final PersistenceException e) {
+            // Expected.
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CommandHandlerRegistry registry(final BatchCommandHandler batchHandler, final InsertUserCommandHandler insertUserHandler) {
+        return new CommandHandlerRegistry() {
+
+            @Override
+            public <C extends Command<R>, R extends Result> CommandHandler<C, R> findHandler(final C command) {
+                final CommandHandler<?, ?> handler = command instanceof BatchCommand ? batchHandler : insertUserHandler;
+                return (CommandHandler<C, R>) handler;
+            }
+
+            @Override
+            public void clearHandlers() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void warmUp() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <C extends Command<R>, R extends Result> void addHandlerClass(final Class<C> commandClass,
+                                                                                final Class<? extends CommandHandler<C, R>> handlerClass) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <C extends Command<R>, R extends Result> void removeHandlerClass(final Class<C> commandClass,
+                                                                                   final Class<? extends CommandHandler<C, R>> handlerClass) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Creates a session validator granting every command.
+     */
+    private static SecureSessionValidator grantingSessionValidator() {
+        return (SecureSessionValidator) Proxy.newProxyInstance(SavepointTransactionTest.class.getClassLoader(),
+                new Class<?>[]{SecureSessionValidator.class}, (proxy, method, args) -> {
+                    if ("isUserGranted".equals(method.getName())) {
+                        return true;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Creates a dispatch request, without cookies and only a {@code Referer} header.
+     */
+    private static HttpServletRequest request() {
+        return (HttpServletRequest) Proxy.newProxyInstance(SavepointTransactionTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> "getHeader".equals(method.getName()) && "Referer".equals(args[0]) ? "http://localhost/" : null);
+    }
+
+    private boolean userExists(final String login) {
+        return ((Number) em().createNativeQuery("SELECT COUNT(*) FROM t_user_us WHERE us_login = ?")
+                             .setParameter(1, login)
+                             .getSingleResult()).longValue() > 0L;
+    }
+
+}
@@ -0,0 +1,203 @@
+package dco.app.blog.server.file;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+/**
+ * Tests the {@link FileStorage} content-addressed storage.
+ *
+ * @author Denis
+ */
+public class FileStorageTest {
+
+    /**
+     * SHA-256 hash of {@code "Hello"}.
+     */
+    private static final String HELLO_HASH = "185f8db32271fe25f561a6fc938b2e264306ec304eda518007d1764826381969";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private FileStorage fileStorage;
+
+    @Before
+    public void createStorage() throws IOException {
+        fileStorage = new FileStorage(folder.newFolder("files").toPath());
+    }
+
+    @Test
+    public void testStore() throws IOException {
+
+        final FileStorage.StoredFile storedFile = fileStorage.store(content("Hello"), "Photo.JPG");
+
+        Assert.assertEquals("18/5f/" + HELLO_HASH + ".jpg", storedFile.getId());
+        Assert.assertEquals(5L, storedFile.getSize());
+        Assert.assertTrue(storedFile.isCreated());
+
+        final Path file = fileStorage.resolve(storedFile.getId());
+        Assert.assertNotNull(file);
+        Assert.assertEquals("Hello", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        Assert.assertEquals(HELLO_HASH, FileStorage.getContentHash(file));
+
+        // Invalid extensions are dropped.
+        Assert.assertEquals("18/5f/" + HELLO_HASH, fileStorage.store(content("Hello"), "../script.j$").getId());
+
+        // Active documents extensions are dropped.
+        Assert.assertEquals("18/5f/" + HELLO_HASH, fileStorage.store(content("Hello"), "page.html").getId());
+        Assert.assertEquals("18/5f/" + HELLO_HASH, fileStorage.store(content("Hello"), "drawing.SVG").getId());
+        Assert.assertEquals("18/5f/" + HELLO_HASH, fileStorage.store(content("Hello"), "page.xhtml").getId());
+        Assert.assertEquals("18/5f/" + HELLO_HASH, fileStorage.store(content("Hello"), "script.js").getId());
+
+        Assert.assertEquals(0L, countTemporaryFiles());
+    }
+
+    @Test
+    public void testGetContentHash() {
+
+        Assert.assertEquals(HELLO_HASH, FileStorage.getContentHash(Paths.get("18", "5f", HELLO_HASH)));
+        Assert.assertEquals(HELLO_HASH, FileStorage.getContentHash(Paths.get("18", "5f", HELLO_HASH + ".pdf")));
+
+        // Files not stored by content.
+        Assert.assertNull(FileStorage.getContentHash(Paths.get("photos", "holidays.jpg")));
+        Assert.assertNull(FileStorage.getContentHash(Paths.get(HELLO_HASH.toUpperCase())));
+        Assert.assertNull(FileStorage.getContentHash(Paths.get(HELLO_HASH.substring(1) + ".jpg")));
+    }
+
+    @Test
+    public void testStoreDeduplicates() throws IOException {
+
+        final FileStorage.StoredFile first = fileStorage.store(content("Hello"), "hello.txt");
+        final FileStorage.StoredFile second = fileStorage.store(content("Hello"), "other.txt");
+
+        Assert.assertEquals(first.getId(), second.getId());
+        Assert.assertTrue(first.isCreated());
+        Assert.assertFalse(second.isCreated());
+        Assert.assertNotNull(fileStorage.resolve(first.getId()));
+
+        Assert.assertEquals(0L, countTemporaryFiles());
+    }
+
+    @Test
+    public void testStageAndPublish() throws IOException {
+
+        final FileStorage.StagedFile first = fileStorage.stage(content("Hello"), "hello.txt");
+        final FileStorage.StagedFile second = fileStorage.stage(content("Hello"), "hello.txt");
+
+        // Staged files are not reachable until published.
+        Assert.assertEquals("18/5f/" + HELLO_HASH + ".txt", first.getId());
+        Assert.assertNull(fileStorage.resolve(first.getId()));
+        Assert.assertEquals(2L, countTemporaryFiles());
+
+        // Both staged before either is published: the second one never replaces the first one.
+        Assert.assertTrue(fileStorage.publish(first).isCreated());
+        Assert.assertFalse(fileStorage.publish(second).isCreated());
+        Assert.assertNotNull(fileStorage.resolve(first.getId()));
+
+        Assert.assertEquals(0L, countTemporaryFiles());
+    }
+
+    @Test
+    public void testDiscardKeepsStoredFiles() throws IOException {
+
+        final FileStorage.StoredFile storedFile = fileStorage.store(content("Hello"), "hello.txt");
+
+        // An aborted request having staged the same content only discards its temporary file.
+        final FileStorage.StagedFile stagedFile = fileStorage.stage(content("Hello"), "hello.txt");
+        fileStorage.discard(stagedFile);
+
+        Assert.assertNotNull(fileStorage.resolve(storedFile.getId()));
+        Assert.assertEquals(0L, countTemporaryFiles());
+
+        // Discarding a published file is a no-op.
+        final FileStorage.StagedFile publishedFile = fileStorage.stage(content("World"), null);
+        fileStorage.publish(publishedFile);
+        fileStorage.discard(publishedFile);
+
+        Assert.assertNotNull(fileStorage.resolve(publishedFile.getId()));
+    }
+
+    @Test
+    public void testStoreFailureDeletesTemporaryFile() {
+
+        final InputStream failingInput = new InputStream() {
+
+            private int read;
+
+            @Override
+            public int read() throws IOException {
+                if (++read > 100) {
+                    throw new IOException("Upload aborted.");
+                }
+                return 'a';
+            }
+        };
+
+        try {
+            fileStorage.store(failingInput, "file.txt");
+            Assert.fail("Unreadable content must not be stored.");
+        } catch (final IOException e) {
+            // Expected.
+        }
+
+        Assert.assertEquals(0L, countTemporaryFiles());
+    }
+
+    @Test
+    public void testResolveRejectsOutsideFiles() throws IOException {
+
+        Files.write(folder.newFile("outside.txt").toPath(), new byte[]{1});
+        final String fileId = fileStorage.store(content("Hello"), null).getId();
+
+        Assert.assertNotNull(fileStorage.resolve(fileId));
+        Assert.assertNull(fileStorage.resolve(null));
+        Assert.assertNull(fileStorage.resolve("18/5f/unknown"));
+        Assert.assertNull(fileStorage.resolve("18/../../outside.txt"));
+        Assert.assertNull(fileStorage.resolve("18/5f/../../.tmp"));
+    }
+
+    @Test
+    public void testResolveRejectsTemporaryFilesOfRelativeStorage() throws IOException {
+
+        final Path directory = folder.newFolder("relative").toPath();
+        final FileStorage relativeStorage = new FileStorage(Paths.get("").toAbsolutePath().relativize(directory));
+
+        final FileStorage.StagedFile stagedFile = relativeStorage.stage(content("Hello"), null);
+        final String temporaryFileId = ".tmp/" + directory.resolve(".tmp").toFile().list()[0];
+
+        Assert.assertNull(relativeStorage.resolve(temporaryFileId));
+
+        relativeStorage.discard(stagedFile);
+    }
+
+    private static InputStream content(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long countTemporaryFiles() {
+
+        final Path temporaryDirectory = fileStorage.getRoot().resolve(".tmp");
+
+        if (!Files.isDirectory(temporaryDirectory)) {
+            return 0L;
+        }
+
+        try (final Stream<Path> files = Files.list(temporaryDirectory)) {
+            return files.count();
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
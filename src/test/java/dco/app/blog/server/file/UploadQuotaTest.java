@@ -0,0 +1,123 @@
+package dco.app.blog.server.file;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the {@link UploadQuota} per-user upload budget.
+ *
+ * @author Denis
+ */
+public class UploadQuotaTest {
+
+    @Test
+    public void testBudgetIsEnforcedPerUser() throws IOException {
+
+        final UploadQuota uploadQuota = new UploadQuota(100L, TimeUnit.HOURS.toMillis(1L));
+
+        Assert.assertEquals(60L, read(uploadQuota.limit(content(60), 1L)));
+        Assert.assertEquals(40L, read(uploadQuota.limit(content(40), 1L)));
+
+        // Budget exceeded while reading.
+        try {
+            read(uploadQuota.limit(content(10), 1L));
+            Assert.fail("Upload exceeding the user budget must be aborted.");
+        } catch (final UploadQuota.QuotaExceededException e) {
+            // Expected.
+        }
+
+        // Other users and anonymous uploads have their own budget.
+        Assert.assertEquals(100L, read(uploadQuota.limit(content(100), 2L)));
+        Assert.assertEquals(500L, read(uploadQuota.limit(content(500), null)));
+
+        final Map<String, Object> metrics = new HashMap<>();
+        uploadQuota.collect(metrics);
+        Assert.assertEquals(2, metrics.get("files.upload.users"));
+        Assert.assertEquals(1L, metrics.get("files.upload.rejected"));
+    }
+
+    @Test
+    public void testBudgetIsRestoredByNextWindow() throws IOException, InterruptedException {
+
+        final UploadQuota uploadQuota = new UploadQuota(100L, 50L);
+
+        Assert.assertEquals(100L, read(uploadQuota.limit(content(100), 1L)));
+
+        Thread.sleep(100L);
+
+        Assert.assertEquals(100L, read(uploadQuota.limit(content(100), 1L)));
+    }
+
+    @Test
+    public void testBudgetIsSharedByConcurrentUploads() throws InterruptedException {
+
+        final UploadQuota uploadQuota = new UploadQuota(10_000L, TimeUnit.HOURS.toMillis(1L));
+        final AtomicLong accepted = new AtomicLong();
+        final AtomicInteger aborted = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] uploads = new Thread[8];
+
+        // 8 concurrent uploads of 2 000 bytes by the same user, read byte by byte.
+        for (int i = 0; i < uploads.length; i++) {
+            uploads[i] = new Thread(() -> {
+                final InputStream input = uploadQuota.limit(content(2_000), 1L);
+                try {
+                    start.await();
+                    while (input.read() >= 0) {
+                        accepted.incrementAndGet();
+                    }
+                } catch (final UploadQuota.QuotaExceededException e) {
+                    aborted.incrementAndGet();
+                } catch (final IOException | InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            uploads[i].start();
+        }
+
+        start.countDown();
+        for (final Thread upload : uploads) {
+            upload.join();
+        }
+
+        // Each accepted byte has been checked against the user total, whatever the upload reading it.
+        Assert.assertEquals(10_000L, accepted.get());
+        Assert.assertTrue(aborted.get() > 0);
+    }
+
+    @Test
+    public void testDisabledBudget() throws IOException {
+
+        final InputStream input = content(1000);
+
+        Assert.assertSame(input, new UploadQuota(-1L, TimeUnit.HOURS.toMillis(1L)).limit(input, 1L));
+    }
+
+    private static InputStream content(final int size) {
+        return new ByteArrayInputStream(new byte[size]);
+    }
+
+    private static long read(final InputStream input) throws IOException {
+
+        final byte[] buffer = new byte[16];
+        long total = 0L;
+        int read;
+
+        while ((read = input.read(buffer)) >= 0) {
+            total += read;
+        }
+
+        return total;
+    }
+
+}
@@ -0,0 +1,49 @@
+package dco.app.blog.server.metrics;
+
+import com.google.inject.Inject;
+import dco.app.blog.server.dao.AbstractDAOTest;
+import dco.app.blog.server.dao.PostDAO;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Connection pools metrics tests.
+ *
+ * @author Denis
+ */
+public class ConnectionPoolMetricsTest extends AbstractDAOTest {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPoolMetricsTest.class);
+
+    @Inject
+    private ConnectionPoolMetrics connectionPoolMetrics;
+
+    @Inject
+    private PostDAO postDAO;
+
+    @Test
+    public void testCollect() {
+
+        postDAO.countAll();
+
+        final Map<String, Object> metrics = new TreeMap<>();
+        connectionPoolMetrics.collect(metrics);
+
+        LOGGER.debug("Connection pool metrics: {}", metrics);
+
+        Assert.assertEquals(15, metrics.get("pool.primary.max"));
+        Assert.assertTrue((Long) metrics.get("pool.primary.acquire.count") > 0L);
+        Assert.assertEquals(0L, metrics.get("pool.primary.acquire.timeouts"));
+        Assert.assertEquals(0, metrics.get("pool.primary.waiting"));
+        Assert.assertTrue((Integer) metrics.get("pool.primary.total") >= (Integer) metrics.get("pool.primary.idle"));
+    }
+
+}
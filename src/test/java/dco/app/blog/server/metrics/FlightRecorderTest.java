@@ -0,0 +1,129 @@
+package dco.app.blog.server.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flight recorder tests.
+ *
+ * @author Denis
+ */
+public class FlightRecorderTest {
+
+    /**
+     * Fast execution duration (in nanoseconds).
+     */
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    /**
+     * Slow execution duration (in nanoseconds).
+     */
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2L);
+
+    @Test
+    public void testDisabled() {
+
+        final FlightRecorder recorder = new FlightRecorder(0, 1, 1L, TimeUnit.SECONDS);
+        recorder.record(FlightRecorderTest.class, 1L, null, CommandMetrics.Outcome.SUCCESS, FAST);
+
+        Assert.assertEquals(0, recorder.getSize());
+        Assert.assertEquals(0L, recorder.getRecordedCount());
+        Assert.assertEquals("Flight recorder is disabled.\n", recorder.dump());
+    }
+
+    @Test
+    public void testWrapAround() {
+
+        final FlightRecorder recorder = new FlightRecorder(3, 1, 1L, TimeUnit.SECONDS);
+
+        // Slots not written yet are skipped.
+        recorder.record(FlightRecorderTest.class, 1L, null, CommandMetrics.Outcome.SUCCESS, FAST);
+        recorder.record(FlightRecorderTest.class, 2L, null, CommandMetrics.Outcome.SUCCESS, FAST);
+        assertUsers(recorder.dump(), 2L, 1L);
+
+        // The oldest records are overwritten, most recent first.
+        for (long userId = 3L; userId <= 7L; userId++) {
+            recorder.record(FlightRecorderTest.class, userId, null, CommandMetrics.Outcome.SUCCESS, FAST);
+        }
+
+        Assert.assertEquals(3, recorder.getSize());
+        Assert.assertEquals(7L, recorder.getRecordedCount());
+        assertUsers(recorder.dump(), 7L, 6L, 5L);
+    }
+
+    @Test
+    public void testDumpSkipsOverwrittenRecords() throws IOException {
+
+        final FlightRecorder recorder = new FlightRecorder(3, 1, 1L, TimeUnit.SECONDS);
+
+        for (long userId = 1L; userId <= 3L; userId++) {
+            recorder.record(FlightRecorderTest.class, userId, null, CommandMetrics.Outcome.SUCCESS, FAST);
+        }
+
+        // A new execution is recorded while the first line is dumped: it overwrites the oldest slot, which is read last.
+        final StringBuilder builder = new StringBuilder();
+        recorder.dump(new Appendable() {
+
+            @Override
+            public Appendable append(final CharSequence csq) {
+                builder.append(csq);
+                return this;
+            }
+
+            @Override
+            public Appendable append(final CharSequence csq, final int start, final int end) {
+                builder.append(csq, start, end);
+                return this;
+            }
+
+            @Override
+            public Appendable append(final char c) {
+                builder.append(c);
+                if (c == '\n' && recorder.getRecordedCount() == 3L) {
+                    recorder.record(FlightRecorderTest.class, 4L, null, CommandMetrics.Outcome.SUCCESS, FAST);
+                }
+                return this;
+            }
+        });
+
+        // The more recent record is not dumped in place of the overwritten one.
+        assertUsers(builder.toString(), 3L, 2L);
+        assertUsers(recorder.dump(), 4L, 3L, 2L);
+    }
+
+    @Test
+    public void testFailedAndSlowExecutionsAreAlwaysRecorded() {
+
+        // Virtually no successful execution is sampled.
+        final FlightRecorder recorder = new FlightRecorder(8, Integer.MAX_VALUE, 1L, TimeUnit.SECONDS);
+
+        recorder.record(FlightRecorderTest.class, 1L, null, CommandMetrics.Outcome.COMMAND_ERROR, FAST);
+        recorder.record(FlightRecorderTest.class, 2L, null, CommandMetrics.Outcome.FUNCTIONAL_ERROR, FAST);
+        recorder.record(FlightRecorderTest.class, 3L, null, CommandMetrics.Outcome.SUCCESS, SLOW);
+
+        Assert.assertEquals(3L, recorder.getRecordedCount());
+
+        final String dump = recorder.dump();
+        assertUsers(dump, 3L, 2L, 1L);
+        Assert.assertTrue(dump.contains("outcome=SUCCESS"));
+        Assert.assertTrue(dump.contains("outcome=COMMAND_ERROR"));
+        Assert.assertTrue(dump.contains("duration_us=" + TimeUnit.NANOSECONDS.toMicros(SLOW)));
+    }
+
+    /**
+     * Asserts that the given {@code dump} holds one line per given user id, in the given order.
+     */
+    private static void assertUsers(final String dump, final Long... userIds) {
+
+        final String[] lines = dump.split("\n");
+        Assert.assertEquals(dump, userIds.length, lines.length);
+
+        for (int i = 0; i < userIds.length; i++) {
+            Assert.assertTrue(lines[i], lines[i].contains(" user=" + userIds[i] + ' '));
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package dco.app.blog.server.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histogram tests.
+ *
+ * @author Denis
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundaries() {
+
+        // Values below the sub-buckets count have their own exact bucket.
+        Assert.assertEquals(0, LatencyHistogram.bucket(0L));
+        Assert.assertEquals(0L, LatencyHistogram.upperBound(0));
+        Assert.assertEquals(7, LatencyHistogram.bucket(7L));
+        Assert.assertEquals(7L, LatencyHistogram.upperBound(7));
+
+        // [8, 16[ is still exact.
+        Assert.assertEquals(8, LatencyHistogram.bucket(8L));
+        Assert.assertEquals(8L, LatencyHistogram.upperBound(8));
+        Assert.assertEquals(15, LatencyHistogram.bucket(15L));
+        Assert.assertEquals(15L, LatencyHistogram.upperBound(15));
+
+        // From 16, buckets get two values wide.
+        Assert.assertEquals(16, LatencyHistogram.bucket(16L));
+        Assert.assertEquals(16, LatencyHistogram.bucket(17L));
+        Assert.assertEquals(17L, LatencyHistogram.upperBound(16));
+        Assert.assertEquals(17, LatencyHistogram.bucket(18L));
+
+        // The highest value is the upper bound of the last bucket.
+        final int last = LatencyHistogram.bucket(LatencyHistogram.HIGHEST_VALUE);
+        Assert.assertEquals(LatencyHistogram.HIGHEST_VALUE, LatencyHistogram.upperBound(last));
+        Assert.assertEquals(LatencyHistogram.HIGHEST_VALUE - (1L << 32), LatencyHistogram.upperBound(last - 1));
+    }
+
+    @Test
+    public void testBucketRelativeError() {
+
+        int previous = 0;
+
+        for (long value = 0L; value < 1L << 16; value++) {
+            final int bucket = LatencyHistogram.bucket(value);
+            final long upperBound = LatencyHistogram.upperBound(bucket);
+
+            // Buckets are contiguous and the upper bound is at most 12.5% above the value.
+            Assert.assertTrue(bucket == previous || bucket == previous + 1);
+            Assert.assertTrue(upperBound >= value);
+            Assert.assertTrue(upperBound - value <= value / 8);
+            previous = bucket;
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+
+        final LatencyHistogram histogram = new LatencyHistogram(1, 10, TimeUnit.SECONDS);
+
+        // Records 1 to 100 microseconds.
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i), 0L);
+        }
+
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot(0L);
+
+        Assert.assertEquals(100L, snapshot.getCount());
+        Assert.assertEquals(100L, snapshot.getMax());
+        // Rank 50 is in bucket [48, 51].
+        Assert.assertEquals(51L, snapshot.getP50());
+        // Rank 90 is in bucket [88, 95].
+        Assert.assertEquals(95L, snapshot.getP90());
+        // Rank 99 is in bucket [96, 103], capped by the max.
+        Assert.assertEquals(100L, snapshot.getP99());
+    }
+
+    @Test
+    public void testPercentileRanks() {
+
+        final long[] counts = new long[LatencyHistogram.bucket(LatencyHistogram.HIGHEST_VALUE) + 1];
+        counts[1] = 1L;
+        counts[5] = 1L;
+
+        Assert.assertEquals(0L, LatencyHistogram.percentile(new long[counts.length], 0L, 0.5, 0L));
+        // The lowest rank is 1.
+        Assert.assertEquals(1L, LatencyHistogram.percentile(counts, 2L, 0.0, 5L));
+        Assert.assertEquals(1L, LatencyHistogram.percentile(counts, 2L, 0.5, 5L));
+        Assert.assertEquals(5L, LatencyHistogram.percentile(counts, 2L, 0.51, 5L));
+        Assert.assertEquals(5L, LatencyHistogram.percentile(counts, 2L, 1.0, 5L));
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+
+        final LatencyHistogram histogram = new LatencyHistogram(1, 10, TimeUnit.SECONDS);
+        histogram.record(-1L, 0L);
+        histogram.record(Long.MAX_VALUE, 0L);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot(0L);
+
+        Assert.assertEquals(2L, snapshot.getCount());
+        Assert.assertEquals(0L, snapshot.getP50());
+        Assert.assertEquals(LatencyHistogram.HIGHEST_VALUE, snapshot.getMax());
+    }
+
+    @Test
+    public void testWindowExpiry() {
+
+        // 10 slices of 100 ms.
+        final LatencyHistogram histogram = new LatencyHistogram(1, 10, TimeUnit.SECONDS);
+        final long slice = TimeUnit.MILLISECONDS.toNanos(100L);
+
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(10L), 0L);
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(20L), 5 * slice);
+
+        // Both values are in the window until the end of the last slice.
+        Assert.assertEquals(2L, histogram.snapshot(10 * slice - 1).getCount());
+        Assert.assertEquals(20L, histogram.snapshot(10 * slice - 1).getMax());
+
+        // The first slice leaves the window.
+        final LatencyHistogram.Snapshot expired = histogram.snapshot(10 * slice);
+        Assert.assertEquals(1L, expired.getCount());
+        Assert.assertEquals(20L, expired.getMax());
+        Assert.assertEquals(20L, expired.getP50());
+
+        // The first slice is reused for a new period: the expired value is not counted again.
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(30L), 10 * slice);
+        final LatencyHistogram.Snapshot rolled = histogram.snapshot(10 * slice);
+        Assert.assertEquals(2L, rolled.getCount());
+        Assert.assertEquals(30L, rolled.getMax());
+
+        // Nothing is left once the whole window has elapsed.
+        Assert.assertEquals(0L, histogram.snapshot(20 * slice).getCount());
+        Assert.assertEquals(0L, histogram.snapshot(20 * slice).getMax());
+    }
+
+}
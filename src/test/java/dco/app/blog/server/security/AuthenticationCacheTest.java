@@ -0,0 +1,111 @@
+package dco.app.blog.server.security;
+
+import com.google.inject.Inject;
+import dco.app.blog.server.dao.AbstractDAOTest;
+import dco.app.blog.server.dao.AuthenticationDAO;
+import dco.app.blog.server.model.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link AuthenticationCache}.
+ *
+ * @author Denis
+ */
+public class AuthenticationCacheTest extends AbstractDAOTest {
+
+    @Inject
+    private AuthenticationCache authenticationCache;
+
+    @Inject
+    private AuthenticationDAO authenticationDAO;
+
+    @Test
+    public void testGetUserReturnsDetachedCopies() {
+
+        authenticationCache.clear();
+
+        insertUser();
+        insertAuthentication("token", new Date());
+
+        final User user = authenticationCache.getUser("token");
+
+        Assert.assertNotNull(user);
+        Assert.assertEquals(Long.valueOf(1L), user.getId());
+        Assert.assertEquals("login", user.getLogin());
+        Assert.assertFalse(em().contains(user));
+
+        // Cached user is never shared with (nor altered by) its callers.
+        user.setLogin("altered");
+
+        final User cachedUser = authenticationCache.getUser("token");
+
+        Assert.assertNotSame(user, cachedUser);
+        Assert.assertEquals("login", cachedUser.getLogin());
+        Assert.assertFalse(em().contains(cachedUser));
+    }
+
+    @Test
+    public void testExpiredSessionsAreRejected() {
+
+        final long expiration = TimeUnit.DAYS.toMillis(14L);
+        final long now = TimeUnit.DAYS.toMillis(20000L);
+        final TestClock clock = new TestClock(now);
+        final AuthenticationCache cache = new AuthenticationCache(authenticationDAO, expiration, clock);
+
+        insertUser();
+        insertAuthentication("expired-token", new Date(now - expiration - 1000L));
+        insertAuthentication("expiring-token", new Date(now - expiration + 1000L));
+
+        // Expired session, not removed yet by the sessions activity job.
+        Assert.assertNull(cache.getUser("expired-token"));
+
+        // Cached session expiring meanwhile.
+        Assert.assertNotNull(cache.getUser("expiring-token"));
+        clock.millis += 999L;
+        Assert.assertNotNull(cache.getUser("expiring-token"));
+        clock.millis += 1L;
+        Assert.assertNull(cache.getUser("expiring-token"));
+    }
+
+    /**
+     * Clock set by the test.
+     */
+    private static final class TestClock extends Clock {
+
+        private long millis;
+
+        private TestClock(final long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package dco.app.blog.server.security;
+
+import com.google.inject.Inject;
+import dco.app.blog.server.dao.AbstractDAOTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link SessionActivityTracker} write-behind of the sessions activity.
+ *
+ * @author Denis
+ */
+public class SessionActivityTrackerTest extends AbstractDAOTest {
+
+    @Inject
+    private SessionActivityTracker sessionActivityTracker;
+
+    @Test
+    public void testFlushAndPurge() {
+
+        final long now = System.currentTimeMillis();
+
+        insertUser();
+        insertAuthentication("active-token", new Date(now - TimeUnit.HOURS.toMillis(1L)));
+        insertAuthentication("expired-token", new Date(now - TimeUnit.DAYS.toMillis(30L)));
+
+        // Many touches of a session are coalesced into one pending timestamp.
+        for (int i = 0; i < 100; i++) {
+            sessionActivityTracker.touch("active-token");
+        }
+
+        Assert.assertEquals(1, metrics().get("sessions.activity.pending"));
+        Assert.assertEquals(1, sessionActivityTracker.flush());
+        Assert.assertEquals(0, metrics().get("sessions.activity.pending"));
+        Assert.assertEquals(0, sessionActivityTracker.flush());
+
+        Assert.assertTrue(getDateLastActive("active-token").getTime() >= now - TimeUnit.SECONDS.toMillis(1L));
+
+        // Only the session inactive for longer than the sessions expiration is removed.
+        Assert.assertEquals(1, sessionActivityTracker.purge());
+        Assert.assertNotNull(getDateLastActive("active-token"));
+        Assert.assertNull(getDateLastActive("expired-token"));
+        Assert.assertEquals(1L, metrics().get("sessions.purged"));
+    }
+
+    private Map<String, Object> metrics() {
+        final Map<String, Object> metrics = new HashMap<>();
+        sessionActivityTracker.collect(metrics);
+        return metrics;
+    }
+
+    private Date getDateLastActive(final String token) {
+        return (Date) em().createNativeQuery("SELECT au_date_last_active FROM t_authentication_au WHERE au_id = ?")
+                          .setParameter(1, token)
+                          .getResultList()
+                          .stream()
+                          .findFirst()
+                          .orElse(null);
+    }
+
+}
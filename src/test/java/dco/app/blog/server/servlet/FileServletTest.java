@@ -0,0 +1,149 @@
+package dco.app.blog.server.servlet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Proxy;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Tests the {@link FileServlet} ranges, conditional requests and content disposition handling.
+ *
+ * @author Denis
+ */
+public class FileServletTest {
+
+    private static final String ETAG = "\"64-14f6e1b5c00\"";
+
+    private static final long LAST_MODIFIED = 1441000000000L;
+
+    @Test
+    public void testParseRange() {
+
+        Assert.assertNull(FileServlet.parseRange(null, 100L));
+        Assert.assertArrayEquals(new long[]{0L, 9L}, FileServlet.parseRange("bytes=0-9", 100L));
+        Assert.assertArrayEquals(new long[]{90L, 99L}, FileServlet.parseRange("bytes=90-", 100L));
+        Assert.assertArrayEquals(new long[]{90L, 99L}, FileServlet.parseRange("bytes=-10", 100L));
+        Assert.assertArrayEquals(new long[]{0L, 99L}, FileServlet.parseRange("bytes=-500", 100L));
+        Assert.assertArrayEquals(new long[]{50L, 99L}, FileServlet.parseRange("bytes=50-500", 100L));
+
+        // Unsatisfiable ranges.
+        Assert.assertSame(FileServlet.UNSATISFIABLE_RANGE, FileServlet.parseRange("bytes=100-", 100L));
+        Assert.assertSame(FileServlet.UNSATISFIABLE_RANGE, FileServlet.parseRange("bytes=9-0", 100L));
+        Assert.assertSame(FileServlet.UNSATISFIABLE_RANGE, FileServlet.parseRange("bytes=-0", 100L));
+        Assert.assertSame(FileServlet.UNSATISFIABLE_RANGE, FileServlet.parseRange("bytes=0-", 0L));
+
+        // Invalid or unsupported ranges are ignored.
+        Assert.assertNull(FileServlet.parseRange("bytes=0-9,20-29", 100L));
+        Assert.assertNull(FileServlet.parseRange("items=0-9", 100L));
+        Assert.assertNull(FileServlet.parseRange("bytes=9", 100L));
+        Assert.assertNull(FileServlet.parseRange("bytes=a-b", 100L));
+    }
+
+    @Test
+    public void testIsRangeApplicable() {
+
+        Assert.assertTrue(FileServlet.isRangeApplicable(request(), ETAG, LAST_MODIFIED));
+
+        Assert.assertTrue(FileServlet.isRangeApplicable(request("If-Range", ETAG), ETAG, LAST_MODIFIED));
+        Assert.assertFalse(FileServlet.isRangeApplicable(request("If-Range", "\"other\""), ETAG, LAST_MODIFIED));
+
+        Assert.assertTrue(FileServlet.isRangeApplicable(request("If-Range", httpDate(LAST_MODIFIED)), ETAG, LAST_MODIFIED));
+        Assert.assertFalse(FileServlet.isRangeApplicable(request("If-Range", httpDate(LAST_MODIFIED - 1000L)), ETAG, LAST_MODIFIED));
+        Assert.assertFalse(FileServlet.isRangeApplicable(request("If-Range", "not a date"), ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    public void testIsNotModified() {
+
+        Assert.assertFalse(FileServlet.isNotModified(request(), ETAG, LAST_MODIFIED));
+
+        // Entity tags.
+        Assert.assertTrue(FileServlet.isNotModified(request("If-None-Match", ETAG), ETAG, LAST_MODIFIED));
+        Assert.assertTrue(FileServlet.isNotModified(request("If-None-Match", "\"other\", W/" + ETAG), ETAG, LAST_MODIFIED));
+        Assert.assertTrue(FileServlet.isNotModified(request("If-None-Match", "*"), ETAG, LAST_MODIFIED));
+        Assert.assertFalse(FileServlet.isNotModified(request("If-None-Match", "\"other\""), ETAG, LAST_MODIFIED));
+
+        // Dates.
+        Assert.assertTrue(FileServlet.isNotModified(request("If-Modified-Since", httpDate(LAST_MODIFIED)), ETAG, LAST_MODIFIED));
+        Assert.assertFalse(FileServlet.isNotModified(request("If-Modified-Since", httpDate(LAST_MODIFIED - 1000L)), ETAG, LAST_MODIFIED));
+        Assert.assertFalse(FileServlet.isNotModified(request("If-Modified-Since", "not a date"), ETAG, LAST_MODIFIED));
+
+        // Entity tags take precedence over dates.
+        Assert.assertFalse(FileServlet.isNotModified(request("If-None-Match", "\"other\"", "If-Modified-Since", httpDate(LAST_MODIFIED)), ETAG,
+                LAST_MODIFIED));
+    }
+
+    @Test
+    public void testIsInline() {
+
+        Assert.assertTrue(FileServlet.isInline("image/jpeg"));
+        Assert.assertTrue(FileServlet.isInline("Video/MP4"));
+        Assert.assertTrue(FileServlet.isInline("audio/mpeg"));
+
+        // Active or unknown contents are downloaded.
+        Assert.assertFalse(FileServlet.isInline("image/svg+xml"));
+        Assert.assertFalse(FileServlet.isInline("text/html"));
+        Assert.assertFalse(FileServlet.isInline("application/xhtml+xml"));
+        Assert.assertFalse(FileServlet.isInline("application/javascript"));
+        Assert.assertFalse(FileServlet.isInline("application/pdf"));
+        Assert.assertFalse(FileServlet.isInline("application/octet-stream"));
+        Assert.assertFalse(FileServlet.isInline(null));
+    }
+
+    /**
+     * Creates a request carrying the given headers.
+     *
+     * @param headers
+     *         The headers names and values.
+     * @return The request.
+     */
+    private static HttpServletRequest request(final String... headers) {
+
+        final Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            values.put(headers[i], headers[i + 1]);
+        }
+
+        return (HttpServletRequest) Proxy.newProxyInstance(FileServletTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+
+                        case "getHeader":
+                            return values.get((String) args[0]);
+
+                        case "getDateHeader":
+                            final String value = values.get((String) args[0]);
+                            if (value == null) {
+                                return -1L;
+                            }
+                            try {
+                                return dateFormat().parse(value).getTime();
+                            } catch (final ParseException e) {
+                                throw new IllegalArgumentException(value, e);
+                            }
+
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static String httpDate(final long date) {
+        return dateFormat().format(new Date(date));
+    }
+
+    private static SimpleDateFormat dateFormat() {
+        final SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format;
+    }
+
+}
@@ -0,0 +1,90 @@
+package dco.app.blog.server.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link BoundedCache}.
+ *
+ * @author Denis
+ */
+public class BoundedCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+
+        // Less than 32 entries: a single segment.
+        final BoundedCache<Integer, String> cache = new BoundedCache<>(3, 0L, TimeUnit.SECONDS);
+
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.put(3, "3");
+
+        // Entry 1 becomes the most recently used.
+        Assert.assertEquals("1", cache.get(1));
+
+        cache.put(4, "4");
+
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals("1", cache.get(1));
+        Assert.assertEquals("3", cache.get(3));
+        Assert.assertEquals("4", cache.get(4));
+
+        final BoundedCache.Statistics statistics = cache.getStatistics();
+        Assert.assertEquals(1L, statistics.getEvictions());
+        Assert.assertEquals(3, statistics.getSize());
+        Assert.assertEquals(4L, statistics.getHits());
+        Assert.assertEquals(1L, statistics.getMisses());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+
+        // 16 segments of 64 entries.
+        final BoundedCache<Integer, Integer> cache = new BoundedCache<>(1024, 0L, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 5000; i++) {
+            cache.put(i, i);
+        }
+
+        final BoundedCache.Statistics statistics = cache.getStatistics();
+        Assert.assertTrue(statistics.getSize() <= 1024);
+        Assert.assertEquals(5000L, statistics.getSize() + statistics.getEvictions());
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+
+        final BoundedCache<String, String> cache = new BoundedCache<>(10, 50L, TimeUnit.MILLISECONDS);
+
+        cache.put("a", "A");
+        Assert.assertEquals("A", cache.get("a"));
+
+        Thread.sleep(100L);
+
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(1L, cache.getStatistics().getExpirations());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRemove() {
+
+        final BoundedCache<String, String> cache = new BoundedCache<>(10, 0L, TimeUnit.SECONDS);
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", null);
+
+        cache.remove("a");
+        Assert.assertNull(cache.get("a"));
+
+        cache.removeIf((key, value) -> "B".equals(value));
+        Assert.assertNull(cache.get("b"));
+
+        Assert.assertEquals(0, cache.size());
+    }
+
+}
@@ -0,0 +1,205 @@
+package dco.app.blog.shared.security.impl;
+
+import dco.app.blog.client.navigation.Page;
+import dco.app.blog.server.model.User;
+import dco.app.blog.server.servlet.base.ServletExecutionContext;
+import dco.app.blog.shared.command.BatchCommand;
+import dco.app.blog.shared.command.SecureNavigationCommand;
+import dco.app.blog.shared.command.base.Command;
+import dco.app.blog.shared.servlet.Servlets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Compares the compiled {@link AccessRights} decision table with the former string tokens implementation (copied
+ * below as {@link LegacyAccessRights}).
+ * </p>
+ * <p>
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=dco.app.blog.shared.security.impl.AccessRightsBenchmark}.<br/>
+ * The legacy implementation logs a warning on each undeclared resource access ; the {@code *Missing} benchmarks
+ * therefore include the logging cost (as in production).
+ * </p>
+ *
+ * @author Denis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessRightsBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User();
+        user.setId(1L);
+        user.setActive(true);
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // COMPILED DECISION TABLE.
+    //
+    // --------------------------------------------------------------------------------
+
+    @Benchmark
+    public boolean compiledCommand() {
+        return AccessRights.commandPermission(SecureNavigationCommand.class).isGranted(user, null);
+    }
+
+    @Benchmark
+    public boolean compiledPage() {
+        return AccessRights.pagePermission(Page.HOME).isGranted(user, null);
+    }
+
+    @Benchmark
+    public boolean compiledPageMissing() {
+        return AccessRights.pagePermission(Page.TRIPS).isGranted(user, null);
+    }
+
+    @Benchmark
+    public boolean compiledServletMissing() {
+        return AccessRights.servletPermission(Servlets.Servlet.FILE, Servlets.ServletMethod.DOWNLOAD).isGranted(user, null);
+    }
+
+    // --------------------------------------------------------------------------------
+    //
+    // LEGACY IMPLEMENTATION.
+    //
+    // --------------------------------------------------------------------------------
+
+    @Benchmark
+    public boolean legacyCommand() {
+        return LegacyAccessRights.isGranted(user, LegacyAccessRights.commandToken(SecureNavigationCommand.class), null);
+    }
+
+    @Benchmark
+    public boolean legacyPage() {
+        return LegacyAccessRights.isGranted(user, LegacyAccessRights.pageToken(Page.HOME), null);
+    }
+
+    @Benchmark
+    public boolean legacyPageMissing() {
+        return LegacyAccessRights.isGranted(user, LegacyAccessRights.pageToken(Page.TRIPS), null);
+    }
+
+    @Benchmark
+    public boolean legacyServletMissing() {
+        return LegacyAccessRights.isGranted(user, LegacyAccessRights.servletToken(Servlets.Servlet.FILE, Servlets.ServletMethod.DOWNLOAD), null);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args
+     *         Unused.
+     * @throws RunnerException
+     *         If the benchmark fails.
+     */
+    public static void main(final String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AccessRightsBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Former {@link AccessRights} implementation, resolving permissions from string tokens.
+     */
+    private static final class LegacyAccessRights {
+
+        private static final Logger LOG = LoggerFactory.getLogger(LegacyAccessRights.class);
+
+        private static final Map<String, GrantType> permissions = new HashMap<>();
+
+        private static final Set<String> grantedTokens = new HashSet<>();
+
+        private static final String MISSING_TOKEN = "*";
+
+        static {
+            sperm(MISSING_TOKEN, GrantType.BOTH);
+            sperm(pageToken(Page.LOGIN), GrantType.ANONYMOUS_ONLY);
+            sperm(pageToken(Page.HOME), GrantType.AUTHENTICATED_ONLY);
+
+            grantedTokens.add(commandToken(SecureNavigationCommand.class));
+            grantedTokens.add(commandToken(BatchCommand.class));
+        }
+
+        static boolean isGranted(final User user, final String token, final String originPageToken) {
+
+            if (grantedTokens.contains(token)) {
+                return true;
+            }
+
+            if (!permissions.containsKey(token)) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("No security permission can be found for token '{}'. Did you forget to declare corresponding 'sperm'?", token);
+                }
+                return isGranted(user, MISSING_TOKEN, originPageToken);
+            }
+
+            final GrantType grantType = permissions.get(token);
+
+            if (user == null || ServletExecutionContext.ANONYMOUS_USER.equals(user)) {
+                return grantType != null && grantType != GrantType.AUTHENTICATED_ONLY;
+            } else {
+                return grantType == null || grantType != GrantType.ANONYMOUS_ONLY;
+            }
+        }
+
+        static String servletToken(final Servlets.Servlet servlet, final Servlets.ServletMethod method) {
+            if (servlet == null || method == null) {
+                return null;
+            }
+            return servlet.name() + '#' + method.name();
+        }
+
+        @SuppressWarnings("rawtypes")
+        static String commandToken(final Class<? extends Command> commandClass) {
+            if (commandClass == null) {
+                return null;
+            }
+            return commandClass.getName();
+        }
+
+        static String pageToken(final Page page) {
+            if (page == null) {
+                return null;
+            }
+            return page.getToken();
+        }
+
+        private static enum GrantType {
+            ANONYMOUS_ONLY,
+            AUTHENTICATED_ONLY,
+            BOTH
+        }
+
+        private static void sperm(final String token, final GrantType grantType) {
+            permissions.put(token, grantType);
+        }
+
+    }
+
+}
@@ -1,4 +1,4 @@
-CREATE sequence hibernate_sequence START 1;
+CREATE sequence IF NOT EXISTS hibernate_sequence START 1 INCREMENT 50;
 
 CREATE TABLE t_post_po (
     po_id bigint not null,
@@ -11,12 +11,16 @@ CREATE TABLE t_post_po (
     CONSTRAINT pk_t_post_po PRIMARY KEY(po_id)
 );
 
+CREATE INDEX ix_po_creation_date_id ON t_post_po (creation_date DESC, po_id DESC);
+
 CREATE TABLE t_user_us (
     us_id bigint not null,
     us_name varchar not null,
     us_first_name varchar not null,
     us_login varchar not null,
     us_password varchar not null,
+    us_email varchar,
+    us_active boolean,
     creation_date timestamp not null,
     creation_user varchar,
     update_date timestamp,
@@ -1 +1,4 @@
-DROP ALL OBJECTS
\ No newline at end of file
+-- The sequence is kept: the pooled ids optimizer keeps its allocated block between tests.
+DROP TABLE IF EXISTS t_authentication_au;
+DROP TABLE IF EXISTS t_user_us;
+DROP TABLE IF EXISTS t_post_po;
\ No newline at end of file